@@ -0,0 +1,37 @@
+package com.peggir.SimpleDbUtil.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, so every result
+ * includes the allocation rate. Accepts the regular JMH command line
+ * options, e.g. a benchmark name pattern or {@code -p rows=100000}.
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * Not instantiable.
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args JMH command line options
+     * @throws CommandLineOptionException When the options are invalid
+     * @throws RunnerException            When a benchmark fails
+     */
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
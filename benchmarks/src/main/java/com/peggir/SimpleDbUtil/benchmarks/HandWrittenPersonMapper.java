@@ -0,0 +1,38 @@
+package com.peggir.SimpleDbUtil.benchmarks;
+
+import com.peggir.SimpleDbUtil.DbCallResultSetMapper;
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a {@link Person} by column label, the way the README suggests.
+ */
+public class HandWrittenPersonMapper implements DbCallResultSetMapper<Person> {
+
+    /**
+     * Maps the current row to a {@link Person}.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return Mapped person
+     * @throws DbCallResultSetMapperException When unable to read a column
+     */
+    @Override
+    public Person map(final ResultSet rs) throws DbCallResultSetMapperException {
+        try {
+            final Person person = new Person();
+            person.setId(rs.getInt("id"));
+            person.setName(rs.getString("name"));
+            person.setAge(rs.getInt("age"));
+            person.setStudent(rs.getBoolean("isStudent"));
+            final float score = rs.getFloat("score");
+            person.setScore(rs.wasNull() ? null : score);
+            person.setSubmissionDate(rs.getTimestamp("submissionDate"));
+            return person;
+        } catch (final SQLException e) {
+            throw new DbCallResultSetMapperException(DbCallResultSetMapperException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.peggir.SimpleDbUtil.benchmarks;
+
+import com.peggir.SimpleDbUtil.DbCall;
+import com.peggir.SimpleDbUtil.DbCallResultSetMapper;
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.BeanResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.BooleanResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.DateResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.DoubleResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.FloatResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.IntegerResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.LongResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks every built-in result set mapper, and the hand-written, bean
+ * and generated mappers of a full row, by mapping a page of
+ * {@link PersonTable#PAGE_SIZE} rows with {@link DbCall#getAll()}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final String PAGE = " FROM \"person\" WHERE \"id\" BETWEEN ? AND ?;";
+
+    @Benchmark
+    public List<String> stringMapper(final PersonTable table) throws DbCallException {
+        return page(table, "\"name\"", new StringResultSetMapper());
+    }
+
+    @Benchmark
+    public List<Integer> integerMapper(final PersonTable table) throws DbCallException {
+        return page(table, "\"age\"", new IntegerResultSetMapper());
+    }
+
+    @Benchmark
+    public List<Long> longMapper(final PersonTable table) throws DbCallException {
+        return page(table, "\"id\"", new LongResultSetMapper());
+    }
+
+    @Benchmark
+    public List<Float> floatMapper(final PersonTable table) throws DbCallException {
+        return page(table, "\"score\"", new FloatResultSetMapper());
+    }
+
+    @Benchmark
+    public List<Double> doubleMapper(final PersonTable table) throws DbCallException {
+        return page(table, "\"score\"", new DoubleResultSetMapper());
+    }
+
+    @Benchmark
+    public List<Boolean> booleanMapper(final PersonTable table) throws DbCallException {
+        return page(table, "\"isStudent\"", new BooleanResultSetMapper());
+    }
+
+    @Benchmark
+    public List<Date> dateMapper(final PersonTable table) throws DbCallException {
+        return page(table, "\"submissionDate\"", new DateResultSetMapper());
+    }
+
+    @Benchmark
+    public List<Person> handWrittenMapper(final PersonTable table) throws DbCallException {
+        return page(table, "*", new HandWrittenPersonMapper());
+    }
+
+    @Benchmark
+    public List<Person> beanMapper(final PersonTable table) throws DbCallException {
+        return page(table, "*", BeanResultSetMapper.of(Person.class));
+    }
+
+    @Benchmark
+    public List<Person> generatedMapper(final PersonTable table) throws DbCallException {
+        return page(table, "*", new PersonResultSetMapper());
+    }
+
+    /**
+     * Maps a random page of rows.
+     *
+     * @param table   Table to query
+     * @param columns Columns to select
+     * @param mapper  Mapper of a row
+     * @param <T>     Mapped type
+     * @return Mapped rows
+     * @throws DbCallException When the query fails
+     */
+    private static <T> List<T> page(final PersonTable table,
+                                    final String columns,
+                                    final DbCallResultSetMapper<T> mapper) throws DbCallException {
+        final int first = table.randomPage();
+        return new DbCall<>(table.database, mapper, "SELECT " + columns + PAGE, stmt -> {
+            stmt.setInt(1, first);
+            stmt.setInt(2, first + PersonTable.PAGE_SIZE - 1);
+        }).getAll();
+    }
+
+}
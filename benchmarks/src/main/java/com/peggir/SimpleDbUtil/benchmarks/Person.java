@@ -0,0 +1,70 @@
+package com.peggir.SimpleDbUtil.benchmarks;
+
+import com.peggir.SimpleDbUtil.processor.DbRow;
+
+import java.util.Date;
+
+/**
+ * Row of the {@code person} table, mapped by hand, by
+ * {@link com.peggir.SimpleDbUtil.resultSetMappers.BeanResultSetMapper} and
+ * by the generated {@code PersonResultSetMapper}.
+ */
+@DbRow
+public class Person {
+
+    private int id;
+    private String name;
+    private int age;
+    private boolean isStudent;
+    private Float score;
+    private Date submissionDate;
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(final int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(final int age) {
+        this.age = age;
+    }
+
+    public boolean isStudent() {
+        return isStudent;
+    }
+
+    public void setStudent(final boolean student) {
+        isStudent = student;
+    }
+
+    public Float getScore() {
+        return score;
+    }
+
+    public void setScore(final Float score) {
+        this.score = score;
+    }
+
+    public Date getSubmissionDate() {
+        return submissionDate;
+    }
+
+    public void setSubmissionDate(final Date submissionDate) {
+        this.submissionDate = submissionDate;
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.peggir.SimpleDbUtil.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import play.db.Database;
+import play.db.Databases;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Embedded H2 database with the {@code person} table of the test set, filled
+ * with generated rows.
+ */
+@State(Scope.Benchmark)
+public class PersonTable {
+
+    static final int PAGE_SIZE = 1000;
+
+    @Param({"100000", "1000000"})
+    int rows;
+
+    Database database;
+
+    /**
+     * Creates the database and fills the table.
+     *
+     * @throws IOException  When unable to read the schema
+     * @throws SQLException When unable to create or fill the table
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        database = Databases.inMemory(
+                "benchmark_database",
+                Collections.singletonMap("MODE", "PostgreSQL"),
+                Collections.<String, Object>singletonMap("logStatements", false));
+        try (final Connection conn = database.getConnection();
+             final Statement stmt = conn.createStatement()) {
+            stmt.execute(readSchema());
+        }
+
+        try (final Connection conn = database.getConnection();
+             final PreparedStatement stmt = conn.prepareStatement(
+                     "INSERT INTO \"person\" (\"id\", \"name\", \"age\", \"isStudent\", \"score\", \"submissionDate\") " +
+                             "SELECT X, 'Person ' || X, MOD(X, 90), MOD(X, 2) = 0, " +
+                             "CASE WHEN MOD(X, 10) = 0 THEN NULL ELSE MOD(X, 100) / 10.0 END, " +
+                             "DATEADD('SECOND', X, TIMESTAMP '2001-08-01 00:00:00') " +
+                             "FROM SYSTEM_RANGE(1, ?);")) {
+            stmt.setInt(1, rows);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Shuts the database down.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    /**
+     * Returns a random existing id.
+     *
+     * @return Id between 1 and the number of rows
+     */
+    int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, rows + 1);
+    }
+
+    /**
+     * Returns the first id of a random page of {@link #PAGE_SIZE} rows.
+     *
+     * @return Id of the first row of the page
+     */
+    int randomPage() {
+        return ThreadLocalRandom.current().nextInt(1, rows - PAGE_SIZE + 2);
+    }
+
+    /**
+     * Reads the schema of the test set.
+     *
+     * @return SQL creating the table
+     * @throws IOException When unable to read the schema
+     */
+    static String readSchema() throws IOException {
+        try (final InputStream in = PersonTable.class.getResourceAsStream("/schema.sql")) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.peggir.SimpleDbUtil.benchmarks;
+
+import com.peggir.SimpleDbUtil.DbCall;
+import com.peggir.SimpleDbUtil.dialects.H2Dialect;
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link DbCall#getOne()}, {@link DbCall#getAll()} and
+ * {@link DbCall#hasResults()} against raw JDBC doing the same work.
+ * <p>
+ * The "many" benchmarks query the first of the roughly 1/90th of all rows
+ * that match an age, which shows the effect of the row limit and of the
+ * dialect rewrites.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RetrievalBenchmark {
+
+    private static final String SELECT_NAME_BY_ID = "SELECT \"name\" FROM \"person\" WHERE \"id\"=?;";
+    private static final String SELECT_NAME_BY_AGE = "SELECT \"name\" FROM \"person\" WHERE \"age\"=?;";
+    private static final String SELECT_PAGE = "SELECT \"id\", \"name\", \"age\", \"isStudent\", \"score\", " +
+            "\"submissionDate\" FROM \"person\" WHERE \"id\" BETWEEN ? AND ?;";
+
+    private static final StringResultSetMapper NAME_MAPPER = new StringResultSetMapper();
+    private static final HandWrittenPersonMapper PERSON_MAPPER = new HandWrittenPersonMapper();
+
+    @Benchmark
+    public Optional<String> getOne(final PersonTable table) throws DbCallException {
+        final int id = table.randomId();
+        return new DbCall<>(table.database, NAME_MAPPER, SELECT_NAME_BY_ID, stmt -> stmt.setInt(1, id)).getOne();
+    }
+
+    @Benchmark
+    public String rawJdbcGetOne(final PersonTable table) throws SQLException {
+        try (final Connection conn = table.database.getConnection();
+             final PreparedStatement stmt = conn.prepareStatement(SELECT_NAME_BY_ID)) {
+            stmt.setInt(1, table.randomId());
+            try (final ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<String> getOneOfMany(final PersonTable table) throws DbCallException {
+        return new DbCall<>(table.database, NAME_MAPPER, SELECT_NAME_BY_AGE, stmt -> stmt.setInt(1, 42)).getOne();
+    }
+
+    @Benchmark
+    public Optional<String> getOneOfManyWithDialect(final PersonTable table) throws DbCallException {
+        final DbCall<String> call = new DbCall<>(table.database, NAME_MAPPER, SELECT_NAME_BY_AGE,
+                stmt -> stmt.setInt(1, 42));
+        call.setDialect(new H2Dialect());
+        return call.getOne();
+    }
+
+    @Benchmark
+    public boolean hasResults(final PersonTable table) throws DbCallException {
+        return new DbCall<>(table.database, SELECT_NAME_BY_AGE, stmt -> stmt.setInt(1, 42)).hasResults();
+    }
+
+    @Benchmark
+    public boolean hasResultsWithDialect(final PersonTable table) throws DbCallException {
+        final DbCall<Void> call = new DbCall<>(table.database, SELECT_NAME_BY_AGE, stmt -> stmt.setInt(1, 42));
+        call.setDialect(new H2Dialect());
+        return call.hasResults();
+    }
+
+    @Benchmark
+    public boolean rawJdbcHasResults(final PersonTable table) throws SQLException {
+        try (final Connection conn = table.database.getConnection();
+             final PreparedStatement stmt = conn.prepareStatement(SELECT_NAME_BY_AGE)) {
+            stmt.setInt(1, 42);
+            try (final ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Person> getAll(final PersonTable table) throws DbCallException {
+        final int first = table.randomPage();
+        return new DbCall<>(table.database, PERSON_MAPPER, SELECT_PAGE, stmt -> {
+            stmt.setInt(1, first);
+            stmt.setInt(2, first + PersonTable.PAGE_SIZE - 1);
+        }).getAll();
+    }
+
+    @Benchmark
+    public List<Person> rawJdbcGetAll(final PersonTable table) throws SQLException {
+        final int first = table.randomPage();
+        try (final Connection conn = table.database.getConnection();
+             final PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE)) {
+            stmt.setInt(1, first);
+            stmt.setInt(2, first + PersonTable.PAGE_SIZE - 1);
+            try (final ResultSet rs = stmt.executeQuery()) {
+                final List<Person> result = new ArrayList<>();
+                while (rs.next()) {
+                    final Person person = new Person();
+                    person.setId(rs.getInt(1));
+                    person.setName(rs.getString(2));
+                    person.setAge(rs.getInt(3));
+                    person.setStudent(rs.getBoolean(4));
+                    final float score = rs.getFloat(5);
+                    person.setScore(rs.wasNull() ? null : score);
+                    person.setSubmissionDate(rs.getTimestamp(6));
+                    result.add(person);
+                }
+
+                return result;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.peggir.SimpleDbUtil.benchmarks;
+
+import com.peggir.SimpleDbUtil.DbCall;
+import com.peggir.SimpleDbUtil.DbCallBatchArguments;
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import play.db.Database;
+import play.db.Databases;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks {@link DbCall#execute()} and
+ * {@link DbCall#executeBatch(Iterable, DbCallBatchArguments)} against raw
+ * JDBC, inserting into an empty {@code person} table.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+    private static final String INSERT = "INSERT INTO \"person\" (\"id\", \"name\", \"age\", \"isStudent\", " +
+            "\"score\", \"submissionDate\") VALUES (?,?,?,?,?,?);";
+    private static final int BATCH_SIZE = 1000;
+    private static final Timestamp SUBMISSION_DATE = Timestamp.valueOf("2001-08-01 00:00:00");
+
+    private static final DbCallBatchArguments<Integer> BIND_PERSON = WriteBenchmark::bind;
+
+    /**
+     * Empty {@code person} table, truncated before every iteration.
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyTable {
+
+        Database database;
+        final AtomicInteger ids = new AtomicInteger();
+        final List<Integer> batch = new ArrayList<>(BATCH_SIZE);
+
+        /**
+         * Creates the database and table.
+         *
+         * @throws IOException  When unable to read the schema
+         * @throws SQLException When unable to create the table
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, SQLException {
+            database = Databases.inMemory(
+                    "benchmark_write_database",
+                    Collections.singletonMap("MODE", "PostgreSQL"),
+                    Collections.<String, Object>singletonMap("logStatements", false));
+            try (final Connection conn = database.getConnection();
+                 final Statement stmt = conn.createStatement()) {
+                stmt.execute(PersonTable.readSchema());
+            }
+
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(i);
+            }
+        }
+
+        /**
+         * Removes the rows inserted by the previous iteration.
+         *
+         * @throws SQLException When unable to truncate the table
+         */
+        @Setup(Level.Iteration)
+        public void truncate() throws SQLException {
+            try (final Connection conn = database.getConnection();
+                 final Statement stmt = conn.createStatement()) {
+                stmt.execute("TRUNCATE TABLE \"person\";");
+            }
+        }
+
+        /**
+         * Shuts the database down.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            database.shutdown();
+        }
+
+    }
+
+    @Benchmark
+    public void execute(final EmptyTable table) throws DbCallException {
+        final int id = table.ids.incrementAndGet();
+        new DbCall<>(table.database, INSERT, stmt -> bind(stmt, id)).execute();
+    }
+
+    @Benchmark
+    public void rawJdbcExecute(final EmptyTable table) throws SQLException {
+        try (final Connection conn = table.database.getConnection();
+             final PreparedStatement stmt = conn.prepareStatement(INSERT)) {
+            bind(stmt, table.ids.incrementAndGet());
+            stmt.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public int[] executeBatch(final EmptyTable table) throws DbCallException {
+        final int offset = table.ids.getAndAdd(BATCH_SIZE);
+        return new DbCall<>(table.database, INSERT)
+                .executeBatch(table.batch, (stmt, i) -> BIND_PERSON.apply(stmt, offset + i));
+    }
+
+    @Benchmark
+    public int[] rawJdbcExecuteBatch(final EmptyTable table) throws SQLException {
+        final int offset = table.ids.getAndAdd(BATCH_SIZE);
+        try (final Connection conn = table.database.getConnection();
+             final PreparedStatement stmt = conn.prepareStatement(INSERT)) {
+            for (final int i : table.batch) {
+                bind(stmt, offset + i);
+                stmt.addBatch();
+            }
+
+            return stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Binds a generated person.
+     *
+     * @param stmt Statement to bind to
+     * @param id   Id of the person
+     * @throws SQLException When unable to bind a parameter
+     */
+    private static void bind(final PreparedStatement stmt, final int id) throws SQLException {
+        stmt.setInt(1, id);
+        stmt.setString(2, "Person " + id);
+        stmt.setInt(3, id % 90);
+        stmt.setBoolean(4, id % 2 == 0);
+        stmt.setFloat(5, id % 100 / 10f);
+        stmt.setTimestamp(6, SUBMISSION_DATE);
+    }
+
+}
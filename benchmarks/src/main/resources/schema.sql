@@ -0,0 +1,9 @@
+CREATE TABLE "person" (
+  "id"             SERIAL      NOT NULL,
+  "name"           VARCHAR(30) NOT NULL,
+  "age"            INTEGER     NOT NULL,
+  "isStudent"      BOOLEAN     NOT NULL,
+  "score"          FLOAT       NULL,
+  "submissionDate" TIMESTAMP   NULL,
+  CONSTRAINT pk_person PRIMARY KEY ("id")
+);
@@ -0,0 +1,249 @@
+package com.peggir.SimpleDbUtil.processor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Java type of a property, with the JDBC getter and setter used to read and
+ * bind it by index.
+ */
+enum ColumnType {
+
+    INT("getInt", "setInt", "INTEGER", true, false),
+    LONG("getLong", "setLong", "BIGINT", true, false),
+    DOUBLE("getDouble", "setDouble", "DOUBLE", true, false),
+    FLOAT("getFloat", "setFloat", "REAL", true, false),
+    BOOLEAN("getBoolean", "setBoolean", "BOOLEAN", true, false),
+    SHORT("getShort", "setShort", "SMALLINT", true, false),
+    BYTE("getByte", "setByte", "TINYINT", true, false),
+    BOXED_INT("getInt", "setInt", "INTEGER", false, true),
+    BOXED_LONG("getLong", "setLong", "BIGINT", false, true),
+    BOXED_DOUBLE("getDouble", "setDouble", "DOUBLE", false, true),
+    BOXED_FLOAT("getFloat", "setFloat", "REAL", false, true),
+    BOXED_BOOLEAN("getBoolean", "setBoolean", "BOOLEAN", false, true),
+    BOXED_SHORT("getShort", "setShort", "SMALLINT", false, true),
+    BOXED_BYTE("getByte", "setByte", "TINYINT", false, true),
+    STRING("getString", "setString", "VARCHAR", false, false),
+    BIG_DECIMAL("getBigDecimal", "setBigDecimal", "NUMERIC", false, false),
+    BYTES("getBytes", "setBytes", "VARBINARY", false, false),
+    SQL_DATE("getDate", "setDate", "DATE", false, false),
+    SQL_TIME("getTime", "setTime", "TIME", false, false),
+    SQL_TIMESTAMP("getTimestamp", "setTimestamp", "TIMESTAMP", false, false),
+    DATE("getTimestamp", "setTimestamp", "TIMESTAMP", false, false),
+    ENUM("getString", "setString", "VARCHAR", false, false),
+    OBJECT("getObject", "setObject", "OTHER", false, false);
+
+    private final String getter;
+    private final String setter;
+    private final String sqlType;
+    private final boolean primitive;
+    private final boolean boxed;
+
+    /**
+     * Creates a column type.
+     *
+     * @param getter    {@code ResultSet} getter reading the type
+     * @param setter    {@code PreparedStatement} setter binding the type
+     * @param sqlType   {@code java.sql.Types} constant used to bind null
+     * @param primitive Whether the type is primitive
+     * @param boxed     Whether the type is a boxed primitive
+     */
+    ColumnType(final String getter,
+               final String setter,
+               final String sqlType,
+               final boolean primitive,
+               final boolean boxed) {
+        this.getter = getter;
+        this.setter = setter;
+        this.sqlType = sqlType;
+        this.primitive = primitive;
+        this.boxed = boxed;
+    }
+
+    /**
+     * Returns the column type of the given Java type.
+     *
+     * @param type Type of a property
+     * @return Column type, or null when the type cannot be mapped
+     */
+    static ColumnType of(final TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return INT;
+            case LONG:
+                return LONG;
+            case DOUBLE:
+                return DOUBLE;
+            case FLOAT:
+                return FLOAT;
+            case BOOLEAN:
+                return BOOLEAN;
+            case SHORT:
+                return SHORT;
+            case BYTE:
+                return BYTE;
+            case ARRAY:
+                return ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE ? BYTES : null;
+            case DECLARED:
+                return ofDeclared((DeclaredType) type);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the column type of the given class or interface type.
+     *
+     * @param type Declared type of a property
+     * @return Column type, or null when the type cannot be mapped
+     */
+    private static ColumnType ofDeclared(final DeclaredType type) {
+        final Element element = type.asElement();
+        if (element.getKind() == ElementKind.ENUM) {
+            return ENUM;
+        }
+
+        switch (element.toString()) {
+            case "java.lang.Integer":
+                return BOXED_INT;
+            case "java.lang.Long":
+                return BOXED_LONG;
+            case "java.lang.Double":
+                return BOXED_DOUBLE;
+            case "java.lang.Float":
+                return BOXED_FLOAT;
+            case "java.lang.Boolean":
+                return BOXED_BOOLEAN;
+            case "java.lang.Short":
+                return BOXED_SHORT;
+            case "java.lang.Byte":
+                return BOXED_BYTE;
+            case "java.lang.Character":
+                return null;
+            case "java.lang.String":
+                return STRING;
+            case "java.math.BigDecimal":
+                return BIG_DECIMAL;
+            case "java.sql.Date":
+                return SQL_DATE;
+            case "java.sql.Time":
+                return SQL_TIME;
+            case "java.sql.Timestamp":
+                return SQL_TIMESTAMP;
+            case "java.util.Date":
+                return DATE;
+            default:
+                return OBJECT;
+        }
+    }
+
+    /**
+     * Returns the value of a primitive property without column.
+     *
+     * @return Default value expression
+     */
+    String defaultValue() {
+        if (!primitive) {
+            return "null";
+        }
+
+        return this == BOOLEAN ? "false" : "(" + name().toLowerCase() + ") 0";
+    }
+
+    /**
+     * Returns whether reading the type needs a helper method in the
+     * generated mapper.
+     *
+     * @return True for boxed primitives
+     */
+    boolean isBoxed() {
+        return boxed;
+    }
+
+    /**
+     * Returns the name of the helper method reading a boxed primitive.
+     *
+     * @return Helper method name
+     */
+    String helperName() {
+        return "get" + getter.substring(3) + "OrNull";
+    }
+
+    /**
+     * Returns the code of the helper method reading a boxed primitive.
+     *
+     * @param boxedType Name of the boxed type
+     * @return Helper method code
+     */
+    String helperCode(final String boxedType) {
+        return "    private static " + boxedType + " " + helperName()
+                + "(final java.sql.ResultSet rs, final int column) throws java.sql.SQLException {\n"
+                + "        final " + boxedType + " value = rs." + getter + "(column);\n"
+                + "        return rs.wasNull() ? null : value;\n"
+                + "    }\n";
+    }
+
+    /**
+     * Returns an expression reading a column.
+     *
+     * @param column   Expression of the column index
+     * @param typeName Source name of the property type
+     * @return Read expression
+     */
+    String read(final String column, final String typeName) {
+        if (boxed) {
+            return helperName() + "(rs, " + column + ")";
+        } else if (this == ENUM) {
+            return "toEnum(" + typeName + ".class, rs.getString(" + column + "))";
+        } else if (this == OBJECT) {
+            return "rs.getObject(" + column + ", " + erasure(typeName) + ".class)";
+        }
+
+        return "rs." + getter + "(" + column + ")";
+    }
+
+    /**
+     * Returns the statements binding a value to a parameter.
+     *
+     * @param value  Name of a local variable holding the value
+     * @param indent Indentation of the statements
+     * @return Bind statements
+     */
+    String bind(final String value, final String indent) {
+        if (primitive || this == STRING || this == BIG_DECIMAL || this == BYTES || this == SQL_DATE
+                || this == SQL_TIME || this == SQL_TIMESTAMP || this == OBJECT) {
+            return indent + "stmt." + setter + "(index++, " + value + ");\n";
+        }
+
+        final String bound;
+        if (this == DATE) {
+            bound = "new java.sql.Timestamp(" + value + ".getTime())";
+        } else if (this == ENUM) {
+            bound = value + ".name()";
+        } else {
+            bound = value;
+        }
+
+        return indent + "if (" + value + " == null) {\n"
+                + indent + "    stmt.setNull(index++, java.sql.Types." + sqlType + ");\n"
+                + indent + "} else {\n"
+                + indent + "    stmt." + setter + "(index++, " + bound + ");\n"
+                + indent + "}\n";
+    }
+
+    /**
+     * Strips type arguments from a type name.
+     *
+     * @param typeName Source name of a type
+     * @return Name of the raw type
+     */
+    private static String erasure(final String typeName) {
+        final int typeArguments = typeName.indexOf('<');
+        return typeArguments < 0 ? typeName : typeName.substring(0, typeArguments);
+    }
+
+}
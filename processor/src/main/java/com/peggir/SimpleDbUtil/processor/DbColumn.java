@@ -0,0 +1,32 @@
+package com.peggir.SimpleDbUtil.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Configures how a field of a {@link DbRow} class is mapped.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface DbColumn {
+
+    /**
+     * Returns the label of the column the field is mapped to.
+     *
+     * @return Column label, or empty to use the name of the field
+     */
+    String value() default "";
+
+    /**
+     * Returns whether the field is left out of the generated mapper and
+     * arguments.
+     *
+     * @return True to ignore the field
+     */
+    boolean ignore() default false;
+
+}
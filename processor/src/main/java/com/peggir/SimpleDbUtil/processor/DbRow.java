@@ -0,0 +1,31 @@
+package com.peggir.SimpleDbUtil.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class representing a database row. At compile time the
+ * {@link DbRowProcessor} generates two classes next to it:
+ * <ul>
+ * <li>{@code <Name>ResultSetMapper}, a {@code DbCallResultSetMapper} that
+ * maps columns to the fields of the class by name, ignoring case and
+ * underscores</li>
+ * <li>{@code <Name>Arguments}, which binds the fields of an instance to the
+ * parameters of a query, in order of declaration</li>
+ * </ul>
+ * Every non-static, non-transient field is a property, unless it is
+ * annotated with {@code @DbColumn(ignore = true)}. A property is read
+ * through its getter or, when it has none, directly when the field is not
+ * private. It is written through a constructor parameter with the same name,
+ * its setter or, when it has neither, directly when the field is not private
+ * or final.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface DbRow {
+
+}
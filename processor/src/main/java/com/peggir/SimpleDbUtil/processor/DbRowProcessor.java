@@ -0,0 +1,90 @@
+package com.peggir.SimpleDbUtil.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Annotation processor generating a result set mapper and arguments for
+ * every class annotated with {@link DbRow}. Add this module as a
+ * {@code provided} dependency (or to the annotation processor path) to use
+ * it; the generated classes only depend on SimpleDbUtil itself.
+ */
+public class DbRowProcessor extends AbstractProcessor {
+
+    /**
+     * Returns the annotations supported by this processor.
+     *
+     * @return {@link DbRow}
+     */
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(DbRow.class.getCanonicalName());
+    }
+
+    /**
+     * Returns the latest source version, as the processor only relies on
+     * fields, methods and constructors.
+     *
+     * @return Latest supported source version
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Generates the mapper and arguments of the annotated classes.
+     *
+     * @param annotations Annotations to process
+     * @param roundEnv    Environment of the current round
+     * @return True, as {@link DbRow} is claimed by this processor
+     */
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (final Element element : roundEnv.getElementsAnnotatedWith(DbRow.class)) {
+            if (!(element instanceof TypeElement)) {
+                continue;
+            }
+
+            final RowModel model = RowModel.of((TypeElement) element, processingEnv.getElementUtils(),
+                    processingEnv.getTypeUtils(), processingEnv.getMessager());
+            if (model != null) {
+                write(model, SourceGenerator.MAPPER_SUFFIX, SourceGenerator.mapper(model));
+                write(model, SourceGenerator.ARGUMENTS_SUFFIX, SourceGenerator.arguments(model));
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes a generated source file.
+     *
+     * @param model  Row class the source is generated for
+     * @param suffix Suffix of the generated class name
+     * @param source Source code
+     */
+    private void write(final RowModel model, final String suffix, final String source) {
+        final String prefix = model.getPackageName().isEmpty() ? "" : model.getPackageName() + ".";
+        try {
+            final JavaFileObject file = processingEnv.getFiler()
+                    .createSourceFile(prefix + model.getSimpleName() + suffix, model.getType());
+            try (final Writer writer = file.openWriter()) {
+                writer.write(source);
+            }
+        } catch (final IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write " + model.getSimpleName() + suffix + ": " + e.getMessage(), model.getType());
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.peggir.SimpleDbUtil.processor;
+
+import java.util.Locale;
+
+/**
+ * Property of a {@link DbRow} class: a field mapped to a column.
+ */
+final class Property {
+
+    private final String name;
+    private final String column;
+    private final String typeName;
+    private final ColumnType columnType;
+    private final String reader;
+    private String setter;
+    private String field;
+
+    /**
+     * Creates a property.
+     *
+     * @param name       Name of the field
+     * @param column     Label of the column
+     * @param typeName   Source name of the field type
+     * @param columnType Column type of the field type
+     * @param reader     Expression reading the property from a variable
+     *                   named {@code value}, or null when unreadable
+     */
+    Property(final String name,
+             final String column,
+             final String typeName,
+             final ColumnType columnType,
+             final String reader) {
+        this.name = name;
+        this.column = column;
+        this.typeName = typeName;
+        this.columnType = columnType;
+        this.reader = reader;
+    }
+
+    /**
+     * Normalizes a column label or property name for matching: lower case
+     * without underscores.
+     *
+     * @param name Label or name to normalize
+     * @return Normalized name
+     */
+    static String normalize(final String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the name of the field.
+     *
+     * @return Field name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the normalized label of the column.
+     *
+     * @return Column label
+     */
+    String getColumn() {
+        return normalize(column);
+    }
+
+    /**
+     * Returns the source name of the field type.
+     *
+     * @return Type name
+     */
+    String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * Returns the column type of the field type.
+     *
+     * @return Column type
+     */
+    ColumnType getColumnType() {
+        return columnType;
+    }
+
+    /**
+     * Returns the expression reading the property from a variable named
+     * {@code value}.
+     *
+     * @return Read expression, or null when unreadable
+     */
+    String getReader() {
+        return reader;
+    }
+
+    /**
+     * Returns the setter writing the property after construction.
+     *
+     * @return Setter name, or null
+     */
+    String getSetter() {
+        return setter;
+    }
+
+    /**
+     * Sets the setter writing the property after construction.
+     *
+     * @param setter Setter name
+     */
+    void setSetter(final String setter) {
+        this.setter = setter;
+    }
+
+    /**
+     * Returns the field written directly after construction.
+     *
+     * @return Field name, or null
+     */
+    String getField() {
+        return field;
+    }
+
+    /**
+     * Sets the field written directly after construction.
+     *
+     * @param field Field name
+     */
+    void setField(final String field) {
+        this.field = field;
+    }
+
+}
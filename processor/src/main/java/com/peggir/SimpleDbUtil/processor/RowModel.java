@@ -0,0 +1,369 @@
+package com.peggir.SimpleDbUtil.processor;
+
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analysis of a {@link DbRow} class: its properties and how they are read
+ * and written.
+ */
+final class RowModel {
+
+    private final TypeElement type;
+    private final String packageName;
+    private final String simpleName;
+    private final List<Property> properties;
+    private final List<Property> constructorParameters;
+
+    /**
+     * Creates a model.
+     *
+     * @param type                  Annotated class
+     * @param packageName           Package of the class
+     * @param properties            Properties in order of declaration
+     * @param constructorParameters Properties passed to the constructor, in
+     *                              order
+     */
+    private RowModel(final TypeElement type,
+                     final String packageName,
+                     final List<Property> properties,
+                     final List<Property> constructorParameters) {
+        this.type = type;
+        this.packageName = packageName;
+        final String qualifiedName = type.getQualifiedName().toString();
+        this.simpleName = (packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1))
+                .replace('.', '_');
+        this.properties = properties;
+        this.constructorParameters = constructorParameters;
+    }
+
+    /**
+     * Analyzes the given class. Problems are reported as compile errors on
+     * the offending element.
+     *
+     * @param type     Annotated class
+     * @param elements Element utilities of the compiler
+     * @param types    Type utilities of the compiler
+     * @param messager Messager reporting problems
+     * @return Model, or null when the class cannot be mapped
+     */
+    static RowModel of(final TypeElement type,
+                       final Elements elements,
+                       final Types types,
+                       final Messager messager) {
+        if (!isSupportedClass(type)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@DbRow classes must be non-private, non-abstract and "
+                    + "non-generic top-level or static nested classes", type);
+            return null;
+        }
+
+        final List<ExecutableElement> methods = ElementFilter.methodsIn(elements.getAllMembers(type));
+        final List<VariableElement> fields = new ArrayList<>();
+        final List<Property> properties = new ArrayList<>();
+        final Map<String, Property> byName = new HashMap<>();
+        boolean valid = true;
+        for (final VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            final DbColumn column = field.getAnnotation(DbColumn.class);
+            if (field.getModifiers().contains(Modifier.STATIC)
+                    || field.getModifiers().contains(Modifier.TRANSIENT)
+                    || (column != null && column.ignore())) {
+                continue;
+            }
+
+            final ColumnType columnType = ColumnType.of(field.asType());
+            final String name = field.getSimpleName().toString();
+            final String reader = findReader(field, methods, types);
+            if (columnType == null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Unsupported property type " + field.asType(), field);
+                valid = false;
+            } else if (reader == null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Property " + name + " has no getter and is private; "
+                        + "add a getter or use @DbColumn(ignore = true)", field);
+                valid = false;
+            } else {
+                final Property property = new Property(name,
+                        column == null || column.value().isEmpty() ? name : column.value(),
+                        field.asType().toString(), columnType, reader);
+                fields.add(field);
+                properties.add(property);
+                byName.put(Property.normalize(name), property);
+            }
+        }
+
+        if (!valid) {
+            return null;
+        }
+
+        final ExecutableElement constructor = findConstructor(type, byName, fields, properties, types);
+        if (constructor == null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@DbRow classes need a non-private constructor without "
+                    + "parameters or with parameters named after properties", type);
+            return null;
+        }
+
+        final List<Property> constructorParameters = new ArrayList<>();
+        for (final VariableElement parameter : constructor.getParameters()) {
+            constructorParameters.add(byName.get(Property.normalize(parameter.getSimpleName().toString())));
+        }
+
+        for (int i = 0; i < properties.size(); i++) {
+            final Property property = properties.get(i);
+            if (constructorParameters.contains(property)) {
+                continue;
+            }
+
+            final VariableElement field = fields.get(i);
+            final ExecutableElement setter = findSetter(field, methods, types);
+            if (setter != null) {
+                property.setSetter(setter.getSimpleName().toString());
+            } else if (!field.getModifiers().contains(Modifier.PRIVATE)
+                    && !field.getModifiers().contains(Modifier.FINAL)) {
+                property.setField(property.getName());
+            } else {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Property " + property.getName() + " is not a "
+                        + "constructor parameter and has no setter; add one or use @DbColumn(ignore = true)", field);
+                valid = false;
+            }
+        }
+
+        if (!valid) {
+            return null;
+        }
+
+        return new RowModel(type, elements.getPackageOf(type).getQualifiedName().toString(),
+                Collections.unmodifiableList(properties), Collections.unmodifiableList(constructorParameters));
+    }
+
+    /**
+     * Returns whether the generated classes can construct and access the
+     * given class.
+     *
+     * @param type Annotated element
+     * @return True when the class is supported
+     */
+    private static boolean isSupportedClass(final TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS
+                || type.getModifiers().contains(Modifier.PRIVATE)
+                || type.getModifiers().contains(Modifier.ABSTRACT)
+                || !type.getTypeParameters().isEmpty()) {
+            return false;
+        }
+
+        if (type.getNestingKind() == NestingKind.TOP_LEVEL) {
+            return true;
+        }
+
+        return type.getNestingKind() == NestingKind.MEMBER
+                && type.getModifiers().contains(Modifier.STATIC)
+                && isSupportedClass((TypeElement) type.getEnclosingElement());
+    }
+
+    /**
+     * Finds the expression reading a property: its getter or the field.
+     *
+     * @param field   Field of the property
+     * @param methods Methods of the class, including inherited ones
+     * @param types   Type utilities of the compiler
+     * @return Read expression on a variable named {@code value}, or null
+     */
+    private static String findReader(final VariableElement field,
+                                     final List<ExecutableElement> methods,
+                                     final Types types) {
+        final String name = field.getSimpleName().toString();
+        final List<String> candidates = new ArrayList<>();
+        candidates.add("get" + capitalize(name));
+        if (field.asType().getKind() == TypeKind.BOOLEAN) {
+            candidates.add(isPrefixed(name) ? name : "is" + capitalize(name));
+        }
+
+        for (final String candidate : candidates) {
+            for (final ExecutableElement method : methods) {
+                if (isAccessible(method)
+                        && method.getSimpleName().contentEquals(candidate)
+                        && method.getParameters().isEmpty()
+                        && types.isSameType(method.getReturnType(), field.asType())) {
+                    return "value." + candidate + "()";
+                }
+            }
+        }
+
+        return field.getModifiers().contains(Modifier.PRIVATE) ? null : "value." + name;
+    }
+
+    /**
+     * Finds the setter of a property.
+     *
+     * @param field   Field of the property
+     * @param methods Methods of the class, including inherited ones
+     * @param types   Type utilities of the compiler
+     * @return Setter, or null
+     */
+    private static ExecutableElement findSetter(final VariableElement field,
+                                                final List<ExecutableElement> methods,
+                                                final Types types) {
+        final String name = field.getSimpleName().toString();
+        final List<String> candidates = new ArrayList<>();
+        candidates.add("set" + capitalize(name));
+        if (isPrefixed(name)) {
+            candidates.add("set" + name.substring(2));
+        }
+
+        for (final String candidate : candidates) {
+            for (final ExecutableElement method : methods) {
+                if (isAccessible(method)
+                        && method.getSimpleName().contentEquals(candidate)
+                        && method.getParameters().size() == 1
+                        && types.isAssignable(field.asType(), method.getParameters().get(0).asType())) {
+                    return method;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds the constructor with the most parameters of which every
+     * parameter is named after a property of an assignable type.
+     *
+     * @param type       Annotated class
+     * @param byName     Properties by normalized name
+     * @param fields     Fields of the properties
+     * @param properties Properties in order of declaration
+     * @param types      Type utilities of the compiler
+     * @return Constructor, or null when there is none
+     */
+    private static ExecutableElement findConstructor(final TypeElement type,
+                                                     final Map<String, Property> byName,
+                                                     final List<VariableElement> fields,
+                                                     final List<Property> properties,
+                                                     final Types types) {
+        ExecutableElement result = null;
+        for (final ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)
+                    || (result != null && constructor.getParameters().size() <= result.getParameters().size())) {
+                continue;
+            }
+
+            boolean matches = true;
+            for (final VariableElement parameter : constructor.getParameters()) {
+                final Property property = byName.get(Property.normalize(parameter.getSimpleName().toString()));
+                final TypeMirror fieldType = property == null ? null : fields.get(properties.indexOf(property)).asType();
+                if (fieldType == null || !types.isAssignable(fieldType, parameter.asType())) {
+                    matches = false;
+                    break;
+                }
+            }
+
+            if (matches) {
+                result = constructor;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns whether generated code in the same package can call a method.
+     *
+     * @param method Method to check
+     * @return True when the method is non-private and non-static
+     */
+    private static boolean isAccessible(final Element method) {
+        return !method.getModifiers().contains(Modifier.PRIVATE) && !method.getModifiers().contains(Modifier.STATIC);
+    }
+
+    /**
+     * Returns whether a name follows the {@code isSomething} convention of
+     * boolean properties.
+     *
+     * @param name Property name
+     * @return True when prefixed with "is"
+     */
+    private static boolean isPrefixed(final String name) {
+        return name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2));
+    }
+
+    /**
+     * Capitalizes the first letter of a name.
+     *
+     * @param name Name to capitalize
+     * @return Capitalized name
+     */
+    private static String capitalize(final String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Returns the annotated class.
+     *
+     * @return Annotated class
+     */
+    TypeElement getType() {
+        return type;
+    }
+
+    /**
+     * Returns the package of the class and the generated classes.
+     *
+     * @return Package name, empty for the default package
+     */
+    String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * Returns the prefix of the generated class names: the simple name of
+     * the class, joined with the names of enclosing classes by underscores.
+     *
+     * @return Generated name prefix
+     */
+    String getSimpleName() {
+        return simpleName;
+    }
+
+    /**
+     * Returns the source name of the class.
+     *
+     * @return Canonical name
+     */
+    String getTypeName() {
+        return type.getQualifiedName().toString();
+    }
+
+    /**
+     * Returns the properties in order of declaration.
+     *
+     * @return Properties
+     */
+    List<Property> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns the properties passed to the constructor, in order.
+     *
+     * @return Constructor parameters
+     */
+    List<Property> getConstructorParameters() {
+        return constructorParameters;
+    }
+
+}
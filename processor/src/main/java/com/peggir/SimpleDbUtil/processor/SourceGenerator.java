@@ -0,0 +1,214 @@
+package com.peggir.SimpleDbUtil.processor;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates the source code of the mapper and arguments of a
+ * {@link RowModel}. The generated code only uses JDBC and the public API of
+ * SimpleDbUtil: columns are resolved to indices once per result set and
+ * read with type-specific getters, without reflection.
+ */
+final class SourceGenerator {
+
+    static final String MAPPER_SUFFIX = "ResultSetMapper";
+    static final String ARGUMENTS_SUFFIX = "Arguments";
+
+    /**
+     * Not instantiable.
+     */
+    private SourceGenerator() {
+    }
+
+    /**
+     * Generates the result set mapper of a row class.
+     *
+     * @param model Row class to generate for
+     * @return Source code of {@code <Name>ResultSetMapper}
+     */
+    static String mapper(final RowModel model) {
+        final String type = model.getTypeName();
+        final String name = model.getSimpleName() + MAPPER_SUFFIX;
+        final List<Property> properties = model.getProperties();
+        final StringBuilder out = new StringBuilder();
+        header(out, model);
+        out.append("/**\n")
+                .append(" * Maps result sets to {@link ").append(type).append("}. Columns are matched to\n")
+                .append(" * properties by name, ignoring case and underscores.\n")
+                .append(" * <p>\n")
+                .append(" * Generated by the SimpleDbUtil annotation processor. Do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(name)
+                .append(" implements com.peggir.SimpleDbUtil.DbCallResultSetMapper<").append(type).append("> {\n\n");
+
+        out.append("    private static final String[] COLUMNS = {");
+        for (int i = 0; i < properties.size(); i++) {
+            out.append(i == 0 ? "" : ", ").append('"').append(properties.get(i).getColumn()).append('"');
+        }
+        out.append("};\n\n")
+                .append("    private volatile Columns columns;\n\n");
+
+        out.append("    @Override\n")
+                .append("    public ").append(type).append(" map(final java.sql.ResultSet rs)\n")
+                .append("            throws com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException {\n")
+                .append("        try {\n")
+                .append("            Columns c = columns;\n")
+                .append("            if (c == null || c.resultSet.get() != rs) {\n")
+                .append("                c = new Columns(rs);\n")
+                .append("                columns = c;\n")
+                .append("            }\n\n")
+                .append("            final int[] i = c.indices;\n")
+                .append("            final ").append(type).append(" result = new ").append(type).append("(");
+        final List<Property> parameters = model.getConstructorParameters();
+        for (int p = 0; p < parameters.size(); p++) {
+            final Property property = parameters.get(p);
+            final int index = properties.indexOf(property);
+            out.append(p == 0 ? "\n" : ",\n").append("                    i[").append(index).append("] == 0 ? ")
+                    .append(property.getColumnType().defaultValue()).append(" : ")
+                    .append(property.getColumnType().read("i[" + index + "]", property.getTypeName()));
+        }
+        out.append(");\n");
+
+        for (int index = 0; index < properties.size(); index++) {
+            final Property property = properties.get(index);
+            if (parameters.contains(property)) {
+                continue;
+            }
+
+            final String read = property.getColumnType().read("i[" + index + "]", property.getTypeName());
+            out.append("            if (i[").append(index).append("] != 0) {\n")
+                    .append("                result.");
+            if (property.getSetter() != null) {
+                out.append(property.getSetter()).append('(').append(read).append(");\n");
+            } else {
+                out.append(property.getField()).append(" = ").append(read).append(";\n");
+            }
+            out.append("            }\n");
+        }
+
+        out.append("            return result;\n")
+                .append("        } catch (final java.sql.SQLException | RuntimeException e) {\n")
+                .append("            throw new com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException(\n")
+                .append("                    com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException")
+                .append(".DEFAULT_ERROR_MSG, e);\n")
+                .append("        }\n")
+                .append("    }\n");
+
+        final Set<ColumnType> helpers = EnumSet.noneOf(ColumnType.class);
+        boolean enums = false;
+        for (final Property property : properties) {
+            final ColumnType columnType = property.getColumnType();
+            if (columnType.isBoxed() && helpers.add(columnType)) {
+                out.append('\n').append(columnType.helperCode(property.getTypeName()));
+            }
+            enums |= columnType == ColumnType.ENUM;
+        }
+
+        if (enums) {
+            out.append('\n')
+                    .append("    private static <E extends Enum<E>> E toEnum(final Class<E> type, final String name) {\n")
+                    .append("        return name == null ? null : Enum.valueOf(type, name);\n")
+                    .append("    }\n");
+        }
+
+        out.append('\n')
+                .append("    private static final class Columns {\n\n")
+                .append("        private final java.lang.ref.WeakReference<java.sql.ResultSet> resultSet;\n")
+                .append("        private final int[] indices = new int[COLUMNS.length];\n\n")
+                .append("        private Columns(final java.sql.ResultSet rs) throws java.sql.SQLException {\n")
+                .append("            resultSet = new java.lang.ref.WeakReference<>(rs);\n")
+                .append("            final java.sql.ResultSetMetaData metaData = rs.getMetaData();\n")
+                .append("            for (int column = metaData.getColumnCount(); column > 0; column--) {\n")
+                .append("                final String label = metaData.getColumnLabel(column).replace(\"_\", \"\")\n")
+                .append("                        .toLowerCase(java.util.Locale.ROOT);\n")
+                .append("                for (int p = 0; p < COLUMNS.length; p++) {\n")
+                .append("                    if (COLUMNS[p].equals(label)) {\n")
+                .append("                        indices[p] = column;\n")
+                .append("                    }\n")
+                .append("                }\n")
+                .append("            }\n")
+                .append("        }\n\n")
+                .append("    }\n\n")
+                .append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * Generates the arguments of a row class.
+     *
+     * @param model Row class to generate for
+     * @return Source code of {@code <Name>Arguments}
+     */
+    static String arguments(final RowModel model) {
+        final String type = model.getTypeName();
+        final String name = model.getSimpleName() + ARGUMENTS_SUFFIX;
+        final StringBuilder out = new StringBuilder();
+        header(out, model);
+        out.append("/**\n")
+                .append(" * Binds the properties of a {@link ").append(type).append("} to query\n")
+                .append(" * parameters, in order of declaration:\n")
+                .append(" * <ol>\n");
+        for (final Property property : model.getProperties()) {
+            out.append(" * <li>").append(property.getName()).append("</li>\n");
+        }
+        out.append(" * </ol>\n")
+                .append(" * Generated by the SimpleDbUtil annotation processor. Do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(name).append(" {\n\n")
+                .append("    /**\n")
+                .append("     * Binds every item of a batch, starting at the first parameter.\n")
+                .append("     */\n")
+                .append("    public static final com.peggir.SimpleDbUtil.DbCallBatchArguments<").append(type)
+                .append("> BATCH =\n")
+                .append("            (stmt, value) -> bind(stmt, value, 1);\n\n")
+                .append("    private ").append(name).append("() {\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Returns arguments binding the given value, starting at the first parameter.\n")
+                .append("     *\n")
+                .append("     * @param value Value to bind\n")
+                .append("     * @return Arguments for a DbCall\n")
+                .append("     */\n")
+                .append("    public static com.peggir.SimpleDbUtil.DbCallArguments of(final ").append(type)
+                .append(" value) {\n")
+                .append("        return stmt -> bind(stmt, value, 1);\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Binds the given value to consecutive parameters.\n")
+                .append("     *\n")
+                .append("     * @param stmt  Statement to bind to\n")
+                .append("     * @param value Value to bind\n")
+                .append("     * @param index Index of the first parameter\n")
+                .append("     * @return Index of the parameter after the last bound one\n")
+                .append("     * @throws java.sql.SQLException When unable to bind a parameter\n")
+                .append("     */\n")
+                .append("    public static int bind(final java.sql.PreparedStatement stmt, final ").append(type)
+                .append(" value, int index)\n")
+                .append("            throws java.sql.SQLException {\n");
+        int local = 0;
+        for (final Property property : model.getProperties()) {
+            final String variable = "v" + local++;
+            out.append("        final ").append(property.getTypeName()).append(' ').append(variable).append(" = ")
+                    .append(property.getReader()).append(";\n")
+                    .append(property.getColumnType().bind(variable, "        "));
+        }
+        out.append("        return index;\n")
+                .append("    }\n\n")
+                .append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * Appends the package declaration of the generated classes.
+     *
+     * @param out   Source to append to
+     * @param model Row class to generate for
+     */
+    private static void header(final StringBuilder out, final RowModel model) {
+        if (!model.getPackageName().isEmpty()) {
+            out.append("package ").append(model.getPackageName()).append(";\n\n");
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.peggir.SimpleDbUtil.processor;
+
+import com.peggir.SimpleDbUtil.DbCall;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import play.db.Database;
+import play.db.Databases;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DbRowProcessorTest {
+
+    private static final String SELECT_PERSONS = "SELECT id, name, age, is_student, score, submission_date, status " +
+            "FROM person ORDER BY id;";
+
+    private Database database;
+
+    @Before
+    public void setUp() throws Exception {
+        database = Databases.inMemory("processor_test");
+        try (final Connection conn = database.getConnection();
+             final Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE person (id INTEGER PRIMARY KEY, name VARCHAR(30), age INTEGER, " +
+                    "is_student BOOLEAN, score REAL, submission_date TIMESTAMP, status VARCHAR(10));");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void testGeneratedArgumentsAndMapper() throws Exception {
+        final Person harry = new Person(0, "Harry Potter");
+        harry.setAge(11);
+        harry.setStudent(true);
+        harry.setScore(6.5f);
+        harry.setSubmissionDate(Timestamp.valueOf("2001-08-01 00:00:00"));
+        harry.status = Person.Status.ACTIVE;
+        final Person snape = new Person(1, "Severus Snape");
+        snape.setAge(28);
+
+        final String insert = "INSERT INTO person (id, name, age, is_student, score, submission_date, status) " +
+                "VALUES (?,?,?,?,?,?,?);";
+        new DbCall<>(database, insert, PersonArguments.of(harry)).execute();
+        new DbCall<>(database, insert).executeBatch(Collections.singletonList(snape), PersonArguments.BATCH);
+
+        final List<Person> result = new DbCall<>(database, new PersonResultSetMapper(), SELECT_PERSONS).getAll();
+
+        assertEquals(2, result.size());
+        assertEquals(0, result.get(0).getId());
+        assertEquals("Harry Potter", result.get(0).getName());
+        assertEquals(11, result.get(0).getAge());
+        assertTrue(result.get(0).isStudent());
+        assertEquals(6.5f, result.get(0).getScore(), 0);
+        assertEquals(Timestamp.valueOf("2001-08-01 00:00:00"), result.get(0).getSubmissionDate());
+        assertEquals(Person.Status.ACTIVE, result.get(0).status);
+        assertEquals("Severus Snape", result.get(1).getName());
+        assertFalse(result.get(1).isStudent());
+        assertNull(result.get(1).getScore());
+        assertNull(result.get(1).getSubmissionDate());
+        assertNull(result.get(1).status);
+        assertNull(result.get(1).getNickname());
+    }
+
+    @Test
+    public void testMapperIgnoresMissingColumns() throws Exception {
+        try (final Connection conn = database.getConnection();
+             final PreparedStatement stmt = conn.prepareStatement("INSERT INTO person (id, name) VALUES (7, 'Ron');")) {
+            stmt.executeUpdate();
+        }
+
+        final List<Person> result = new DbCall<>(database, new PersonResultSetMapper(),
+                "SELECT name AS \"NAME\", 3 AS extra FROM person;").getAll();
+
+        assertEquals(1, result.size());
+        assertEquals(0, result.get(0).getId());
+        assertEquals("Ron", result.get(0).getName());
+    }
+
+    @Test
+    public void testBindReturnsNextIndex() throws Exception {
+        try (final Connection conn = database.getConnection();
+             final PreparedStatement stmt = conn.prepareStatement(
+                     "INSERT INTO person (id, name, age, is_student, score, submission_date, status) " +
+                             "VALUES (?,?,?,?,?,?,?);")) {
+            assertEquals(8, PersonArguments.bind(stmt, new Person(2, "Ron Weasley"), 1));
+        }
+    }
+
+    @Test
+    public void testPrivatePropertyWithoutGetterIsRejected() {
+        final List<String> errors = compile("test.Row", "package test;\n" +
+                "@com.peggir.SimpleDbUtil.processor.DbRow\n" +
+                "public class Row {\n" +
+                "    private int id;\n" +
+                "    public void setId(int id) { this.id = id; }\n" +
+                "}\n");
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).contains("Property id has no getter"));
+    }
+
+    @Test
+    public void testUnwritablePropertyIsRejected() {
+        final List<String> errors = compile("test.Row", "package test;\n" +
+                "@com.peggir.SimpleDbUtil.processor.DbRow\n" +
+                "public class Row {\n" +
+                "    private final int id = 1;\n" +
+                "    public int getId() { return id; }\n" +
+                "}\n");
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).contains("Property id is not a constructor parameter"));
+    }
+
+    @Test
+    public void testUnsupportedClassIsRejected() {
+        final List<String> errors = compile("test.Row", "package test;\n" +
+                "@com.peggir.SimpleDbUtil.processor.DbRow\n" +
+                "public abstract class Row {\n" +
+                "}\n");
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).contains("@DbRow classes must be"));
+    }
+
+    @Test
+    public void testValidClassCompiles() {
+        final List<String> errors = compile("test.Row", "package test;\n" +
+                "@com.peggir.SimpleDbUtil.processor.DbRow\n" +
+                "public class Row {\n" +
+                "    final long id;\n" +
+                "    String name;\n" +
+                "    public Row(long id) { this.id = id; }\n" +
+                "}\n");
+
+        assertTrue(errors.isEmpty());
+    }
+
+    /**
+     * Runs the processor on a single source file without compiling it.
+     *
+     * @param className Qualified name of the class
+     * @param source    Source code of the class
+     * @return Compile errors
+     */
+    private static List<String> compile(final String className, final String source) {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final JavaFileObject file = new SimpleJavaFileObject(
+                URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        final Path output;
+        try {
+            output = Files.createTempDirectory("processor-test");
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                Arrays.asList("-proc:only", "-s", output.toString(), "-classpath", System.getProperty("java.class.path")),
+                null, Collections.singletonList(file));
+        task.setProcessors(Collections.singletonList(new DbRowProcessor()));
+        task.call();
+
+        return diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .map(d -> d.getMessage(null))
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.peggir.SimpleDbUtil.processor;
+
+import java.util.Date;
+
+@DbRow
+public class Person {
+
+    private final int id;
+    private final String name;
+    private int age;
+    private boolean isStudent;
+    private Float score;
+    private Date submissionDate;
+    Status status;
+
+    @DbColumn(ignore = true)
+    private String nickname;
+
+    public Person(final int id, final String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(final int age) {
+        this.age = age;
+    }
+
+    public boolean isStudent() {
+        return isStudent;
+    }
+
+    public void setStudent(final boolean student) {
+        isStudent = student;
+    }
+
+    public Float getScore() {
+        return score;
+    }
+
+    public void setScore(final Float score) {
+        this.score = score;
+    }
+
+    public Date getSubmissionDate() {
+        return submissionDate;
+    }
+
+    public void setSubmissionDate(final Date submissionDate) {
+        this.submissionDate = submissionDate;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public enum Status {
+        ACTIVE,
+        RETIRED
+    }
+
+}
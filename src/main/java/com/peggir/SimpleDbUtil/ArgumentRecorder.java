@@ -0,0 +1,117 @@
+package com.peggir.SimpleDbUtil;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Captures the values that {@link DbCallArguments} bind to a statement, by
+ * applying them to a recording {@link PreparedStatement} that never touches
+ * a database. The captured values can be compared, so they can be part of a
+ * cache key, and printed, for logging.
+ */
+final class ArgumentRecorder {
+
+    private ArgumentRecorder() {
+    }
+
+    /**
+     * Applies the given arguments to a recording statement and returns every
+     * parameter that was set, ordered by parameter index. Every parameter is
+     * represented by a list of the setter's name followed by its arguments,
+     * without the parameter index.
+     *
+     * @param arguments Arguments to record, or null when there are none
+     * @return Recorded parameters, or null when a parameter was set to a
+     * value that cannot be compared, such as a stream
+     * @throws SQLException When the arguments fail to apply
+     */
+    static List<List<Object>> record(final DbCallArguments arguments) throws SQLException {
+        if (arguments == null) {
+            return Collections.emptyList();
+        }
+
+        final List<List<Object>> parameters = new ArrayList<>();
+        final boolean[] comparable = {true};
+        final PreparedStatement stmt = (PreparedStatement) Proxy.newProxyInstance(
+                ArgumentRecorder.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (isParameterSetter(method)) {
+                        comparable[0] &= set(parameters, method, args);
+                        return null;
+                    }
+
+                    if ("clearParameters".equals(method.getName())) {
+                        parameters.clear();
+                        return null;
+                    }
+
+                    throw new SQLException("Unsupported operation while recording arguments: " + method.getName());
+                });
+
+        arguments.apply(stmt);
+        return comparable[0] ? Collections.unmodifiableList(parameters) : null;
+    }
+
+    /**
+     * Returns whether the given method sets a parameter by index.
+     *
+     * @param method Method of {@link PreparedStatement}
+     * @return True when the method is a parameter setter
+     */
+    private static boolean isParameterSetter(final Method method) {
+        return method.getName().startsWith("set")
+                && method.getParameterCount() >= 2
+                && method.getParameterTypes()[0] == int.class;
+    }
+
+    /**
+     * Records a parameter at its index.
+     *
+     * @param parameters Parameters recorded so far
+     * @param method     Setter that was called
+     * @param args       Arguments of the setter, the first being the index
+     * @return False when the value cannot be compared
+     */
+    private static boolean set(final List<List<Object>> parameters, final Method method, final Object[] args) {
+        final int index = (Integer) args[0] - 1;
+        while (parameters.size() <= index) {
+            parameters.add(null);
+        }
+
+        final List<Object> parameter = new ArrayList<>(args.length);
+        parameter.add(method.getName());
+        boolean comparable = true;
+        for (int i = 1; i < args.length; i++) {
+            final Object value = args[i];
+            if (value instanceof byte[]) {
+                parameter.add(ByteBuffer.wrap(((byte[]) value).clone()));
+            } else if (value instanceof Object[]) {
+                parameter.add(Arrays.asList((Object[]) value));
+            } else {
+                comparable &= !(value instanceof InputStream
+                        || value instanceof Reader
+                        || value instanceof Blob
+                        || value instanceof Clob
+                        || value instanceof Array);
+                parameter.add(value);
+            }
+        }
+
+        parameters.set(index, Collections.unmodifiableList(parameter));
+        return comparable;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+
+import java.sql.ResultSet;
+
+/**
+ * Provides an interface used to map a {@link ResultSet} to a primitive
+ * boolean, without boxing it to a {@link Boolean}. Used by {@link DbCall} to
+ * collect a single column of booleans into a {@link java.util.BitSet}.
+ */
+public interface BooleanColumnMapper {
+
+    /**
+     * Maps the given {@link ResultSet} to a primitive boolean.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return boolean represented by the result set
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to a boolean
+     */
+    boolean mapBoolean(final ResultSet rs) throws DbCallResultSetMapperException;
+
+}
@@ -1,17 +1,46 @@
 package com.peggir.SimpleDbUtil;
 
 import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.exceptions.DbCallRejectedException;
 import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+import com.peggir.SimpleDbUtil.exceptions.DbCallTimeoutException;
+import com.peggir.SimpleDbUtil.exceptions.UncheckedDbCallException;
+import com.peggir.SimpleDbUtil.frames.DbFrame;
 import org.intellij.lang.annotations.Language;
 import play.db.Database;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Provides database query operations. Use it to insert or retrieve data to or
@@ -23,12 +52,42 @@ import java.util.Optional;
  */
 public class DbCall<T> {
 
+    /**
+     * Default amount of statements sent to the database in a single batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Default maximum amount of ranges queried concurrently by the parallel
+     * operations.
+     */
+    public static final int DEFAULT_MAX_PARALLELISM = 4;
+
+    private static final int INITIAL_COLUMN_CAPACITY = 64;
+
+    private static volatile long defaultTimeoutNanos;
+
     @Language("SQL")
     private String query;
     private Database db;
+    private DbSession session;
     private DbCallArguments arguments;
     private DbCallResultSetMapper<T> resultSetMapper;
-    private boolean hasQueryArguments;
+    private ParsedQuery parsedQuery;
+    private DbDialect dialect;
+    private DbCallCache cache;
+    private Executor executor;
+    private int fetchSize;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private boolean batchTransactional;
+    private String[] keyColumns;
+    private int maxParallelism = DEFAULT_MAX_PARALLELISM;
+    private boolean parallelOrdered;
+    private DbCallLimiter limiter;
+    private DbCallLimiter.Priority priority;
+    private long timeoutNanos = -1L;
+    private DbDeadline deadline;
+    private Path spillDirectory;
 
     /**
      * Prepare a database call with all arguments.
@@ -64,6 +123,27 @@ public class DbCall<T> {
         this.resultSetMapper = resultSetMapper;
     }
 
+    /**
+     * Prepare a database call for an already parsed query. Used by
+     * {@link DbQuery} to skip parsing the query again.
+     *
+     * @param db              Database to query from
+     * @param resultSetMapper {@link DbCallResultSetMapper} for object mapping
+     *                        or null
+     * @param parsedQuery     Parsed SQL-query
+     * @param arguments       SQL-query parameters or null
+     */
+    DbCall(final Database db,
+           final DbCallResultSetMapper<T> resultSetMapper,
+           final ParsedQuery parsedQuery,
+           final DbCallArguments arguments) {
+        this.db = db;
+        this.query = parsedQuery.getSql();
+        this.parsedQuery = parsedQuery;
+        this.arguments = arguments;
+        this.resultSetMapper = resultSetMapper;
+    }
+
     /**
      * Prepare a database call without object-mapping.
      *
@@ -89,167 +169,2106 @@ public class DbCall<T> {
     }
 
     /**
-     * Returns the first mapped object from the query's result set.
+     * Returns the first mapped object from the query's result set. The
+     * driver is told to fetch only a single row. When a {@link DbDialect} is
+     * set and the query is a SELECT without a row limit of its own, the query
+     * is sent with a row limit of 1, so the database can plan for it.
+     * <p>
+     * When a {@link DbCallCache} is set, a cached result is returned when
+     * there is one.
      *
      * @return Mapped {@link T} or empty {@link Optional} when the query had no results
      * @throws DbCallException Thrown when unable to query database
      */
     public Optional<T> getOne() throws DbCallException {
         validateRetrievalArguments();
+        return useCache() ? cached("getOne", this::queryOne) : queryOne();
+    }
 
-        try (final Connection conn = db.getConnection(); final PreparedStatement stmt = conn.prepareStatement(query)) {
-            if (hasQueryArguments) {
-                arguments.apply(stmt);
-            }
-
-            final ResultSet rs = stmt.executeQuery();
-            if (!rs.next()) {
-                return Optional.empty();
-            }
-
-            return Optional.ofNullable(resultSetMapper.map(rs));
-        } catch (final SQLException | DbCallResultSetMapperException e) {
-            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
-        }
+    /**
+     * Queries the first mapped object from the query's result set.
+     * Arguments must be validated before calling this method.
+     *
+     * @return Mapped {@link T} or empty {@link Optional} when the query had no results
+     * @throws DbCallException Thrown when unable to query database
+     */
+    private Optional<T> queryOne() throws DbCallException {
+        final String sql = dialect != null && parsedQuery.isLimitable()
+                ? parsedQuery.rewrite(dialect.getName() + ":limit", q -> dialect.limitQuery(q.getStatement(), 1))
+                : query;
+        return query("getOne", sql, 1,
+                rs -> rs.next() ? Optional.ofNullable(resultSetMapper.map(rs)) : Optional.empty());
     }
 
     /**
      * Returns a list of all mapped objects from the query's entire result set.
+     * <p>
+     * When a {@link DbCallCache} is set, a cached result is returned when
+     * there is one. Cached lists are unmodifiable.
      *
      * @return List of mapped {@link T}
      * @throws DbCallException Thrown when unable to query database
      */
     public List<T> getAll() throws DbCallException {
         validateRetrievalArguments();
-        final List<T> results = new ArrayList<>();
-        try (final Connection conn = db.getConnection(); final PreparedStatement stmt = conn.prepareStatement(query)) {
-            if (hasQueryArguments) {
-                arguments.apply(stmt);
-            }
+        return useCache() ? cached("getAll", () -> Collections.unmodifiableList(queryAll())) : queryAll();
+    }
 
-            final ResultSet rs = stmt.executeQuery();
+    /**
+     * Queries a list of all mapped objects from the query's entire result
+     * set. Arguments must be validated before calling this method.
+     *
+     * @return List of mapped {@link T}
+     * @throws DbCallException Thrown when unable to query database
+     */
+    private List<T> queryAll() throws DbCallException {
+        return query("getAll", rs -> {
+            final List<T> results = new ArrayList<>();
             while (rs.next()) {
                 results.add(resultSetMapper.map(rs));
             }
 
             return results;
-        } catch (final SQLException | DbCallResultSetMapperException e) {
-            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+        });
+    }
+
+    /**
+     * Returns a list of all mapped objects from the query's result set,
+     * keeping at most about the given amount of bytes of rows in memory.
+     * Rows beyond the budget are written to a temporary file with Java
+     * serialization, so they must implement {@link java.io.Serializable}. See
+     * {@link #getAllSpilling(long, DbRowCodec)}.
+     *
+     * @param memoryBudget Estimated amount of bytes of rows to keep in
+     *                     memory
+     * @return List of mapped {@link T}, to be closed after use
+     * @throws DbCallException Thrown when unable to query database or write
+     *                         the temporary file
+     */
+    public DbSpillList<T> getAllSpilling(final long memoryBudget) throws DbCallException {
+        return getAllSpilling(memoryBudget, DbRowCodec.serializable());
+    }
+
+    /**
+     * Returns a list of all mapped objects from the query's result set,
+     * keeping at most about the given amount of bytes of rows in memory.
+     * Once the budget is reached, every further row is encoded with the
+     * given codec and written to a temporary file in the directory set with
+     * {@link #setSpillDirectory(Path)}. The returned list reads spilled rows
+     * back from the memory-mapped file on demand. Close the list to delete
+     * the file. The amount of rows and bytes spilled is reported to
+     * {@link DbCallListener}s through {@link DbCallEvent#getSpilledRows()}.
+     *
+     * @param memoryBudget Estimated amount of bytes of rows to keep in
+     *                     memory, judging by their encoded size
+     * @param codec        Codec encoding and decoding spilled rows
+     * @return List of mapped {@link T}, to be closed after use
+     * @throws DbCallException Thrown when unable to query database or write
+     *                         the temporary file
+     */
+    public DbSpillList<T> getAllSpilling(final long memoryBudget, final DbRowCodec<T> codec) throws DbCallException {
+        validateRetrievalArguments();
+        if (codec == null) {
+            throw new IllegalArgumentException("No DbRowCodec set");
+        } else if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative");
+        }
+
+        try {
+            return query("getAllSpilling", query, 0, true, rs -> {
+                final DbSpillList<T> results = new DbSpillList<>(codec, memoryBudget, spillDirectory,
+                        SpillFile.REGION_BYTES);
+                try {
+                    while (rs.next()) {
+                        results.append(resultSetMapper.map(rs));
+                    }
+
+                    results.finish();
+                    return results;
+                } catch (final IOException e) {
+                    results.close();
+                    throw new UncheckedIOException(e);
+                } catch (final SQLException | DbCallResultSetMapperException | RuntimeException e) {
+                    results.close();
+                    throw e;
+                }
+            });
+        } catch (final UncheckedIOException e) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e.getCause());
         }
     }
 
     /**
-     * Returns whether the query has any results in the database.
+     * Returns whether results are read from and put in the cache. Calls in a
+     * session transaction bypass the cache, as they may read uncommitted
+     * writes that are rolled back later, and so do queries of which the
+     * tables are unknown, as no write would invalidate their results.
      *
-     * @return True when then query has any result and otherwise false
-     * @throws DbCallException Thrown when unable to query database
+     * @return True when a cache is set, the tables of the query are known
+     * and the call is not in a transaction
+     * @throws DbCallException Thrown when unable to read the state of the
+     *                         session
      */
-    public boolean hasResults() throws DbCallException {
-        validateArguments();
-        try (final Connection conn = db.getConnection(); final PreparedStatement stmt = conn.prepareStatement(query)) {
-            if (hasQueryArguments) {
-                arguments.apply(stmt);
-            }
+    private boolean useCache() throws DbCallException {
+        return cache != null
+                && parsedQuery.hasKnownTables()
+                && (session == null || !session.isInTransaction());
+    }
 
-            final ResultSet rs = stmt.executeQuery();
-            return rs.next();
+    /**
+     * Returns the cached result of the given operation, or runs the operation
+     * and caches its result. Results of calls binding values that cannot be
+     * compared, such as streams, are never cached.
+     *
+     * @param operation Name of the operation
+     * @param task      Operation to run when its result is not cached
+     * @param <R>       Result of the operation
+     * @return Cached or new result
+     * @throws DbCallException Thrown when unable to query database
+     */
+    @SuppressWarnings("unchecked")
+    private <R> R cached(final String operation, final DbCallTask<R> task) throws DbCallException {
+        final List<List<Object>> parameters;
+        try {
+            parameters = ArgumentRecorder.record(hasQueryArguments() ? arguments : null);
         } catch (final SQLException e) {
             throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
         }
+
+        if (parameters == null) {
+            return task.call();
+        }
+
+        final DbCallCache.Key key = new DbCallCache.Key(
+                operation,
+                parsedQuery,
+                DbCallCache.mapperKey(resultSetMapper),
+                parameters);
+        final Object cachedResult = cache.get(key);
+        if (cachedResult != null) {
+            return (R) cachedResult;
+        }
+
+        final long generation = cache.generation();
+        final R result = task.call();
+        cache.put(key, result, generation);
+        return result;
+    }
+
+    /**
+     * Invalidates the cached results of the tables written to by the query,
+     * when a {@link DbCallCache} is set, or all cached results when the
+     * tables of the query are unknown.
+     */
+    private void invalidateCache() {
+        if (cache == null) {
+            return;
+        }
+
+        if (parsedQuery.hasKnownTables()) {
+            cache.invalidateTables(parsedQuery.getTables());
+        } else {
+            cache.invalidateAll();
+        }
     }
 
     /**
-     * Executes the query on the database.
+     * Returns all ints mapped from the query's result set as a primitive
+     * array, without boxing them.
      *
+     * @param mapper {@link IntColumnMapper} for mapping a row to an int
+     * @return Mapped ints, in the order of the result set
      * @throws DbCallException Thrown when unable to query database
      */
-    public void execute() throws DbCallException {
-        validateArguments();
-        try (final Connection conn = db.getConnection(); final PreparedStatement stmt = conn.prepareStatement(query)) {
-            if (hasQueryArguments) {
-                arguments.apply(stmt);
+    public int[] getAllInts(final IntColumnMapper mapper) throws DbCallException {
+        return getAllInts(mapper, null);
+    }
+
+    /**
+     * Returns all ints mapped from the query's result set as a primitive
+     * array, without boxing them. The index of every row of which the last
+     * column read by the mapper was SQL NULL is set in the given null mask.
+     *
+     * @param mapper {@link IntColumnMapper} for mapping a row to an int
+     * @param nulls  Null mask to fill, or null when not needed
+     * @return Mapped ints, in the order of the result set
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public int[] getAllInts(final IntColumnMapper mapper, final BitSet nulls) throws DbCallException {
+        validateColumnMapper(mapper);
+        return getAllPrimitives("getAllInts", nulls, int[]::new, Arrays::copyOf,
+                (rs, values, row) -> values[row] = mapper.mapInt(rs));
+    }
+
+    /**
+     * Returns all longs mapped from the query's result set as a primitive
+     * array, without boxing them.
+     *
+     * @param mapper {@link LongColumnMapper} for mapping a row to a long
+     * @return Mapped longs, in the order of the result set
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public long[] getAllLongs(final LongColumnMapper mapper) throws DbCallException {
+        return getAllLongs(mapper, null);
+    }
+
+    /**
+     * Returns all longs mapped from the query's result set as a primitive
+     * array, without boxing them. The index of every row of which the last
+     * column read by the mapper was SQL NULL is set in the given null mask.
+     *
+     * @param mapper {@link LongColumnMapper} for mapping a row to a long
+     * @param nulls  Null mask to fill, or null when not needed
+     * @return Mapped longs, in the order of the result set
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public long[] getAllLongs(final LongColumnMapper mapper, final BitSet nulls) throws DbCallException {
+        validateColumnMapper(mapper);
+        return getAllPrimitives("getAllLongs", nulls, long[]::new, Arrays::copyOf,
+                (rs, values, row) -> values[row] = mapper.mapLong(rs));
+    }
+
+    /**
+     * Returns all floats mapped from the query's result set as a primitive
+     * array, without boxing them.
+     *
+     * @param mapper {@link FloatColumnMapper} for mapping a row to a float
+     * @return Mapped floats, in the order of the result set
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public float[] getAllFloats(final FloatColumnMapper mapper) throws DbCallException {
+        return getAllFloats(mapper, null);
+    }
+
+    /**
+     * Returns all floats mapped from the query's result set as a primitive
+     * array, without boxing them. The index of every row of which the last
+     * column read by the mapper was SQL NULL is set in the given null mask.
+     *
+     * @param mapper {@link FloatColumnMapper} for mapping a row to a float
+     * @param nulls  Null mask to fill, or null when not needed
+     * @return Mapped floats, in the order of the result set
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public float[] getAllFloats(final FloatColumnMapper mapper, final BitSet nulls) throws DbCallException {
+        validateColumnMapper(mapper);
+        return getAllPrimitives("getAllFloats", nulls, float[]::new, Arrays::copyOf,
+                (rs, values, row) -> values[row] = mapper.mapFloat(rs));
+    }
+
+    /**
+     * Returns all doubles mapped from the query's result set as a primitive
+     * array, without boxing them.
+     *
+     * @param mapper {@link DoubleColumnMapper} for mapping a row to a double
+     * @return Mapped doubles, in the order of the result set
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public double[] getAllDoubles(final DoubleColumnMapper mapper) throws DbCallException {
+        return getAllDoubles(mapper, null);
+    }
+
+    /**
+     * Returns all doubles mapped from the query's result set as a primitive
+     * array, without boxing them. The index of every row of which the last
+     * column read by the mapper was SQL NULL is set in the given null mask.
+     *
+     * @param mapper {@link DoubleColumnMapper} for mapping a row to a double
+     * @param nulls  Null mask to fill, or null when not needed
+     * @return Mapped doubles, in the order of the result set
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public double[] getAllDoubles(final DoubleColumnMapper mapper, final BitSet nulls) throws DbCallException {
+        validateColumnMapper(mapper);
+        return getAllPrimitives("getAllDoubles", nulls, double[]::new, Arrays::copyOf,
+                (rs, values, row) -> values[row] = mapper.mapDouble(rs));
+    }
+
+    /**
+     * Maps every row of the query's result set into a growing primitive
+     * array, doubling its capacity when full, and returns the array trimmed
+     * to the amount of rows.
+     *
+     * @param operation Name of the operation
+     * @param nulls     Null mask to fill, or null when not needed
+     * @param allocate  Creates an array of the given capacity
+     * @param copyOf    Copies an array into one of the given length
+     * @param reader    Maps the current row into the given index of the
+     *                  array
+     * @param <A>       Primitive array type
+     * @return Mapped values, in the order of the result set
+     * @throws DbCallException Thrown when unable to query database
+     */
+    private <A> A getAllPrimitives(final String operation,
+                                   final BitSet nulls,
+                                   final IntFunction<A> allocate,
+                                   final BiFunction<A, Integer, A> copyOf,
+                                   final PrimitiveReader<A> reader) throws DbCallException {
+        return query(operation, rs -> {
+            A values = allocate.apply(INITIAL_COLUMN_CAPACITY);
+            int capacity = INITIAL_COLUMN_CAPACITY;
+            int size = 0;
+            while (rs.next()) {
+                if (size == capacity) {
+                    capacity *= 2;
+                    values = copyOf.apply(values, capacity);
+                }
+
+                reader.read(rs, values, size);
+                markNull(rs, nulls, size++);
             }
 
-            stmt.executeUpdate();
-        } catch (final SQLException e) {
-            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+            return copyOf.apply(values, size);
+        });
+    }
+
+    /**
+     * Maps all booleans from the query's result set into the given bit set,
+     * without boxing them. The index of every row mapped to true is set in
+     * the values, and the index of every row of which the last column read
+     * by the mapper was SQL NULL is set in the null mask.
+     *
+     * @param mapper {@link BooleanColumnMapper} for mapping a row to a boolean
+     * @param values Bit set to fill with the mapped booleans
+     * @param nulls  Null mask to fill, or null when not needed
+     * @return Amount of rows in the result set
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public int getAllBooleans(final BooleanColumnMapper mapper,
+                              final BitSet values,
+                              final BitSet nulls) throws DbCallException {
+        validateColumnMapper(mapper);
+        if (values == null) {
+            throw new IllegalArgumentException("No BitSet for values set");
         }
+
+        return query("getAllBooleans", rs -> {
+            int size = 0;
+            while (rs.next()) {
+                values.set(size, mapper.mapBoolean(rs));
+                markNull(rs, nulls, size++);
+            }
+
+            return size;
+        });
     }
 
     /**
-     * Validates whether a database, query, optional arguments and a result set
-     * mapper are present.
+     * Returns the query's result set as a columnar frame on the heap. See
+     * {@link #getFrame(boolean)}.
      *
-     * @throws IllegalArgumentException When missing arguments needed to
-     *                                  execute the DbCall and return data
+     * @return Frame holding every row of the result set
+     * @throws DbCallException Thrown when unable to query database
      */
-    private void validateRetrievalArguments() throws IllegalArgumentException {
+    public DbFrame getFrame() throws DbCallException {
+        return getFrame(false);
+    }
+
+    /**
+     * Returns the query's result set as a columnar frame. The metadata of the
+     * result set is read once, after which every column is stored in a typed
+     * buffer with a null mask: numbers, booleans and timestamps as
+     * primitives and strings dictionary-encoded, instead of an object per
+     * row. No result set mapper is needed. Off-heap frames keep the
+     * primitive buffers out of the Java heap; their memory is released when
+     * the frame is garbage collected. Use {@link #setFetchSize(int)} to make
+     * the driver fetch the rows in chunks instead of all at once.
+     *
+     * @param offHeap Whether to store the buffers in direct memory
+     * @return Frame holding every row of the result set
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public DbFrame getFrame(final boolean offHeap) throws DbCallException {
         validateArguments();
+        return query("getFrame", query, 0, true, rs -> DbFrame.read(rs, offHeap));
+    }
 
-        if (resultSetMapper == null) {
-            throw new IllegalArgumentException("No DbCallResultSetMapper set");
+    /**
+     * Sets the given row in the null mask when the last column read from the
+     * result set was SQL NULL.
+     *
+     * @param rs    Result set the row was read from
+     * @param nulls Null mask or null when not needed
+     * @param row   Index of the row
+     * @throws SQLException When unable to read from the result set
+     */
+    private static void markNull(final ResultSet rs, final BitSet nulls, final int row) throws SQLException {
+        if (nulls != null && rs.wasNull()) {
+            nulls.set(row);
         }
     }
 
     /**
-     * Validates whether a valid query, database and optional arguments are
-     * presents.
+     * Returns a lazy stream of mapped objects from the query's result set.
+     * Rows are read from the database and mapped while the stream is
+     * consumed, so memory usage does not depend on the size of the result
+     * set. Use {@link #setFetchSize(int)} to make the driver fetch the rows
+     * in chunks instead of all at once.
+     * <p>
+     * The stream holds a database connection until it is fully consumed or
+     * closed, so always consume it in a try-with-resources block. Database
+     * errors while consuming the stream are thrown as
+     * {@link UncheckedDbCallException}.
+     *
+     * @return Stream of mapped {@link T}
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public Stream<T> stream() throws DbCallException {
+        final DbCallCursor<T> cursor = openCursor();
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), false)
+                .onClose(cursor::close);
+    }
+
+    /**
+     * Maps every row of the query's result set and passes it to the given
+     * consumer, one row at a time. Rows are read from the database while they
+     * are consumed, so memory usage does not depend on the size of the
+     * result set. Use {@link #setFetchSize(int)} to make the driver fetch the
+     * rows in chunks instead of all at once.
+     *
+     * @param consumer Consumer of every mapped {@link T}
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public void forEach(final Consumer<? super T> consumer) throws DbCallException {
+        if (consumer == null) {
+            throw new IllegalArgumentException("No consumer set");
+        }
+
+        try (final DbCallCursor<T> cursor = openCursor()) {
+            cursor.forEachRemaining(consumer);
+        } catch (final UncheckedDbCallException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Executes the query and returns a cursor over its result set.
+     *
+     * @return Opened cursor
+     * @throws DbCallException Thrown when unable to query database
+     */
+    private DbCallCursor<T> openCursor() throws DbCallException {
+        validateRetrievalArguments();
+        final DbCallCursor<T> cursor = new DbCallCursor<>(resultSetMapper);
+        final StatementWatch watch = StatementWatch.start(effectiveDeadline());
+        try {
+            cursor.open(
+                    getConnection(parsedQuery.isReadOnly(), watch),
+                    query,
+                    hasQueryArguments() ? arguments : null,
+                    fetchSize,
+                    watch);
+            return cursor;
+        } catch (final SQLException e) {
+            cursor.closeAfterFailure(e);
+            throw watch.failure(e);
+        } catch (final DbCallException e) {
+            cursor.closeAfterFailure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a list of all mapped objects from the query's result set, read
+     * by querying ranges of the given integer column concurrently. The
+     * lowest and highest value of the column are queried first and the range
+     * between them is split into the given amount of ranges of about equal
+     * size. See {@link #getAllParallel(String, long, long, int)}.
+     *
+     * @param partitionColumn Integer column of the query's result set, as
+     *                        written in SQL, e.g. {@code id} or
+     *                        {@code "id"}
+     * @param partitions      Amount of ranges, at least 1
+     * @return List of mapped {@link T}
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public List<T> getAllParallel(final String partitionColumn, final int partitions) throws DbCallException {
+        final ParallelScan<T> scan = parallelScan(partitionColumn, partitions);
+        final Optional<long[]> range = scan.sampleRange();
+        return scan.getAll(range.isPresent()
+                ? ParallelScan.split(range.get()[0], range.get()[1], partitions)
+                : new long[0][]);
+    }
+
+    /**
+     * Returns a list of all mapped objects from the query's result set, read
+     * by querying ranges of the given integer column concurrently. The given
+     * range is split into the given amount of ranges of about equal size,
+     * each queried on its own connection of the database. Values below or
+     * above the given range are read with the first or last range, and rows
+     * in which the column is NULL are read last, so the result holds every
+     * row of the query.
+     * <p>
+     * At most {@link #setMaxParallelism(int)} ranges are queried at the same
+     * time, on the executor of this DbCall, so make sure the connection pool
+     * and executor have room for them. The rows are mapped concurrently,
+     * so the {@link DbCallResultSetMapper} must be thread-safe. The result
+     * lists the rows of every range in the order of the ranges; within a
+     * range, rows are only ordered when {@link #setParallelOrdered(boolean)}
+     * is set. The ranges are not read in a single transaction, so they may
+     * observe different states of the database.
+     *
+     * @param partitionColumn Integer column of the query's result set, as
+     *                        written in SQL, e.g. {@code id} or
+     *                        {@code "id"}
+     * @param min             Lowest expected value of the column
+     * @param max             Highest expected value of the column
+     * @param partitions      Amount of ranges, at least 1
+     * @return List of mapped {@link T}
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public List<T> getAllParallel(final String partitionColumn,
+                                  final long min,
+                                  final long max,
+                                  final int partitions) throws DbCallException {
+        validateRange(min, max);
+        return parallelScan(partitionColumn, partitions).getAll(ParallelScan.split(min, max, partitions));
+    }
+
+    /**
+     * Returns a stream of all mapped objects from the query's result set,
+     * read by querying ranges of the given integer column concurrently. The
+     * lowest and highest value of the column are queried first and the range
+     * between them is split into the given amount of ranges of about equal
+     * size. See {@link #streamParallel(String, long, long, int)}.
+     *
+     * @param partitionColumn Integer column of the query's result set, as
+     *                        written in SQL, e.g. {@code id} or
+     *                        {@code "id"}
+     * @param partitions      Amount of ranges, at least 1
+     * @return Stream of mapped {@link T}
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public Stream<T> streamParallel(final String partitionColumn, final int partitions) throws DbCallException {
+        final ParallelScan<T> scan = parallelScan(partitionColumn, partitions);
+        final Optional<long[]> range = scan.sampleRange();
+        return scan.stream(range.isPresent()
+                ? ParallelScan.split(range.get()[0], range.get()[1], partitions)
+                : new long[0][]);
+    }
+
+    /**
+     * Returns a stream of all mapped objects from the query's result set,
+     * read by querying ranges of the given integer column concurrently, as
+     * described by {@link #getAllParallel(String, long, long, int)}. Ranges
+     * are queried while the stream is consumed, at most
+     * {@link #setMaxParallelism(int)} ahead of the range being consumed, so
+     * memory usage is bounded by the size of that many ranges. Every range
+     * releases its connection once it was read.
+     * <p>
+     * Close the stream, e.g. in a try-with-resources block, to cancel the
+     * ranges not yet started when it is not fully consumed. Database errors
+     * while consuming the stream are thrown as
+     * {@link UncheckedDbCallException}.
+     *
+     * @param partitionColumn Integer column of the query's result set, as
+     *                        written in SQL, e.g. {@code id} or
+     *                        {@code "id"}
+     * @param min             Lowest expected value of the column
+     * @param max             Highest expected value of the column
+     * @param partitions      Amount of ranges, at least 1
+     * @return Stream of mapped {@link T}
+     */
+    public Stream<T> streamParallel(final String partitionColumn,
+                                    final long min,
+                                    final long max,
+                                    final int partitions) {
+        validateRange(min, max);
+        return parallelScan(partitionColumn, partitions).stream(ParallelScan.split(min, max, partitions));
+    }
+
+    /**
+     * Validates the arguments of a parallel operation and prepares its scan.
      *
+     * @param partitionColumn Integer column of the query's result set
+     * @param partitions      Amount of ranges
+     * @return Prepared scan
      * @throws IllegalArgumentException When missing arguments needed to
-     *                                  execute the DbCall
+     *                                  execute the parallel operation
      */
-    private void validateArguments() throws IllegalArgumentException {
-        if (query == null || query.isEmpty()) {
-            throw new IllegalArgumentException("No query set");
+    private ParallelScan<T> parallelScan(final String partitionColumn,
+                                         final int partitions) throws IllegalArgumentException {
+        validateRetrievalArguments();
+
+        if (session != null) {
+            throw new IllegalArgumentException("Parallel operations cannot run in a session");
         }
 
-        // TODO - Find another way to determine whether the query contains parameters
-        hasQueryArguments = query.contains("?");
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partitions must be at least 1");
+        }
 
-        if (db == null) {
-            throw new IllegalArgumentException("No database set");
+        if (maxParallelism < 1) {
+            throw new IllegalArgumentException("Max parallelism must be at least 1");
         }
 
-        if (hasQueryArguments && arguments == null) {
-            throw new IllegalArgumentException("No DbCallArguments set");
+        final ParallelScan<T> scan = new ParallelScan<>(
+                this,
+                resultSetMapper,
+                parsedQuery,
+                hasQueryArguments() ? arguments : null,
+                partitionColumn,
+                executor != null ? executor : DbCallExecutors.getDefault(),
+                maxParallelism,
+                parallelOrdered);
+        scan.setDeadline(effectiveDeadline());
+        return scan;
+    }
+
+    /**
+     * Validates the bounds of a range.
+     *
+     * @param min Lowest value
+     * @param max Highest value
+     * @throws IllegalArgumentException When the lowest value exceeds the
+     *                                  highest
+     */
+    private static void validateRange(final long min, final long max) throws IllegalArgumentException {
+        if (min > max) {
+            throw new IllegalArgumentException("No valid range set");
         }
     }
 
     /**
-     * Sets a new database to execute the queries on.
+     * Returns a page of at most the given amount of mapped objects from the
+     * query's result set, ordered by the given key columns, using keyset
+     * pagination. Instead of skipping rows with {@code OFFSET}, the page
+     * query seeks past the cursor with
+     * {@code WHERE (key) > (?) ORDER BY key}, so with an index on the key
+     * columns every page costs the same however deep it is. The page is
+     * limited by the dialect of this call, or otherwise with the standard
+     * {@code FETCH FIRST} clause.
+     * <p>
+     * The key columns must be columns of the query's result set, never NULL
+     * and together unique, e.g. the primary key. Pass the cursor of the
+     * returned page to get the next page. Cursors are opaque strings that
+     * can be handed to clients, and only work for the same query and key
+     * columns.
      *
-     * @param db New database
+     * @param cursor     Cursor of the previous page, or null for the first
+     *                   page
+     * @param pageSize   Maximum amount of rows per page
+     * @param keyColumns Key columns of the query's result set, as written in
+     *                   SQL
+     * @return Page of mapped {@link T}
+     * @throws DbCallException          Thrown when unable to query database
+     * @throws IllegalArgumentException When missing arguments or the cursor
+     *                                  is not a cursor of this query
      */
-    public void setDb(final Database db) {
-        this.db = db;
+    public DbPage<T> getPage(final String cursor,
+                             final int pageSize,
+                             final String... keyColumns) throws DbCallException {
+        return keysetPager(pageSize, keyColumns).page(cursor);
     }
 
     /**
-     * Sets a new SQL-statement to query on the database.
+     * Returns an iterator over the pages of the query's result set after the
+     * given cursor, reading every page when it is needed. See
+     * {@link #getPage(String, int, String...)}. Every page is a query of its
+     * own, so no connection is held between pages. Database errors while
+     * iterating are thrown as {@link UncheckedDbCallException}.
      *
-     * @param query New SQL-statement
+     * @param cursor     Cursor to start after, or null to start at the first
+     *                   row
+     * @param pageSize   Maximum amount of rows per page
+     * @param keyColumns Key columns of the query's result set, as written in
+     *                   SQL
+     * @return Iterator over the non-empty pages
+     * @throws IllegalArgumentException When missing arguments or the cursor
+     *                                  is not a cursor of this query
      */
-    public void setQuery(@Language("SQL") final String query) {
-        this.query = query;
+    public Iterator<DbPage<T>> pages(final String cursor, final int pageSize, final String... keyColumns) {
+        return keysetPager(pageSize, keyColumns).pages(cursor);
     }
 
     /**
-     * Sets new SQL-query parameters to inject in the statement.
+     * Returns a stream of all mapped objects of the query's result set after
+     * the given cursor, read page by page. See
+     * {@link #pages(String, int, String...)}. Database errors while
+     * consuming the stream are thrown as {@link UncheckedDbCallException}.
      *
-     * @param arguments New arguments
+     * @param cursor     Cursor to start after, or null to start at the first
+     *                   row
+     * @param pageSize   Amount of rows read per query
+     * @param keyColumns Key columns of the query's result set, as written in
+     *                   SQL
+     * @return Stream of mapped {@link T}, ordered by the key columns
+     * @throws IllegalArgumentException When missing arguments or the cursor
+     *                                  is not a cursor of this query
      */
-    public void setArguments(final DbCallArguments arguments) {
-        this.arguments = arguments;
+    public Stream<T> streamPages(final String cursor, final int pageSize, final String... keyColumns) {
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(
+                        pages(cursor, pageSize, keyColumns),
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .flatMap(page -> page.getItems().stream());
     }
 
     /**
-     * Sets a new result set mapper used to make results from the database to
-     * {@link T}.
+     * Validates the arguments of keyset pagination and prepares its pager.
      *
-     * @param resultSetMapper New result set mapper
+     * @param pageSize   Maximum amount of rows per page
+     * @param keyColumns Key columns of the query's result set
+     * @return Prepared pager
+     * @throws IllegalArgumentException When missing arguments needed to
+     *                                  page through the query
      */
-    public void setResultSetMapper(final DbCallResultSetMapper<T> resultSetMapper) {
-        this.resultSetMapper = resultSetMapper;
+    private KeysetPager<T> keysetPager(final int pageSize,
+                                       final String... keyColumns) throws IllegalArgumentException {
+        validateRetrievalArguments();
+
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+
+        return new KeysetPager<>(
+                this,
+                resultSetMapper,
+                parsedQuery,
+                hasQueryArguments() ? arguments : null,
+                dialect,
+                pageSize,
+                keyColumns);
+    }
+
+    /**
+     * Writes every row of the query's result set to the given stream as
+     * comma separated values (RFC 4180), starting with a header of column
+     * labels. Rows are written from the open result set through a reusable
+     * buffer, without mapping them to objects, so memory usage does not
+     * depend on the size of the result set. Use {@link #setFetchSize(int)} to
+     * make the driver fetch the rows in chunks instead of all at once. SQL
+     * NULL is written as an empty field. The stream is flushed, not closed.
+     *
+     * @param out Stream to write to
+     * @return Amount of rows written
+     * @throws DbCallException Thrown when unable to query database or write
+     *                         to the stream
+     */
+    public long exportCsv(final OutputStream out) throws DbCallException {
+        if (out == null) {
+            throw new IllegalArgumentException("No OutputStream set");
+        }
+
+        return export("exportCsv", ResultSetExporter.csv(ResultSetExporter.Sink.of(out)));
+    }
+
+    /**
+     * Writes every row of the query's result set to the given channel as
+     * comma separated values. See {@link #exportCsv(OutputStream)}. The
+     * channel is not closed.
+     *
+     * @param channel Channel to write to
+     * @return Amount of rows written
+     * @throws DbCallException Thrown when unable to query database or write
+     *                         to the channel
+     */
+    public long exportCsv(final WritableByteChannel channel) throws DbCallException {
+        if (channel == null) {
+            throw new IllegalArgumentException("No WritableByteChannel set");
+        }
+
+        return export("exportCsv", ResultSetExporter.csv(ResultSetExporter.Sink.of(channel)));
+    }
+
+    /**
+     * Writes every row of the query's result set to the given stream as a
+     * JSON object keyed by column label, one object per line (JSON Lines).
+     * Integers, decimals and booleans are written as JSON numbers and
+     * booleans, other values as strings. Like {@link #exportCsv(OutputStream)},
+     * memory usage does not depend on the size of the result set. The stream
+     * is flushed, not closed.
+     *
+     * @param out Stream to write to
+     * @return Amount of rows written
+     * @throws DbCallException Thrown when unable to query database or write
+     *                         to the stream
+     */
+    public long exportJsonLines(final OutputStream out) throws DbCallException {
+        if (out == null) {
+            throw new IllegalArgumentException("No OutputStream set");
+        }
+
+        return export("exportJsonLines", ResultSetExporter.jsonLines(ResultSetExporter.Sink.of(out)));
+    }
+
+    /**
+     * Writes every row of the query's result set to the given channel as
+     * JSON Lines. See {@link #exportJsonLines(OutputStream)}. The channel is
+     * not closed.
+     *
+     * @param channel Channel to write to
+     * @return Amount of rows written
+     * @throws DbCallException Thrown when unable to query database or write
+     *                         to the channel
+     */
+    public long exportJsonLines(final WritableByteChannel channel) throws DbCallException {
+        if (channel == null) {
+            throw new IllegalArgumentException("No WritableByteChannel set");
+        }
+
+        return export("exportJsonLines", ResultSetExporter.jsonLines(ResultSetExporter.Sink.of(channel)));
+    }
+
+    /**
+     * Executes the query and writes its result set with the given exporter.
+     *
+     * @param operation Name of the operation, reported to listeners
+     * @param exporter  Exporter writing the rows
+     * @return Amount of rows written
+     * @throws DbCallException Thrown when unable to query database or write
+     *                         the rows
+     */
+    private long export(final String operation, final ResultSetExporter exporter) throws DbCallException {
+        validateArguments();
+        try {
+            return query(operation, query, 0, true, exporter::export);
+        } catch (final UncheckedIOException e) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e.getCause());
+        }
+    }
+
+    /**
+     * Returns whether the query has any results in the database. The driver
+     * is told to fetch only a single row. When a {@link DbDialect} is set and
+     * the query is a SELECT, the query is wrapped in an EXISTS-query, so the
+     * database can stop at the first result.
+     *
+     * @return True when then query has any result and otherwise false
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public boolean hasResults() throws DbCallException {
+        validateArguments();
+        if (dialect != null && parsedQuery.isSelect()) {
+            final String sql = parsedQuery.rewrite(
+                    dialect.getName() + ":exists",
+                    q -> dialect.existsQuery(q.getStatement()));
+            return query("hasResults", sql, 1, rs -> rs.next() && rs.getBoolean(1));
+        }
+
+        return query("hasResults", query, 1, ResultSet::next);
+    }
+
+    /**
+     * Executes the query and passes its result set to the given handler.
+     * Arguments must be validated before calling this method.
+     *
+     * @param operation Name of the operation, reported to listeners
+     * @param handler   Handler reading the result set
+     * @param <R>       Result of the handler
+     * @return Result of the handler
+     * @throws DbCallException Thrown when unable to query database or map
+     *                         the results
+     */
+    private <R> R query(final String operation, final ResultSetHandler<R> handler) throws DbCallException {
+        return query(operation, query, 0, handler);
+    }
+
+    /**
+     * Executes the given SQL with the arguments of this DbCall and passes its
+     * result set to the given handler. Arguments must be validated before
+     * calling this method. Registered {@link DbCallListener}s are notified of
+     * every phase.
+     *
+     * @param operation Name of the operation, reported to listeners
+     * @param sql       SQL-query to execute, the query of this DbCall or a
+     *                  rewrite of it with the same parameters
+     * @param maxRows   Maximum amount of rows to read, or 0 for all rows
+     * @param handler   Handler reading the result set
+     * @param <R>       Result of the handler
+     * @return Result of the handler
+     * @throws DbCallException Thrown when unable to query database or map
+     *                         the results
+     */
+    private <R> R query(final String operation,
+                        final String sql,
+                        final int maxRows,
+                        final ResultSetHandler<R> handler) throws DbCallException {
+        return query(operation, sql, maxRows, false, handler);
+    }
+
+    /**
+     * Executes the given SQL with the arguments of this DbCall and passes its
+     * result set to the given handler. When streaming with a fetch size, the
+     * query runs in a transaction, so drivers such as PostgreSQL's fetch the
+     * rows in chunks instead of all at once.
+     *
+     * @param operation Name of the operation, reported to listeners
+     * @param sql       SQL-query to execute, the query of this DbCall or a
+     *                  rewrite of it with the same parameters
+     * @param maxRows   Maximum amount of rows to read, or 0 for all rows
+     * @param streaming Whether the handler reads rows while they arrive
+     * @param handler   Handler reading the result set
+     * @param <R>       Result of the handler
+     * @return Result of the handler
+     * @throws DbCallException Thrown when unable to query database or map
+     *                         the results
+     */
+    private <R> R query(final String operation,
+                        final String sql,
+                        final int maxRows,
+                        final boolean streaming,
+                        final ResultSetHandler<R> handler) throws DbCallException {
+        final DbCallEvent event = DbCallListeners.start(operation, this, sql, hasQueryArguments() ? arguments : null);
+        final StatementWatch watch = StatementWatch.start(effectiveDeadline());
+        try (final Connection conn = getConnection(parsedQuery.isReadOnly(), watch)) {
+            endPhase(event, DbCallPhase.ACQUIRE);
+            final boolean restoreAutoCommit = streaming && fetchSize > 0 && conn.getAutoCommit();
+            if (restoreAutoCommit) {
+                conn.setAutoCommit(false);
+            }
+
+            try (final PreparedStatement stmt = conn.prepareStatement(sql)) {
+                watch.watch(stmt);
+                if (maxRows > 0) {
+                    stmt.setMaxRows(maxRows);
+                    stmt.setFetchSize(maxRows);
+                } else if (fetchSize > 0) {
+                    stmt.setFetchSize(fetchSize);
+                }
+
+                if (hasQueryArguments()) {
+                    arguments.apply(stmt);
+                }
+
+                endPhase(event, DbCallPhase.PREPARE);
+                try (final ResultSet rs = stmt.executeQuery()) {
+                    watch.executed();
+                    endPhase(event, DbCallPhase.EXECUTE);
+                    final R result = handler.handle(rs);
+                    if (event != null) {
+                        event.endPhase(DbCallPhase.MAP);
+                        event.setRowCount(rowCount(result));
+                        if (result instanceof DbSpillList) {
+                            final DbSpillList<?> spilled = (DbSpillList<?>) result;
+                            event.setSpilled(spilled.getSpilledRowCount(), spilled.getSpilledBytes());
+                        }
+                    }
+
+                    return result;
+                }
+            } finally {
+                if (restoreAutoCommit) {
+                    conn.commit();
+                    conn.setAutoCommit(true);
+                }
+            }
+        } catch (final SQLException | DbCallResultSetMapperException e) {
+            fail(event, e);
+            throw watch.failure(e);
+        } catch (final DbCallException | RuntimeException e) {
+            fail(event, e);
+            throw e;
+        } finally {
+            watch.close();
+            end(event);
+        }
+    }
+
+    /**
+     * Returns the amount of rows a result set handler read, judging by its
+     * result.
+     *
+     * @param result Result of a result set handler
+     * @return Amount of rows
+     */
+    private static long rowCount(final Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        } else if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        } else if (result instanceof Boolean) {
+            return (Boolean) result ? 1 : 0;
+        } else if (result instanceof Integer) {
+            return (Integer) result;
+        } else if (result instanceof Long) {
+            return (Long) result;
+        } else if (result instanceof DbFrame) {
+            return ((DbFrame) result).getRowCount();
+        } else if (result != null && result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Ends a phase of the given event, when calls are being listened to.
+     *
+     * @param event Event of the call, or null
+     * @param phase Phase that ended
+     */
+    private static void endPhase(final DbCallEvent event, final DbCallPhase phase) {
+        if (event != null) {
+            event.endPhase(phase);
+        }
+    }
+
+    /**
+     * Marks the given event as failed, when calls are being listened to.
+     *
+     * @param event Event of the call, or null
+     * @param error Cause of the failure
+     */
+    private static void fail(final DbCallEvent event, final Throwable error) {
+        if (event != null) {
+            event.fail(error);
+        }
+    }
+
+    /**
+     * Ends the given event, when calls are being listened to.
+     *
+     * @param event Event of the call, or null
+     */
+    private static void end(final DbCallEvent event) {
+        if (event != null) {
+            event.end();
+        }
+    }
+
+    /**
+     * Executes the query on the database. When a {@link DbCallCache} is set,
+     * the cached results of the tables the query writes to are invalidated.
+     *
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public void execute() throws DbCallException {
+        validateArguments();
+        update("execute", null);
+    }
+
+    /**
+     * Executes the query on the database and maps the first row of the keys
+     * the database generated, e.g. the id of an inserted row, in the same
+     * round trip. By default the driver decides which columns are returned;
+     * set them with {@link #setKeyColumns(String...)}. When a
+     * {@link DbCallCache} is set, the cached results of the tables the query
+     * writes to are invalidated.
+     *
+     * @param keyMapper {@link DbCallResultSetMapper} for mapping a row of
+     *                  generated keys
+     * @param <K>       Type of the keys
+     * @return Mapped keys or an empty {@link Optional} when no keys were
+     * generated
+     * @throws DbCallException Thrown when unable to query database or map
+     *                         the keys
+     */
+    public <K> Optional<K> executeReturningKeys(final DbCallResultSetMapper<K> keyMapper) throws DbCallException {
+        validateKeyMapper(keyMapper);
+        validateArguments();
+        return update("executeReturningKeys", rs -> rs.next() ? Optional.ofNullable(keyMapper.map(rs)) : Optional.empty());
+    }
+
+    /**
+     * Executes the query on the database and returns every numeric key the
+     * database generated as a primitive array, without boxing them. See
+     * {@link #executeReturningKeys(DbCallResultSetMapper)}.
+     *
+     * @param keyMapper {@link LongColumnMapper} for mapping a row of
+     *                  generated keys to a long
+     * @return Generated keys, in the order of the inserted rows
+     * @throws DbCallException Thrown when unable to query database or map
+     *                         the keys
+     */
+    public long[] executeReturningLongKeys(final LongColumnMapper keyMapper) throws DbCallException {
+        validateKeyMapper(keyMapper);
+        validateArguments();
+        final LongStream.Builder keys = LongStream.builder();
+        update("executeReturningLongKeys", rs -> readLongKeys(rs, keyMapper, keys));
+        return keys.build().toArray();
+    }
+
+    /**
+     * Executes the query on the database and passes the generated keys to
+     * the given handler. Arguments must be validated before calling this
+     * method.
+     *
+     * @param operation  Name of the operation, reported to listeners
+     * @param keyHandler Handler reading the generated keys, or null when
+     *                   keys are not needed
+     * @param <R>        Result of the handler
+     * @return Result of the handler, or null without handler
+     * @throws DbCallException Thrown when unable to query database or map
+     *                         the keys
+     */
+    private <R> R update(final String operation, final ResultSetHandler<R> keyHandler) throws DbCallException {
+        final DbCallEvent event = DbCallListeners.start(operation, this, query, hasQueryArguments() ? arguments : null);
+        final StatementWatch watch = StatementWatch.start(effectiveDeadline());
+        try (final Connection conn = getConnection(false, watch)) {
+            endPhase(event, DbCallPhase.ACQUIRE);
+            try (final PreparedStatement stmt = prepareUpdate(conn, keyHandler != null)) {
+                watch.watch(stmt);
+                if (hasQueryArguments()) {
+                    arguments.apply(stmt);
+                }
+
+                endPhase(event, DbCallPhase.PREPARE);
+                final int updateCount = stmt.executeUpdate();
+                watch.executed();
+                if (event != null) {
+                    event.endPhase(DbCallPhase.EXECUTE);
+                    event.setRowCount(updateCount);
+                }
+
+                if (keyHandler == null) {
+                    return null;
+                }
+
+                try (final ResultSet keys = stmt.getGeneratedKeys()) {
+                    final R result = keyHandler.handle(keys);
+                    endPhase(event, DbCallPhase.MAP);
+                    return result;
+                }
+            }
+        } catch (final SQLException | DbCallResultSetMapperException e) {
+            fail(event, e);
+            throw watch.failure(e);
+        } catch (final DbCallException | RuntimeException e) {
+            fail(event, e);
+            throw e;
+        } finally {
+            watch.close();
+            invalidateCache();
+            end(event);
+        }
+    }
+
+    /**
+     * Prepares the query for an update, requesting the generated keys when
+     * needed.
+     *
+     * @param conn       Connection to prepare the statement on
+     * @param returnKeys Whether the generated keys are read
+     * @return Prepared statement
+     * @throws SQLException When unable to prepare the statement
+     */
+    private PreparedStatement prepareUpdate(final Connection conn, final boolean returnKeys) throws SQLException {
+        if (!returnKeys) {
+            return conn.prepareStatement(query);
+        } else if (keyColumns != null) {
+            return conn.prepareStatement(query, keyColumns);
+        }
+
+        return conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    /**
+     * Adds every row of generated keys to the given builder.
+     *
+     * @param rs        Generated keys
+     * @param keyMapper Mapper of a row of keys to a long
+     * @param keys      Builder to add the keys to
+     * @return Null
+     * @throws SQLException                   When unable to read the keys
+     * @throws DbCallResultSetMapperException When unable to map the keys
+     */
+    private static Void readLongKeys(final ResultSet rs,
+                                     final LongColumnMapper keyMapper,
+                                     final LongStream.Builder keys)
+            throws SQLException, DbCallResultSetMapperException {
+        while (rs.next()) {
+            keys.add(keyMapper.mapLong(rs));
+        }
+
+        return null;
+    }
+
+    /**
+     * Executes the query on the database once for every given item, using a
+     * single connection and prepared statement. Items are sent to the
+     * database in batches of the configured batch size (see
+     * {@link #setBatchSize(int)}). When the batch is transactional (see
+     * {@link #setBatchTransactional(boolean)}) every batch is committed on its
+     * own and a failing batch is rolled back, unless the call runs inside a
+     * transaction of a {@link DbSession} already. When a {@link DbCallCache}
+     * is set, the cached results of the tables the query writes to are
+     * invalidated.
+     *
+     * @param items  Items to execute the query for
+     * @param binder {@link DbCallBatchArguments} that injects the parameters
+     *               of an item
+     * @param <A>    Type of the items
+     * @return Update count for every item, in the order of the items
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public <A> int[] executeBatch(final Iterable<A> items, final DbCallBatchArguments<A> binder) throws DbCallException {
+        validateBatchArguments(items, binder);
+        return batch("executeBatch", items, binder, null);
+    }
+
+    /**
+     * Executes the query once for every given item, like
+     * {@link #executeBatch(Iterable, DbCallBatchArguments)}, and maps every
+     * row of keys the database generated, e.g. the ids of the inserted rows.
+     * By default the driver decides which columns are returned; set them with
+     * {@link #setKeyColumns(String...)}.
+     *
+     * @param items     Items to execute the query for
+     * @param binder    {@link DbCallBatchArguments} that injects the
+     *                  parameters of an item
+     * @param keyMapper {@link DbCallResultSetMapper} for mapping a row of
+     *                  generated keys
+     * @param <A>       Type of the items
+     * @param <K>       Type of the keys
+     * @return Mapped keys, in the order of the items
+     * @throws DbCallException Thrown when unable to query database or map
+     *                         the keys
+     */
+    public <A, K> List<K> executeBatchReturningKeys(final Iterable<A> items,
+                                                    final DbCallBatchArguments<A> binder,
+                                                    final DbCallResultSetMapper<K> keyMapper) throws DbCallException {
+        validateKeyMapper(keyMapper);
+        validateBatchArguments(items, binder);
+        final List<K> keys = new ArrayList<>();
+        batch("executeBatchReturningKeys", items, binder, rs -> {
+            while (rs.next()) {
+                keys.add(keyMapper.map(rs));
+            }
+
+            return null;
+        });
+        return keys;
+    }
+
+    /**
+     * Executes the query once for every given item, like
+     * {@link #executeBatch(Iterable, DbCallBatchArguments)}, and returns every
+     * numeric key the database generated as a primitive array, without
+     * boxing them.
+     *
+     * @param items     Items to execute the query for
+     * @param binder    {@link DbCallBatchArguments} that injects the
+     *                  parameters of an item
+     * @param keyMapper {@link LongColumnMapper} for mapping a row of
+     *                  generated keys to a long
+     * @param <A>       Type of the items
+     * @return Generated keys, in the order of the items
+     * @throws DbCallException Thrown when unable to query database or map
+     *                         the keys
+     */
+    public <A> long[] executeBatchReturningLongKeys(final Iterable<A> items,
+                                                    final DbCallBatchArguments<A> binder,
+                                                    final LongColumnMapper keyMapper) throws DbCallException {
+        validateKeyMapper(keyMapper);
+        validateBatchArguments(items, binder);
+        final LongStream.Builder keys = LongStream.builder();
+        batch("executeBatchReturningLongKeys", items, binder, rs -> readLongKeys(rs, keyMapper, keys));
+        return keys.build().toArray();
+    }
+
+    /**
+     * Executes the query once for every given item and passes the keys
+     * generated by every executed batch to the given handler. Arguments must
+     * be validated before calling this method.
+     *
+     * @param operation  Name of the operation, reported to listeners
+     * @param items      Items to execute the query for
+     * @param binder     Binder that injects the parameters of an item
+     * @param keyHandler Handler reading the generated keys of a batch, or
+     *                   null when keys are not needed
+     * @param <A>        Type of the items
+     * @return Update count for every item, in the order of the items
+     * @throws DbCallException Thrown when unable to query database or map
+     *                         the keys
+     */
+    private <A> int[] batch(final String operation,
+                            final Iterable<A> items,
+                            final DbCallBatchArguments<A> binder,
+                            final ResultSetHandler<?> keyHandler) throws DbCallException {
+        final DbCallEvent event = DbCallListeners.start(operation, this, query, null);
+        final StatementWatch watch = StatementWatch.start(effectiveDeadline());
+        try (final Connection conn = getConnection(false, watch)) {
+            endPhase(event, DbCallPhase.ACQUIRE);
+            try (final PreparedStatement stmt = prepareUpdate(conn, keyHandler != null)) {
+                watch.watch(stmt);
+                endPhase(event, DbCallPhase.PREPARE);
+                final boolean transactional = batchTransactional && conn.getAutoCommit();
+                if (transactional) {
+                    conn.setAutoCommit(false);
+                }
+
+                try {
+                    final int[] updateCounts = executeBatch(conn, stmt, items, binder, transactional, keyHandler);
+                    if (event != null) {
+                        event.endPhase(DbCallPhase.EXECUTE);
+                        event.setRowCount(Arrays.stream(updateCounts).filter(count -> count > 0).asLongStream().sum());
+                    }
+
+                    return updateCounts;
+                } finally {
+                    if (transactional) {
+                        conn.setAutoCommit(true);
+                    }
+                }
+            }
+        } catch (final SQLException | DbCallResultSetMapperException e) {
+            fail(event, e);
+            throw watch.failure(e);
+        } catch (final DbCallException | RuntimeException e) {
+            fail(event, e);
+            throw e;
+        } finally {
+            watch.close();
+            invalidateCache();
+            end(event);
+        }
+    }
+
+    /**
+     * Adds all items to the prepared statement and executes them in batches.
+     *
+     * @param conn          Connection the statement belongs to
+     * @param stmt          Prepared statement to execute
+     * @param items         Items to execute the statement for
+     * @param binder        Binder that injects the parameters of an item
+     * @param transactional Whether to commit every batch
+     * @param keyHandler    Handler reading the generated keys of a batch, or
+     *                      null
+     * @param <A>           Type of the items
+     * @return Update count for every item
+     * @throws SQLException                   When unable to execute a batch
+     * @throws DbCallResultSetMapperException When unable to map the keys
+     */
+    private <A> int[] executeBatch(final Connection conn,
+                                   final PreparedStatement stmt,
+                                   final Iterable<A> items,
+                                   final DbCallBatchArguments<A> binder,
+                                   final boolean transactional,
+                                   final ResultSetHandler<?> keyHandler)
+            throws SQLException, DbCallResultSetMapperException {
+        int[] updateCounts = new int[batchSize];
+        int size = 0;
+        int pending = 0;
+        for (final A item : items) {
+            binder.apply(stmt, item);
+            stmt.addBatch();
+            if (++pending == batchSize) {
+                final int[] batchCounts = flushBatch(conn, stmt, transactional, keyHandler);
+                updateCounts = append(updateCounts, size, batchCounts);
+                size += batchCounts.length;
+                pending = 0;
+            }
+        }
+
+        if (pending > 0) {
+            final int[] batchCounts = flushBatch(conn, stmt, transactional, keyHandler);
+            updateCounts = append(updateCounts, size, batchCounts);
+            size += batchCounts.length;
+        }
+
+        return Arrays.copyOf(updateCounts, size);
+    }
+
+    /**
+     * Executes the statements added to the batch so far and reads their
+     * generated keys. Commits them when the batch is transactional, or rolls
+     * them back when they failed.
+     *
+     * @param conn          Connection the statement belongs to
+     * @param stmt          Prepared statement holding the batch
+     * @param transactional Whether to commit the batch
+     * @param keyHandler    Handler reading the generated keys, or null
+     * @return Update counts of the executed batch
+     * @throws SQLException                   When unable to execute the batch
+     * @throws DbCallResultSetMapperException When unable to map the keys
+     */
+    private int[] flushBatch(final Connection conn,
+                             final PreparedStatement stmt,
+                             final boolean transactional,
+                             final ResultSetHandler<?> keyHandler)
+            throws SQLException, DbCallResultSetMapperException {
+        try {
+            final int[] updateCounts = stmt.executeBatch();
+            if (keyHandler != null) {
+                try (final ResultSet keys = stmt.getGeneratedKeys()) {
+                    keyHandler.handle(keys);
+                }
+            }
+
+            if (transactional) {
+                conn.commit();
+            }
+
+            return updateCounts;
+        } catch (final SQLException | DbCallResultSetMapperException e) {
+            if (transactional) {
+                conn.rollback();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Appends values to an array, growing the array when it is full.
+     *
+     * @param target Array to append to
+     * @param size   Amount of values already in the array
+     * @param values Values to append
+     * @return Array containing the appended values, possibly a new array
+     */
+    private static int[] append(final int[] target, final int size, final int[] values) {
+        int[] result = target;
+        if (size + values.length > result.length) {
+            result = Arrays.copyOf(result, Math.max(result.length * 2, size + values.length));
+        }
+
+        System.arraycopy(values, 0, result, size, values.length);
+        return result;
+    }
+
+    /**
+     * Asynchronously returns the first mapped object from the query's result
+     * set. See {@link #getOne()}.
+     *
+     * @return Stage completed with the mapped {@link T} or an empty
+     * {@link Optional}, or completed exceptionally with a
+     * {@link DbCallException}
+     */
+    public CompletionStage<Optional<T>> getOneAsync() {
+        return async(this::getOne);
+    }
+
+    /**
+     * Asynchronously returns a list of all mapped objects from the query's
+     * entire result set. See {@link #getAll()}.
+     *
+     * @return Stage completed with the list of mapped {@link T}, or completed
+     * exceptionally with a {@link DbCallException}
+     */
+    public CompletionStage<List<T>> getAllAsync() {
+        return async(this::getAll);
+    }
+
+    /**
+     * Asynchronously returns whether the query has any results in the
+     * database. See {@link #hasResults()}.
+     *
+     * @return Stage completed with true when the query has any result, or
+     * completed exceptionally with a {@link DbCallException}
+     */
+    public CompletionStage<Boolean> hasResultsAsync() {
+        return async(this::hasResults);
+    }
+
+    /**
+     * Asynchronously executes the query on the database. See
+     * {@link #execute()}.
+     *
+     * @return Stage completed when the query was executed, or completed
+     * exceptionally with a {@link DbCallException}
+     */
+    public CompletionStage<Void> executeAsync() {
+        return async(() -> {
+            execute();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the given task on the executor of this DbCall. Any exception
+     * thrown by the task, or a rejection by the executor, completes the
+     * returned stage exceptionally. Cancelling the returned future before
+     * the task runs skips it; cancelling it while the task runs cancels the
+     * statement being executed, which returns its connection right away.
+     *
+     * @param task Task to run
+     * @param <R>  Result of the task
+     * @return Stage completed with the result of the task
+     */
+    private <R> CompletionStage<R> async(final DbCallTask<R> task) {
+        final CompletableFuture<R> future = new CompletableFuture<>();
+        final StatementWatch.Cancellation cancellation = new StatementWatch.Cancellation();
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                cancellation.cancel();
+            }
+        });
+
+        final Executor target = executor != null ? executor : DbCallExecutors.getDefault();
+        try {
+            target.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+
+                try {
+                    future.complete(cancellation.run(task::call));
+                } catch (final Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Validates whether a database, query, optional arguments and a result set
+     * mapper are present.
+     *
+     * @throws IllegalArgumentException When missing arguments needed to
+     *                                  execute the DbCall and return data
+     */
+    private void validateRetrievalArguments() throws IllegalArgumentException {
+        validateArguments();
+
+        if (resultSetMapper == null) {
+            throw new IllegalArgumentException("No DbCallResultSetMapper set");
+        }
+    }
+
+    /**
+     * Validates whether a database, query, optional arguments and a column
+     * mapper are present.
+     *
+     * @param mapper Column mapper to validate
+     * @throws IllegalArgumentException When missing arguments needed to
+     *                                  execute the DbCall and return data
+     */
+    private void validateColumnMapper(final Object mapper) throws IllegalArgumentException {
+        validateArguments();
+
+        if (mapper == null) {
+            throw new IllegalArgumentException("No column mapper set");
+        }
+    }
+
+    /**
+     * Validates whether a key mapper is present.
+     *
+     * @param keyMapper Key mapper to validate
+     * @throws IllegalArgumentException Thrown when no key mapper is present
+     */
+    private static void validateKeyMapper(final Object keyMapper) throws IllegalArgumentException {
+        if (keyMapper == null) {
+            throw new IllegalArgumentException("No key mapper set");
+        }
+    }
+
+    /**
+     * Validates whether a valid query, database, items and batch binder are
+     * present.
+     *
+     * @param items  Items of the batch
+     * @param binder Binder of the batch
+     * @throws IllegalArgumentException When missing arguments needed to
+     *                                  execute the batch
+     */
+    private void validateBatchArguments(final Iterable<?> items,
+                                        final DbCallBatchArguments<?> binder) throws IllegalArgumentException {
+        validateQueryAndDatabase();
+
+        if (items == null) {
+            throw new IllegalArgumentException("No batch items set");
+        }
+
+        if (binder == null) {
+            throw new IllegalArgumentException("No DbCallBatchArguments set");
+        }
+
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+    }
+
+    /**
+     * Validates whether a valid query, database and optional arguments are
+     * presents.
+     *
+     * @throws IllegalArgumentException When missing arguments needed to
+     *                                  execute the DbCall
+     */
+    private void validateArguments() throws IllegalArgumentException {
+        validateQueryAndDatabase();
+
+        if (hasQueryArguments() && arguments == null) {
+            throw new IllegalArgumentException("No DbCallArguments set");
+        }
+    }
+
+    /**
+     * Returns whether the query contains parameters. Only valid after the
+     * query has been validated.
+     *
+     * @return True when the query has at least one placeholder
+     */
+    private boolean hasQueryArguments() {
+        return parsedQuery.hasParameters();
+    }
+
+    /**
+     * Validates whether a valid query and database are present.
+     *
+     * @throws IllegalArgumentException When missing the query or database
+     */
+    private void validateQueryAndDatabase() throws IllegalArgumentException {
+        if (query == null || query.isEmpty()) {
+            throw new IllegalArgumentException("No query set");
+        }
+
+        if (parsedQuery == null) {
+            parsedQuery = ParsedQuery.of(query);
+        }
+
+        if (db == null && session == null) {
+            throw new IllegalArgumentException("No database set");
+        }
+    }
+
+    /**
+     * Returns a connection to run the query on: the connection of the
+     * session when one is set, or otherwise a new connection from the
+     * database, of a read replica when reading from a
+     * {@link ReadWriteDatabase}. Closing the connection of a session leaves
+     * it open. New connections are only requested once the
+     * {@link DbCallLimiter} of the call, if any, admits it; closing the
+     * connection releases its permit. Waiting for a permit counts towards
+     * the deadline of the operation, and the latency the limiter adapts to
+     * lasts until the watched statement returns.
+     *
+     * @param read  Whether the query only reads
+     * @param watch Watch of the operation
+     * @return Connection to run the query on
+     * @throws DbCallRejectedException Thrown when the limiter rejects the
+     *                                 call
+     * @throws DbCallTimeoutException  Thrown when the deadline passed before
+     *                                 a connection was acquired
+     * @throws DbCallException         Thrown when the operation was
+     *                                 cancelled
+     */
+    private Connection getConnection(final boolean read, final StatementWatch watch) throws DbCallException {
+        watch.check();
+        if (session != null) {
+            return session.getConnection();
+        }
+
+        final DbCallLimiter callLimiter = limiter != null ? limiter : DbCallLimiter.forDatabase(db);
+        final DbCallLimiter.Permit permit;
+        try {
+            permit = callLimiter == null ? null : callLimiter.acquire(priority != null
+                    ? priority
+                    : read ? DbCallLimiter.Priority.NORMAL : DbCallLimiter.Priority.HIGH, watch.remainingNanos(),
+                    parsedQuery != null ? parsedQuery.getFingerprint() : null);
+        } catch (final DbCallRejectedException e) {
+            watch.check();
+            throw e;
+        }
+
+        boolean connected = false;
+        try {
+            final Connection conn = read ? ReadWriteDatabase.readConnection(db) : db.getConnection();
+            try {
+                watch.check();
+            } catch (final DbCallException e) {
+                closeAfterFailure(conn, e);
+                throw e;
+            }
+
+            connected = true;
+            if (permit == null) {
+                return conn;
+            }
+
+            watch.limitBy(permit);
+            return permit.guard(conn);
+        } finally {
+            if (!connected && permit != null) {
+                permit.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the deadline of an operation starting now: the deadline of
+     * this call or the end of its timeout, whichever comes first.
+     *
+     * @return Deadline, or null when the operation may take any time
+     */
+    private DbDeadline effectiveDeadline() {
+        final long timeout = timeoutNanos >= 0L ? timeoutNanos : defaultTimeoutNanos;
+        return DbDeadline.earliest(deadline, timeout > 0L ? DbDeadline.after(timeout, TimeUnit.NANOSECONDS) : null);
+    }
+
+    /**
+     * Closes a connection that is not used because the operation failed,
+     * adding any failure while closing to the original failure.
+     *
+     * @param conn  Connection to close
+     * @param cause Failure of the operation
+     */
+    private static void closeAfterFailure(final Connection conn, final Exception cause) {
+        try {
+            conn.close();
+        } catch (final SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Returns a new call of a rewrite of the query, with the same database
+     * or session and the same settings for connections, such as the
+     * limiter, timeout and deadline.
+     *
+     * @param mapper        Mapper of the rewritten query
+     * @param sql           Rewritten SQL-query
+     * @param callArguments Arguments of the rewritten query, or null
+     * @param <R>           Object the rows are mapped to
+     * @return New call
+     */
+    <R> DbCall<R> derive(final DbCallResultSetMapper<R> mapper,
+                         final String sql,
+                         final DbCallArguments callArguments) {
+        final DbCall<R> call = new DbCall<>(db, mapper, ParsedQuery.of(sql), callArguments);
+        call.session = session;
+        call.dialect = dialect;
+        call.executor = executor;
+        call.fetchSize = fetchSize;
+        call.limiter = limiter;
+        call.priority = priority;
+        call.timeoutNanos = timeoutNanos;
+        call.deadline = deadline;
+        return call;
+    }
+
+    /**
+     * Returns the analysis of the query. Only available once the query was
+     * validated.
+     *
+     * @return Parsed query
+     */
+    ParsedQuery getParsedQuery() {
+        return parsedQuery;
+    }
+
+    /**
+     * Returns the database the queries are executed on.
+     *
+     * @return Database, or null when a session is used
+     */
+    Database getDb() {
+        return db;
+    }
+
+    /**
+     * Returns the session the queries are executed in.
+     *
+     * @return Session, or null
+     */
+    DbSession getSession() {
+        return session;
+    }
+
+    /**
+     * Returns the dialect used to rewrite queries.
+     *
+     * @return Dialect, or null
+     */
+    DbDialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Sets a new database to execute the queries on.
+     *
+     * @param db New database
+     */
+    public void setDb(final Database db) {
+        this.db = db;
+    }
+
+    /**
+     * Sets a session to run the queries on, instead of leasing a connection
+     * from the database for every operation. When set, the database of this
+     * DbCall is not used.
+     *
+     * @param session Session to run on, or null to use the database
+     */
+    public void setSession(final DbSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Sets a new SQL-statement to query on the database.
+     *
+     * @param query New SQL-statement
+     */
+    public void setQuery(@Language("SQL") final String query) {
+        this.query = query;
+        this.parsedQuery = null;
+    }
+
+    /**
+     * Sets new SQL-query parameters to inject in the statement.
+     *
+     * @param arguments New arguments
+     */
+    public void setArguments(final DbCallArguments arguments) {
+        this.arguments = arguments;
+    }
+
+    /**
+     * Sets a new result set mapper used to make results from the database to
+     * {@link T}.
+     *
+     * @param resultSetMapper New result set mapper
+     */
+    public void setResultSetMapper(final DbCallResultSetMapper<T> resultSetMapper) {
+        this.resultSetMapper = resultSetMapper;
+    }
+
+    /**
+     * Sets the dialect of the database. When set, {@link #getOne()} and
+     * {@link #hasResults()} rewrite SELECT-queries into queries that only
+     * return a single row. Defaults to null, in which case queries are never
+     * rewritten.
+     *
+     * @param dialect Dialect of the database, or null to disable rewriting
+     */
+    public void setDialect(final DbDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Sets the cache for the results of {@link #getOne()} and
+     * {@link #getAll()}. When set, executing this DbCall invalidates the
+     * cached results of the tables it writes to. Defaults to null, in which
+     * case results are never cached.
+     *
+     * @param cache Cache to use, or null to disable caching
+     */
+    public void setCache(final DbCallCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the executor on which the asynchronous operations run. Defaults to
+     * {@link DbCallExecutors#getDefault()}. Do not modify a DbCall while one
+     * of its asynchronous operations is running.
+     *
+     * @param executor New executor, or null for the default executor
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the amount of rows the driver fetches from the database per round
+     * trip when reading results. Defaults to 0, which uses the driver's
+     * default. When set, {@link #stream()} and {@link #forEach(Consumer)}
+     * disable auto-commit while reading, as some drivers (e.g. PostgreSQL)
+     * only fetch rows in chunks inside a transaction.
+     *
+     * @param fetchSize New fetch size, or 0 for the driver's default
+     */
+    public void setFetchSize(final int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the directory in which {@link #getAllSpilling(long, DbRowCodec)}
+     * creates its temporary files. Defaults to null, which uses the
+     * directory of the {@code java.io.tmpdir} system property.
+     *
+     * @param spillDirectory New directory, or null for the default
+     *                       temporary-file directory
+     */
+    public void setSpillDirectory(final Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Sets the amount of statements sent to the database in a single batch by
+     * {@link #executeBatch(Iterable, DbCallBatchArguments)}. Defaults to
+     * {@link #DEFAULT_BATCH_SIZE}.
+     *
+     * @param batchSize New batch size, at least 1
+     */
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets whether every batch executed by
+     * {@link #executeBatch(Iterable, DbCallBatchArguments)} is committed as a
+     * single transaction. Defaults to false, in which case the connection's
+     * auto-commit mode is used.
+     *
+     * @param batchTransactional True to wrap every batch in a transaction
+     */
+    public void setBatchTransactional(final boolean batchTransactional) {
+        this.batchTransactional = batchTransactional;
+    }
+
+    /**
+     * Sets the columns whose generated values are returned by
+     * {@link #executeReturningKeys(DbCallResultSetMapper)} and its variants.
+     * Some drivers, such as PostgreSQL's, return every column of the inserted
+     * rows unless the key columns are set.
+     *
+     * @param keyColumns Names of the key columns as known by the database,
+     *                   or none to let the driver decide
+     */
+    public void setKeyColumns(final String... keyColumns) {
+        this.keyColumns = keyColumns == null || keyColumns.length == 0 ? null : keyColumns.clone();
+    }
+
+    /**
+     * Sets the maximum amount of ranges queried at the same time by
+     * {@link #getAllParallel(String, int)} and {@link #streamParallel(String, int)}.
+     * Every range uses its own connection and a thread of the executor, so
+     * keep this well below the size of the connection pool. Defaults to
+     * {@link #DEFAULT_MAX_PARALLELISM}.
+     *
+     * @param maxParallelism New maximum, at least 1
+     */
+    public void setMaxParallelism(final int maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+
+    /**
+     * Sets whether the parallel operations order the rows of every range by
+     * the partition column, which orders their entire result by it, with the
+     * rows in which it is NULL last. Defaults to false, which leaves the
+     * order within a range to the database.
+     *
+     * @param parallelOrdered True to order the result by the partition column
+     */
+    public void setParallelOrdered(final boolean parallelOrdered) {
+        this.parallelOrdered = parallelOrdered;
+    }
+
+    /**
+     * Sets the limiter admitting this call, instead of the limiter
+     * registered for its database with
+     * {@link DbCallLimiter#register(Database, DbCallLimiter)}. Calls in a
+     * {@link DbSession} are never limited, as the session holds its
+     * connection already.
+     *
+     * @param limiter Limiter, or null to use the registered limiter
+     */
+    public void setLimiter(final DbCallLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Sets the priority of this call while it waits for a permit of its
+     * {@link DbCallLimiter}. Defaults to {@link DbCallLimiter.Priority#HIGH}
+     * for calls that write and {@link DbCallLimiter.Priority#NORMAL} for
+     * calls that only read.
+     *
+     * @param priority Priority, or null for the default priority
+     */
+    public void setPriority(final DbCallLimiter.Priority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Sets the timeout of every operation of this call, covering both
+     * waiting for a connection and executing the statement. A statement
+     * still running when the timeout passes is cancelled and a
+     * {@link DbCallTimeoutException} is thrown. For streams the timeout also
+     * covers reading the rows. Parallel operations apply the timeout to the
+     * operation as a whole.
+     *
+     * @param timeout Timeout, or 0 for no timeout
+     * @param unit    Unit of the timeout
+     */
+    public void setTimeout(final long timeout, final TimeUnit unit) {
+        if (timeout < 0L || unit == null) {
+            throw new IllegalArgumentException("No timeout set");
+        }
+
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Sets the timeout of calls without a timeout of their own, see
+     * {@link #setTimeout(long, TimeUnit)}. Defaults to no timeout.
+     *
+     * @param timeout Timeout, or 0 for no timeout
+     * @param unit    Unit of the timeout
+     */
+    public static void setDefaultTimeout(final long timeout, final TimeUnit unit) {
+        if (timeout < 0L || unit == null) {
+            throw new IllegalArgumentException("No timeout set");
+        }
+
+        defaultTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Sets the deadline by which every operation of this call must be done,
+     * e.g. the deadline of the request it serves. When a timeout is set as
+     * well, the operation ends at whichever comes first.
+     *
+     * @param deadline Deadline, or null for none
+     */
+    public void setDeadline(final DbDeadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Database operation that can be run asynchronously.
+     *
+     * @param <R> Result of the operation
+     */
+    @FunctionalInterface
+    private interface DbCallTask<R> {
+
+        /**
+         * Runs the operation.
+         *
+         * @return Result of the operation
+         * @throws DbCallException When unable to query database
+         */
+        R call() throws DbCallException;
+
+    }
+
+    /**
+     * Maps the current row of a result set into a primitive array.
+     *
+     * @param <A> Primitive array type
+     */
+    @FunctionalInterface
+    private interface PrimitiveReader<A> {
+
+        /**
+         * Maps the current row into the given index of the array.
+         *
+         * @param rs     Result set positioned at the row
+         * @param values Array to store the value in
+         * @param row    Index of the row
+         * @throws DbCallResultSetMapperException When unable to map the row
+         */
+        void read(final ResultSet rs, final A values, final int row) throws DbCallResultSetMapperException;
+
+    }
+
+    /**
+     * Reads the result set of an executed query.
+     *
+     * @param <R> Result read from the result set
+     */
+    @FunctionalInterface
+    private interface ResultSetHandler<R> {
+
+        /**
+         * Reads the given result set.
+         *
+         * @param rs Result set to read
+         * @return Result read from the result set
+         * @throws SQLException                   When unable to read from
+         *                                        the result set
+         * @throws DbCallResultSetMapperException When unable to map a row
+         */
+        R handle(final ResultSet rs) throws SQLException, DbCallResultSetMapperException;
+
     }
 
 }
@@ -0,0 +1,25 @@
+package com.peggir.SimpleDbUtil;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Provides an interface to set the parameters of a parameterized query for a
+ * single item of a batch executed by {@link DbCall#executeBatch(Iterable, DbCallBatchArguments)}.
+ *
+ * @param <A> Item that is bound to the statement
+ */
+public interface DbCallBatchArguments<A> {
+
+    /**
+     * Applies the parameters of the given item to the matching SQL-statement
+     * in the {@link DbCall}. Use this to safely parameterize queries.
+     *
+     * @param stmt {@link PreparedStatement} to inject parameters on to
+     * @param item Item of which the values are injected
+     * @throws SQLException When unable to inject parameters to prepared
+     *                      statement
+     */
+    void apply(final PreparedStatement stmt, final A item) throws SQLException;
+
+}
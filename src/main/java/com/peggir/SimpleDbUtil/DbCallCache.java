@@ -0,0 +1,398 @@
+package com.peggir.SimpleDbUtil;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache for the results of {@link DbCall#getOne()} and {@link DbCall#getAll()}.
+ * Results are cached by their SQL-query, the values bound by their
+ * {@link DbCallArguments} and their result set mapper: its class when the
+ * mapper has no instance fields, and otherwise the mapper instance itself,
+ * so mappers with state only share results when the same instance is
+ * reused. Calls in a {@link DbSession} transaction bypass the cache, as
+ * their reads may see uncommitted writes. Entries expire after a fixed time
+ * to live, and when the cache is full the least recently used entries are
+ * evicted (approximated with the CLOCK algorithm, which needs no lock on
+ * reads). {@link DbCall#execute()} and
+ * {@link DbCall#executeBatch(Iterable, DbCallBatchArguments)} invalidate all
+ * entries that read from a table they write to, or every entry when their
+ * tables cannot be told from their SQL.
+ * <p>
+ * A cache is thread-safe and meant to be shared by many calls, for example
+ * one cache for all reference data of an application.
+ */
+public class DbCallCache {
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<Key>> keysByTable = new ConcurrentHashMap<>();
+    private final Queue<Key> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maximumSize Maximum amount of cached results
+     * @param timeToLive  Time after which a cached result expires
+     * @param unit        Unit of the time to live
+     */
+    public DbCallCache(final int maximumSize, final long timeToLive, final TimeUnit unit) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be at least 1");
+        }
+
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+    }
+
+    /**
+     * Removes all cached results that read from the given table.
+     *
+     * @param table Name of the table, case-insensitive and without quotes
+     */
+    public void invalidateTable(final String table) {
+        generation.incrementAndGet();
+        final Set<Key> keys = keysByTable.remove(table.toLowerCase(Locale.ROOT));
+        if (keys != null) {
+            for (final Key key : keys) {
+                if (remove(key)) {
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all cached results that read from any of the given tables.
+     *
+     * @param tables Names of the tables
+     */
+    public void invalidateTables(final Collection<String> tables) {
+        for (final String table : tables) {
+            invalidateTable(table);
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        for (final Key key : entries.keySet()) {
+            if (remove(key)) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of cached results.
+     *
+     * @return Amount of cached results
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns how often a cached result was returned.
+     *
+     * @return Amount of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns how often a result was not cached and had to be queried.
+     *
+     * @return Amount of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns how often a result was evicted to make room for another.
+     *
+     * @return Amount of evictions
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns how often a result was removed because its table was written
+     * to or the cache was cleared.
+     *
+     * @return Amount of invalidations
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Returns the ratio of hits to all lookups.
+     *
+     * @return Hit ratio between 0 and 1, or 0 when nothing was looked up
+     */
+    public double getHitRatio() {
+        final long hitCount = hits.sum();
+        final long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Returns the generation of the cache, which changes on every
+     * invalidation. A result read before an invalidation must not be cached
+     * after it, so {@link #put(Key, Object, long)} compares generations.
+     *
+     * @return Current generation
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached result for the given key.
+     *
+     * @param key Key of the result
+     * @return Cached result, or null when it is not cached or expired
+     */
+    Object get(final Key key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (System.nanoTime() - entry.createdAt > timeToLiveNanos) {
+            remove(key);
+            misses.increment();
+            return null;
+        }
+
+        entry.referenced = true;
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Caches a result, unless the cache was invalidated since the result was
+     * read.
+     *
+     * @param key        Key of the result
+     * @param value      Result to cache
+     * @param generation Generation of the cache before the result was read
+     */
+    void put(final Key key, final Object value, final long generation) {
+        if (this.generation.get() != generation) {
+            return;
+        }
+
+        for (final String table : key.parsedQuery.getTables()) {
+            keysByTable.computeIfAbsent(table, t -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+
+        if (entries.put(key, new Entry(value)) == null) {
+            clock.offer(key);
+            if (size.incrementAndGet() > maximumSize) {
+                evict();
+            }
+        }
+
+        if (this.generation.get() != generation) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Evicts entries until the cache is within its maximum size. Entries that
+     * were read since the clock hand last passed them get a second chance.
+     */
+    private void evict() {
+        while (size.get() > maximumSize) {
+            final Key key = clock.poll();
+            if (key == null) {
+                return;
+            }
+
+            final Entry entry = entries.get(key);
+            if (entry == null) {
+                continue;
+            }
+
+            if (entry.referenced) {
+                entry.referenced = false;
+                clock.offer(key);
+            } else if (remove(key)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes the entry of the given key.
+     *
+     * @param key Key of the entry
+     * @return True when an entry was removed
+     */
+    private boolean remove(final Key key) {
+        if (entries.remove(key) == null) {
+            return false;
+        }
+
+        size.decrementAndGet();
+        for (final String table : key.parsedQuery.getTables()) {
+            final Set<Key> keys = keysByTable.get(table);
+            if (keys != null) {
+                keys.remove(key);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Classes of result set mappers without instance fields, which map equal
+     * result sets to equal results whichever instance is used.
+     */
+    private static final ClassValue<Boolean> STATELESS = new ClassValue<Boolean>() {
+
+        /**
+         * Returns whether the class or any of its superclasses declares an
+         * instance field.
+         *
+         * @param type Class of a mapper
+         * @return True when the class has no instance fields
+         */
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (final Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+    };
+
+    /**
+     * Returns the part of a cache key identifying a result set mapper: its
+     * class when it has no instance fields, and otherwise the instance, so
+     * e.g. bean mappers of different classes or lambdas capturing different
+     * values never share results.
+     *
+     * @param mapper Result set mapper
+     * @return Class or instance of the mapper
+     */
+    static Object mapperKey(final Object mapper) {
+        return STATELESS.get(mapper.getClass()) ? mapper.getClass() : mapper;
+    }
+
+    /**
+     * Identifies a cached result.
+     */
+    static final class Key {
+
+        private final String operation;
+        private final ParsedQuery parsedQuery;
+        private final Object mapper;
+        private final Object parameters;
+        private final int hash;
+
+        /**
+         * Creates a key.
+         *
+         * @param operation   Operation that produced the result
+         * @param parsedQuery Query that produced the result
+         * @param mapper      Key of the mapper that mapped the result, see
+         *                    {@link #mapperKey(Object)}
+         * @param parameters  Values bound to the query
+         */
+        Key(final String operation,
+            final ParsedQuery parsedQuery,
+            final Object mapper,
+            final Object parameters) {
+            this.operation = operation;
+            this.parsedQuery = parsedQuery;
+            this.mapper = mapper;
+            this.parameters = parameters;
+            int h = operation.hashCode();
+            h = 31 * h + parsedQuery.getSql().hashCode();
+            h = 31 * h + System.identityHashCode(mapper);
+            h = 31 * h + parameters.hashCode();
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            final Key key = (Key) o;
+            return hash == key.hash
+                    && operation.equals(key.operation)
+                    && parsedQuery.getSql().equals(key.parsedQuery.getSql())
+                    && mapper == key.mapper
+                    && parameters.equals(key.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /**
+     * Cached result.
+     */
+    private static final class Entry {
+
+        private final Object value;
+        private final long createdAt = System.nanoTime();
+        private volatile boolean referenced;
+
+        /**
+         * Creates an entry.
+         *
+         * @param value Cached result
+         */
+        private Entry(final Object value) {
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+import com.peggir.SimpleDbUtil.exceptions.UncheckedDbCallException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over an open {@link ResultSet}, mapping one row at a time. Owns
+ * the result set, its statement and its connection, and closes them when
+ * the last row has been read or when the cursor is closed.
+ *
+ * @param <T> Object the rows are mapped to
+ */
+class DbCallCursor<T> implements Iterator<T>, AutoCloseable {
+
+    private final DbCallResultSetMapper<T> resultSetMapper;
+    private Connection conn;
+    private boolean restoreAutoCommit;
+    private PreparedStatement stmt;
+    private ResultSet rs;
+    private boolean hasFetched;
+    private boolean hasRow;
+    private boolean closed;
+    private StatementWatch watch;
+
+    /**
+     * Creates a cursor that is not opened yet.
+     *
+     * @param resultSetMapper {@link DbCallResultSetMapper} for object mapping
+     */
+    DbCallCursor(final DbCallResultSetMapper<T> resultSetMapper) {
+        this.resultSetMapper = resultSetMapper;
+    }
+
+    /**
+     * Opens the cursor by executing the query on the given connection. When a
+     * fetch size is given, auto-commit is disabled for as long as the cursor
+     * is open, as some drivers (e.g. PostgreSQL) only stream rows inside a
+     * transaction.
+     *
+     * @param conn      Connection to query on, owned by the cursor from now on
+     * @param query     SQL-query
+     * @param arguments SQL-query parameters or null when there are none
+     * @param fetchSize Amount of rows to fetch per round trip or 0 for the
+     *                  driver's default
+     * @param watch     Watch cancelling the query at its deadline, owned by
+     *                  the cursor from now on
+     * @throws SQLException    When unable to execute the query
+     * @throws DbCallException When the deadline passed already
+     */
+    void open(final Connection conn,
+              final String query,
+              final DbCallArguments arguments,
+              final int fetchSize,
+              final StatementWatch watch) throws SQLException, DbCallException {
+        this.conn = conn;
+        this.watch = watch;
+        if (fetchSize > 0 && conn.getAutoCommit()) {
+            conn.setAutoCommit(false);
+            restoreAutoCommit = true;
+        }
+
+        stmt = conn.prepareStatement(query);
+        watch.watch(stmt);
+        if (fetchSize > 0) {
+            stmt.setFetchSize(fetchSize);
+        }
+
+        if (arguments != null) {
+            arguments.apply(stmt);
+        }
+
+        rs = stmt.executeQuery();
+        watch.executed();
+    }
+
+    /**
+     * Returns whether there is another row, closing the cursor when there is
+     * not.
+     *
+     * @return True when there is another row
+     * @throws UncheckedDbCallException When unable to read from the database
+     */
+    @Override
+    public boolean hasNext() {
+        if (!hasFetched && !closed) {
+            try {
+                hasRow = rs.next();
+                hasFetched = true;
+            } catch (final SQLException e) {
+                throw fail(e);
+            }
+
+            if (!hasRow) {
+                close();
+            }
+        }
+
+        return hasRow && !closed;
+    }
+
+    /**
+     * Maps and returns the next row.
+     *
+     * @return Mapped {@link T}
+     * @throws UncheckedDbCallException When unable to read or map the row
+     * @throws NoSuchElementException   When there are no more rows
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        hasFetched = false;
+        try {
+            return resultSetMapper.map(rs);
+        } catch (final DbCallResultSetMapperException e) {
+            throw fail(e);
+        }
+    }
+
+    /**
+     * Closes the result set, statement and connection. Does nothing when the
+     * cursor is already closed.
+     *
+     * @throws UncheckedDbCallException When unable to close the resources
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        if (watch != null) {
+            watch.close();
+        }
+
+        SQLException failure = null;
+        failure = closeResultSet(failure);
+        failure = closeStatement(failure);
+        failure = closeConnection(failure);
+        if (failure != null) {
+            throw new UncheckedDbCallException(new DbCallException(DbCallException.DEFAULT_ERROR_MSG, failure));
+        }
+    }
+
+    /**
+     * Closes the cursor after it failed to open, adding any failure while
+     * closing to the original failure.
+     *
+     * @param cause Failure that occurred while opening
+     */
+    void closeAfterFailure(final Exception cause) {
+        try {
+            close();
+        } catch (final UncheckedDbCallException e) {
+            cause.addSuppressed(e.getCause().getCause());
+        }
+    }
+
+    /**
+     * Closes the result set when it was opened.
+     *
+     * @param failure Earlier failure while closing or null
+     * @return Failure while closing so far or null
+     */
+    private SQLException closeResultSet(final SQLException failure) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+        } catch (final SQLException e) {
+            return addFailure(failure, e);
+        }
+
+        return failure;
+    }
+
+    /**
+     * Closes the statement when it was prepared.
+     *
+     * @param failure Earlier failure while closing or null
+     * @return Failure while closing so far or null
+     */
+    private SQLException closeStatement(final SQLException failure) {
+        try {
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (final SQLException e) {
+            return addFailure(failure, e);
+        }
+
+        return failure;
+    }
+
+    /**
+     * Ends the transaction started for streaming, when there is one, and
+     * closes the connection.
+     *
+     * @param failure Earlier failure while closing or null
+     * @return Failure while closing so far or null
+     */
+    private SQLException closeConnection(final SQLException failure) {
+        if (conn == null) {
+            return failure;
+        }
+
+        SQLException result = failure;
+        try {
+            if (restoreAutoCommit) {
+                conn.commit();
+                conn.setAutoCommit(true);
+            }
+        } catch (final SQLException e) {
+            result = addFailure(result, e);
+        }
+
+        try {
+            conn.close();
+        } catch (final SQLException e) {
+            result = addFailure(result, e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Combines a new failure with an earlier failure.
+     *
+     * @param failure Earlier failure or null
+     * @param e       New failure
+     * @return Earlier failure with the new one suppressed, or the new failure
+     */
+    private static SQLException addFailure(final SQLException failure, final SQLException e) {
+        if (failure == null) {
+            return e;
+        }
+
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    /**
+     * Closes the cursor because of the given failure and returns the failure
+     * as an unchecked exception.
+     *
+     * @param cause Failure while reading from the cursor
+     * @return Exception to throw
+     */
+    private UncheckedDbCallException fail(final Exception cause) {
+        closeAfterFailure(cause);
+        return new UncheckedDbCallException(watch != null
+                ? watch.failure(cause)
+                : new DbCallException(DbCallException.DEFAULT_ERROR_MSG, cause));
+    }
+
+}
@@ -0,0 +1,409 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.exceptions.DbCallRejectedException;
+import com.peggir.SimpleDbUtil.exceptions.DbCallTimeoutException;
+import play.db.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution of a single {@link DbCall} operation, as seen by
+ * {@link DbCallListener}s. Events are created per operation and updated by
+ * the thread executing it; the values are final once
+ * {@link DbCallListener#onEnd(DbCallEvent)} is called.
+ */
+public final class DbCallEvent {
+
+    private static final DbCallPhase[] PHASES = DbCallPhase.values();
+
+    private final DbCallListener[] listeners;
+    private final String operation;
+    private final ParsedQuery parsedQuery;
+    private final String sql;
+    private final DbCallArguments arguments;
+    private final DbDialect dialect;
+    private final Database db;
+    private final DbSession session;
+    private final long[] phaseNanos = new long[PHASES.length];
+    private final long startNanos;
+    private long phaseStartNanos;
+    private long totalNanos = -1;
+    private long rowCount;
+    private long spilledRows;
+    private long spilledBytes;
+    private Throwable error;
+
+    /**
+     * Starts an event.
+     *
+     * @param listeners Listeners to notify
+     * @param operation Name of the operation, e.g. "getAll"
+     * @param call      Call that starts the operation, with a validated
+     *                  query
+     * @param sql       SQL sent to the database
+     * @param arguments Arguments of the call, or null
+     */
+    DbCallEvent(final DbCallListener[] listeners,
+                final String operation,
+                final DbCall<?> call,
+                final String sql,
+                final DbCallArguments arguments) {
+        this.listeners = listeners;
+        this.operation = operation;
+        this.parsedQuery = call.getParsedQuery();
+        this.sql = sql;
+        this.arguments = arguments;
+        this.dialect = call.getDialect();
+        this.db = call.getDb();
+        this.session = call.getSession();
+        this.startNanos = System.nanoTime();
+        this.phaseStartNanos = startNanos;
+    }
+
+    /**
+     * Returns the name of the operation, e.g. "getOne", "getAll",
+     * "hasResults", "execute" or "executeBatch".
+     *
+     * @return Name of the operation
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the query of the call.
+     *
+     * @return SQL-query as set on the call
+     */
+    public String getQuery() {
+        return parsedQuery.getSql();
+    }
+
+    /**
+     * Returns the SQL sent to the database, which differs from the query
+     * when a {@link DbDialect} rewrote it.
+     *
+     * @return SQL sent to the database
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the fingerprint of the query: the query with literals replaced
+     * by placeholders and formatting normalized, so calls of the same query
+     * with different literals can be aggregated.
+     *
+     * @return Fingerprint of the query
+     */
+    public String getFingerprint() {
+        return parsedQuery.getFingerprint();
+    }
+
+    /**
+     * Returns the tables the query reads from or writes to.
+     *
+     * @return Table names in lower case
+     */
+    public Set<String> getTables() {
+        return parsedQuery.getTables();
+    }
+
+    /**
+     * Returns the arguments of the call.
+     *
+     * @return Arguments, or null when the query has no parameters
+     */
+    public DbCallArguments getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Returns the values the arguments bound to the statement, ordered by
+     * parameter index. Every parameter is a list of the name of the setter
+     * that was called, e.g. "setInt", followed by its value and any further
+     * arguments of the setter. Byte arrays are listed as {@link java.nio.ByteBuffer}s.
+     * The arguments are applied again, so call this only when the values are
+     * needed, e.g. to log a slow call.
+     *
+     * @return Parameters, or empty when the values cannot be read, e.g.
+     * because a parameter was set to a stream
+     */
+    public Optional<List<List<Object>>> getParameters() {
+        try {
+            return Optional.ofNullable(ArgumentRecorder.record(arguments));
+        } catch (final SQLException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the dialect set on the call.
+     *
+     * @return Dialect, or null when the call has no dialect
+     */
+    public DbDialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Returns whether {@link #explain(DbDialect)} can capture the plan of
+     * the call: the call is a SELECT-query on a database, not in a
+     * {@link DbSession}, whose arguments, if any, can be applied again. The
+     * connection of a session cannot be shared with the thread requesting
+     * the plan, and a failing plan request could abort its transaction.
+     *
+     * @return True when the plan can be captured
+     */
+    public boolean isExplainable() {
+        if (!parsedQuery.isSelect() || db == null || session != null) {
+            return false;
+        }
+
+        return !parsedQuery.hasParameters() || (arguments != null && getParameters().isPresent());
+    }
+
+    /**
+     * Asks the database for the execution plan of the SQL of the call, with
+     * the same arguments, without a timeout.
+     *
+     * @param dialect Dialect providing the EXPLAIN-statement
+     * @return Plan with columns separated by tabs and rows by new lines, or
+     * empty when the call is not explainable
+     * @throws DbCallException Thrown when unable to query the plan
+     * @see #explain(DbDialect, long, TimeUnit)
+     */
+    public Optional<String> explain(final DbDialect dialect) throws DbCallException {
+        return explain(dialect, null);
+    }
+
+    /**
+     * Asks the database for the execution plan of the SQL of the call, with
+     * the same arguments. The plan is requested on a new connection of the
+     * database, read from a replica of a {@link ReadWriteDatabase}, once the
+     * {@link DbCallLimiter} registered for the database, if any, admits it at
+     * {@link DbCallLimiter.Priority#LOW} priority. Only SELECT-queries are
+     * explained, as explaining other statements may execute them on some
+     * databases. The request may block, so call it off the thread that made
+     * the call, e.g. on {@link DbCallExecutors#getDefault()}.
+     *
+     * @param dialect Dialect providing the EXPLAIN-statement
+     * @param timeout Maximum time to wait for a permit, a connection and the
+     *                plan
+     * @param unit    Unit of the timeout
+     * @return Plan with columns separated by tabs and rows by new lines, or
+     * empty when the call is not explainable
+     * @throws DbCallRejectedException Thrown when the limiter rejects the
+     *                                 request
+     * @throws DbCallTimeoutException  Thrown when the timeout passed
+     * @throws DbCallException         Thrown when unable to query the plan
+     */
+    public Optional<String> explain(final DbDialect dialect, final long timeout, final TimeUnit unit)
+            throws DbCallException {
+        return explain(dialect, DbDeadline.after(timeout, unit));
+    }
+
+    /**
+     * Asks the database for the execution plan of the SQL of the call.
+     *
+     * @param dialect  Dialect providing the EXPLAIN-statement
+     * @param deadline Deadline of the request, or null
+     * @return Plan, or empty when the call is not explainable
+     * @throws DbCallException Thrown when unable to query the plan
+     */
+    private Optional<String> explain(final DbDialect dialect, final DbDeadline deadline) throws DbCallException {
+        if (dialect == null) {
+            throw new IllegalArgumentException("No dialect set");
+        }
+
+        if (!isExplainable()) {
+            return Optional.empty();
+        }
+
+        try (final StatementWatch watch = StatementWatch.start(deadline)) {
+            final DbCallLimiter limiter = DbCallLimiter.forDatabase(db);
+            final DbCallLimiter.Permit permit = limiter == null
+                    ? null
+                    : limiter.acquire(DbCallLimiter.Priority.LOW, watch.remainingNanos(), null);
+            try (final Connection conn = connect(permit);
+                 final PreparedStatement stmt = conn.prepareStatement(dialect.explainQuery(sql))) {
+                watch.watch(stmt);
+                if (arguments != null) {
+                    arguments.apply(stmt);
+                }
+
+                try (final ResultSet rs = stmt.executeQuery()) {
+                    final int columns = rs.getMetaData().getColumnCount();
+                    final List<String> rows = new ArrayList<>();
+                    while (rs.next()) {
+                        final List<String> row = new ArrayList<>(columns);
+                        for (int i = 1; i <= columns; i++) {
+                            row.add(String.valueOf(rs.getObject(i)));
+                        }
+
+                        rows.add(String.join("\t", row));
+                    }
+
+                    return Optional.of(String.join("\n", rows));
+                }
+            } catch (final SQLException e) {
+                throw watch.failure(e);
+            }
+        }
+    }
+
+    /**
+     * Returns a new read connection of the database of the call, which
+     * releases the given permit when closed.
+     *
+     * @param permit Permit of the limiter of the database, or null
+     * @return Connection to request the plan on
+     */
+    private Connection connect(final DbCallLimiter.Permit permit) {
+        if (permit == null) {
+            return ReadWriteDatabase.readConnection(db);
+        }
+
+        boolean connected = false;
+        try {
+            final Connection conn = permit.guard(ReadWriteDatabase.readConnection(db));
+            connected = true;
+            return conn;
+        } finally {
+            if (!connected) {
+                permit.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the time spent in the given phase.
+     *
+     * @param phase Phase of the call
+     * @return Duration in nanoseconds, 0 when the call did not go through
+     * the phase
+     */
+    public long getPhaseNanos(final DbCallPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Returns the total duration of the call.
+     *
+     * @return Duration in nanoseconds, or -1 while the call is running
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns the amount of rows mapped by a query, or the update count of
+     * {@link DbCall#execute()} and {@link DbCall#executeBatch}.
+     *
+     * @return Amount of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the amount of rows {@link DbCall#getAllSpilling(long, DbRowCodec)}
+     * wrote to disk because they exceeded its memory budget.
+     *
+     * @return Amount of spilled rows, 0 when nothing was spilled
+     */
+    public long getSpilledRows() {
+        return spilledRows;
+    }
+
+    /**
+     * Returns the amount of bytes {@link DbCall#getAllSpilling(long, DbRowCodec)}
+     * wrote to disk.
+     *
+     * @return Size of the spilled rows, 0 when nothing was spilled
+     */
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Returns the exception the call failed with.
+     *
+     * @return Cause of the failure, or null when the call succeeded
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Ends the current phase and notifies the listeners.
+     *
+     * @param phase Phase that ended
+     */
+    void endPhase(final DbCallPhase phase) {
+        final long now = System.nanoTime();
+        final long duration = now - phaseStartNanos;
+        phaseNanos[phase.ordinal()] += duration;
+        phaseStartNanos = now;
+        for (final DbCallListener listener : listeners) {
+            try {
+                listener.onPhase(this, phase, duration);
+            } catch (final RuntimeException e) {
+                // Listeners must not break calls
+            }
+        }
+    }
+
+    /**
+     * Sets the amount of rows mapped or updated.
+     *
+     * @param rowCount Amount of rows
+     */
+    void setRowCount(final long rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Sets the amount of rows and bytes spilled to disk.
+     *
+     * @param rows  Amount of spilled rows
+     * @param bytes Size of the spilled rows
+     */
+    void setSpilled(final long rows, final long bytes) {
+        this.spilledRows = rows;
+        this.spilledBytes = bytes;
+    }
+
+    /**
+     * Marks the call as failed.
+     *
+     * @param error Cause of the failure
+     */
+    void fail(final Throwable error) {
+        this.error = error;
+    }
+
+    /**
+     * Ends the call and notifies the listeners.
+     */
+    void end() {
+        totalNanos = System.nanoTime() - startNanos;
+        for (final DbCallListener listener : listeners) {
+            try {
+                listener.onEnd(this);
+            } catch (final RuntimeException e) {
+                // Listeners must not break calls
+            }
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.peggir.SimpleDbUtil;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the executors on which the asynchronous operations of
+ * {@link DbCall} run. JDBC calls block their thread, so they should run on
+ * an executor with about as many threads as the connection pool has
+ * connections, instead of on the threads that handle requests.
+ */
+public final class DbCallExecutors {
+
+    /**
+     * Amount of threads of the default executor. Equal to the default maximum
+     * pool size of HikariCP, the connection pool used by Play!.
+     */
+    public static final int DEFAULT_POOL_SIZE = 10;
+
+    /**
+     * Amount of tasks the default executor queues before rejecting new ones.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    private static volatile Executor defaultExecutor;
+
+    private DbCallExecutors() {
+    }
+
+    /**
+     * Returns the executor used by {@link DbCall}s for which no executor was
+     * set. Unless another one was set with {@link #setDefault(Executor)}, this
+     * is a bounded executor with {@link #DEFAULT_POOL_SIZE} threads and a
+     * queue of {@link #DEFAULT_QUEUE_CAPACITY} tasks, created on first use.
+     *
+     * @return Default executor
+     */
+    public static Executor getDefault() {
+        Executor executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (DbCallExecutors.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    executor = newBoundedExecutor(DEFAULT_POOL_SIZE, DEFAULT_QUEUE_CAPACITY);
+                    defaultExecutor = executor;
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    /**
+     * Sets the executor used by {@link DbCall}s for which no executor was
+     * set. The previous default executor is not shut down.
+     *
+     * @param executor New default executor
+     */
+    public static void setDefault(final Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("No executor set");
+        }
+
+        defaultExecutor = executor;
+    }
+
+    /**
+     * Creates an executor with a fixed amount of daemon threads and a bounded
+     * queue. Tasks submitted while the queue is full are rejected with a
+     * {@link java.util.concurrent.RejectedExecutionException}. Use
+     * {@link ThreadPoolExecutor#getQueue()} and
+     * {@link ThreadPoolExecutor#getActiveCount()} to observe queueing.
+     *
+     * @param poolSize      Amount of threads, usually the size of the
+     *                      connection pool
+     * @param queueCapacity Amount of tasks that can wait for a thread
+     * @return New executor
+     */
+    public static ThreadPoolExecutor newBoundedExecutor(final int poolSize, final int queueCapacity) {
+        return new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new DaemonThreadFactory());
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for every task,
+     * when the running JDK supports virtual threads (JDK 21 and later).
+     * Virtual threads do not limit concurrency, so the connection pool bounds
+     * the amount of concurrent JDBC calls.
+     *
+     * @return New executor or empty when virtual threads are not supported
+     */
+    public static Optional<ExecutorService> newVirtualThreadExecutor() {
+        try {
+            final Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return Optional.of((ExecutorService) factory.invoke(null));
+        } catch (final ReflectiveOperationException | UnsupportedOperationException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Creates named daemon threads, so idle executors never keep the JVM
+     * alive.
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+        private final int poolNumber = POOL_NUMBER.incrementAndGet();
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(
+                    runnable,
+                    "SimpleDbUtil-" + poolNumber + "-jdbc-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,702 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallRejectedException;
+import play.db.Database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the amount of {@link DbCall}s in flight on a database, so that
+ * during traffic spikes calls are queued briefly or rejected fast instead of
+ * piling up inside the connection pool. Register a limiter for a database
+ * with {@link #register(Database, DbCallLimiter)}, or set one on a call with
+ * {@link DbCall#setLimiter(DbCallLimiter)}. A call holds its permit from
+ * before it requests a connection until it closes that connection. Limiters
+ * registered for a {@link ReadWriteDatabase} also limit the calls on its
+ * session views.
+ * <p>
+ * The limit adapts to the observed latency of the calls (AIMD), measured
+ * until their statement returned, so reading a stream does not count. Every
+ * query fingerprint keeps a slowly smoothed baseline latency and a quickly
+ * smoothed recent latency, so slow reports are not compared with fast
+ * lookups. The limit grows by about one for every limit's worth of calls
+ * whose query's recent latency is within the tolerance of its baseline, and
+ * shrinks by a tenth, at most once per limit's worth of calls, when it is
+ * not. Calls exceeding
+ * the limit wait in a bounded queue, highest {@link Priority} first, for at
+ * most the maximum wait. When the queue is full, a new call takes the place
+ * of the most recently queued call of a lower priority, or is rejected. Not
+ * admitted calls fail with a {@link DbCallRejectedException}.
+ */
+public class DbCallLimiter {
+
+    /**
+     * Default limit when the limiter is created.
+     */
+    public static final int DEFAULT_INITIAL_LIMIT = 10;
+
+    /**
+     * Default lowest limit.
+     */
+    public static final int DEFAULT_MIN_LIMIT = 1;
+
+    /**
+     * Default highest limit.
+     */
+    public static final int DEFAULT_MAX_LIMIT = 100;
+
+    /**
+     * Default amount of calls that can wait for a permit.
+     */
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 100;
+
+    /**
+     * Default maximum time in milliseconds a call waits for a permit.
+     */
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 1000L;
+
+    /**
+     * Default factor of the lowest recent latency above which the limit
+     * shrinks.
+     */
+    public static final double DEFAULT_TOLERANCE = 2.0;
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    /**
+     * Weight of a new latency in the baseline latency of a query.
+     */
+    private static final double BASELINE_SMOOTHING = 0.01;
+
+    /**
+     * Weight of a new latency in the recent latency of a query.
+     */
+    private static final double RECENT_SMOOTHING = 0.2;
+
+    /**
+     * Maximum amount of query fingerprints of which latencies are kept.
+     */
+    private static final int MAX_LATENCIES = 256;
+
+    /**
+     * Key of the latencies of calls without a query fingerprint.
+     */
+    private static final String NO_FINGERPRINT = "";
+
+    private static final Map<Database, DbCallLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<ArrayDeque<Waiter>> queues;
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private double limit = DEFAULT_INITIAL_LIMIT;
+    private int minLimit = DEFAULT_MIN_LIMIT;
+    private int maxLimit = DEFAULT_MAX_LIMIT;
+    private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+    private long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_WAIT_MILLIS);
+    private double tolerance = DEFAULT_TOLERANCE;
+    private int inFlight;
+    private int queued;
+    private final Map<String, Latency> latencies = new LinkedHashMap<String, Latency>(16, 0.75f, true) {
+
+        /**
+         * Drops the latencies of the least recently seen query when more than
+         * {@link #MAX_LATENCIES} queries are tracked.
+         *
+         * @param eldest Latencies of the least recently seen query
+         * @return True when the eldest entry is removed
+         */
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Latency> eldest) {
+            return size() > MAX_LATENCIES;
+        }
+
+    };
+    private int samplesSinceBackoff;
+
+    /**
+     * Creates a limiter with the default settings.
+     */
+    public DbCallLimiter() {
+        queues = new ArrayList<>();
+        for (int i = 0; i < Priority.values().length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Registers the limiter of all {@link DbCall}s on the given database for
+     * which no limiter was set.
+     *
+     * @param db      Database to limit
+     * @param limiter Limiter of the database
+     */
+    public static void register(final Database db, final DbCallLimiter limiter) {
+        if (db == null) {
+            throw new IllegalArgumentException("No database set");
+        }
+
+        if (limiter == null) {
+            throw new IllegalArgumentException("No limiter set");
+        }
+
+        LIMITERS.put(ReadWriteDatabase.root(db), limiter);
+    }
+
+    /**
+     * Removes the limiter of the given database.
+     *
+     * @param db Database to stop limiting
+     */
+    public static void unregister(final Database db) {
+        if (db != null) {
+            LIMITERS.remove(ReadWriteDatabase.root(db));
+        }
+    }
+
+    /**
+     * Returns the limiter registered for the given database, or for the
+     * {@link ReadWriteDatabase} it is a session view of.
+     *
+     * @param db Database of a call
+     * @return Registered limiter, or null
+     */
+    static DbCallLimiter forDatabase(final Database db) {
+        return db == null || LIMITERS.isEmpty() ? null : LIMITERS.get(ReadWriteDatabase.root(db));
+    }
+
+    /**
+     * Acquires a permit to run a call, waiting in the queue when the limit is
+     * reached. Close the permit once the call is done, also when it failed.
+     *
+     * @param priority Priority of the call
+     * @return Permit of the call
+     * @throws DbCallRejectedException Thrown when the queue is full or the
+     *                                 call waited too long
+     */
+    public Permit acquire(final Priority priority) throws DbCallRejectedException {
+        return acquire(priority, maxWaitNanos, null);
+    }
+
+    /**
+     * Acquires a permit to run a call, waiting in the queue at most the
+     * maximum wait of this limiter or the given wait, whichever is shorter.
+     *
+     * @param priority     Priority of the call
+     * @param maxWaitNanos Maximum wait in nanoseconds
+     * @param fingerprint  Fingerprint of the query of the call, or null
+     * @return Permit of the call
+     * @throws DbCallRejectedException Thrown when the queue is full or the
+     *                                 call waited too long
+     */
+    Permit acquire(final Priority priority, final long maxWaitNanos, final String fingerprint)
+            throws DbCallRejectedException {
+        if (priority == null) {
+            throw new IllegalArgumentException("No priority set");
+        }
+
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < currentLimit()) {
+                return admit(fingerprint);
+            }
+
+            if (queued >= maxQueueSize && !evict(priority)) {
+                throw reject("queue is full");
+            }
+
+            final Waiter waiter = new Waiter(lock.newCondition());
+            queues.get(priority.ordinal()).addLast(waiter);
+            queued++;
+            long remaining = Math.min(maxWaitNanos, this.maxWaitNanos);
+            try {
+                while (waiter.state == State.WAITING && remaining > 0L) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (waiter.state == State.GRANTED) {
+                return new Permit(inFlight, fingerprint);
+            }
+
+            if (waiter.state == State.WAITING) {
+                queues.get(priority.ordinal()).remove(waiter);
+                queued--;
+                throw reject("waited too long");
+            }
+
+            throw reject("replaced by a call of higher priority");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admits a call right away. Only call while holding the lock.
+     *
+     * @param fingerprint Fingerprint of the query of the call, or null
+     * @return Permit of the call
+     */
+    private Permit admit(final String fingerprint) {
+        inFlight++;
+        admitted.increment();
+        return new Permit(inFlight, fingerprint);
+    }
+
+    /**
+     * Rejects the most recently queued call with a lower priority than the
+     * given one, to make room in the queue. Only call while holding the lock.
+     *
+     * @param priority Priority of the new call
+     * @return True when a queued call was rejected
+     */
+    private boolean evict(final Priority priority) {
+        for (int i = queues.size() - 1; i > priority.ordinal(); i--) {
+            final Waiter waiter = queues.get(i).pollLast();
+            if (waiter != null) {
+                queued--;
+                waiter.state = State.REJECTED;
+                waiter.condition.signal();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Counts and creates a rejection.
+     *
+     * @param reason Reason of the rejection
+     * @return Exception to throw
+     */
+    private DbCallRejectedException reject(final String reason) {
+        rejected.increment();
+        return new DbCallRejectedException(
+                DbCallRejectedException.DEFAULT_ERROR_MSG + ": " + reason + " (" + inFlight + " calls in flight, "
+                        + "limit " + currentLimit() + ")",
+                null);
+    }
+
+    /**
+     * Releases the permit of a call that took the given time, adapts the
+     * limit and admits queued calls.
+     *
+     * @param permit       Permit of the call
+     * @param latencyNanos Duration of the call in nanoseconds
+     */
+    void release(final Permit permit, final long latencyNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            sample(permit.fingerprint, latencyNanos, permit.inFlightAtStart);
+            while (queued > 0 && inFlight < currentLimit()) {
+                final Waiter waiter = nextWaiter();
+                queued--;
+                inFlight++;
+                admitted.increment();
+                waiter.state = State.GRANTED;
+                waiter.condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adapts the limit to the latency of a call, compared with the latencies
+     * of earlier calls of the same query. Only call while holding the lock.
+     *
+     * @param fingerprint     Fingerprint of the query of the call, or null
+     * @param latencyNanos    Duration of the call in nanoseconds
+     * @param inFlightAtStart Amount of calls in flight when it started
+     */
+    private void sample(final String fingerprint, final long latencyNanos, final int inFlightAtStart) {
+        final String key = fingerprint != null ? fingerprint : NO_FINGERPRINT;
+        final Latency latency = latencies.get(key);
+        if (latency == null) {
+            latencies.put(key, new Latency(latencyNanos));
+            return;
+        }
+
+        latency.record(latencyNanos);
+        samplesSinceBackoff++;
+        if (latency.recentNanos > tolerance * latency.baselineNanos) {
+            if (samplesSinceBackoff >= currentLimit()) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                samplesSinceBackoff = 0;
+            }
+        } else if (inFlightAtStart * 2 >= currentLimit()) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Removes the queued call to admit next: the oldest of the highest
+     * priority. Only call while holding the lock.
+     *
+     * @return Next queued call
+     */
+    private Waiter nextWaiter() {
+        for (final ArrayDeque<Waiter> queue : queues) {
+            final Waiter waiter = queue.pollFirst();
+            if (waiter != null) {
+                return waiter;
+            }
+        }
+
+        throw new IllegalStateException("No calls queued");
+    }
+
+    /**
+     * Returns the current limit as a whole amount of calls.
+     *
+     * @return Current limit
+     */
+    private int currentLimit() {
+        return Math.max(minLimit, (int) limit);
+    }
+
+    /**
+     * Returns the current limit of calls in flight.
+     *
+     * @return Current limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of calls holding a permit.
+     *
+     * @return Calls in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of calls waiting for a permit.
+     *
+     * @return Depth of the queue
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of calls admitted since the limiter was created.
+     *
+     * @return Admitted calls
+     */
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    /**
+     * Returns the amount of calls rejected since the limiter was created.
+     *
+     * @return Rejected calls
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Sets the current limit, e.g. to start from a known good value.
+     * Defaults to {@link #DEFAULT_INITIAL_LIMIT}.
+     *
+     * @param limit New limit, between the minimum and maximum limit
+     */
+    public void setLimit(final int limit) {
+        lock.lock();
+        try {
+            if (limit < minLimit || limit > maxLimit) {
+                throw new IllegalArgumentException("Limit must be between " + minLimit + " and " + maxLimit);
+            }
+
+            this.limit = limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the lowest and highest limit. The highest limit should not exceed
+     * the size of the connection pool. Defaults to
+     * {@link #DEFAULT_MIN_LIMIT} and {@link #DEFAULT_MAX_LIMIT}.
+     *
+     * @param minLimit Lowest limit, at least 1
+     * @param maxLimit Highest limit, at least the lowest limit
+     */
+    public void setLimitRange(final int minLimit, final int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("No valid limit range set");
+        }
+
+        lock.lock();
+        try {
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            limit = Math.min(maxLimit, Math.max(minLimit, limit));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the amount of calls that can wait for a permit. Defaults to
+     * {@link #DEFAULT_MAX_QUEUE_SIZE}.
+     *
+     * @param maxQueueSize Queue size, or 0 to reject calls right away
+     */
+    public void setMaxQueueSize(final int maxQueueSize) {
+        if (maxQueueSize < 0) {
+            throw new IllegalArgumentException("No valid queue size set");
+        }
+
+        lock.lock();
+        try {
+            this.maxQueueSize = maxQueueSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the maximum time a call waits for a permit. Defaults to
+     * {@link #DEFAULT_MAX_WAIT_MILLIS} milliseconds.
+     *
+     * @param maxWait Maximum wait
+     * @param unit    Unit of the wait
+     */
+    public void setMaxWait(final long maxWait, final TimeUnit unit) {
+        if (maxWait < 0 || unit == null) {
+            throw new IllegalArgumentException("No maximum wait set");
+        }
+
+        lock.lock();
+        try {
+            this.maxWaitNanos = unit.toNanos(maxWait);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the factor of the lowest recent latency above which a call counts
+     * as a sign of overload. Defaults to {@link #DEFAULT_TOLERANCE}.
+     *
+     * @param tolerance Factor, at least 1
+     */
+    public void setTolerance(final double tolerance) {
+        if (!(tolerance >= 1.0)) {
+            throw new IllegalArgumentException("Tolerance must be at least 1");
+        }
+
+        lock.lock();
+        try {
+            this.tolerance = tolerance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Priority of a call waiting for a permit. By default, {@link DbCall}s
+     * that write have {@link #HIGH} priority and calls that only read have
+     * {@link #NORMAL} priority.
+     */
+    public enum Priority {
+
+        /**
+         * Calls admitted first, such as writes.
+         */
+        HIGH,
+
+        /**
+         * Regular calls, such as reads.
+         */
+        NORMAL,
+
+        /**
+         * Calls that may wait or be dropped, such as background reports.
+         */
+        LOW
+
+    }
+
+    /**
+     * Permit of a call in flight. Close it once the call is done.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart;
+        private final String fingerprint;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile long executedNanos = -1L;
+
+        /**
+         * Creates a permit.
+         *
+         * @param inFlightAtStart Amount of calls in flight, including this one
+         * @param fingerprint     Fingerprint of the query of the call, or null
+         */
+        private Permit(final int inFlightAtStart, final String fingerprint) {
+            this.inFlightAtStart = inFlightAtStart;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * Marks the statement of the call as returned, so the time spent
+         * reading its results afterwards does not count as latency of the
+         * database. Only the first mark counts.
+         */
+        void executed() {
+            if (executedNanos < 0L) {
+                executedNanos = System.nanoTime() - startNanos;
+            }
+        }
+
+        /**
+         * Releases the permit. Releasing it again has no effect. The latency
+         * of the call lasts until its statement returned, or until now when
+         * it was not marked as executed.
+         */
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                final long executed = executedNanos;
+                release(this, executed >= 0L ? executed : System.nanoTime() - startNanos);
+            }
+        }
+
+        /**
+         * Returns a view of the given connection that releases this permit
+         * when it is closed.
+         *
+         * @param conn Connection of the call
+         * @return Connection releasing the permit
+         */
+        Connection guard(final Connection conn) {
+            return (Connection) Proxy.newProxyInstance(
+                    DbCallLimiter.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        try {
+                            return method.invoke(conn, args);
+                        } catch (final InvocationTargetException e) {
+                            throw e.getCause();
+                        } finally {
+                            if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                                close();
+                            }
+                        }
+                    });
+        }
+
+    }
+
+    /**
+     * Smoothed latencies of the calls of a single query.
+     */
+    private static final class Latency {
+
+        private double baselineNanos;
+        private double recentNanos;
+
+        /**
+         * Creates the latencies of a query from its first call.
+         *
+         * @param latencyNanos Duration of the first call in nanoseconds
+         */
+        private Latency(final long latencyNanos) {
+            baselineNanos = latencyNanos;
+            recentNanos = latencyNanos;
+        }
+
+        /**
+         * Records the duration of a call.
+         *
+         * @param latencyNanos Duration of the call in nanoseconds
+         */
+        private void record(final long latencyNanos) {
+            baselineNanos += (latencyNanos - baselineNanos) * BASELINE_SMOOTHING;
+            recentNanos += (latencyNanos - recentNanos) * RECENT_SMOOTHING;
+        }
+
+    }
+
+    /**
+     * Call waiting for a permit.
+     */
+    private static final class Waiter {
+
+        private final Condition condition;
+        private State state = State.WAITING;
+
+        /**
+         * Creates a waiting call.
+         *
+         * @param condition Condition signalled when the state changes
+         */
+        private Waiter(final Condition condition) {
+            this.condition = condition;
+        }
+
+    }
+
+    /**
+     * State of a call waiting for a permit.
+     */
+    private enum State {
+
+        /**
+         * Waiting for a permit.
+         */
+        WAITING,
+
+        /**
+         * Admitted, holding a permit.
+         */
+        GRANTED,
+
+        /**
+         * Rejected to make room for a call of higher priority.
+         */
+        REJECTED
+
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.peggir.SimpleDbUtil;
+
+/**
+ * Listens to the execution of {@link DbCall}s, e.g. to collect metrics or
+ * log slow queries. Register listeners with
+ * {@link DbCallListeners#register(DbCallListener)} or through the
+ * {@link java.util.ServiceLoader} mechanism, by listing implementations in
+ * {@code META-INF/services/com.peggir.SimpleDbUtil.DbCallListener}.
+ * <p>
+ * Listeners are called on the thread executing the call, so they should
+ * return quickly and must be thread-safe. Exceptions thrown by listeners are
+ * ignored.
+ */
+public interface DbCallListener {
+
+    /**
+     * Called before a call acquires its connection.
+     *
+     * @param event Event of the call
+     */
+    default void onStart(final DbCallEvent event) {
+    }
+
+    /**
+     * Called after every phase the call went through.
+     *
+     * @param event         Event of the call
+     * @param phase         Phase that ended
+     * @param durationNanos Duration of the phase in nanoseconds
+     */
+    default void onPhase(final DbCallEvent event, final DbCallPhase phase, final long durationNanos) {
+    }
+
+    /**
+     * Called after the call completed or failed, before the result or
+     * exception is returned to the caller.
+     *
+     * @param event Event of the call, including its timings, row count and
+     *              error
+     */
+    default void onEnd(final DbCallEvent event) {
+    }
+
+}
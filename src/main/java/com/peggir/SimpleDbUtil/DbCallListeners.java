@@ -0,0 +1,107 @@
+package com.peggir.SimpleDbUtil;
+
+import java.util.Arrays;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the {@link DbCallListener}s notified of every {@link DbCall}.
+ * Listeners listed in
+ * {@code META-INF/services/com.peggir.SimpleDbUtil.DbCallListener} are
+ * registered when this class is loaded.
+ * <p>
+ * The listeners are kept in a copy-on-write array, so a call only reads a
+ * volatile field to find out there are none, and does not measure time or
+ * allocate anything in that case.
+ */
+public final class DbCallListeners {
+
+    private static final DbCallListener[] NONE = new DbCallListener[0];
+
+    private static volatile DbCallListener[] listeners = NONE;
+
+    static {
+        for (final DbCallListener listener : ServiceLoader.load(DbCallListener.class)) {
+            register(listener);
+        }
+    }
+
+    private DbCallListeners() {
+    }
+
+    /**
+     * Registers a listener. Registering a listener twice has no effect.
+     *
+     * @param listener Listener to notify of every call
+     */
+    public static synchronized void register(final DbCallListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("No listener set");
+        }
+
+        if (!Arrays.asList(listeners).contains(listener)) {
+            final DbCallListener[] result = Arrays.copyOf(listeners, listeners.length + 1);
+            result[listeners.length] = listener;
+            listeners = result;
+        }
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener Listener to stop notifying
+     * @return True when the listener was registered
+     */
+    public static synchronized boolean unregister(final DbCallListener listener) {
+        final int index = Arrays.asList(listeners).indexOf(listener);
+        if (index < 0) {
+            return false;
+        }
+
+        final DbCallListener[] result = new DbCallListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, result, 0, index);
+        System.arraycopy(listeners, index + 1, result, index, result.length - index);
+        listeners = result;
+        return true;
+    }
+
+    /**
+     * Returns whether any listener is registered.
+     *
+     * @return True when calls are being listened to
+     */
+    public static boolean isEmpty() {
+        return listeners.length == 0;
+    }
+
+    /**
+     * Starts the event of a call and notifies the listeners.
+     *
+     * @param operation Name of the operation, e.g. "getAll"
+     * @param call      Call that starts the operation, with a validated
+     *                  query
+     * @param sql       SQL sent to the database
+     * @param arguments Arguments of the call, or null
+     * @return Started event, or null when no listener is registered
+     */
+    static DbCallEvent start(final String operation,
+                             final DbCall<?> call,
+                             final String sql,
+                             final DbCallArguments arguments) {
+        final DbCallListener[] current = listeners;
+        if (current.length == 0) {
+            return null;
+        }
+
+        final DbCallEvent event = new DbCallEvent(current, operation, call, sql, arguments);
+        for (final DbCallListener listener : current) {
+            try {
+                listener.onStart(event);
+            } catch (final RuntimeException e) {
+                // Listeners must not break calls
+            }
+        }
+
+        return event;
+    }
+
+}
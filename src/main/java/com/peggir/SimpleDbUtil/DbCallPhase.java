@@ -0,0 +1,31 @@
+package com.peggir.SimpleDbUtil;
+
+/**
+ * Phases of a {@link DbCall}, reported to {@link DbCallListener}s in this
+ * order. Phases that a call does not go through, such as mapping for
+ * {@link DbCall#execute()}, are not reported.
+ */
+public enum DbCallPhase {
+
+    /**
+     * Acquiring a connection, which includes waiting for the connection
+     * pool.
+     */
+    ACQUIRE,
+
+    /**
+     * Preparing the statement and injecting its parameters.
+     */
+    PREPARE,
+
+    /**
+     * Executing the statement on the database.
+     */
+    EXECUTE,
+
+    /**
+     * Reading and mapping the result set.
+     */
+    MAP
+
+}
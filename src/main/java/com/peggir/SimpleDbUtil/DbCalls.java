@@ -0,0 +1,356 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs independent database calls concurrently and gathers their results, so
+ * the time to run them approaches that of the slowest call instead of the sum
+ * of all calls. Add every call to get a typed {@link Result}, then run the
+ * group once:
+ * <pre>{@code
+ * DbCalls calls = new DbCalls();
+ * DbCalls.Result<Optional<Person>> person = calls.add(personCall::getOne);
+ * DbCalls.Result<List<Order>> orders = calls.add(orderCall::getAll);
+ * calls.run();
+ * render(person.get(), orders.get());
+ * }</pre>
+ * <p>
+ * At most {@link #setMaxParallelism(int)} calls run at the same time, each
+ * on its own connection, on the executor of the group. By default, the group
+ * fails fast: the first failure is thrown and calls not yet started are
+ * skipped. Otherwise every call runs and its failure is kept in its result.
+ */
+public class DbCalls {
+
+    /**
+     * Default maximum amount of calls running at the same time.
+     */
+    public static final int DEFAULT_MAX_PARALLELISM = 4;
+
+    private final List<Result<?>> results = new ArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private Executor executor;
+    private int maxParallelism = DEFAULT_MAX_PARALLELISM;
+    private boolean failFast = true;
+
+    /**
+     * Runs the given calls concurrently and returns their results in the
+     * order of the calls. Fails fast, using the default settings of a
+     * {@link DbCalls} group.
+     *
+     * @param calls Calls to run, e.g. {@code personCall::getAll}
+     * @param <R>   Result of the calls
+     * @return Results of the calls
+     * @throws DbCallException Thrown when unable to run any of the calls
+     */
+    @SafeVarargs
+    public static <R> List<R> all(final Call<? extends R>... calls) throws DbCallException {
+        if (calls == null) {
+            throw new IllegalArgumentException("No calls set");
+        }
+
+        final DbCalls group = new DbCalls();
+        final List<Result<? extends R>> results = new ArrayList<>(calls.length);
+        for (final Call<? extends R> call : calls) {
+            results.add(group.add(call));
+        }
+
+        group.run();
+        final List<R> values = new ArrayList<>(results.size());
+        for (final Result<? extends R> result : results) {
+            values.add(result.get());
+        }
+
+        return values;
+    }
+
+    /**
+     * Adds a call to the group. Calls must be independent: they run
+     * concurrently, in no particular order and on different connections.
+     *
+     * @param call Call to run, e.g. {@code personCall::getOne}
+     * @param <R>  Result of the call
+     * @return Result of the call, available once the group has run
+     * @throws IllegalStateException When the group has run already
+     */
+    public <R> Result<R> add(final Call<R> call) throws IllegalStateException {
+        if (call == null) {
+            throw new IllegalArgumentException("No call set");
+        }
+
+        if (started.get()) {
+            throw new IllegalStateException("DbCalls have run already");
+        }
+
+        final Result<R> result = new Result<>(call);
+        results.add(result);
+        return result;
+    }
+
+    /**
+     * Runs every call of the group and waits until they are done. The
+     * current thread runs calls too, so the group makes progress even when
+     * the executor is saturated.
+     * <p>
+     * When failing fast, the first failure is thrown as soon as it occurs;
+     * calls still running then complete in the background. Otherwise, this
+     * returns once every call is done and failures are thrown by
+     * {@link Result#get()}.
+     *
+     * @throws DbCallException       Thrown when failing fast and unable to
+     *                               run a call
+     * @throws IllegalStateException When the group has run already
+     */
+    public void run() throws DbCallException, IllegalStateException {
+        start(true);
+        try {
+            done.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof DbCallException) {
+                throw (DbCallException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Asynchronously runs every call of the group. See {@link #run()}.
+     *
+     * @return Stage completed once every call is done, or completed
+     * exceptionally with the first failure when failing fast
+     * @throws IllegalStateException When the group has run already
+     */
+    public CompletionStage<Void> runAsync() throws IllegalStateException {
+        start(false);
+        return done;
+    }
+
+    /**
+     * Starts the workers running the calls.
+     *
+     * @param callerRuns Whether the current thread works too
+     * @throws IllegalStateException When the group has run already
+     */
+    private void start(final boolean callerRuns) throws IllegalStateException {
+        if (maxParallelism < 1) {
+            throw new IllegalArgumentException("Max parallelism must be at least 1");
+        }
+
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("DbCalls have run already");
+        }
+
+        if (results.isEmpty()) {
+            done.complete(null);
+            return;
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger pending = new AtomicInteger(results.size());
+        final Executor target = executor != null ? executor : DbCallExecutors.getDefault();
+        final int workers = Math.min(maxParallelism, results.size()) - (callerRuns ? 1 : 0);
+        int startedWorkers = 0;
+        for (int w = 0; w < workers; w++) {
+            try {
+                target.execute(() -> work(next, pending));
+                startedWorkers++;
+            } catch (final RejectedExecutionException e) {
+                if (!callerRuns && startedWorkers == 0) {
+                    failure.compareAndSet(null, e);
+                    work(next, pending);
+                    return;
+                }
+
+                break;
+            }
+        }
+
+        if (callerRuns) {
+            work(next, pending);
+        }
+    }
+
+    /**
+     * Runs calls until none are left. When failing fast, calls taken after a
+     * failure are skipped and given that failure.
+     *
+     * @param next    Index of the next call to take
+     * @param pending Amount of calls not yet done
+     */
+    private void work(final AtomicInteger next, final AtomicInteger pending) {
+        int i;
+        while ((i = next.getAndIncrement()) < results.size()) {
+            final Result<?> result = results.get(i);
+            final Exception previous = failure.get();
+            if (previous != null && (failFast || previous instanceof RejectedExecutionException)) {
+                result.fail(previous);
+            } else {
+                result.run();
+            }
+
+            if (result.error != null && failFast && failure.compareAndSet(null, result.error)) {
+                done.completeExceptionally(result.error);
+            } else if (result.error instanceof RejectedExecutionException) {
+                done.completeExceptionally(result.error);
+            }
+
+            if (pending.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Sets the executor on which the calls run. Defaults to
+     * {@link DbCallExecutors#getDefault()}.
+     *
+     * @param executor New executor, or null for the default executor
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the maximum amount of calls running at the same time. Every
+     * running call holds a connection, so keep this below the size of the
+     * connection pool. Defaults to {@link #DEFAULT_MAX_PARALLELISM}.
+     *
+     * @param maxParallelism New maximum, at least 1
+     */
+    public void setMaxParallelism(final int maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+
+    /**
+     * Sets whether the group stops at the first failure. Defaults to true.
+     * When false, every call runs and its failure is kept in its
+     * {@link Result}.
+     *
+     * @param failFast True to stop at the first failure
+     */
+    public void setFailFast(final boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    /**
+     * Database call of a group, e.g. {@code personCall::getAll}.
+     *
+     * @param <R> Result of the call
+     */
+    @FunctionalInterface
+    public interface Call<R> {
+
+        /**
+         * Runs the call.
+         *
+         * @return Result of the call
+         * @throws DbCallException When unable to query database
+         */
+        R call() throws DbCallException;
+
+    }
+
+    /**
+     * Result of a call in a group, available once the group has run.
+     *
+     * @param <R> Result of the call
+     */
+    public static final class Result<R> {
+
+        private final Call<R> call;
+        private volatile boolean completed;
+        private volatile R value;
+        private volatile Exception error;
+
+        /**
+         * Prepares the result of the given call.
+         *
+         * @param call Call to run
+         */
+        private Result(final Call<R> call) {
+            this.call = call;
+        }
+
+        /**
+         * Runs the call and keeps its result or failure.
+         */
+        private void run() {
+            try {
+                value = call.call();
+            } catch (final DbCallException | RuntimeException e) {
+                error = e;
+            }
+
+            completed = true;
+        }
+
+        /**
+         * Completes the result with a failure without running the call.
+         *
+         * @param error Failure to keep
+         */
+        private void fail(final Exception error) {
+            this.error = error;
+            completed = true;
+        }
+
+        /**
+         * Returns whether the call is done, successfully or not.
+         *
+         * @return True when the call is done
+         */
+        public boolean isDone() {
+            return completed;
+        }
+
+        /**
+         * Returns the result of the call.
+         *
+         * @return Result of the call
+         * @throws DbCallException       Thrown when the call failed or was
+         *                               skipped because another call failed
+         * @throws IllegalStateException When the call is not done yet
+         */
+        public R get() throws DbCallException, IllegalStateException {
+            if (!completed) {
+                throw new IllegalStateException("DbCall is not done");
+            }
+
+            if (error instanceof DbCallException) {
+                throw (DbCallException) error;
+            } else if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+
+            return value;
+        }
+
+        /**
+         * Returns the failure of the call.
+         *
+         * @return Failure of the call, or null when it succeeded or is not
+         * done yet
+         */
+        public Exception getError() {
+            return error;
+        }
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.peggir.SimpleDbUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which database calls must be done, e.g. the end of the
+ * time budget of a request. Pass the same deadline to every {@link DbCall}
+ * of the request with {@link DbCall#setDeadline(DbDeadline)}: each call gets
+ * the time that is left, covering both waiting for a connection and
+ * executing the statement.
+ */
+public final class DbDeadline {
+
+    private final long deadlineNanos;
+
+    /**
+     * Creates a deadline at the given value of {@link System#nanoTime()}.
+     *
+     * @param deadlineNanos Deadline in nanoseconds
+     */
+    private DbDeadline(final long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Returns a deadline the given time from now.
+     *
+     * @param duration Time until the deadline
+     * @param unit     Unit of the time
+     * @return Deadline
+     */
+    public static DbDeadline after(final long duration, final TimeUnit unit) {
+        if (duration < 0 || unit == null) {
+            throw new IllegalArgumentException("No duration set");
+        }
+
+        return new DbDeadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    /**
+     * Returns the earlier of two deadlines.
+     *
+     * @param first  Deadline, or null
+     * @param second Deadline, or null
+     * @return Earlier deadline, or null when both are null
+     */
+    static DbDeadline earliest(final DbDeadline first, final DbDeadline second) {
+        if (first == null) {
+            return second;
+        } else if (second == null) {
+            return first;
+        }
+
+        return first.deadlineNanos - second.deadlineNanos <= 0 ? first : second;
+    }
+
+    /**
+     * Returns the time left until the deadline.
+     *
+     * @param unit Unit of the result
+     * @return Time left, or 0 when the deadline passed
+     */
+    public long remaining(final TimeUnit unit) {
+        return unit.convert(remainingNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the time left until the deadline in nanoseconds.
+     *
+     * @return Time left, or 0 when the deadline passed
+     */
+    long remainingNanos() {
+        return Math.max(0L, deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * Returns whether the deadline passed.
+     *
+     * @return True when no time is left
+     */
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+}
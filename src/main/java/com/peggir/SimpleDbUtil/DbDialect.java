@@ -0,0 +1,49 @@
+package com.peggir.SimpleDbUtil;
+
+/**
+ * Provides the SQL that differs between databases. Used by {@link DbCall} to
+ * rewrite queries into cheaper ones, for example when only the first row of
+ * a result set is needed. Implementations for common databases can be found
+ * in the {@code dialects} package.
+ */
+public interface DbDialect {
+
+    /**
+     * Returns the name of the dialect, which must be unique between dialects.
+     *
+     * @return Name of the dialect
+     */
+    String getName();
+
+    /**
+     * Wraps the given SELECT-query in a query returning a single boolean
+     * column, which is true when the given query has any result.
+     *
+     * @param selectQuery Single SELECT-query without terminating semicolon
+     * @return Query returning whether the given query has any result
+     */
+    String existsQuery(final String selectQuery);
+
+    /**
+     * Appends a row limit to the given SELECT-query. The query never has a
+     * row limit or locking clause of its own.
+     *
+     * @param selectQuery Single SELECT-query without terminating semicolon
+     * @param limit       Maximum amount of rows to return
+     * @return Query returning at most the given amount of rows
+     */
+    String limitQuery(final String selectQuery, final int limit);
+
+    /**
+     * Prefixes the given SELECT-query with the statement that returns its
+     * execution plan instead of its results, without executing it. The
+     * default, {@code EXPLAIN}, is understood by H2, PostgreSQL and MySQL.
+     *
+     * @param selectQuery Single SELECT-query without terminating semicolon
+     * @return Query returning the execution plan of the given query
+     */
+    default String explainQuery(final String selectQuery) {
+        return "EXPLAIN " + selectQuery;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.peggir.SimpleDbUtil;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page of a result set read with keyset pagination, see
+ * {@link DbCall#getPage(String, int, String...)}. Holds the mapped rows and
+ * the cursor to resume after the last of them.
+ *
+ * @param <T> Object the rows are mapped to
+ */
+public final class DbPage<T> {
+
+    private final List<T> items;
+    private final String cursor;
+    private final boolean last;
+
+    /**
+     * Creates a page.
+     *
+     * @param items  Mapped rows of the page
+     * @param cursor Cursor after the last row, or the cursor the page
+     *               started at when it is empty
+     * @param last   Whether no rows follow the page
+     */
+    DbPage(final List<T> items, final String cursor, final boolean last) {
+        this.items = Collections.unmodifiableList(items);
+        this.cursor = cursor;
+        this.last = last;
+    }
+
+    /**
+     * Returns the mapped rows of the page.
+     *
+     * @return Unmodifiable list of rows
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the opaque cursor pointing after the last row of the page.
+     * Pass it to {@link DbCall#getPage(String, int, String...)} with the
+     * same query and key columns to read the next page, e.g. in a later
+     * request.
+     *
+     * @return Cursor, or null when the first page is empty
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Returns whether this is the last page, judged by it having fewer rows
+     * than requested. A full page may still be followed by an empty page.
+     *
+     * @return True when no rows follow the page
+     */
+    public boolean isLast() {
+        return last;
+    }
+
+    /**
+     * Returns whether the page has no rows.
+     *
+     * @return True when the page is empty
+     */
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+}
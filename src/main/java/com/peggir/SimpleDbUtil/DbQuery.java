@@ -0,0 +1,216 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import org.intellij.lang.annotations.Language;
+import play.db.Database;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable, thread-safe query that is parsed and validated once. Unlike a
+ * {@link DbCall}, a DbQuery can be stored in a static field and shared
+ * between threads, so executing it only costs binding the arguments and
+ * querying the database. The analysis of the SQL is cached by its text, so
+ * creating the same DbQuery twice parses it only once.
+ *
+ * @param <T> Object used to map the database result sets to
+ */
+public final class DbQuery<T> {
+
+    private final ParsedQuery parsedQuery;
+    private final DbCallResultSetMapper<T> resultSetMapper;
+
+    private DbQuery(final ParsedQuery parsedQuery, final DbCallResultSetMapper<T> resultSetMapper) {
+        this.parsedQuery = parsedQuery;
+        this.resultSetMapper = resultSetMapper;
+    }
+
+    /**
+     * Creates a query without object-mapping, for {@link #hasResults(Database)}
+     * and {@link #execute(Database)}.
+     *
+     * @param query SQL-query
+     * @return Parsed query
+     * @throws IllegalArgumentException When the query is missing
+     */
+    public static DbQuery<Void> of(@Language("SQL") final String query) {
+        return new DbQuery<>(parse(query), null);
+    }
+
+    /**
+     * Creates a query that maps its results with the given mapper.
+     *
+     * @param query           SQL-query
+     * @param resultSetMapper {@link DbCallResultSetMapper} for object mapping
+     * @param <T>             Object used to map the database result sets to
+     * @return Parsed query
+     * @throws IllegalArgumentException When the query or mapper is missing
+     */
+    public static <T> DbQuery<T> of(@Language("SQL") final String query,
+                                    final DbCallResultSetMapper<T> resultSetMapper) {
+        if (resultSetMapper == null) {
+            throw new IllegalArgumentException("No DbCallResultSetMapper set");
+        }
+
+        return new DbQuery<>(parse(query), resultSetMapper);
+    }
+
+    /**
+     * Returns the first mapped object from the query's result set. See
+     * {@link DbCall#getOne()}.
+     *
+     * @param db Database to query from
+     * @return Mapped {@link T} or empty {@link Optional} when the query had no results
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public Optional<T> getOne(final Database db) throws DbCallException {
+        return getOne(db, null);
+    }
+
+    /**
+     * Returns the first mapped object from the query's result set. See
+     * {@link DbCall#getOne()}.
+     *
+     * @param db        Database to query from
+     * @param arguments SQL-query parameters
+     * @return Mapped {@link T} or empty {@link Optional} when the query had no results
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public Optional<T> getOne(final Database db, final DbCallArguments arguments) throws DbCallException {
+        return call(db, arguments).getOne();
+    }
+
+    /**
+     * Returns a list of all mapped objects from the query's entire result
+     * set. See {@link DbCall#getAll()}.
+     *
+     * @param db Database to query from
+     * @return List of mapped {@link T}
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public List<T> getAll(final Database db) throws DbCallException {
+        return getAll(db, null);
+    }
+
+    /**
+     * Returns a list of all mapped objects from the query's entire result
+     * set. See {@link DbCall#getAll()}.
+     *
+     * @param db        Database to query from
+     * @param arguments SQL-query parameters
+     * @return List of mapped {@link T}
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public List<T> getAll(final Database db, final DbCallArguments arguments) throws DbCallException {
+        return call(db, arguments).getAll();
+    }
+
+    /**
+     * Returns whether the query has any results in the database. See
+     * {@link DbCall#hasResults()}.
+     *
+     * @param db Database to query from
+     * @return True when then query has any result and otherwise false
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public boolean hasResults(final Database db) throws DbCallException {
+        return hasResults(db, null);
+    }
+
+    /**
+     * Returns whether the query has any results in the database. See
+     * {@link DbCall#hasResults()}.
+     *
+     * @param db        Database to query from
+     * @param arguments SQL-query parameters
+     * @return True when then query has any result and otherwise false
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public boolean hasResults(final Database db, final DbCallArguments arguments) throws DbCallException {
+        return call(db, arguments).hasResults();
+    }
+
+    /**
+     * Executes the query on the database. See {@link DbCall#execute()}.
+     *
+     * @param db Database to query on
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public void execute(final Database db) throws DbCallException {
+        execute(db, null);
+    }
+
+    /**
+     * Executes the query on the database. See {@link DbCall#execute()}.
+     *
+     * @param db        Database to query on
+     * @param arguments SQL-query parameters
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public void execute(final Database db, final DbCallArguments arguments) throws DbCallException {
+        call(db, arguments).execute();
+    }
+
+    /**
+     * Returns a new {@link DbCall} for this query, for the operations that are
+     * only available on a DbCall. The DbCall is not shared, so it may be
+     * configured freely.
+     *
+     * @param db        Database to query on
+     * @param arguments SQL-query parameters or null
+     * @return New DbCall for this query
+     */
+    public DbCall<T> call(final Database db, final DbCallArguments arguments) {
+        return new DbCall<>(db, resultSetMapper, parsedQuery, arguments);
+    }
+
+    /**
+     * Returns a new {@link DbCall} for this query that runs on the given
+     * session.
+     *
+     * @param session   Session to query on
+     * @param arguments SQL-query parameters or null
+     * @return New DbCall for this query
+     */
+    public DbCall<T> call(final DbSession session, final DbCallArguments arguments) {
+        final DbCall<T> call = new DbCall<>(null, resultSetMapper, parsedQuery, arguments);
+        call.setSession(session);
+        return call;
+    }
+
+    /**
+     * Returns the SQL-query.
+     *
+     * @return SQL-query
+     */
+    public String getQuery() {
+        return parsedQuery.getSql();
+    }
+
+    /**
+     * Returns the amount of parameters in the query, not counting question
+     * marks inside literals, quoted identifiers or comments.
+     *
+     * @return Amount of parameters
+     */
+    public int getParameterCount() {
+        return parsedQuery.getParameterCount();
+    }
+
+    /**
+     * Validates and parses the given query.
+     *
+     * @param query SQL-query
+     * @return Parsed query
+     * @throws IllegalArgumentException When the query is missing
+     */
+    private static ParsedQuery parse(final String query) {
+        if (query == null || query.isEmpty()) {
+            throw new IllegalArgumentException("No query set");
+        }
+
+        return ParsedQuery.of(query);
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.peggir.SimpleDbUtil;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Encodes mapped rows to bytes and back, so
+ * {@link DbCall#getAllSpilling(long, DbRowCodec)} can write rows beyond its
+ * memory budget to disk. A codec writing the fields of a row directly is far
+ * more compact and faster than {@link #serializable()}.
+ *
+ * @param <T> Object a row is mapped to
+ */
+public interface DbRowCodec<T> {
+
+    /**
+     * Writes a row.
+     *
+     * @param out Output to write to
+     * @param row Row to write
+     * @throws IOException When unable to write the row
+     */
+    void write(DataOutput out, T row) throws IOException;
+
+    /**
+     * Reads a row written by {@link #write(DataOutput, Object)}.
+     *
+     * @param in Input positioned at the row
+     * @return Row read
+     * @throws IOException When unable to read the row
+     */
+    T read(DataInput in) throws IOException;
+
+    /**
+     * Returns a codec using Java serialization, for rows that implement
+     * {@link java.io.Serializable}.
+     *
+     * @param <T> Object a row is mapped to
+     * @return Codec serializing every row on its own
+     */
+    static <T> DbRowCodec<T> serializable() {
+        return new DbRowCodec<T>() {
+
+            /**
+             * Serializes a row.
+             *
+             * @param out Output to write to
+             * @param row Row to write
+             * @throws IOException When the row is not serializable
+             */
+            @Override
+            public void write(final DataOutput out, final T row) throws IOException {
+                final ObjectOutputStream stream = new ObjectOutputStream(out instanceof OutputStream
+                        ? (OutputStream) out : new OutputStream() {
+
+                    /**
+                     * Writes a byte to the data output.
+                     *
+                     * @param b Byte to write
+                     * @throws IOException When unable to write
+                     */
+                    @Override
+                    public void write(final int b) throws IOException {
+                        out.write(b);
+                    }
+
+                });
+                stream.writeObject(row);
+                stream.flush();
+            }
+
+            /**
+             * Deserializes a row.
+             *
+             * @param in Input positioned at the row
+             * @return Row read
+             * @throws IOException When unable to deserialize the row
+             */
+            @Override
+            @SuppressWarnings("unchecked")
+            public T read(final DataInput in) throws IOException {
+                final ObjectInputStream stream = new ObjectInputStream(in instanceof InputStream
+                        ? (InputStream) in : new InputStream() {
+
+                    /**
+                     * Reads a byte from the data input.
+                     *
+                     * @return Byte read
+                     * @throws IOException When unable to read
+                     */
+                    @Override
+                    public int read() throws IOException {
+                        return in.readUnsignedByte();
+                    }
+
+                });
+                try {
+                    return (T) stream.readObject();
+                } catch (final ClassNotFoundException e) {
+                    throw (IOException) new InvalidClassException(e.getMessage()).initCause(e);
+                }
+            }
+
+        };
+    }
+
+}
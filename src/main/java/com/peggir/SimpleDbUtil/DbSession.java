@@ -0,0 +1,406 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import org.intellij.lang.annotations.Language;
+import play.db.Database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * Unit of work that runs many {@link DbCall}s on a single connection. A
+ * session leases one connection from the {@link Database} when it is opened
+ * and returns it when it is closed, so the calls in between do not check out
+ * a connection each. Inside a transaction, all calls are committed at once.
+ * <p>
+ * A session is not thread-safe: use it from one thread at a time and do not
+ * run asynchronous operations of its calls concurrently.
+ */
+public class DbSession implements AutoCloseable {
+
+    private final Connection conn;
+    private final Connection sharedConn;
+    private final boolean initialAutoCommit;
+    private final boolean initialReadOnly;
+    private boolean closed;
+
+    /**
+     * Opens a session on a connection.
+     *
+     * @param conn Connection owned by the session
+     * @throws SQLException When unable to read the connection's settings
+     */
+    private DbSession(final Connection conn) throws SQLException {
+        this.conn = conn;
+        this.sharedConn = nonClosing(conn);
+        this.initialAutoCommit = conn.getAutoCommit();
+        this.initialReadOnly = conn.isReadOnly();
+    }
+
+    /**
+     * Opens a session that leases a connection from the given database. The
+     * session starts in auto-commit mode; use {@link #beginTransaction()} to
+     * start a transaction. Always close the session, preferably with
+     * try-with-resources.
+     *
+     * @param db Database to lease a connection from
+     * @return Opened session
+     * @throws DbCallException Thrown when unable to get a connection
+     */
+    public static DbSession open(final Database db) throws DbCallException {
+        if (db == null) {
+            throw new IllegalArgumentException("No database set");
+        }
+
+        final Connection conn = db.getConnection();
+        try {
+            return new DbSession(conn);
+        } catch (final SQLException e) {
+            closeAfterFailure(conn, e);
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Runs the given work in a transaction on a single connection. The
+     * transaction is committed when the work completes and rolled back when
+     * it throws.
+     *
+     * @param db   Database to lease a connection from
+     * @param work Work to run with the session
+     * @param <R>  Result of the work
+     * @return Result of the work
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public static <R> R withSession(final Database db, final DbSessionWork<R> work) throws DbCallException {
+        return withSession(db, false, work);
+    }
+
+    /**
+     * Runs the given work in a read-only transaction on a single connection.
+     * Read-only transactions allow the database and driver to skip work, and
+     * let the driver reject writes.
+     *
+     * @param db   Database to lease a connection from
+     * @param work Work to run with the session
+     * @param <R>  Result of the work
+     * @return Result of the work
+     * @throws DbCallException Thrown when unable to query database
+     */
+    public static <R> R withReadOnlySession(final Database db, final DbSessionWork<R> work) throws DbCallException {
+        return withSession(db, true, work);
+    }
+
+    /**
+     * Runs the given work in a transaction on a single connection.
+     *
+     * @param db       Database to lease a connection from
+     * @param readOnly Whether the transaction is read-only
+     * @param work     Work to run with the session
+     * @param <R>      Result of the work
+     * @return Result of the work
+     * @throws DbCallException Thrown when unable to query database
+     */
+    private static <R> R withSession(final Database db,
+                                     final boolean readOnly,
+                                     final DbSessionWork<R> work) throws DbCallException {
+        if (work == null) {
+            throw new IllegalArgumentException("No DbSessionWork set");
+        }
+
+        try (final DbSession session = open(db)) {
+            session.setReadOnly(readOnly);
+            session.beginTransaction();
+            final R result = work.run(session);
+            session.commit();
+            return result;
+        }
+    }
+
+    /**
+     * Prepare a database call on this session with all arguments.
+     *
+     * @param resultSetMapper {@link DbCallResultSetMapper} for object mapping
+     * @param query           SQL-query
+     * @param arguments       SQL-query parameters
+     * @param <T>             Object used to map the database result sets to
+     * @return DbCall running on this session
+     */
+    public <T> DbCall<T> call(final DbCallResultSetMapper<T> resultSetMapper,
+                              @Language("SQL") final String query,
+                              final DbCallArguments arguments) {
+        final DbCall<T> call = new DbCall<>(null, resultSetMapper, query, arguments);
+        call.setSession(this);
+        return call;
+    }
+
+    /**
+     * Prepare a database call on this session without
+     * {@link DbCallArguments}.
+     *
+     * @param resultSetMapper {@link DbCallResultSetMapper} for object mapping
+     * @param query           SQL-query
+     * @param <T>             Object used to map the database result sets to
+     * @return DbCall running on this session
+     */
+    public <T> DbCall<T> call(final DbCallResultSetMapper<T> resultSetMapper, @Language("SQL") final String query) {
+        return call(resultSetMapper, query, null);
+    }
+
+    /**
+     * Prepare a database call on this session without object-mapping.
+     *
+     * @param query     SQL-query
+     * @param arguments SQL-query parameters
+     * @return DbCall running on this session
+     */
+    public DbCall<Void> call(@Language("SQL") final String query, final DbCallArguments arguments) {
+        return call(null, query, arguments);
+    }
+
+    /**
+     * Prepare a database call on this session without object-mapping and
+     * arguments.
+     *
+     * @param query SQL-query
+     * @return DbCall running on this session
+     */
+    public DbCall<Void> call(@Language("SQL") final String query) {
+        return call(null, query, null);
+    }
+
+    /**
+     * Starts a transaction. All calls until {@link #commit()} or
+     * {@link #rollback()} are part of it.
+     *
+     * @throws DbCallException Thrown when unable to start the transaction
+     */
+    public void beginTransaction() throws DbCallException {
+        try {
+            connection().setAutoCommit(false);
+        } catch (final SQLException e) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Returns whether a transaction is in progress.
+     *
+     * @return True when a transaction was started and not yet ended
+     * @throws DbCallException Thrown when unable to read the connection's
+     *                         state
+     */
+    public boolean isInTransaction() throws DbCallException {
+        try {
+            return !connection().getAutoCommit();
+        } catch (final SQLException e) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Commits the current transaction and returns to auto-commit mode.
+     *
+     * @throws DbCallException Thrown when unable to commit
+     */
+    public void commit() throws DbCallException {
+        try {
+            connection().commit();
+            conn.setAutoCommit(true);
+        } catch (final SQLException e) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Rolls back the current transaction and returns to auto-commit mode.
+     *
+     * @throws DbCallException Thrown when unable to roll back
+     */
+    public void rollback() throws DbCallException {
+        try {
+            connection().rollback();
+            conn.setAutoCommit(true);
+        } catch (final SQLException e) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Creates a savepoint in the current transaction.
+     *
+     * @param name Name of the savepoint
+     * @return Created savepoint
+     * @throws DbCallException Thrown when unable to create the savepoint
+     */
+    public Savepoint setSavepoint(final String name) throws DbCallException {
+        try {
+            return connection().setSavepoint(name);
+        } catch (final SQLException e) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Rolls back everything done after the given savepoint, keeping the
+     * transaction open.
+     *
+     * @param savepoint Savepoint to roll back to
+     * @throws DbCallException Thrown when unable to roll back
+     */
+    public void rollback(final Savepoint savepoint) throws DbCallException {
+        try {
+            connection().rollback(savepoint);
+        } catch (final SQLException e) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Removes the given savepoint from the current transaction.
+     *
+     * @param savepoint Savepoint to release
+     * @throws DbCallException Thrown when unable to release the savepoint
+     */
+    public void releaseSavepoint(final Savepoint savepoint) throws DbCallException {
+        try {
+            connection().releaseSavepoint(savepoint);
+        } catch (final SQLException e) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Sets whether the session only reads. Must be called outside of a
+     * transaction.
+     *
+     * @param readOnly True to make the session read-only
+     * @throws DbCallException Thrown when unable to change the mode
+     */
+    public void setReadOnly(final boolean readOnly) throws DbCallException {
+        try {
+            connection().setReadOnly(readOnly);
+        } catch (final SQLException e) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Returns whether the session has been closed.
+     *
+     * @return True when closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the session and returns its connection to the pool. A
+     * transaction that is still in progress is rolled back. Does nothing when
+     * the session is already closed.
+     *
+     * @throws DbCallException Thrown when unable to close the connection
+     */
+    @Override
+    public void close() throws DbCallException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        SQLException failure = null;
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+            }
+
+            conn.setAutoCommit(initialAutoCommit);
+            conn.setReadOnly(initialReadOnly);
+        } catch (final SQLException e) {
+            failure = e;
+        } finally {
+            try {
+                conn.close();
+            } catch (final SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, failure);
+        }
+    }
+
+    /**
+     * Returns the connection of this session for a {@link DbCall}. Closing the
+     * returned connection does not close the session's connection.
+     *
+     * @return Connection of the session
+     * @throws IllegalStateException When the session is closed
+     */
+    Connection getConnection() {
+        connection();
+        return sharedConn;
+    }
+
+    /**
+     * Returns the connection of this session.
+     *
+     * @return Connection of the session
+     * @throws IllegalStateException When the session is closed
+     */
+    private Connection connection() {
+        if (closed) {
+            throw new IllegalStateException("DbSession is closed");
+        }
+
+        return conn;
+    }
+
+    /**
+     * Returns a view of the given connection of which the close method does
+     * nothing, so the statements of a {@link DbCall} can close their
+     * connection as usual without closing the session.
+     *
+     * @param conn Connection to wrap
+     * @return Connection that cannot be closed
+     */
+    private static Connection nonClosing(final Connection conn) {
+        return (Connection) Proxy.newProxyInstance(
+                DbSession.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return null;
+                    }
+
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (final InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Closes a connection after failing to open a session on it.
+     *
+     * @param conn  Connection to close
+     * @param cause Failure while opening the session
+     */
+    private static void closeAfterFailure(final Connection conn, final SQLException cause) {
+        try {
+            conn.close();
+        } catch (final SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+}
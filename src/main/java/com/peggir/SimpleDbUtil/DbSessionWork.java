@@ -0,0 +1,22 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+
+/**
+ * Provides an interface for work done with a {@link DbSession}, as passed to
+ * {@link DbSession#withSession(play.db.Database, DbSessionWork)}.
+ *
+ * @param <R> Result of the work
+ */
+public interface DbSessionWork<R> {
+
+    /**
+     * Does the work with the given session.
+     *
+     * @param session Session to run {@link DbCall}s with
+     * @return Result of the work
+     * @throws DbCallException When unable to query the database
+     */
+    R run(final DbSession session) throws DbCallException;
+
+}
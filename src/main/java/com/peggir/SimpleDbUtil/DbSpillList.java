@@ -0,0 +1,268 @@
+package com.peggir.SimpleDbUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list of the rows of {@link DbCall#getAllSpilling(long, DbRowCodec)}.
+ * Rows are kept in memory until their estimated size reaches the memory
+ * budget; every further row is encoded with a {@link DbRowCodec} and written
+ * to a temporary file, which is memory-mapped and read back when the row is
+ * requested. Spilled rows are decoded on every access, so keep a reference
+ * to rows that are used repeatedly.
+ * <p>
+ * The size of a row is estimated by the encoded size of a sample of the rows.
+ * Close the list to delete the temporary file, e.g. in a try-with-resources
+ * block. Reading a closed list throws an {@link IllegalStateException}.
+ *
+ * @param <T> Object the rows are mapped to
+ */
+public final class DbSpillList<T> extends AbstractList<T> implements RandomAccess, AutoCloseable {
+
+    /**
+     * Amount of first rows of which the size is always measured.
+     */
+    private static final int EXACT_SAMPLES = 16;
+
+    /**
+     * Interval of rows of which the size is measured after the first rows.
+     */
+    private static final int SAMPLE_INTERVAL = 64;
+
+    private final DbRowCodec<T> codec;
+    private final long memoryBudget;
+    private final Path directory;
+    private final int regionBytes;
+    private final RowBuffer buffer = new RowBuffer();
+    private final DataOutputStream encoder = new DataOutputStream(buffer);
+    private final ArrayList<T> rows = new ArrayList<>();
+    private long sampledBytes;
+    private int samples;
+    private SpillFile spill;
+    private volatile boolean closed;
+
+    /**
+     * Creates an empty list.
+     *
+     * @param codec        Codec encoding spilled rows
+     * @param memoryBudget Estimated amount of bytes of rows to keep in memory
+     * @param directory    Directory of the temporary file, or null for the
+     *                     default temporary-file directory
+     * @param regionBytes  Size of the regions the file is mapped in
+     */
+    DbSpillList(final DbRowCodec<T> codec, final long memoryBudget, final Path directory, final int regionBytes) {
+        this.codec = codec;
+        this.memoryBudget = memoryBudget;
+        this.directory = directory;
+        this.regionBytes = regionBytes;
+    }
+
+    /**
+     * Appends a row, keeping it in memory when it fits in the budget and
+     * spilling it to the temporary file otherwise. Once a row is spilled,
+     * all following rows are spilled too, so the order is kept.
+     *
+     * @param row Row to append
+     * @throws IOException When unable to encode or write the row
+     */
+    void append(final T row) throws IOException {
+        if (spill != null) {
+            final int length = encode(row);
+            spill.append(buffer.bytes(), length);
+            return;
+        }
+
+        final int count = rows.size();
+        if (count < EXACT_SAMPLES || count % SAMPLE_INTERVAL == 0) {
+            sampledBytes += encode(row);
+            samples++;
+            if ((double) sampledBytes / samples * (count + 1) > memoryBudget) {
+                spill = SpillFile.create(directory, regionBytes);
+                spill.append(buffer.bytes(), buffer.size());
+                return;
+            }
+        }
+
+        rows.add(row);
+    }
+
+    /**
+     * Encodes a row into the buffer.
+     *
+     * @param row Row to encode
+     * @return Size of the encoded row in bytes
+     * @throws IOException When unable to encode the row
+     */
+    private int encode(final T row) throws IOException {
+        buffer.reset();
+        codec.write(encoder, row);
+        encoder.flush();
+        return buffer.size();
+    }
+
+    /**
+     * Ends appending rows and prepares the temporary file for reading.
+     *
+     * @throws IOException When unable to write the temporary file
+     */
+    void finish() throws IOException {
+        rows.trimToSize();
+        if (spill != null) {
+            spill.finish();
+        }
+    }
+
+    /**
+     * Returns the row at the given index, reading it from the temporary file
+     * when it was spilled.
+     *
+     * @param index Index of the row
+     * @return Row
+     * @throws IllegalStateException When the list is closed
+     * @throws UncheckedIOException  When unable to read or decode the row
+     */
+    @Override
+    public T get(final int index) {
+        if (closed) {
+            throw new IllegalStateException("List is closed");
+        }
+
+        if (index < rows.size()) {
+            return rows.get(index);
+        }
+
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size());
+        }
+
+        try {
+            return codec.read(new DataInputStream(new ByteBufferInputStream(spill.row(index - rows.size()))));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return rows.size() + getSpilledRowCount();
+    }
+
+    /**
+     * Returns whether any row was spilled to disk.
+     *
+     * @return True when rows were spilled
+     */
+    public boolean isSpilled() {
+        return spill != null;
+    }
+
+    /**
+     * Returns the amount of rows spilled to disk.
+     *
+     * @return Amount of spilled rows
+     */
+    public int getSpilledRowCount() {
+        return spill == null ? 0 : spill.getRowCount();
+    }
+
+    /**
+     * Returns the size of the temporary file.
+     *
+     * @return Amount of bytes spilled to disk
+     */
+    public long getSpilledBytes() {
+        return spill == null ? 0 : spill.getLength();
+    }
+
+    /**
+     * Deletes the temporary file. The list cannot be read afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    /**
+     * Byte array output stream exposing its buffer, so encoded rows are
+     * written to the file without copying them.
+     */
+    private static final class RowBuffer extends ByteArrayOutputStream {
+
+        /**
+         * Returns the buffer holding the written bytes.
+         *
+         * @return Buffer, of which the first {@link #size()} bytes are
+         * written
+         */
+        private byte[] bytes() {
+            return buf;
+        }
+
+    }
+
+    /**
+     * Input stream reading the remaining bytes of a buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        /**
+         * Creates a stream.
+         *
+         * @param buffer Buffer to read
+         */
+        private ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            } else if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+
+import java.sql.ResultSet;
+
+/**
+ * Provides an interface used to map a {@link ResultSet} to a primitive
+ * double, without boxing it to a {@link Double}. Used by {@link DbCall} to
+ * collect a single column of doubles into a primitive array.
+ */
+public interface DoubleColumnMapper {
+
+    /**
+     * Maps the given {@link ResultSet} to a primitive double.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return double represented by the result set
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to a double
+     */
+    double mapDouble(final ResultSet rs) throws DbCallResultSetMapperException;
+
+}
@@ -0,0 +1,24 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+
+import java.sql.ResultSet;
+
+/**
+ * Provides an interface used to map a {@link ResultSet} to a primitive
+ * float, without boxing it to a {@link Float}. Used by {@link DbCall} to
+ * collect a single column of floats into a primitive array.
+ */
+public interface FloatColumnMapper {
+
+    /**
+     * Maps the given {@link ResultSet} to a primitive float.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return float represented by the result set
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to a float
+     */
+    float mapFloat(final ResultSet rs) throws DbCallResultSetMapperException;
+
+}
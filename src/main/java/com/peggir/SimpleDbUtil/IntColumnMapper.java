@@ -0,0 +1,24 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+
+import java.sql.ResultSet;
+
+/**
+ * Provides an interface used to map a {@link ResultSet} to a primitive
+ * int, without boxing it to an {@link Integer}. Used by {@link DbCall} to
+ * collect a single column of ints into a primitive array.
+ */
+public interface IntColumnMapper {
+
+    /**
+     * Maps the given {@link ResultSet} to a primitive int.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return int represented by the result set
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to an int
+     */
+    int mapInt(final ResultSet rs) throws DbCallResultSetMapperException;
+
+}
@@ -0,0 +1,419 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+import com.peggir.SimpleDbUtil.exceptions.UncheckedDbCallException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Reads a SELECT-query page by page with keyset pagination. Instead of
+ * skipping rows with {@code OFFSET}, every page seeks past the key of the
+ * last row of the previous page:
+ * {@code SELECT p.*, p.key FROM (query) p WHERE (p.key) > (?) ORDER BY p.key}
+ * limited to the page size, so with an index on the key columns every page
+ * costs the same however deep it is. The key columns must be non-null and
+ * together unique, e.g. end with the primary key.
+ * <p>
+ * The position after a page is returned as an opaque cursor: the key values
+ * of its last row, encoded with a hash of the query and key columns so a
+ * cursor of another query is rejected.
+ *
+ * @param <T> Object mapped from every row
+ */
+final class KeysetPager<T> {
+
+    private final DbCall<T> call;
+    private final DbCallResultSetMapper<T> resultSetMapper;
+    private final ParsedQuery parsedQuery;
+    private final DbCallArguments arguments;
+    private final String[] keys;
+    private final int pageSize;
+    private final String firstSql;
+    private final String nextSql;
+    private final int queryId;
+
+    /**
+     * Prepares paging through the query of the given call.
+     *
+     * @param call            Call of which the query is paged, and of which
+     *                        the page queries take their settings
+     * @param resultSetMapper Mapper of every row
+     * @param parsedQuery     Parsed SELECT-query
+     * @param arguments       Arguments of the query, or null
+     * @param dialect         Dialect limiting the page queries, or null for
+     *                        the standard {@code FETCH FIRST} clause
+     * @param pageSize        Maximum amount of rows per page
+     * @param keys            Key columns, as written in SQL
+     * @throws IllegalArgumentException When the query is no SELECT-query or
+     *                                  a key column is no plain identifier
+     */
+    KeysetPager(final DbCall<T> call,
+                final DbCallResultSetMapper<T> resultSetMapper,
+                final ParsedQuery parsedQuery,
+                final DbCallArguments arguments,
+                final DbDialect dialect,
+                final int pageSize,
+                final String[] keys) throws IllegalArgumentException {
+        if (!parsedQuery.isSelect()) {
+            throw new IllegalArgumentException("No SELECT-query set");
+        }
+
+        if (keys == null || keys.length == 0) {
+            throw new IllegalArgumentException("No key columns set");
+        }
+
+        final StringBuilder keyList = new StringBuilder();
+        final StringBuilder placeholders = new StringBuilder();
+        for (final String key : keys) {
+            if (key == null || !ParallelScan.COLUMN.matcher(key).matches()) {
+                throw new IllegalArgumentException("No valid key column set");
+            }
+
+            keyList.append(keyList.length() > 0 ? ", p." : "p.").append(key);
+            placeholders.append(placeholders.length() > 0 ? ", ?" : "?");
+        }
+
+        this.call = call;
+        this.resultSetMapper = resultSetMapper;
+        this.parsedQuery = parsedQuery;
+        this.arguments = arguments;
+        this.keys = keys.clone();
+        this.pageSize = pageSize;
+
+        final String name = "keyset:" + keyList + ":" + pageSize + ":" + (dialect != null ? dialect.getName() : "");
+        final String select = "SELECT p.*, " + keyList + " FROM (";
+        final String order = " ORDER BY " + keyList;
+        final String seek = keys.length == 1
+                ? " WHERE " + keyList + " > ?"
+                : " WHERE (" + keyList + ") > (" + placeholders + ")";
+        this.firstSql = parsedQuery.rewrite(name + ":first",
+                q -> limit(dialect, select + q.getStatement() + "\n) p" + order, pageSize));
+        this.nextSql = parsedQuery.rewrite(name + ":next",
+                q -> limit(dialect, select + q.getStatement() + "\n) p" + seek + order, pageSize));
+        this.queryId = (parsedQuery.getFingerprint() + "\n" + keyList).hashCode();
+    }
+
+    /**
+     * Limits the given query to the given amount of rows.
+     *
+     * @param dialect Dialect of the database, or null
+     * @param sql     SELECT-query to limit
+     * @param limit   Maximum amount of rows
+     * @return Limited query
+     */
+    private static String limit(final DbDialect dialect, final String sql, final int limit) {
+        return dialect != null ? dialect.limitQuery(sql, limit) : sql + "\nFETCH FIRST " + limit + " ROWS ONLY";
+    }
+
+    /**
+     * Reads the page after the given cursor.
+     *
+     * @param cursor Cursor after the previous page, or null for the first
+     *               page
+     * @return Page of at most the page size rows
+     * @throws DbCallException          Thrown when unable to query database
+     * @throws IllegalArgumentException When the cursor is not a cursor of
+     *                                  this query
+     */
+    DbPage<T> page(final String cursor) throws DbCallException {
+        final Object[] after = cursor != null ? decode(cursor) : null;
+        final KeyReader reader = new KeyReader();
+        final DbCall<T> pageCall;
+        if (after == null) {
+            pageCall = call.derive(reader, firstSql, arguments);
+        } else {
+            final int offset = parsedQuery.getParameterCount();
+            pageCall = call.derive(reader, nextSql, stmt -> {
+                if (arguments != null) {
+                    arguments.apply(stmt);
+                }
+
+                for (int i = 0; i < after.length; i++) {
+                    ParameterSetter.setValue(stmt, offset + i + 1, after[i]);
+                }
+            });
+        }
+
+        final List<T> items = pageCall.getAll();
+        return new DbPage<>(
+                items,
+                items.isEmpty() ? cursor : encode(reader.values),
+                items.size() < pageSize);
+    }
+
+    /**
+     * Returns an iterator reading the pages after the given cursor, one
+     * query per page, until a page is not full. Database errors are thrown
+     * as {@link UncheckedDbCallException}.
+     *
+     * @param cursor Cursor to start after, or null to start at the first
+     *               row
+     * @return Iterator over the non-empty pages
+     * @throws IllegalArgumentException When the cursor is not a cursor of
+     *                                  this query
+     */
+    Iterator<DbPage<T>> pages(final String cursor) {
+        if (cursor != null) {
+            decode(cursor);
+        }
+
+        return new Iterator<DbPage<T>>() {
+
+            private String position = cursor;
+            private DbPage<T> next;
+            private boolean done;
+
+            /**
+             * Returns whether there is another non-empty page, reading it
+             * when it was not read yet.
+             *
+             * @return True when there is another page
+             * @throws UncheckedDbCallException When unable to query database
+             */
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    final DbPage<T> page;
+                    try {
+                        page = page(position);
+                    } catch (final DbCallException e) {
+                        throw new UncheckedDbCallException(e);
+                    }
+
+                    position = page.getCursor();
+                    done = page.isLast();
+                    next = page.isEmpty() ? null : page;
+                    done |= next == null;
+                }
+
+                return next != null;
+            }
+
+            /**
+             * Returns the next page.
+             *
+             * @return Next non-empty page
+             * @throws UncheckedDbCallException When unable to query database
+             * @throws NoSuchElementException   When there are no more pages
+             */
+            @Override
+            public DbPage<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                final DbPage<T> page = next;
+                next = null;
+                return page;
+            }
+
+        };
+    }
+
+    /**
+     * Encodes the key values of a row into a cursor.
+     *
+     * @param values Key values of the row
+     * @return Opaque cursor
+     * @throws IllegalArgumentException When a key value has an unsupported
+     *                                  type
+     */
+    private String encode(final Object[] values) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(queryId);
+            out.writeByte(values.length);
+            for (final Object value : values) {
+                writeValue(out, value);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes the key values of a cursor.
+     *
+     * @param cursor Cursor created by this pager or an equal one
+     * @return Key values of the row the cursor points after
+     * @throws IllegalArgumentException When the cursor is not a cursor of
+     *                                  this query
+     */
+    private Object[] decode(final String cursor) {
+        try (final DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readInt() != queryId || in.readByte() != keys.length) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            final Object[] values = new Object[keys.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readValue(in);
+            }
+
+            if (in.read() != -1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            return values;
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Writes a key value with a tag identifying its type.
+     *
+     * @param out   Stream to write to
+     * @param value Key value
+     * @throws IOException              When unable to write
+     * @throws IllegalArgumentException When the value has an unsupported
+     *                                  type
+     */
+    private static void writeValue(final DataOutputStream out, final Object value) throws IOException {
+        if (value instanceof Integer) {
+            out.writeByte('I');
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte('J');
+            out.writeLong((Long) value);
+        } else if (value instanceof Short) {
+            out.writeByte('S');
+            out.writeShort((Short) value);
+        } else if (value instanceof String) {
+            out.writeByte('s');
+            out.writeUTF((String) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte('N');
+            out.writeUTF(value.toString());
+        } else if (value instanceof Double) {
+            out.writeByte('D');
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte('F');
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte('Z');
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Timestamp) {
+            out.writeByte('T');
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof java.sql.Date) {
+            out.writeByte('d');
+            out.writeLong(((java.sql.Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.writeByte('t');
+            out.writeLong(((Time) value).getTime());
+        } else if (value instanceof UUID) {
+            out.writeByte('U');
+            out.writeLong(((UUID) value).getMostSignificantBits());
+            out.writeLong(((UUID) value).getLeastSignificantBits());
+        } else {
+            throw new IllegalArgumentException("Unsupported key type " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads a key value written by {@link #writeValue(DataOutputStream, Object)}.
+     *
+     * @param in Stream to read from
+     * @return Key value
+     * @throws IOException              When unable to read
+     * @throws IllegalArgumentException When the type tag is unknown
+     */
+    private static Object readValue(final DataInputStream in) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case 'I':
+                return in.readInt();
+            case 'J':
+                return in.readLong();
+            case 'S':
+                return in.readShort();
+            case 's':
+                return in.readUTF();
+            case 'N':
+                return new BigDecimal(in.readUTF());
+            case 'D':
+                return in.readDouble();
+            case 'F':
+                return in.readFloat();
+            case 'Z':
+                return in.readBoolean();
+            case 'T':
+                final Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            case 'd':
+                return new java.sql.Date(in.readLong());
+            case 't':
+                return new Time(in.readLong());
+            case 'U':
+                return new UUID(in.readLong(), in.readLong());
+            default:
+                throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Maps every row with the mapper of the pager, and keeps the key values
+     * of the last mapped row. The key columns are the last columns of the
+     * page query.
+     */
+    private final class KeyReader implements DbCallResultSetMapper<T> {
+
+        private final Object[] values = new Object[keys.length];
+        private int firstKeyColumn;
+
+        /**
+         * Maps the current row and reads its key values.
+         *
+         * @param rs {@link ResultSet} to map from
+         * @return Mapped {@link T}
+         * @throws DbCallResultSetMapperException Thrown when unable to map
+         *                                        the row or a key column is
+         *                                        NULL
+         */
+        @Override
+        public T map(final ResultSet rs) throws DbCallResultSetMapperException {
+            final T item = resultSetMapper.map(rs);
+            try {
+                if (firstKeyColumn == 0) {
+                    firstKeyColumn = rs.getMetaData().getColumnCount() - keys.length + 1;
+                }
+
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = rs.getObject(firstKeyColumn + i);
+                    if (values[i] == null) {
+                        throw new DbCallResultSetMapperException("Key column " + keys[i] + " is NULL", null);
+                    }
+                }
+            } catch (final SQLException e) {
+                throw new DbCallResultSetMapperException(DbCallResultSetMapperException.DEFAULT_ERROR_MSG, e);
+            }
+
+            return item;
+        }
+
+    }
+
+}
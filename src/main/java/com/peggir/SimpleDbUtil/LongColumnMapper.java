@@ -0,0 +1,24 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+
+import java.sql.ResultSet;
+
+/**
+ * Provides an interface used to map a {@link ResultSet} to a primitive
+ * long, without boxing it to a {@link Long}. Used by {@link DbCall} to
+ * collect a single column of longs into a primitive array.
+ */
+public interface LongColumnMapper {
+
+    /**
+     * Maps the given {@link ResultSet} to a primitive long.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return long represented by the result set
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to a long
+     */
+    long mapLong(final ResultSet rs) throws DbCallResultSetMapperException;
+
+}
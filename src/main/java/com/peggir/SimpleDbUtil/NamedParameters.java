@@ -0,0 +1,482 @@
+package com.peggir.SimpleDbUtil;
+
+import org.intellij.lang.annotations.Language;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SQL-query with named parameters such as {@code :name}, parsed once into
+ * the query with positional placeholders and the positions of every name.
+ * A name may be used more than once. Like {@link ParsedQuery}, names inside
+ * literals, quoted identifiers and comments are ignored, and so are
+ * PostgreSQL casts such as {@code ::TIMESTAMP}. Parsed queries are immutable,
+ * thread-safe and cached by their SQL.
+ * <p>
+ * Values are bound from a {@link Map} or from the properties of a bean or
+ * record. Property accessors are resolved to method handles once per type,
+ * and every parameter is set with the setter of its property type, so
+ * binding an item does not use reflection or inspect the values.
+ */
+public final class NamedParameters {
+
+    private static final Map<String, NamedParameters> CACHE = new ConcurrentHashMap<>();
+
+    private final String sql;
+    private final String[] names;
+    private final int[][] positions;
+    private final int parameterCount;
+    private final ClassValue<BeanBinder<?>> beanBinders = new ClassValue<BeanBinder<?>>() {
+
+        /**
+         * Resolves the binder of the given type. Binders do not refer to
+         * this query, so a type keeps no evicted query reachable.
+         *
+         * @param type Bean or record type
+         * @return Binder of the type
+         */
+        @Override
+        protected BeanBinder<?> computeValue(final Class<?> type) {
+            return new BeanBinder<>(type, names, positions);
+        }
+
+    };
+
+    /**
+     * Parses the given SQL-query.
+     *
+     * @param namedSql SQL-query with named parameters
+     * @throws IllegalArgumentException When the query mixes named and
+     *                                  positional parameters
+     */
+    private NamedParameters(final String namedSql) {
+        final StringBuilder result = new StringBuilder(namedSql.length());
+        final Map<String, List<Integer>> found = new LinkedHashMap<>();
+        boolean positional = false;
+        int count = 0;
+        int i = 0;
+        while (i < namedSql.length()) {
+            final int skipped = ParsedQuery.skipNonCode(namedSql, i);
+            if (skipped != i) {
+                result.append(namedSql, i, skipped);
+                i = skipped;
+                continue;
+            }
+
+            final char c = namedSql.charAt(i);
+            if (c == ':' && i + 1 < namedSql.length() && namedSql.charAt(i + 1) == ':') {
+                result.append("::");
+                i += 2;
+                continue;
+            }
+
+            if (c == ':' && i + 1 < namedSql.length() && isNameStart(namedSql.charAt(i + 1))) {
+                int end = i + 1;
+                while (end < namedSql.length() && isNamePart(namedSql.charAt(end))) {
+                    end++;
+                }
+
+                found.computeIfAbsent(namedSql.substring(i + 1, end), name -> new ArrayList<>()).add(++count);
+                result.append('?');
+                i = end;
+                continue;
+            }
+
+            positional |= c == '?';
+            result.append(c);
+            i++;
+        }
+
+        if (positional && count > 0) {
+            throw new IllegalArgumentException("Mixed positional and named parameters");
+        }
+
+        this.sql = result.toString();
+        this.names = found.keySet().toArray(new String[0]);
+        this.positions = new int[names.length][];
+        for (int n = 0; n < names.length; n++) {
+            positions[n] = found.get(names[n]).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        this.parameterCount = count;
+    }
+
+    /**
+     * Returns the parsed form of the given SQL-query, parsing it only when
+     * it is not cached yet.
+     *
+     * @param namedSql SQL-query with named parameters
+     * @return Parsed query
+     * @throws IllegalArgumentException When the query is missing or mixes
+     *                                  named and positional parameters
+     */
+    public static NamedParameters parse(@Language("SQL") final String namedSql) {
+        if (namedSql == null || namedSql.isEmpty()) {
+            throw new IllegalArgumentException("No query set");
+        }
+
+        final NamedParameters cached = CACHE.get(namedSql);
+        if (cached != null) {
+            return cached;
+        }
+
+        final NamedParameters parsed = new NamedParameters(namedSql);
+        if (CACHE.size() >= ParsedQuery.MAX_CACHED_QUERIES) {
+            CACHE.clear();
+        }
+
+        final NamedParameters previous = CACHE.putIfAbsent(namedSql, parsed);
+        return previous != null ? previous : parsed;
+    }
+
+    /**
+     * Returns the SQL-query with every named parameter replaced by a
+     * question mark, to pass to a {@link DbCall} or {@link DbQuery}.
+     *
+     * @return SQL-query with positional parameters
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the distinct names of the parameters, in order of first use.
+     *
+     * @return Parameter names
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Returns the positions of the given parameter in the positional query,
+     * starting at 1.
+     *
+     * @param name Name of the parameter, without colon
+     * @return Positions of the parameter
+     * @throws IllegalArgumentException When the query has no such parameter
+     */
+    public int[] getPositions(final String name) {
+        return positions[indexOf(name)].clone();
+    }
+
+    /**
+     * Returns the amount of positional parameters, counting every use of a
+     * name.
+     *
+     * @return Amount of parameters
+     */
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Returns arguments binding the values of the given map by parameter
+     * name. Every parameter needs a value, which may be null.
+     *
+     * @param values Values by parameter name
+     * @return Arguments of the query
+     * @throws IllegalArgumentException When a parameter has no value
+     */
+    public DbCallArguments bind(final Map<String, ?> values) {
+        validateValues(values);
+        return stmt -> bindValues(stmt, values);
+    }
+
+    /**
+     * Returns arguments binding the properties of the given bean or record.
+     * See {@link #beanBinder(Class)}.
+     *
+     * @param item Bean or record
+     * @return Arguments of the query
+     * @throws IllegalArgumentException When a parameter has no matching
+     *                                  property
+     */
+    public DbCallArguments bindBean(final Object item) {
+        if (item == null) {
+            throw new IllegalArgumentException("No item set");
+        }
+
+        final BeanBinder<?> binder = binder(item.getClass());
+        return stmt -> binder.bind(stmt, item);
+    }
+
+    /**
+     * Returns a binder of maps holding values by parameter name, e.g. for
+     * {@link DbCall#executeBatch(Iterable, DbCallBatchArguments)}.
+     *
+     * @param <M> Type of the maps
+     * @return Binder of maps
+     */
+    public <M extends Map<String, ?>> DbCallBatchArguments<M> mapBinder() {
+        return this::bindValues;
+    }
+
+    /**
+     * Binds the values of the given map, setting every value with the
+     * setter of its class.
+     *
+     * @param stmt   {@link PreparedStatement} to inject parameters on to
+     * @param values Values by parameter name
+     * @throws SQLException When a parameter has no value or when unable to
+     *                      inject a parameter
+     */
+    private void bindValues(final PreparedStatement stmt, final Map<String, ?> values) throws SQLException {
+        for (int n = 0; n < names.length; n++) {
+            final Object value = values.get(names[n]);
+            if (value == null && !values.containsKey(names[n])) {
+                throw new SQLException("No value set for parameter :" + names[n]);
+            }
+
+            for (final int position : positions[n]) {
+                ParameterSetter.setValue(stmt, position, value);
+            }
+        }
+    }
+
+    /**
+     * Returns a binder of beans or records of the given type, e.g. for
+     * {@link DbCall#executeBatch(Iterable, DbCallBatchArguments)}. Every
+     * parameter is matched to a property by name, ignoring case and
+     * underscores (so {@code :submission_date} matches
+     * {@code submissionDate}). Properties are read through record
+     * accessors, public getters or, when there is no getter, fields. The
+     * binder is created once per type and shared.
+     *
+     * @param type Bean or record type
+     * @param <A>  Bean or record type
+     * @return Binder of the type
+     * @throws IllegalArgumentException When a parameter has no matching
+     *                                  property
+     */
+    @SuppressWarnings("unchecked")
+    public <A> DbCallBatchArguments<A> beanBinder(final Class<A> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("No type set");
+        }
+
+        return (DbCallBatchArguments<A>) binder(type);
+    }
+
+    /**
+     * Returns the shared binder of the given type. Binders are kept with the
+     * type, so they do not keep the class loader of the type reachable.
+     *
+     * @param type Bean or record type
+     * @return Binder of the type
+     */
+    private BeanBinder<?> binder(final Class<?> type) {
+        return beanBinders.get(type);
+    }
+
+    /**
+     * Validates whether the given map has a value for every parameter.
+     *
+     * @param values Values by parameter name
+     * @throws IllegalArgumentException When a parameter has no value
+     */
+    private void validateValues(final Map<String, ?> values) throws IllegalArgumentException {
+        if (values == null) {
+            throw new IllegalArgumentException("No values set");
+        }
+
+        for (final String name : names) {
+            if (!values.containsKey(name)) {
+                throw new IllegalArgumentException("No value set for parameter :" + name);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the given parameter name.
+     *
+     * @param name Name of the parameter
+     * @return Index of the name
+     * @throws IllegalArgumentException When the query has no such parameter
+     */
+    private int indexOf(final String name) {
+        for (int n = 0; n < names.length; n++) {
+            if (names[n].equals(name)) {
+                return n;
+            }
+        }
+
+        throw new IllegalArgumentException("No parameter :" + name);
+    }
+
+    /**
+     * Returns whether a parameter name can start with the given character.
+     *
+     * @param c Character to check
+     * @return True for a letter or underscore
+     */
+    private static boolean isNameStart(final char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    /**
+     * Returns whether a parameter name can contain the given character.
+     *
+     * @param c Character to check
+     * @return True for a letter, digit or underscore
+     */
+    private static boolean isNamePart(final char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Normalizes a parameter or property name for matching: lower case
+     * without underscores.
+     *
+     * @param name Name to normalize
+     * @return Normalized name
+     */
+    private static String normalize(final String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Binds the properties of a bean or record type to the parameters of
+     * the query, through an accessor and a setter per parameter resolved
+     * once.
+     *
+     * @param <A> Bean or record type
+     */
+    private static final class BeanBinder<A> implements DbCallBatchArguments<A> {
+
+        private final String[] names;
+        private final int[][] positions;
+        private final MethodHandle[] accessors;
+        private final ParameterSetter[] setters;
+
+        /**
+         * Resolves the property of every parameter.
+         *
+         * @param type      Bean or record type
+         * @param names     Names of the parameters of the query
+         * @param positions Positions of every parameter in the query
+         * @throws IllegalArgumentException When a parameter has no matching
+         *                                  property
+         */
+        private BeanBinder(final Class<A> type, final String[] names, final int[][] positions) {
+            this.names = names;
+            this.positions = positions;
+            final Map<String, MethodHandle> properties;
+            try {
+                properties = findReadableProperties(type, MethodHandles.lookup());
+            } catch (final IllegalAccessException | RuntimeException e) {
+                throw new IllegalArgumentException("Unable to bind parameters from " + type.getName(), e);
+            }
+
+            accessors = new MethodHandle[names.length];
+            setters = new ParameterSetter[names.length];
+            for (int n = 0; n < names.length; n++) {
+                final MethodHandle accessor = properties.get(normalize(names[n]));
+                if (accessor == null) {
+                    throw new IllegalArgumentException(
+                            "No property of " + type.getName() + " set for parameter :" + names[n]);
+                }
+
+                accessors[n] = accessor.asType(MethodType.methodType(Object.class, Object.class));
+                setters[n] = ParameterSetter.of(accessor.type().returnType());
+            }
+        }
+
+        /**
+         * Binds the properties of the given item.
+         *
+         * @param stmt {@link PreparedStatement} to inject parameters on to
+         * @param item Item of which the values are injected
+         * @throws SQLException When unable to read a property or inject a
+         *                      parameter
+         */
+        @Override
+        public void apply(final PreparedStatement stmt, final A item) throws SQLException {
+            bind(stmt, item);
+        }
+
+        /**
+         * Binds the properties of the given item, which must be of the type
+         * of this binder.
+         *
+         * @param stmt {@link PreparedStatement} to inject parameters on to
+         * @param item Item of which the values are injected
+         * @throws SQLException When unable to read a property or inject a
+         *                      parameter
+         */
+        private void bind(final PreparedStatement stmt, final Object item) throws SQLException {
+            for (int n = 0; n < accessors.length; n++) {
+                final Object value;
+                try {
+                    value = accessors[n].invokeExact(item);
+                } catch (final Throwable e) {
+                    if (e instanceof Error) {
+                        throw (Error) e;
+                    }
+
+                    throw new SQLException("Unable to read parameter :" + names[n], e);
+                }
+
+                for (final int position : positions[n]) {
+                    setters[n].set(stmt, position, value);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Finds the readable properties of a bean or record: public getters
+     * and, for the remaining names, instance fields, which include the
+     * components of a record.
+     *
+     * @param type   Bean or record type
+     * @param lookup Lookup used to create method handles
+     * @return Accessor handles by normalized property name
+     * @throws IllegalAccessException When unable to access a getter or field
+     */
+    private static Map<String, MethodHandle> findReadableProperties(final Class<?> type,
+                                                                    final MethodHandles.Lookup lookup)
+            throws IllegalAccessException {
+        final Map<String, MethodHandle> result = new HashMap<>();
+        for (final Method method : type.getMethods()) {
+            final String name = method.getName();
+            if (method.getParameterCount() == 0
+                    && !Modifier.isStatic(method.getModifiers())
+                    && method.getDeclaringClass() != Object.class
+                    && (name.length() > 3 && name.startsWith("get")
+                    || name.length() > 2 && name.startsWith("is") && method.getReturnType() == boolean.class)) {
+                method.setAccessible(true);
+                result.put(normalize(name.substring(name.startsWith("is") ? 2 : 3)), lookup.unreflect(method));
+            }
+        }
+
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (final Field field : c.getDeclaredFields()) {
+                final String name = normalize(field.getName());
+                if (!result.containsKey(name) && !Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    result.put(name, lookup.unreflectGetter(field));
+                }
+            }
+        }
+
+        return result;
+    }
+
+}
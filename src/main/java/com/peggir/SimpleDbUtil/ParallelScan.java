@@ -0,0 +1,437 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+import com.peggir.SimpleDbUtil.exceptions.UncheckedDbCallException;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Splits a SELECT-query into ranges of an integer partition column and
+ * queries the ranges concurrently, each on its own pooled connection. Every
+ * range is queried as
+ * {@code SELECT * FROM (query) p WHERE p.column >= ? AND p.column <= ?}, with
+ * the first and last range open-ended, plus a final query for the rows in
+ * which the column is NULL, so every row is returned exactly once whatever
+ * the bounds used for splitting.
+ * <p>
+ * The thread waiting for the results queries ranges itself instead of only
+ * waiting for the executor: range queries that did not start on the executor
+ * yet are run by the waiting thread, so a scan completes even when it is
+ * started from a thread of its own executor while every thread is busy.
+ *
+ * @param <T> Object mapped from every row
+ */
+final class ParallelScan<T> {
+
+    /**
+     * Plain or quoted identifier of a column, safe to insert into SQL.
+     */
+    static final Pattern COLUMN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*|\"[^\"]+\"");
+
+    private final DbCall<T> call;
+    private final DbCallResultSetMapper<T> resultSetMapper;
+    private final ParsedQuery parsedQuery;
+    private final DbCallArguments arguments;
+    private final String column;
+    private final Executor executor;
+    private final int maxParallelism;
+    private final boolean ordered;
+    private DbDeadline deadline;
+
+    /**
+     * Prepares a parallel scan.
+     *
+     * @param call            Call of which the query is scanned, and of which
+     *                        the range queries take the connection settings,
+     *                        such as the fetch size, dialect and limiter
+     * @param resultSetMapper Thread-safe mapper of every row
+     * @param parsedQuery     Parsed SELECT-query
+     * @param arguments       Arguments of the query, or null
+     * @param column          Integer partition column, as written in SQL
+     * @param executor        Executor running the range queries
+     * @param maxParallelism  Maximum amount of concurrent range queries
+     * @param ordered         Whether every range is ordered by the partition
+     *                        column
+     * @throws IllegalArgumentException When the query is no SELECT-query or
+     *                                  the column is no plain identifier
+     */
+    ParallelScan(final DbCall<T> call,
+                 final DbCallResultSetMapper<T> resultSetMapper,
+                 final ParsedQuery parsedQuery,
+                 final DbCallArguments arguments,
+                 final String column,
+                 final Executor executor,
+                 final int maxParallelism,
+                 final boolean ordered) throws IllegalArgumentException {
+        if (!parsedQuery.isSelect()) {
+            throw new IllegalArgumentException("No SELECT-query set");
+        }
+
+        if (column == null || !COLUMN.matcher(column).matches()) {
+            throw new IllegalArgumentException("No valid partition column set");
+        }
+
+        this.call = call;
+        this.resultSetMapper = resultSetMapper;
+        this.parsedQuery = parsedQuery;
+        this.arguments = arguments;
+        this.column = column;
+        this.executor = executor;
+        this.maxParallelism = maxParallelism;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Sets the deadline of the scan, shared by every range query.
+     *
+     * @param deadline Deadline, or null for none
+     */
+    void setDeadline(final DbDeadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Queries the lowest and highest value of the partition column.
+     *
+     * @return Lowest and highest value, or empty when the query has no rows
+     * with a value
+     * @throws DbCallException Thrown when unable to query database
+     */
+    Optional<long[]> sampleRange() throws DbCallException {
+        final String sql = parsedQuery.rewrite(
+                "parallel:" + column + ":range",
+                q -> "SELECT MIN(p." + column + "), MAX(p." + column + ") FROM (" + q.getStatement() + "\n) p");
+        final DbCall<long[]> sample = call.derive(rs -> {
+            try {
+                final long min = rs.getLong(1);
+                return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+            } catch (final SQLException e) {
+                throw new DbCallResultSetMapperException(DbCallResultSetMapperException.DEFAULT_ERROR_MSG, e);
+            }
+        }, sql, arguments);
+        sample.setDeadline(deadline);
+        return sample.getOne();
+    }
+
+    /**
+     * Splits the given range into at most the given amount of ranges of
+     * about equal size. The first range starts at {@link Long#MIN_VALUE} and
+     * the last ends at {@link Long#MAX_VALUE}, so values outside the given
+     * range are included.
+     *
+     * @param min        Lowest expected value
+     * @param max        Highest expected value
+     * @param partitions Maximum amount of ranges
+     * @return Inclusive lower and upper bound of every range
+     */
+    static long[][] split(final long min, final long max, final int partitions) {
+        final long span = max - min;
+        int count = partitions;
+        if (Long.compareUnsigned(span, count - 1L) < 0) {
+            count = (int) span + 1;
+        }
+
+        final long step = Long.divideUnsigned(span, count) + 1;
+        final List<long[]> ranges = new ArrayList<>(count);
+        long offset = 0;
+        while (ranges.size() < count && Long.compareUnsigned(offset, span) <= 0) {
+            ranges.add(new long[]{min + offset, min + offset + step - 1});
+            offset += step;
+        }
+
+        final long[][] result = ranges.toArray(new long[0][]);
+        result[0][0] = Long.MIN_VALUE;
+        result[result.length - 1][1] = Long.MAX_VALUE;
+        return result;
+    }
+
+    /**
+     * Queries every range, at most the maximum parallelism at a time, and
+     * returns the mapped rows in the order of the ranges, followed by the
+     * rows with a NULL partition column. The calling thread is one of the
+     * workers querying the ranges.
+     *
+     * @param ranges Bounds of the ranges
+     * @return Mapped rows of every range
+     * @throws DbCallException Thrown when unable to query a range
+     */
+    List<T> getAll(final long[][] ranges) throws DbCallException {
+        final int tasks = ranges.length + 1;
+        final List<List<T>> results = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            results.add(null);
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final Task<Void> worker = () -> {
+            int i;
+            while (!failed.get() && (i = next.getAndIncrement()) < tasks) {
+                try {
+                    final List<T> result = partition(ranges, i).getAll();
+                    synchronized (results) {
+                        results.set(i, result);
+                    }
+                } catch (final DbCallException | RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }
+
+            return null;
+        };
+
+        final List<Fork<Void>> workers = new ArrayList<>();
+        for (int w = 1; w < Math.min(maxParallelism, tasks); w++) {
+            workers.add(submit(worker));
+        }
+
+        try {
+            worker.call();
+        } finally {
+            for (final Fork<Void> fork : workers) {
+                fork.cancel();
+            }
+        }
+
+        for (final Fork<Void> fork : workers) {
+            fork.join();
+        }
+
+        final List<T> merged = new ArrayList<>();
+        synchronized (results) {
+            for (final List<T> result : results) {
+                merged.addAll(result);
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * Returns a lazy stream of the mapped rows of every range, in the order
+     * of the ranges, followed by the rows with a NULL partition column. At
+     * most the maximum parallelism of ranges is queried ahead of the range
+     * being consumed, and a range is released once it is consumed, so memory
+     * usage is bounded by the size of that many ranges. A range that did not
+     * start on the executor by the time it is consumed is queried by the
+     * consuming thread.
+     *
+     * @param ranges Bounds of the ranges
+     * @return Stream of mapped rows
+     */
+    Stream<T> stream(final long[][] ranges) {
+        final int tasks = ranges.length + 1;
+        final List<Fork<List<T>>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            futures.add(i < maxParallelism ? start(ranges, i) : null);
+        }
+
+        return IntStream.range(0, tasks)
+                .mapToObj(i -> {
+                    final Fork<List<T>> future = futures.get(i);
+                    if (i + maxParallelism < tasks) {
+                        futures.set(i + maxParallelism, start(ranges, i + maxParallelism));
+                    }
+
+                    try {
+                        final List<T> result = future.join();
+                        futures.set(i, null);
+                        return result;
+                    } catch (final DbCallException e) {
+                        throw new UncheckedDbCallException(e);
+                    }
+                })
+                .flatMap(List::stream)
+                .onClose(() -> futures.forEach(future -> {
+                    if (future != null) {
+                        future.cancel();
+                    }
+                }));
+    }
+
+    /**
+     * Starts querying a range.
+     *
+     * @param ranges Bounds of the ranges
+     * @param i      Index of the range, or the amount of ranges for the
+     *               NULL rows
+     * @return Fork of the mapped rows
+     */
+    private Fork<List<T>> start(final long[][] ranges, final int i) {
+        return submit(() -> partition(ranges, i).getAll());
+    }
+
+    /**
+     * Creates the call querying a range, with the connection settings of the
+     * scanned call.
+     *
+     * @param ranges Bounds of the ranges
+     * @param i      Index of the range, or the amount of ranges for the
+     *               NULL rows
+     * @return Call of the range
+     */
+    private DbCall<T> partition(final long[][] ranges, final int i) {
+        final DbCall<T> range;
+        if (i == ranges.length) {
+            final String sql = parsedQuery.rewrite(
+                    "parallel:" + column + ":null",
+                    q -> "SELECT * FROM (" + q.getStatement() + "\n) p WHERE p." + column + " IS NULL");
+            range = call.derive(resultSetMapper, sql, arguments);
+        } else {
+            final String sql = parsedQuery.rewrite(
+                    "parallel:" + column + (ordered ? ":ordered" : ":unordered"),
+                    q -> "SELECT * FROM (" + q.getStatement() + "\n) p WHERE p." + column + " >= ? AND p."
+                            + column + " <= ?" + (ordered ? " ORDER BY p." + column : ""));
+            final int offset = parsedQuery.getParameterCount();
+            final long[] bounds = ranges[i];
+            range = call.derive(resultSetMapper, sql, stmt -> {
+                if (arguments != null) {
+                    arguments.apply(stmt);
+                }
+
+                stmt.setLong(offset + 1, bounds[0]);
+                stmt.setLong(offset + 2, bounds[1]);
+            });
+        }
+
+        range.setDeadline(deadline);
+        return range;
+    }
+
+    /**
+     * Submits the given task to the executor. When the executor rejects it,
+     * the task is run by the thread joining it.
+     *
+     * @param task Task to run
+     * @param <R>  Result of the task
+     * @return Fork of the task
+     */
+    private <R> Fork<R> submit(final Task<R> task) {
+        final Fork<R> fork = new Fork<>(task);
+        try {
+            executor.execute(fork);
+        } catch (final RejectedExecutionException e) {
+            // Run by the joining thread
+        }
+
+        return fork;
+    }
+
+    /**
+     * Waits for a future and rethrows its failure.
+     *
+     * @param future Future to wait for
+     * @param <R>    Result of the future
+     * @return Result of the future
+     * @throws DbCallException Thrown when the task failed to query database
+     */
+    private static <R> R join(final CompletableFuture<R> future) throws DbCallException {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof DbCallException) {
+                throw (DbCallException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Task submitted to the executor, which runs on whichever thread gets to
+     * it first: a thread of the executor, or the thread joining it.
+     *
+     * @param <R> Result of the task
+     */
+    private static final class Fork<R> implements Runnable {
+
+        private final Task<R> task;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        /**
+         * Creates a fork.
+         *
+         * @param task Task to run
+         */
+        private Fork(final Task<R> task) {
+            this.task = task;
+        }
+
+        /**
+         * Runs the task, unless it started already. Any exception thrown by
+         * the task completes the fork exceptionally.
+         */
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                future.complete(task.call());
+            } catch (final Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Runs the task on the current thread when it did not start yet, and
+         * otherwise waits for it.
+         *
+         * @return Result of the task
+         * @throws DbCallException Thrown when the task failed to query
+         *                         database
+         */
+        private R join() throws DbCallException {
+            run();
+            return ParallelScan.join(future);
+        }
+
+        /**
+         * Prevents the task from running when it did not start yet. A task
+         * that started runs to completion.
+         */
+        private void cancel() {
+            if (started.compareAndSet(false, true)) {
+                future.complete(null);
+            }
+        }
+
+    }
+
+    /**
+     * Task querying the database.
+     *
+     * @param <R> Result of the task
+     */
+    @FunctionalInterface
+    private interface Task<R> {
+
+        /**
+         * Runs the task.
+         *
+         * @return Result of the task
+         * @throws DbCallException When unable to query database
+         */
+        R call() throws DbCallException;
+
+    }
+
+}
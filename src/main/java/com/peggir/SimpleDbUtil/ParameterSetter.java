@@ -0,0 +1,123 @@
+package com.peggir.SimpleDbUtil;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+
+/**
+ * Sets a single parameter of a {@link PreparedStatement} to a value of the
+ * type it is resolved for, using the type-specific setter of the statement.
+ * Null values are set with {@link PreparedStatement#setNull(int, int)} and
+ * the SQL type matching the value type.
+ */
+@FunctionalInterface
+interface ParameterSetter {
+
+    /**
+     * Setters of values by their class, resolved once per class.
+     */
+    ClassValue<ParameterSetter> BY_VALUE_CLASS = new ClassValue<ParameterSetter>() {
+        @Override
+        protected ParameterSetter computeValue(final Class<?> type) {
+            return type == Object.class ? PreparedStatement::setObject : of(type);
+        }
+    };
+
+    /**
+     * Sets the given parameter.
+     *
+     * @param stmt  Statement to set the parameter on
+     * @param index Index of the parameter, starting at 1
+     * @param value Value of the parameter, or null
+     * @throws SQLException When unable to set the parameter
+     */
+    void set(PreparedStatement stmt, int index, Object value) throws SQLException;
+
+    /**
+     * Returns the setter for values of the given type, e.g. the type of a
+     * property.
+     *
+     * @param type Type of the values
+     * @return Setter for the type
+     */
+    static ParameterSetter of(final Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return nullable(Types.INTEGER, (stmt, index, value) -> stmt.setInt(index, (Integer) value));
+        } else if (type == long.class || type == Long.class) {
+            return nullable(Types.BIGINT, (stmt, index, value) -> stmt.setLong(index, (Long) value));
+        } else if (type == double.class || type == Double.class) {
+            return nullable(Types.DOUBLE, (stmt, index, value) -> stmt.setDouble(index, (Double) value));
+        } else if (type == float.class || type == Float.class) {
+            return nullable(Types.REAL, (stmt, index, value) -> stmt.setFloat(index, (Float) value));
+        } else if (type == boolean.class || type == Boolean.class) {
+            return nullable(Types.BOOLEAN, (stmt, index, value) -> stmt.setBoolean(index, (Boolean) value));
+        } else if (type == short.class || type == Short.class) {
+            return nullable(Types.SMALLINT, (stmt, index, value) -> stmt.setShort(index, (Short) value));
+        } else if (type == byte.class || type == Byte.class) {
+            return nullable(Types.TINYINT, (stmt, index, value) -> stmt.setByte(index, (Byte) value));
+        } else if (type == char.class || type == Character.class) {
+            return nullable(Types.CHAR, (stmt, index, value) -> stmt.setString(index, value.toString()));
+        } else if (type == String.class) {
+            return nullable(Types.VARCHAR, (stmt, index, value) -> stmt.setString(index, (String) value));
+        } else if (type == BigDecimal.class) {
+            return nullable(Types.NUMERIC, (stmt, index, value) -> stmt.setBigDecimal(index, (BigDecimal) value));
+        } else if (type == byte[].class) {
+            return nullable(Types.VARBINARY, (stmt, index, value) -> stmt.setBytes(index, (byte[]) value));
+        } else if (type == java.sql.Date.class) {
+            return nullable(Types.DATE, (stmt, index, value) -> stmt.setDate(index, (java.sql.Date) value));
+        } else if (type == Time.class) {
+            return nullable(Types.TIME, (stmt, index, value) -> stmt.setTime(index, (Time) value));
+        } else if (type == Timestamp.class) {
+            return nullable(Types.TIMESTAMP, (stmt, index, value) -> stmt.setTimestamp(index, (Timestamp) value));
+        } else if (Date.class.isAssignableFrom(type)) {
+            return nullable(Types.TIMESTAMP, (stmt, index, value) ->
+                    stmt.setTimestamp(index, new Timestamp(((Date) value).getTime())));
+        } else if (Enum.class.isAssignableFrom(type)) {
+            return nullable(Types.VARCHAR, (stmt, index, value) -> stmt.setString(index, ((Enum<?>) value).name()));
+        } else if (type == Object.class) {
+            return ParameterSetter::setValue;
+        }
+
+        return PreparedStatement::setObject;
+    }
+
+    /**
+     * Sets a parameter of which the type is only known by its value, such as
+     * a value of a map, with the setter of the value's class.
+     *
+     * @param stmt  Statement to set the parameter on
+     * @param index Index of the parameter, starting at 1
+     * @param value Value of the parameter, or null
+     * @throws SQLException When unable to set the parameter
+     */
+    static void setValue(final PreparedStatement stmt, final int index, final Object value) throws SQLException {
+        if (value == null) {
+            stmt.setNull(index, Types.NULL);
+        } else {
+            BY_VALUE_CLASS.get(value.getClass()).set(stmt, index, value);
+        }
+    }
+
+    /**
+     * Wraps a setter of non-null values so null is set as SQL NULL of the
+     * given type.
+     *
+     * @param sqlType SQL type from {@link Types}
+     * @param setter  Setter of non-null values
+     * @return Setter accepting null
+     */
+    static ParameterSetter nullable(final int sqlType, final ParameterSetter setter) {
+        return (stmt, index, value) -> {
+            if (value == null) {
+                stmt.setNull(index, sqlType);
+            } else {
+                setter.set(stmt, index, value);
+            }
+        };
+    }
+
+}
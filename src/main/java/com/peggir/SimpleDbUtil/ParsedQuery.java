@@ -0,0 +1,664 @@
+package com.peggir.SimpleDbUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Result of analysing an SQL-query once. Placeholders are counted by scanning
+ * the query, skipping string literals, quoted identifiers, dollar-quoted
+ * strings and comments, so question marks inside those are not mistaken for
+ * parameters. The scan also determines whether the query is a single SELECT
+ * that can safely be rewritten by a {@link DbDialect}, and which tables the
+ * query reads from or writes to, and a fingerprint identifying queries that
+ * only differ in literals and formatting. Parsed queries are
+ * immutable (apart from the cache of their rewrites) and cached by their SQL.
+ */
+final class ParsedQuery {
+
+    /**
+     * Maximum amount of parsed queries kept in the cache. Protects against
+     * unbounded growth when queries are built dynamically.
+     */
+    static final int MAX_CACHED_QUERIES = 10_000;
+
+    private static final Map<String, ParsedQuery> CACHE = new ConcurrentHashMap<>();
+
+    private static final Set<String> TABLE_KEYWORDS = new HashSet<>(
+            Arrays.asList("FROM", "JOIN", "INTO", "UPDATE", "TABLE", "TRUNCATE"));
+
+    private static final Set<String> TABLE_MODIFIERS = new HashSet<>(
+            Arrays.asList("ONLY", "TABLE", "IF", "NOT", "EXISTS"));
+
+    private static final Set<String> CLAUSE_KEYWORDS = new HashSet<>(Arrays.asList(
+            "SELECT", "WHERE", "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH", "FOR", "UNION", "EXCEPT",
+            "INTERSECT", "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "CROSS", "NATURAL", "ON", "USING", "SET",
+            "VALUES", "DEFAULT", "RETURNING", "WINDOW", "LATERAL", "ONLY", "IF", "EXISTS", "NOT"));
+
+    private static final String OPERATOR_CHARS = "<>=!|&+-*/%^~:";
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?:, \\?)+");
+
+    private final String sql;
+    private final int parameterCount;
+    private final String statement;
+    private final boolean select;
+    private final boolean limited;
+    private final boolean readOnly;
+    private final Set<String> tables;
+    private final boolean tablesKnown;
+    private final String fingerprint;
+    private final Map<String, String> rewrites = new ConcurrentHashMap<>();
+
+    private ParsedQuery(final String sql) {
+        this.sql = sql;
+
+        int count = 0;
+        int depth = 0;
+        int end = 0;
+        boolean multipleStatements = false;
+        final Set<String> topLevelWords = new HashSet<>();
+        String firstWord = null;
+        int i = 0;
+        while (i < sql.length()) {
+            final int skipped = skipNonCode(sql, i);
+            if (skipped != i) {
+                if (sql.charAt(i) != '-' && sql.charAt(i) != '/') {
+                    end = skipped;
+                }
+
+                i = skipped;
+                continue;
+            }
+
+            final char c = sql.charAt(i);
+            if (Character.isLetter(c) || c == '_') {
+                final int start = i;
+                while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                    i++;
+                }
+
+                final String word = sql.substring(start, i).toUpperCase(Locale.ROOT);
+                if (firstWord == null) {
+                    firstWord = word;
+                }
+
+                if (depth == 0) {
+                    topLevelWords.add(word);
+                }
+
+                end = i;
+                continue;
+            }
+
+            if (c == '?') {
+                count++;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ';' && depth == 0) {
+                multipleStatements |= hasCode(sql, i + 1);
+            }
+
+            if (!Character.isWhitespace(c) && c != ';') {
+                end = i + 1;
+            }
+
+            i++;
+        }
+
+        this.parameterCount = count;
+        this.statement = sql.substring(0, end);
+        this.select = "SELECT".equals(firstWord) && !multipleStatements && !topLevelWords.contains("INTO");
+        this.limited = topLevelWords.contains("LIMIT")
+                || topLevelWords.contains("FETCH")
+                || topLevelWords.contains("OFFSET")
+                || topLevelWords.contains("FOR")
+                || topLevelWords.contains("TOP");
+        this.readOnly = select && !topLevelWords.contains("FOR");
+        final Set<String> foundTables = findTables(sql);
+        this.tables = foundTables != null ? foundTables : Collections.emptySet();
+        this.tablesKnown = foundTables != null && (select || !foundTables.isEmpty());
+        this.fingerprint = fingerprint(sql);
+    }
+
+    /**
+     * Returns the analysis of the given SQL-query, parsing it only when it
+     * is not cached yet.
+     *
+     * @param sql SQL-query to analyse
+     * @return Analysis of the query
+     */
+    static ParsedQuery of(final String sql) {
+        final ParsedQuery cached = CACHE.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+
+        final ParsedQuery parsed = new ParsedQuery(sql);
+        if (CACHE.size() >= MAX_CACHED_QUERIES) {
+            CACHE.clear();
+        }
+
+        final ParsedQuery previous = CACHE.putIfAbsent(sql, parsed);
+        return previous != null ? previous : parsed;
+    }
+
+    /**
+     * Returns the SQL-query that was analysed.
+     *
+     * @return SQL-query
+     */
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the amount of positional parameters in the query.
+     *
+     * @return Amount of question mark placeholders
+     */
+    int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Returns whether the query has any positional parameters.
+     *
+     * @return True when the query has at least one placeholder
+     */
+    boolean hasParameters() {
+        return parameterCount > 0;
+    }
+
+    /**
+     * Returns whether the query is a single SELECT-statement, which can be
+     * wrapped by {@link DbDialect#existsQuery(String)}.
+     *
+     * @return True when the query is a single SELECT-statement
+     */
+    boolean isSelect() {
+        return select;
+    }
+
+    /**
+     * Returns whether the query is a single SELECT-statement without a
+     * locking clause, which a read replica can answer.
+     *
+     * @return True when the query only reads
+     */
+    boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Returns whether a row limit can safely be appended to the query with
+     * {@link DbDialect#limitQuery(String, int)}: the query is a single
+     * SELECT-statement that has no LIMIT, FETCH, OFFSET, TOP or locking
+     * clause of its own.
+     *
+     * @return True when a row limit can be appended
+     */
+    boolean isLimitable() {
+        return select && !limited;
+    }
+
+    /**
+     * Returns the query without trailing semicolons, whitespace and
+     * comments, so clauses can be appended to it.
+     *
+     * @return Query without its terminator
+     */
+    String getStatement() {
+        return statement;
+    }
+
+    /**
+     * Returns the names of the tables that follow FROM, JOIN, INTO, UPDATE,
+     * TABLE or TRUNCATE anywhere in the query, in lower case and without
+     * quotes or schema. Only complete when {@link #hasKnownTables()}.
+     *
+     * @return Names of the tables used by the query
+     */
+    Set<String> getTables() {
+        return tables;
+    }
+
+    /**
+     * Returns whether {@link #getTables()} holds every table the query uses.
+     * It does not for statements other than SELECT in which no table was
+     * found, e.g. calls of procedures, and for queries with a backslash in a
+     * string literal, which may be an escaped quote on MySQL.
+     *
+     * @return True when the tables of the query are known
+     */
+    boolean hasKnownTables() {
+        return tablesKnown;
+    }
+
+    /**
+     * Returns the fingerprint of the query: the query with literals replaced
+     * by placeholders, lists of placeholders collapsed, unquoted words in
+     * upper case and comments and formatting normalized. Queries that only
+     * differ in those respects have the same fingerprint.
+     *
+     * @return Fingerprint of the query
+     */
+    String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns a rewrite of this query, computing it only the first time it
+     * is requested for the given key.
+     *
+     * @param key     Identifies the rewrite, e.g. the dialect and operation
+     * @param rewrite Creates the rewritten query from this query
+     * @return Rewritten query
+     */
+    String rewrite(final String key, final Function<ParsedQuery, String> rewrite) {
+        return rewrites.computeIfAbsent(key, k -> rewrite.apply(this));
+    }
+
+    /**
+     * Computes the fingerprint of the given query.
+     *
+     * @param sql SQL-query to fingerprint
+     * @return Fingerprint of the query
+     */
+    private static String fingerprint(final String sql) {
+        final StringBuilder result = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            final int skipped = skipNonCode(sql, i);
+            if (skipped != i) {
+                if (c == '"' || c == '`') {
+                    appendToken(result, sql.substring(i, skipped));
+                } else if (c == '\'' || c == '$') {
+                    appendToken(result, "?");
+                }
+
+                i = skipped;
+            } else if (Character.isLetter(c) || c == '_') {
+                final int start = i;
+                while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                    i++;
+                }
+
+                appendToken(result, sql.substring(start, i).toUpperCase(Locale.ROOT));
+            } else if (Character.isDigit(c)) {
+                while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+
+                appendToken(result, "?");
+            } else if (OPERATOR_CHARS.indexOf(c) >= 0) {
+                final int start = i;
+                while (i < sql.length() && OPERATOR_CHARS.indexOf(sql.charAt(i)) >= 0 && skipNonCode(sql, i) == i) {
+                    i++;
+                }
+
+                appendToken(result, sql.substring(start, i));
+            } else {
+                if (!Character.isWhitespace(c) && c != ';') {
+                    appendToken(result, String.valueOf(c));
+                }
+
+                i++;
+            }
+        }
+
+        return PLACEHOLDER_LIST.matcher(result).replaceAll("?+");
+    }
+
+    /**
+     * Appends a token to a fingerprint, separated by a single space except
+     * after an opening parenthesis or dot and before a closing parenthesis,
+     * comma or dot.
+     *
+     * @param fingerprint Fingerprint so far
+     * @param token       Token to append
+     */
+    private static void appendToken(final StringBuilder fingerprint, final String token) {
+        final int length = fingerprint.length();
+        if (length > 0) {
+            final char last = fingerprint.charAt(length - 1);
+            final char first = token.charAt(0);
+            if (last != '(' && last != '.' && first != ')' && first != ',' && first != '.') {
+                fingerprint.append(' ');
+            }
+        }
+
+        fingerprint.append(token);
+    }
+
+    /**
+     * Finds the names of the tables used by the given query.
+     *
+     * @param sql SQL-query to scan
+     * @return Names of the tables, in lower case and without quotes, or null
+     * when the query cannot be split into tokens reliably
+     */
+    private static Set<String> findTables(final String sql) {
+        final List<String> tokens = tokenize(sql);
+        if (tokens == null) {
+            return null;
+        }
+
+        final Set<String> result = new HashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            final String keyword = tokens.get(i).toUpperCase(Locale.ROOT);
+            if (!TABLE_KEYWORDS.contains(keyword)) {
+                continue;
+            }
+
+            int j = i + 1;
+            while (TABLE_MODIFIERS.contains(token(tokens, j).toUpperCase(Locale.ROOT))) {
+                j++;
+            }
+
+            while (j < tokens.size() && isIdentifier(tokens.get(j))) {
+                j = readTableName(tokens, j, result);
+                if ("AS".equalsIgnoreCase(token(tokens, j))) {
+                    j++;
+                }
+
+                if (isIdentifier(token(tokens, j)) && !CLAUSE_KEYWORDS.contains(token(tokens, j).toUpperCase(Locale.ROOT))) {
+                    j++;
+                }
+
+                if (!("FROM".equals(keyword) || "TRUNCATE".equals(keyword)) || !",".equals(token(tokens, j))) {
+                    break;
+                }
+
+                j++;
+            }
+        }
+
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Reads a possibly schema-qualified table name and adds its last part to
+     * the result.
+     *
+     * @param tokens Tokens of the query
+     * @param start  Index of the first part of the name
+     * @param result Names found so far
+     * @return Index of the first token after the name
+     */
+    private static int readTableName(final List<String> tokens, final int start, final Set<String> result) {
+        int i = start;
+        String name = tokens.get(i++);
+        while (".".equals(token(tokens, i)) && isIdentifier(token(tokens, i + 1))) {
+            name = tokens.get(i + 1);
+            i += 2;
+        }
+
+        if (!CLAUSE_KEYWORDS.contains(name.toUpperCase(Locale.ROOT))) {
+            result.add(unquote(name).toLowerCase(Locale.ROOT));
+        }
+
+        return i;
+    }
+
+    /**
+     * Splits the query into words, quoted identifiers and single punctuation
+     * characters, leaving out whitespace, comments and literals. A backslash
+     * in a string literal may escape its closing quote, as on MySQL, or be a
+     * plain character, as in standard SQL, so the tokens after it cannot be
+     * told apart reliably.
+     *
+     * @param sql SQL-query to split
+     * @return Tokens of the query, or null when a string literal contains a
+     * backslash
+     */
+    private static List<String> tokenize(final String sql) {
+        final List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            final int skipped = skipNonCode(sql, i);
+            if (skipped != i) {
+                if (c == '"' || c == '`') {
+                    tokens.add(sql.substring(i, skipped));
+                } else if (c == '\'' && sql.lastIndexOf('\\', skipped - 1) > i) {
+                    return null;
+                }
+
+                i = skipped;
+            } else if (Character.isLetter(c) || c == '_') {
+                final int start = i;
+                while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                    i++;
+                }
+
+                tokens.add(sql.substring(start, i));
+            } else {
+                if (!Character.isWhitespace(c)) {
+                    tokens.add(String.valueOf(c));
+                }
+
+                i++;
+            }
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Returns the token at the given index.
+     *
+     * @param tokens Tokens of the query
+     * @param i      Index of the token
+     * @return Token or an empty string when the index is out of bounds
+     */
+    private static String token(final List<String> tokens, final int i) {
+        return i < tokens.size() ? tokens.get(i) : "";
+    }
+
+    /**
+     * Returns whether the token is a word or quoted identifier.
+     *
+     * @param token Token to check
+     * @return True when the token can be an identifier
+     */
+    private static boolean isIdentifier(final String token) {
+        if (token.isEmpty()) {
+            return false;
+        }
+
+        final char c = token.charAt(0);
+        return Character.isLetter(c) || c == '_' || c == '"' || c == '`';
+    }
+
+    /**
+     * Removes the quotes around a quoted identifier.
+     *
+     * @param identifier Identifier that may be quoted
+     * @return Identifier without quotes
+     */
+    private static String unquote(final String identifier) {
+        final char c = identifier.charAt(0);
+        if ((c == '"' || c == '`') && identifier.length() > 1) {
+            return identifier.substring(1, identifier.length() - 1).replace(String.valueOf(c) + c, String.valueOf(c));
+        }
+
+        return identifier;
+    }
+
+    /**
+     * Returns whether there is any code after the given position, ignoring
+     * whitespace, semicolons and comments.
+     *
+     * @param sql   SQL-query to scan
+     * @param start Position to start at
+     * @return True when there is more code
+     */
+    private static boolean hasCode(final String sql, final int start) {
+        int i = start;
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            if ((c == '-' && startsWith(sql, i, "--")) || (c == '/' && startsWith(sql, i, "/*"))) {
+                i = skipNonCode(sql, i);
+            } else if (Character.isWhitespace(c) || c == ';') {
+                i++;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Counts the question mark placeholders in the given query that are not
+     * part of a literal, quoted identifier or comment.
+     *
+     * @param sql SQL-query to scan
+     * @return Amount of placeholders
+     */
+    static int countParameters(final String sql) {
+        return new ParsedQuery(sql).getParameterCount();
+    }
+
+    /**
+     * Skips the literal, quoted identifier or comment that starts at the
+     * given position.
+     *
+     * @param sql SQL-query to scan
+     * @param i   Position to start at
+     * @return Position after the skipped part, or the given position when
+     * no literal, quoted identifier or comment starts there
+     */
+    static int skipNonCode(final String sql, final int i) {
+        final char c = sql.charAt(i);
+        switch (c) {
+            case '\'':
+            case '"':
+            case '`':
+                return skipQuoted(sql, i, c);
+            case '-':
+                return startsWith(sql, i, "--") ? skipLineComment(sql, i) : i;
+            case '/':
+                return startsWith(sql, i, "/*") ? skipBlockComment(sql, i) : i;
+            case '$':
+                return skipDollarQuoted(sql, i);
+            default:
+                return i;
+        }
+    }
+
+    /**
+     * Skips a quoted literal or identifier, where a doubled quote is an
+     * escaped quote.
+     *
+     * @param sql   SQL-query to scan
+     * @param start Position of the opening quote
+     * @param quote Quote character
+     * @return Position after the closing quote, or the end of the query
+     */
+    private static int skipQuoted(final String sql, final int start, final char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+
+                return i + 1;
+            }
+
+            i++;
+        }
+
+        return sql.length();
+    }
+
+    /**
+     * Skips a comment running until the end of the line.
+     *
+     * @param sql   SQL-query to scan
+     * @param start Position of the comment
+     * @return Position after the comment
+     */
+    private static int skipLineComment(final String sql, final int start) {
+        final int end = sql.indexOf('\n', start);
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    /**
+     * Skips a block comment, which may be nested as in PostgreSQL.
+     *
+     * @param sql   SQL-query to scan
+     * @param start Position of the comment
+     * @return Position after the comment
+     */
+    private static int skipBlockComment(final String sql, final int start) {
+        int depth = 0;
+        int i = start;
+        while (i < sql.length()) {
+            if (startsWith(sql, i, "/*")) {
+                depth++;
+                i += 2;
+            } else if (startsWith(sql, i, "*/")) {
+                i += 2;
+                if (--depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+
+        return sql.length();
+    }
+
+    /**
+     * Skips a PostgreSQL dollar-quoted string such as {@code $tag$...$tag$}.
+     *
+     * @param sql   SQL-query to scan
+     * @param start Position of the first dollar sign
+     * @return Position after the closing tag, or the given position when no
+     * dollar-quoted string starts there
+     */
+    private static int skipDollarQuoted(final String sql, final int start) {
+        int i = start + 1;
+        while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+            i++;
+        }
+
+        if (i >= sql.length() || sql.charAt(i) != '$' || (i > start + 1 && Character.isDigit(sql.charAt(start + 1)))) {
+            return start;
+        }
+
+        final String tag = sql.substring(start, i + 1);
+        final int end = sql.indexOf(tag, i + 1);
+        return end < 0 ? sql.length() : end + tag.length();
+    }
+
+    /**
+     * Returns whether the query contains the given text at the given
+     * position.
+     *
+     * @param sql    SQL-query to scan
+     * @param i      Position to check
+     * @param prefix Text to look for
+     * @return True when the text is at the given position
+     */
+    private static boolean startsWith(final String sql, final int i, final String prefix) {
+        return sql.startsWith(prefix, i);
+    }
+
+}
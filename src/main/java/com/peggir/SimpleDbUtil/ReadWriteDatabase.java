@@ -0,0 +1,651 @@
+package com.peggir.SimpleDbUtil;
+
+import play.db.ConnectionCallable;
+import play.db.ConnectionRunnable;
+import play.db.Database;
+import play.db.TransactionIsolationLevel;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Database} that sends read-only queries to read replicas and
+ * everything else to the primary database. Pass it to a {@link DbCall} like
+ * any other database: {@link DbCall#getOne()}, {@link DbCall#getAll()},
+ * {@link DbCall#hasResults()} and the other reading operations of
+ * SELECT-queries without a locking clause run on a replica, while
+ * {@link DbCall#execute()}, batches, {@link DbSession}s and all methods of
+ * the {@link Database} interface use the primary.
+ * <p>
+ * Replicas are chosen round-robin or by the least amount of connections
+ * handed out and not yet closed. A replica that fails to provide a
+ * connection, or fails a health check, is ejected for a while; when no
+ * replica is available, reads go to the primary.
+ * <p>
+ * Replicas lag behind the primary. Use {@link #forSession(String)} to get a
+ * view for a user session: after that view handed out a connection of the
+ * primary, its reads go to the primary as well for
+ * {@link #setStickyDuration(long, TimeUnit)}, so the session reads its own
+ * writes.
+ */
+public class ReadWriteDatabase implements Database {
+
+    /**
+     * Default duration in milliseconds for which a failing replica is
+     * ejected.
+     */
+    public static final long DEFAULT_EJECTION_MILLIS = 30_000L;
+
+    /**
+     * Default duration in milliseconds for which the reads of a session go to
+     * the primary after it used the primary.
+     */
+    public static final long DEFAULT_STICKY_MILLIS = 5_000L;
+
+    private static final int MAX_STICKY_SESSIONS = 10_000;
+
+    private final ReadWriteDatabase root;
+    private final String sessionKey;
+    private final Database primary;
+    private final List<Replica> replicas;
+    private final Map<String, Long> lastWrites;
+    private final AtomicInteger next;
+    private volatile Balancing balancing = Balancing.ROUND_ROBIN;
+    private volatile long ejectionNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_EJECTION_MILLIS);
+    private volatile long stickyNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_STICKY_MILLIS);
+    private volatile int healthCheckTimeoutSeconds = 1;
+    private ScheduledExecutorService healthChecks;
+
+    /**
+     * Creates a database routing reads to the given replicas.
+     *
+     * @param primary  Database receiving writes, and reads when no replica is
+     *                 available
+     * @param replicas Databases receiving reads
+     */
+    public ReadWriteDatabase(final Database primary, final Database... replicas) {
+        this(primary, replicas == null ? null : Arrays.asList(replicas));
+    }
+
+    /**
+     * Creates a database routing reads to the given replicas.
+     *
+     * @param primary  Database receiving writes, and reads when no replica is
+     *                 available
+     * @param replicas Databases receiving reads
+     */
+    public ReadWriteDatabase(final Database primary, final List<Database> replicas) {
+        if (primary == null) {
+            throw new IllegalArgumentException("No primary database set");
+        }
+
+        if (replicas == null || replicas.contains(null)) {
+            throw new IllegalArgumentException("No replicas set");
+        }
+
+        final List<Replica> replicaList = new ArrayList<>(replicas.size());
+        for (final Database replica : replicas) {
+            replicaList.add(new Replica(replica));
+        }
+
+        this.root = this;
+        this.sessionKey = null;
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(replicaList);
+        this.lastWrites = new ConcurrentHashMap<>();
+        this.next = new AtomicInteger();
+    }
+
+    /**
+     * Creates a view of the given database for a session.
+     *
+     * @param root       Database to view
+     * @param sessionKey Key of the session
+     */
+    private ReadWriteDatabase(final ReadWriteDatabase root, final String sessionKey) {
+        this.root = root;
+        this.sessionKey = sessionKey;
+        this.primary = root.primary;
+        this.replicas = root.replicas;
+        this.lastWrites = root.lastWrites;
+        this.next = root.next;
+    }
+
+    /**
+     * Returns the database the given database is a session view of.
+     *
+     * @param db Database, possibly a view returned by
+     *           {@link #forSession(String)}
+     * @return Root {@link ReadWriteDatabase} of a view, or the given database
+     */
+    static Database root(final Database db) {
+        return db instanceof ReadWriteDatabase ? ((ReadWriteDatabase) db).root : db;
+    }
+
+    /**
+     * Returns a view of this database for the given session, e.g. the id of
+     * a user's session. After the view hands out a connection of the
+     * primary, reads of every view of the same session go to the primary for
+     * the sticky duration. Views share the replicas, settings and health of
+     * this database.
+     *
+     * @param sessionKey Key of the session
+     * @return View for the session
+     */
+    public ReadWriteDatabase forSession(final String sessionKey) {
+        if (sessionKey == null) {
+            throw new IllegalArgumentException("No session key set");
+        }
+
+        return new ReadWriteDatabase(root, sessionKey);
+    }
+
+    /**
+     * Returns a connection for read-only queries: a connection of an
+     * available replica, or of the primary when the session of this view
+     * recently used the primary or no replica is available.
+     *
+     * @return Connection for reading
+     */
+    public Connection getReadConnection() {
+        if (isSticky()) {
+            return primary.getConnection();
+        }
+
+        final int size = replicas.size();
+        final int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        final long now = System.nanoTime();
+        for (int attempt = 0; attempt < size; attempt++) {
+            final Replica replica = choose(start, now);
+            if (replica == null) {
+                break;
+            }
+
+            try {
+                return replica.open();
+            } catch (final Exception e) {
+                // Play's databases throw SQLExceptions without declaring them
+                replica.eject(now + root.ejectionNanos);
+            }
+        }
+
+        return primary.getConnection();
+    }
+
+    /**
+     * Chooses an available replica with the balancing strategy.
+     *
+     * @param start Index of the replica to consider first
+     * @param now   Current time in nanoseconds
+     * @return Replica, or null when none is available
+     */
+    private Replica choose(final int start, final long now) {
+        Replica chosen = null;
+        for (int i = 0; i < replicas.size(); i++) {
+            final Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.isAvailable(now)) {
+                continue;
+            }
+
+            if (root.balancing == Balancing.ROUND_ROBIN) {
+                return replica;
+            }
+
+            if (chosen == null || replica.outstanding.get() < chosen.outstanding.get()) {
+                chosen = replica;
+            }
+        }
+
+        return chosen;
+    }
+
+    /**
+     * Returns whether the reads of this view go to the primary, because its
+     * session recently used the primary.
+     *
+     * @return True when reads go to the primary
+     */
+    private boolean isSticky() {
+        if (sessionKey == null) {
+            return false;
+        }
+
+        final Long lastWrite = lastWrites.get(sessionKey);
+        return lastWrite != null && System.nanoTime() - lastWrite < root.stickyNanos;
+    }
+
+    /**
+     * Remembers that the session of this view used the primary.
+     */
+    private void markWrite() {
+        if (sessionKey == null) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        if (lastWrites.size() >= MAX_STICKY_SESSIONS) {
+            lastWrites.values().removeIf(lastWrite -> now - lastWrite >= root.stickyNanos);
+        }
+
+        lastWrites.put(sessionKey, now);
+    }
+
+    /**
+     * Checks every replica by validating one of its connections. Replicas
+     * that pass are available again, replicas that fail are ejected.
+     */
+    public void checkHealth() {
+        for (final Replica replica : replicas) {
+            boolean healthy;
+            try (final Connection conn = replica.db.getConnection()) {
+                healthy = conn.isValid(root.healthCheckTimeoutSeconds);
+            } catch (final Exception e) {
+                healthy = false;
+            }
+
+            if (healthy) {
+                replica.restore();
+            } else {
+                replica.eject(System.nanoTime() + root.ejectionNanos);
+            }
+        }
+    }
+
+    /**
+     * Starts checking the health of the replicas periodically, on a daemon
+     * thread, until {@link #shutdown()} is called. See {@link #checkHealth()}.
+     *
+     * @param interval Time between checks
+     * @param unit     Unit of the interval
+     */
+    public void startHealthChecks(final long interval, final TimeUnit unit) {
+        if (interval <= 0 || unit == null) {
+            throw new IllegalArgumentException("No interval set");
+        }
+
+        synchronized (root) {
+            if (root.healthChecks != null) {
+                root.healthChecks.shutdownNow();
+            }
+
+            root.healthChecks = Executors.newSingleThreadScheduledExecutor(task -> {
+                final Thread thread = new Thread(task, "ReadWriteDatabase-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            root.healthChecks.scheduleWithFixedDelay(root::checkHealth, 0L, interval, unit);
+        }
+    }
+
+    /**
+     * Returns whether the given replica is currently available for reads.
+     *
+     * @param index Index of the replica, in the order they were given
+     * @return True when the replica is not ejected
+     */
+    public boolean isAvailable(final int index) {
+        return replicas.get(index).isAvailable(System.nanoTime());
+    }
+
+    /**
+     * Returns the amount of connections handed out by the given replica and
+     * not yet closed.
+     *
+     * @param index Index of the replica, in the order they were given
+     * @return Amount of open connections
+     */
+    public int getOutstanding(final int index) {
+        return replicas.get(index).outstanding.get();
+    }
+
+    /**
+     * Sets how reads are spread over the replicas. Defaults to
+     * {@link Balancing#ROUND_ROBIN}.
+     *
+     * @param balancing Balancing strategy
+     */
+    public void setBalancing(final Balancing balancing) {
+        if (balancing == null) {
+            throw new IllegalArgumentException("No balancing set");
+        }
+
+        root.balancing = balancing;
+    }
+
+    /**
+     * Sets the duration for which a failing replica is ejected. Defaults to
+     * {@link #DEFAULT_EJECTION_MILLIS} milliseconds.
+     *
+     * @param duration Duration of the ejection
+     * @param unit     Unit of the duration
+     */
+    public void setEjectionDuration(final long duration, final TimeUnit unit) {
+        if (duration < 0 || unit == null) {
+            throw new IllegalArgumentException("No ejection duration set");
+        }
+
+        root.ejectionNanos = unit.toNanos(duration);
+    }
+
+    /**
+     * Sets the duration for which the reads of a session go to the primary
+     * after it used the primary. Set it above the usual replication lag.
+     * Defaults to {@link #DEFAULT_STICKY_MILLIS} milliseconds.
+     *
+     * @param duration Sticky duration, or 0 to always read from replicas
+     * @param unit     Unit of the duration
+     */
+    public void setStickyDuration(final long duration, final TimeUnit unit) {
+        if (duration < 0 || unit == null) {
+            throw new IllegalArgumentException("No sticky duration set");
+        }
+
+        root.stickyNanos = unit.toNanos(duration);
+    }
+
+    /**
+     * Sets the time a health check waits for a replica to validate its
+     * connection. Defaults to 1 second.
+     *
+     * @param seconds Timeout in seconds, at least 1
+     */
+    public void setHealthCheckTimeout(final int seconds) {
+        if (seconds < 1) {
+            throw new IllegalArgumentException("No health check timeout set");
+        }
+
+        root.healthCheckTimeoutSeconds = seconds;
+    }
+
+    /**
+     * Returns a connection for reading from the given database: a connection
+     * of a replica when it is a {@link ReadWriteDatabase}, or else a regular
+     * connection.
+     *
+     * @param db Database to read from
+     * @return Connection for reading
+     */
+    static Connection readConnection(final Database db) {
+        return db instanceof ReadWriteDatabase ? ((ReadWriteDatabase) db).getReadConnection() : db.getConnection();
+    }
+
+    /**
+     * Returns the name of the primary database.
+     *
+     * @return Name of the primary
+     */
+    @Override
+    public String getName() {
+        return primary.getName();
+    }
+
+    /**
+     * Returns the data source of the primary database.
+     *
+     * @return Data source of the primary
+     */
+    @Override
+    public DataSource getDataSource() {
+        return primary.getDataSource();
+    }
+
+    /**
+     * Returns the JDBC url of the primary database.
+     *
+     * @return Url of the primary
+     */
+    @Override
+    public String getUrl() {
+        return primary.getUrl();
+    }
+
+    /**
+     * Returns a connection of the primary database.
+     *
+     * @return Connection of the primary
+     */
+    @Override
+    public Connection getConnection() {
+        markWrite();
+        return primary.getConnection();
+    }
+
+    /**
+     * Returns a connection of the primary database.
+     *
+     * @param autocommit Auto-commit mode of the connection
+     * @return Connection of the primary
+     */
+    @Override
+    public Connection getConnection(final boolean autocommit) {
+        markWrite();
+        return primary.getConnection(autocommit);
+    }
+
+    /**
+     * Runs the given block with a connection of the primary database.
+     *
+     * @param block Block to run
+     */
+    @Override
+    public void withConnection(final ConnectionRunnable block) {
+        markWrite();
+        primary.withConnection(block);
+    }
+
+    /**
+     * Runs the given block with a connection of the primary database.
+     *
+     * @param block Block to run
+     * @param <A>   Result of the block
+     * @return Result of the block
+     */
+    @Override
+    public <A> A withConnection(final ConnectionCallable<A> block) {
+        markWrite();
+        return primary.withConnection(block);
+    }
+
+    /**
+     * Runs the given block with a connection of the primary database.
+     *
+     * @param autocommit Auto-commit mode of the connection
+     * @param block      Block to run
+     */
+    @Override
+    public void withConnection(final boolean autocommit, final ConnectionRunnable block) {
+        markWrite();
+        primary.withConnection(autocommit, block);
+    }
+
+    /**
+     * Runs the given block with a connection of the primary database.
+     *
+     * @param autocommit Auto-commit mode of the connection
+     * @param block      Block to run
+     * @param <A>        Result of the block
+     * @return Result of the block
+     */
+    @Override
+    public <A> A withConnection(final boolean autocommit, final ConnectionCallable<A> block) {
+        markWrite();
+        return primary.withConnection(autocommit, block);
+    }
+
+    /**
+     * Runs the given block in a transaction of the primary database.
+     *
+     * @param block Block to run
+     */
+    @Override
+    public void withTransaction(final ConnectionRunnable block) {
+        markWrite();
+        primary.withTransaction(block);
+    }
+
+    /**
+     * Runs the given block in a transaction of the primary database.
+     *
+     * @param isolationLevel Isolation level of the transaction
+     * @param block          Block to run
+     */
+    @Override
+    public void withTransaction(final TransactionIsolationLevel isolationLevel, final ConnectionRunnable block) {
+        markWrite();
+        primary.withTransaction(isolationLevel, block);
+    }
+
+    /**
+     * Runs the given block in a transaction of the primary database.
+     *
+     * @param block Block to run
+     * @param <A>   Result of the block
+     * @return Result of the block
+     */
+    @Override
+    public <A> A withTransaction(final ConnectionCallable<A> block) {
+        markWrite();
+        return primary.withTransaction(block);
+    }
+
+    /**
+     * Runs the given block in a transaction of the primary database.
+     *
+     * @param isolationLevel Isolation level of the transaction
+     * @param block          Block to run
+     * @param <A>            Result of the block
+     * @return Result of the block
+     */
+    @Override
+    public <A> A withTransaction(final TransactionIsolationLevel isolationLevel, final ConnectionCallable<A> block) {
+        markWrite();
+        return primary.withTransaction(isolationLevel, block);
+    }
+
+    /**
+     * Stops the health checks and shuts down the primary and every replica.
+     */
+    @Override
+    public void shutdown() {
+        synchronized (root) {
+            if (root.healthChecks != null) {
+                root.healthChecks.shutdownNow();
+                root.healthChecks = null;
+            }
+        }
+
+        for (final Replica replica : replicas) {
+            replica.db.shutdown();
+        }
+
+        primary.shutdown();
+    }
+
+    /**
+     * Strategy for spreading reads over the replicas.
+     */
+    public enum Balancing {
+
+        /**
+         * Every read goes to the next available replica.
+         */
+        ROUND_ROBIN,
+
+        /**
+         * Every read goes to the available replica with the least
+         * connections handed out and not yet closed.
+         */
+        LEAST_OUTSTANDING
+
+    }
+
+    /**
+     * Read replica with its load and health.
+     */
+    private static final class Replica {
+
+        private final Database db;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile boolean ejected;
+        private volatile long ejectedUntil;
+
+        /**
+         * Wraps the given replica.
+         *
+         * @param db Database of the replica
+         */
+        private Replica(final Database db) {
+            this.db = db;
+        }
+
+        /**
+         * Returns whether the replica is not ejected.
+         *
+         * @param now Current time in nanoseconds
+         * @return True when the replica is available
+         */
+        private boolean isAvailable(final long now) {
+            return !ejected || now - ejectedUntil >= 0L;
+        }
+
+        /**
+         * Ejects the replica until the given time.
+         *
+         * @param until Time in nanoseconds
+         */
+        private void eject(final long until) {
+            ejectedUntil = until;
+            ejected = true;
+        }
+
+        /**
+         * Makes the replica available again.
+         */
+        private void restore() {
+            ejected = false;
+        }
+
+        /**
+         * Returns a connection of the replica that is counted as outstanding
+         * until it is closed.
+         *
+         * @return Counted connection
+         */
+        private Connection open() {
+            final Connection conn = db.getConnection();
+            outstanding.incrementAndGet();
+            final AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(
+                    ReadWriteDatabase.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName())
+                                && method.getParameterCount() == 0
+                                && closed.compareAndSet(false, true)) {
+                            outstanding.decrementAndGet();
+                        }
+
+                        try {
+                            return method.invoke(conn, args);
+                        } catch (final InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+    }
+
+}
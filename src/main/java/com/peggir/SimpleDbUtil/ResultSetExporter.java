@@ -0,0 +1,655 @@
+package com.peggir.SimpleDbUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Writes the rows of a {@link ResultSet} as text straight into a reusable
+ * byte buffer, which is flushed to a {@link Sink} whenever it is full. The
+ * way every column is read and written is decided once from the
+ * {@link ResultSetMetaData}. Integers are written without creating strings
+ * and text is encoded to UTF-8 without intermediate byte arrays, so memory
+ * usage does not depend on the amount of rows.
+ */
+abstract class ResultSetExporter {
+
+    /**
+     * Size of the byte buffer.
+     */
+    static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private final Sink sink;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] digits = new byte[20];
+    private int position;
+
+    /**
+     * Creates an exporter writing to the given sink.
+     *
+     * @param sink Destination of the bytes
+     */
+    private ResultSetExporter(final Sink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Creates an exporter writing comma separated values (RFC 4180) with a
+     * header of column labels. SQL NULL is written as an empty field and an
+     * empty string as {@code ""}, as read by
+     * {@link com.peggir.SimpleDbUtil.ingest.CsvFormat}.
+     *
+     * @param sink Destination of the bytes
+     * @return CSV exporter
+     */
+    static ResultSetExporter csv(final Sink sink) {
+        return new Csv(sink);
+    }
+
+    /**
+     * Creates an exporter writing a JSON object per row, keyed by column
+     * label, on its own line.
+     *
+     * @param sink Destination of the bytes
+     * @return JSON Lines exporter
+     */
+    static ResultSetExporter jsonLines(final Sink sink) {
+        return new JsonLines(sink);
+    }
+
+    /**
+     * Writes every row of the result set and flushes the sink.
+     *
+     * @param rs Result set to export
+     * @return Amount of rows written
+     * @throws SQLException         When unable to read the result set
+     * @throws UncheckedIOException When unable to write to the sink
+     */
+    final long export(final ResultSet rs) throws SQLException {
+        try {
+            final ResultSetMetaData metaData = rs.getMetaData();
+            final int count = metaData.getColumnCount();
+            final String[] labels = new String[count];
+            final ColumnKind[] kinds = new ColumnKind[count];
+            for (int i = 0; i < count; i++) {
+                labels[i] = metaData.getColumnLabel(i + 1);
+                kinds[i] = ColumnKind.of(metaData.getColumnType(i + 1));
+            }
+
+            writeHeader(labels);
+            long rows = 0;
+            while (rs.next()) {
+                writeRow(rs, labels, kinds);
+                rows++;
+            }
+
+            flush();
+            sink.flush();
+            return rows;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the header before the rows.
+     *
+     * @param labels Labels of the columns
+     * @throws IOException When unable to write to the sink
+     */
+    abstract void writeHeader(final String[] labels) throws IOException;
+
+    /**
+     * Writes the current row of the result set.
+     *
+     * @param rs     Result set positioned on a row
+     * @param labels Labels of the columns
+     * @param kinds  Kinds of the columns
+     * @throws SQLException When unable to read the row
+     * @throws IOException  When unable to write to the sink
+     */
+    abstract void writeRow(final ResultSet rs, final String[] labels, final ColumnKind[] kinds)
+            throws SQLException, IOException;
+
+    /**
+     * Writes a non-null column value, reading it as its kind.
+     *
+     * @param rs     Result set positioned on a row
+     * @param column Index of the column, starting at 1
+     * @param kind   Kind of the column
+     * @return False when the value was SQL NULL and nothing was written
+     * @throws SQLException When unable to read the value
+     * @throws IOException  When unable to write to the sink
+     */
+    final boolean writeValue(final ResultSet rs, final int column, final ColumnKind kind)
+            throws SQLException, IOException {
+        switch (kind) {
+            case INTEGER: {
+                final long value = rs.getLong(column);
+                if (rs.wasNull()) {
+                    return false;
+                }
+
+                writeLong(value);
+                return true;
+            }
+            case BOOLEAN: {
+                final boolean value = rs.getBoolean(column);
+                if (rs.wasNull()) {
+                    return false;
+                }
+
+                writeBytes(value ? TRUE : FALSE);
+                return true;
+            }
+            case FLOATING: {
+                final double value = rs.getDouble(column);
+                if (rs.wasNull()) {
+                    return false;
+                }
+
+                writeDouble(value);
+                return true;
+            }
+            case DECIMAL: {
+                final BigDecimal value = rs.getBigDecimal(column);
+                if (value == null) {
+                    return false;
+                }
+
+                writeAscii(value.toPlainString());
+                return true;
+            }
+            default: {
+                final String value = rs.getString(column);
+                if (value == null) {
+                    return false;
+                }
+
+                writeText(value);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Writes a floating point number.
+     *
+     * @param value Number to write
+     * @throws IOException When unable to write to the sink
+     */
+    void writeDouble(final double value) throws IOException {
+        writeAscii(Double.toString(value));
+    }
+
+    /**
+     * Writes a text value, quoted and escaped as the format requires.
+     *
+     * @param value Text to write
+     * @throws IOException When unable to write to the sink
+     */
+    abstract void writeText(final String value) throws IOException;
+
+    /**
+     * Writes a single byte.
+     *
+     * @param b Byte to write
+     * @throws IOException When unable to write to the sink
+     */
+    final void writeByte(final int b) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+
+        buffer[position++] = (byte) b;
+    }
+
+    /**
+     * Writes bytes.
+     *
+     * @param bytes Bytes to write
+     * @throws IOException When unable to write to the sink
+     */
+    final void writeBytes(final byte[] bytes) throws IOException {
+        for (final byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    /**
+     * Writes a string consisting of ASCII characters only.
+     *
+     * @param value String to write
+     * @throws IOException When unable to write to the sink
+     */
+    final void writeAscii(final String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            writeByte(value.charAt(i));
+        }
+    }
+
+    /**
+     * Writes a long in decimal notation without creating a string.
+     *
+     * @param value Long to write
+     * @throws IOException When unable to write to the sink
+     */
+    final void writeLong(final long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+
+        long remaining = Math.abs(value);
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+
+        if (value < 0) {
+            writeByte('-');
+        }
+
+        while (length > 0) {
+            writeByte(digits[--length]);
+        }
+    }
+
+    /**
+     * Writes a character encoded as UTF-8. Surrogate pairs are encoded as a
+     * single code point; unpaired surrogates are written as '?'.
+     *
+     * @param value String holding the character
+     * @param i     Index of the character
+     * @return Amount of characters written, 2 for a surrogate pair
+     * @throws IOException When unable to write to the sink
+     */
+    final int writeUtf8(final String value, final int i) throws IOException {
+        final char c = value.charAt(i);
+        if (c < 0x80) {
+            writeByte(c);
+        } else if (c < 0x800) {
+            writeByte(0xC0 | (c >> 6));
+            writeByte(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)
+                && i + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(i + 1))) {
+            final int codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+            writeByte(0xF0 | (codePoint >> 18));
+            writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+            writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+            writeByte(0x80 | (codePoint & 0x3F));
+            return 2;
+        } else if (Character.isSurrogate(c)) {
+            writeByte('?');
+        } else {
+            writeByte(0xE0 | (c >> 12));
+            writeByte(0x80 | ((c >> 6) & 0x3F));
+            writeByte(0x80 | (c & 0x3F));
+        }
+
+        return 1;
+    }
+
+    /**
+     * Writes the buffered bytes to the sink.
+     *
+     * @throws IOException When unable to write to the sink
+     */
+    private void flush() throws IOException {
+        if (position > 0) {
+            sink.write(buffer, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * How the values of a column are read and written.
+     */
+    enum ColumnKind {
+        INTEGER, BOOLEAN, FLOATING, DECIMAL, TEXT;
+
+        /**
+         * Returns the kind of a column.
+         *
+         * @param sqlType Type of the column from {@link Types}
+         * @return Kind of the column
+         */
+        static ColumnKind of(final int sqlType) {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    return INTEGER;
+                case Types.BOOLEAN:
+                case Types.BIT:
+                    return BOOLEAN;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return FLOATING;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    return DECIMAL;
+                default:
+                    return TEXT;
+            }
+        }
+    }
+
+    /**
+     * Destination of exported bytes.
+     */
+    interface Sink {
+
+        /**
+         * Writes bytes.
+         *
+         * @param bytes  Buffer holding the bytes
+         * @param length Amount of bytes to write from the start of the buffer
+         * @throws IOException When unable to write
+         */
+        void write(final byte[] bytes, final int length) throws IOException;
+
+        /**
+         * Flushes the written bytes, after the last row was written.
+         *
+         * @throws IOException When unable to flush
+         */
+        default void flush() throws IOException {
+        }
+
+        /**
+         * Returns a sink writing to an output stream. The stream is flushed
+         * but not closed.
+         *
+         * @param out Output stream to write to
+         * @return Sink
+         */
+        static Sink of(final OutputStream out) {
+            return new Sink() {
+                @Override
+                public void write(final byte[] bytes, final int length) throws IOException {
+                    out.write(bytes, 0, length);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                }
+            };
+        }
+
+        /**
+         * Returns a sink writing to a channel. The channel is not closed.
+         *
+         * @param channel Channel to write to
+         * @return Sink
+         */
+        static Sink of(final WritableByteChannel channel) {
+            return (bytes, length) -> {
+                final ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            };
+        }
+
+    }
+
+    /**
+     * Writes comma separated values.
+     */
+    private static final class Csv extends ResultSetExporter {
+
+        /**
+         * Creates a CSV exporter.
+         *
+         * @param sink Destination of the bytes
+         */
+        private Csv(final Sink sink) {
+            super(sink);
+        }
+
+        /**
+         * Writes the column labels as the first record.
+         *
+         * @param labels Labels of the columns
+         * @throws IOException When unable to write to the sink
+         */
+        @Override
+        void writeHeader(final String[] labels) throws IOException {
+            for (int i = 0; i < labels.length; i++) {
+                if (i > 0) {
+                    writeByte(',');
+                }
+
+                writeText(labels[i]);
+            }
+
+            writeByte('\r');
+            writeByte('\n');
+        }
+
+        /**
+         * Writes the current row as a record, leaving SQL NULL fields empty.
+         *
+         * @param rs     Result set positioned on a row
+         * @param labels Labels of the columns
+         * @param kinds  Kinds of the columns
+         * @throws SQLException When unable to read the row
+         * @throws IOException  When unable to write to the sink
+         */
+        @Override
+        void writeRow(final ResultSet rs, final String[] labels, final ColumnKind[] kinds)
+                throws SQLException, IOException {
+            for (int i = 0; i < kinds.length; i++) {
+                if (i > 0) {
+                    writeByte(',');
+                }
+
+                writeValue(rs, i + 1, kinds[i]);
+            }
+
+            writeByte('\r');
+            writeByte('\n');
+        }
+
+        /**
+         * Writes a field, quoted when it is empty or contains a comma,
+         * quote or line break.
+         *
+         * @param value Text to write
+         * @throws IOException When unable to write to the sink
+         */
+        @Override
+        void writeText(final String value) throws IOException {
+            if (!needsQuotes(value)) {
+                for (int i = 0; i < value.length(); ) {
+                    i += writeUtf8(value, i);
+                }
+
+                return;
+            }
+
+            writeByte('"');
+            for (int i = 0; i < value.length(); ) {
+                if (value.charAt(i) == '"') {
+                    writeByte('"');
+                }
+
+                i += writeUtf8(value, i);
+            }
+
+            writeByte('"');
+        }
+
+        /**
+         * Returns whether a field must be quoted.
+         *
+         * @param value Text of the field
+         * @return True when the field is empty or contains a special
+         * character
+         */
+        private static boolean needsQuotes(final String value) {
+            if (value.isEmpty()) {
+                return true;
+            }
+
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+    }
+
+    /**
+     * Writes a JSON object per line.
+     */
+    private static final class JsonLines extends ResultSetExporter {
+
+        /**
+         * Creates a JSON Lines exporter.
+         *
+         * @param sink Destination of the bytes
+         */
+        private JsonLines(final Sink sink) {
+            super(sink);
+        }
+
+        /**
+         * Writes nothing, as every object holds its own keys.
+         *
+         * @param labels Labels of the columns
+         */
+        @Override
+        void writeHeader(final String[] labels) {
+        }
+
+        /**
+         * Writes the current row as an object on its own line.
+         *
+         * @param rs     Result set positioned on a row
+         * @param labels Labels of the columns, used as keys
+         * @param kinds  Kinds of the columns
+         * @throws SQLException When unable to read the row
+         * @throws IOException  When unable to write to the sink
+         */
+        @Override
+        void writeRow(final ResultSet rs, final String[] labels, final ColumnKind[] kinds)
+                throws SQLException, IOException {
+            writeByte('{');
+            for (int i = 0; i < kinds.length; i++) {
+                if (i > 0) {
+                    writeByte(',');
+                }
+
+                writeText(labels[i]);
+                writeByte(':');
+                if (!writeValue(rs, i + 1, kinds[i])) {
+                    writeBytes(NULL);
+                }
+            }
+
+            writeByte('}');
+            writeByte('\n');
+        }
+
+        /**
+         * Writes a number, or a string for NaN and infinity, which JSON
+         * numbers cannot represent.
+         *
+         * @param value Number to write
+         * @throws IOException When unable to write to the sink
+         */
+        @Override
+        void writeDouble(final double value) throws IOException {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                writeText(Double.toString(value));
+            } else {
+                super.writeDouble(value);
+            }
+        }
+
+        /**
+         * Writes a JSON string, escaping quotes, backslashes and control
+         * characters.
+         *
+         * @param value Text to write
+         * @throws IOException When unable to write to the sink
+         */
+        @Override
+        void writeText(final String value) throws IOException {
+            writeByte('"');
+            for (int i = 0; i < value.length(); ) {
+                final char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    writeByte('\\');
+                    writeByte(c);
+                    i++;
+                } else if (c < 0x20) {
+                    writeControl(c);
+                    i++;
+                } else {
+                    i += writeUtf8(value, i);
+                }
+            }
+
+            writeByte('"');
+        }
+
+        /**
+         * Writes an escaped control character.
+         *
+         * @param c Control character
+         * @throws IOException When unable to write to the sink
+         */
+        private void writeControl(final char c) throws IOException {
+            writeByte('\\');
+            switch (c) {
+                case '\n':
+                    writeByte('n');
+                    break;
+                case '\r':
+                    writeByte('r');
+                    break;
+                case '\t':
+                    writeByte('t');
+                    break;
+                case '\b':
+                    writeByte('b');
+                    break;
+                case '\f':
+                    writeByte('f');
+                    break;
+                default:
+                    writeByte('u');
+                    writeByte('0');
+                    writeByte('0');
+                    writeByte(HEX[c >> 4]);
+                    writeByte(HEX[c & 0xF]);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.peggir.SimpleDbUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Temporary file holding encoded rows that did not fit in the memory budget
+ * of a {@link DbSpillList}. Rows are appended sequentially while the result
+ * set is read, after which the file is memory-mapped in regions that are
+ * paged in on demand. The offset of every row is kept in memory.
+ */
+final class SpillFile implements AutoCloseable {
+
+    /**
+     * Default size of the regions the file is mapped in.
+     */
+    static final int REGION_BYTES = 1 << 26;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int regionBytes;
+    private OutputStream out;
+    private long[] offsets = new long[64];
+    private int rowCount;
+    private long length;
+    private MappedByteBuffer[] regions;
+    private boolean closed;
+
+    /**
+     * Creates a spill file.
+     *
+     * @param path        Path of the file
+     * @param channel     Channel to the file, opened for reading and writing
+     * @param regionBytes Size of the regions the file is mapped in
+     */
+    private SpillFile(final Path path, final FileChannel channel, final int regionBytes) {
+        this.path = path;
+        this.channel = channel;
+        this.regionBytes = regionBytes;
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_BYTES);
+    }
+
+    /**
+     * Creates an empty spill file in the given directory.
+     *
+     * @param directory Directory to create the file in, or null for the
+     *                  default temporary-file directory
+     * @return Spill file open for appending
+     * @throws IOException When unable to create the file
+     */
+    static SpillFile create(final Path directory) throws IOException {
+        return create(directory, REGION_BYTES);
+    }
+
+    /**
+     * Creates an empty spill file in the given directory, mapped in regions
+     * of the given size.
+     *
+     * @param directory   Directory to create the file in, or null for the
+     *                    default temporary-file directory
+     * @param regionBytes Size of the regions the file is mapped in
+     * @return Spill file open for appending
+     * @throws IOException When unable to create the file
+     */
+    static SpillFile create(final Path directory, final int regionBytes) throws IOException {
+        final Path dir = directory != null ? directory : Paths.get(System.getProperty("java.io.tmpdir"));
+        final Path path = Files.createTempFile(dir, "simpledbutil-", ".spill");
+        try {
+            return new SpillFile(path, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE),
+                    regionBytes);
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    /**
+     * Appends an encoded row.
+     *
+     * @param row    Buffer holding the encoded row
+     * @param length Length of the row in bytes
+     * @throws IOException When unable to write to the file
+     */
+    void append(final byte[] row, final int length) throws IOException {
+        if (rowCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, rowCount * 2);
+        }
+
+        offsets[rowCount++] = this.length;
+        out.write(row, 0, length);
+        this.length += length;
+    }
+
+    /**
+     * Flushes the appended rows to the file and prepares it for reading. No
+     * rows can be appended afterwards.
+     *
+     * @throws IOException When unable to write to the file
+     */
+    void finish() throws IOException {
+        out.flush();
+        out = null;
+        offsets = Arrays.copyOf(offsets, rowCount);
+        regions = new MappedByteBuffer[(int) ((length + regionBytes - 1) / regionBytes)];
+    }
+
+    /**
+     * Returns the amount of rows in the file.
+     *
+     * @return Amount of rows
+     */
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the size of the file.
+     *
+     * @return Size in bytes
+     */
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the encoded row at the given index. Rows within a single region
+     * are read from the mapped region, which is mapped when first needed;
+     * rows crossing a region boundary are read from the file.
+     *
+     * @param index Index of the row in the file
+     * @return Buffer positioned at the start of the row and limited to its end
+     * @throws IOException When unable to read the file
+     */
+    synchronized ByteBuffer row(final int index) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Spill file is closed");
+        }
+
+        final long start = offsets[index];
+        final long end = index + 1 < rowCount ? offsets[index + 1] : length;
+        final int region = (int) (start / regionBytes);
+        if (start == end) {
+            return ByteBuffer.allocate(0);
+        } else if ((end - 1) / regionBytes == region) {
+            final ByteBuffer buffer = region(region).duplicate();
+            final int position = (int) (start - (long) region * regionBytes);
+            buffer.position(position);
+            buffer.limit(position + (int) (end - start));
+            return buffer.slice();
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of spill file");
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Returns the given region of the file, mapping it when needed.
+     *
+     * @param region Index of the region
+     * @return Read-only mapped region
+     * @throws IOException When unable to map the file
+     */
+    private MappedByteBuffer region(final int region) throws IOException {
+        MappedByteBuffer buffer = regions[region];
+        if (buffer == null) {
+            final long start = (long) region * regionBytes;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min((long) regionBytes, length - start));
+            regions[region] = buffer;
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Closes and deletes the file. When the file cannot be deleted, e.g.
+     * because the platform does not allow deleting mapped files, it is
+     * deleted when the JVM exits.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        regions = null;
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (final IOException e) {
+            path.toFile().deleteOnExit();
+        }
+    }
+
+}
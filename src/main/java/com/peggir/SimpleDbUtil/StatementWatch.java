@@ -0,0 +1,292 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.exceptions.DbCallTimeoutException;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces the deadline of a single {@link DbCall} operation and cancels its
+ * statement when the deadline passes or when the asynchronous operation
+ * running it is cancelled. The driver's query timeout is set as well, in
+ * whole seconds, as a fallback for drivers that ignore
+ * {@link Statement#cancel()}.
+ */
+final class StatementWatch implements AutoCloseable {
+
+    private static final ThreadLocal<StatementWatch> CURRENT = new ThreadLocal<>();
+
+    private static final ScheduledExecutorService TIMER = newTimer();
+
+    private final DbDeadline deadline;
+    private final Cancellation cancellation;
+    private volatile Statement statement;
+    private volatile boolean timedOut;
+    private ScheduledFuture<?> timer;
+    private DbCallLimiter.Permit permit;
+
+    /**
+     * Creates a watch.
+     *
+     * @param deadline     Deadline of the operation, or null
+     * @param cancellation Cancellation of the asynchronous operation running
+     *                     this one, or null
+     */
+    private StatementWatch(final DbDeadline deadline, final Cancellation cancellation) {
+        this.deadline = deadline;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Creates the timer cancelling statements of which the deadline passed.
+     * Cancelled tasks are removed from its queue right away, so the watches
+     * of statements that completed in time are not kept until their
+     * deadline.
+     *
+     * @return Timer running on a single daemon thread
+     */
+    private static ScheduledExecutorService newTimer() {
+        final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, task -> {
+            final Thread thread = new Thread(task, "DbCall-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Starts watching an operation with the given deadline. The operation
+     * should {@link #check()} the watch before it acquires a connection.
+     *
+     * @param deadline Deadline of the operation, or null
+     * @return Watch of the operation
+     */
+    static StatementWatch start(final DbDeadline deadline) {
+        return new StatementWatch(deadline, Cancellation.current());
+    }
+
+    /**
+     * Returns the time left until the deadline of the operation.
+     *
+     * @return Time left in nanoseconds, or {@link Long#MAX_VALUE} without
+     * deadline
+     */
+    long remainingNanos() {
+        return deadline != null ? deadline.remainingNanos() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Throws when the deadline passed or the operation was cancelled, e.g.
+     * after waiting for a connection.
+     *
+     * @throws DbCallTimeoutException Thrown when the deadline passed
+     * @throws DbCallException        Thrown when the operation was cancelled
+     */
+    void check() throws DbCallException {
+        if (cancellation != null && cancellation.cancelled) {
+            throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG + ": cancelled", null);
+        }
+
+        if (deadline != null && deadline.isExpired()) {
+            timedOut = true;
+            throw new DbCallTimeoutException(DbCallTimeoutException.DEFAULT_ERROR_MSG, null);
+        }
+    }
+
+    /**
+     * Watches the given statement: sets its query timeout to the time left
+     * and cancels it when the deadline passes or the operation is cancelled.
+     *
+     * @param stmt Statement of the operation
+     * @throws SQLException    When unable to set the query timeout
+     * @throws DbCallException Thrown when the deadline passed or the
+     *                         operation was cancelled already
+     */
+    void watch(final Statement stmt) throws SQLException, DbCallException {
+        check();
+        statement = stmt;
+        if (deadline != null) {
+            final long remainingNanos = deadline.remainingNanos();
+            stmt.setQueryTimeout(queryTimeoutSeconds(remainingNanos));
+            timer = TIMER.schedule(() -> {
+                timedOut = true;
+                cancel();
+            }, remainingNanos, TimeUnit.NANOSECONDS);
+        }
+
+        if (cancellation != null) {
+            cancellation.watch = this;
+            if (cancellation.cancelled) {
+                cancelQuietly(stmt);
+            }
+        }
+    }
+
+    /**
+     * Sets the limiter permit of the operation, which is told when its
+     * statement returned.
+     *
+     * @param permit Permit of the operation
+     */
+    void limitBy(final DbCallLimiter.Permit permit) {
+        this.permit = permit;
+    }
+
+    /**
+     * Marks the watched statement as returned, ending the latency the
+     * limiter of the operation, if any, adapts to.
+     */
+    void executed() {
+        if (permit != null) {
+            permit.executed();
+        }
+    }
+
+    /**
+     * Returns the query timeout for the given time left, rounded up to whole
+     * seconds, as 0 disables the timeout.
+     *
+     * @param remainingNanos Time left in nanoseconds
+     * @return Query timeout in seconds, at least 1
+     */
+    static int queryTimeoutSeconds(final long remainingNanos) {
+        final long seconds = TimeUnit.NANOSECONDS.toSeconds(remainingNanos - 1L) + 1L;
+        return (int) Math.max(1L, Math.min(Integer.MAX_VALUE, seconds));
+    }
+
+    /**
+     * Translates a failure of the operation, so timeouts are thrown as
+     * {@link DbCallTimeoutException}.
+     *
+     * @param e Failure of the operation
+     * @return Exception to throw
+     */
+    DbCallException failure(final Exception e) {
+        if (timedOut || e instanceof SQLTimeoutException) {
+            return new DbCallTimeoutException(DbCallTimeoutException.DEFAULT_ERROR_MSG, e);
+        }
+
+        return new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+    }
+
+    /**
+     * Stops watching the statement.
+     */
+    @Override
+    public void close() {
+        statement = null;
+        if (timer != null) {
+            timer.cancel(false);
+        }
+
+        if (cancellation != null && cancellation.watch == this) {
+            cancellation.watch = null;
+        }
+    }
+
+    /**
+     * Cancels the watched statement, if any.
+     */
+    private void cancel() {
+        final Statement stmt = statement;
+        if (stmt != null) {
+            cancelQuietly(stmt);
+        }
+    }
+
+    /**
+     * Cancels a statement, ignoring failures, as the statement may have
+     * completed already.
+     *
+     * @param stmt Statement to cancel
+     */
+    private static void cancelQuietly(final Statement stmt) {
+        try {
+            stmt.cancel();
+        } catch (final SQLException e) {
+            // The statement completed or its connection was closed
+        }
+    }
+
+    /**
+     * Cancellation of an asynchronous operation. While the operation runs,
+     * the statements it executes on its thread are watched, so cancelling
+     * the operation cancels the statement running at that moment.
+     */
+    static final class Cancellation {
+
+        private volatile boolean cancelled;
+        private volatile StatementWatch watch;
+
+        /**
+         * Returns the cancellation of the asynchronous operation running on
+         * the current thread.
+         *
+         * @return Cancellation, or null
+         */
+        private static Cancellation current() {
+            final StatementWatch running = CURRENT.get();
+            return running != null ? running.cancellation : null;
+        }
+
+        /**
+         * Runs the given task on the current thread with this cancellation.
+         *
+         * @param task Task to run
+         * @param <R>  Result of the task
+         * @return Result of the task
+         * @throws DbCallException When unable to query database
+         */
+        <R> R run(final Task<R> task) throws DbCallException {
+            final StatementWatch previous = CURRENT.get();
+            CURRENT.set(new StatementWatch(null, this));
+            try {
+                return task.call();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        }
+
+        /**
+         * Cancels the operation and the statement it is running.
+         */
+        void cancel() {
+            cancelled = true;
+            final StatementWatch current = watch;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+    }
+
+    /**
+     * Task run with a cancellation.
+     *
+     * @param <R> Result of the task
+     */
+    @FunctionalInterface
+    interface Task<R> {
+
+        /**
+         * Runs the task.
+         *
+         * @return Result of the task
+         * @throws DbCallException When unable to query database
+         */
+        R call() throws DbCallException;
+
+    }
+
+}
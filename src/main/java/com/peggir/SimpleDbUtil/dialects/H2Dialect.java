@@ -0,0 +1,20 @@
+package com.peggir.SimpleDbUtil.dialects;
+
+import com.peggir.SimpleDbUtil.DbDialect;
+
+/**
+ * Provides a {@link DbDialect} for H2 databases.
+ */
+public class H2Dialect extends LimitClauseDialect {
+
+    /**
+     * Returns the name of the dialect.
+     *
+     * @return "H2"
+     */
+    @Override
+    public String getName() {
+        return "H2";
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.peggir.SimpleDbUtil.dialects;
+
+import com.peggir.SimpleDbUtil.DbDialect;
+
+/**
+ * Base of the {@link DbDialect}s of databases that understand
+ * {@code SELECT EXISTS(...)} and a {@code LIMIT}-clause, such as H2,
+ * PostgreSQL and MySQL. Subclasses only provide their name.
+ */
+public abstract class LimitClauseDialect implements DbDialect {
+
+    /**
+     * Wraps the given SELECT-query in {@code SELECT EXISTS(...)}.
+     *
+     * @param selectQuery Single SELECT-query without terminating semicolon
+     * @return Query returning whether the given query has any result
+     */
+    @Override
+    public String existsQuery(final String selectQuery) {
+        return "SELECT EXISTS(" + selectQuery + "\n)";
+    }
+
+    /**
+     * Appends a {@code LIMIT}-clause to the given SELECT-query.
+     *
+     * @param selectQuery Single SELECT-query without terminating semicolon
+     * @param limit       Maximum amount of rows to return
+     * @return Query returning at most the given amount of rows
+     */
+    @Override
+    public String limitQuery(final String selectQuery, final int limit) {
+        return selectQuery + "\nLIMIT " + limit;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.peggir.SimpleDbUtil.dialects;
+
+import com.peggir.SimpleDbUtil.DbDialect;
+
+/**
+ * Provides a {@link DbDialect} for MySQL (and MariaDB) databases.
+ */
+public class MySqlDialect extends LimitClauseDialect {
+
+    /**
+     * Returns the name of the dialect.
+     *
+     * @return "MySQL"
+     */
+    @Override
+    public String getName() {
+        return "MySQL";
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.peggir.SimpleDbUtil.dialects;
+
+import com.peggir.SimpleDbUtil.DbDialect;
+
+/**
+ * Provides a {@link DbDialect} for PostgreSQL databases.
+ */
+public class PostgreSqlDialect extends LimitClauseDialect {
+
+    /**
+     * Returns the name of the dialect.
+     *
+     * @return "PostgreSQL"
+     */
+    @Override
+    public String getName() {
+        return "PostgreSQL";
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.peggir.SimpleDbUtil.exceptions;
+
+/**
+ * Exception thrown when a database call is not admitted because the database
+ * is overloaded. The call was not sent to the database, so it is safe to
+ * retry later.
+ */
+public class DbCallRejectedException extends DbCallException {
+
+    public static final String DEFAULT_ERROR_MSG = "Database is overloaded";
+
+    /**
+     * Thrown when a database call is not admitted.
+     *
+     * @param message Explanation of the exception
+     * @param cause   Cause of the exception, or null
+     */
+    public DbCallRejectedException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
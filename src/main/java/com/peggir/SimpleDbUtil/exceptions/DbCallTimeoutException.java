@@ -0,0 +1,22 @@
+package com.peggir.SimpleDbUtil.exceptions;
+
+/**
+ * Exception thrown when a database call did not complete before its timeout
+ * or deadline. The statement was cancelled and its connection returned to
+ * the pool.
+ */
+public class DbCallTimeoutException extends DbCallException {
+
+    public static final String DEFAULT_ERROR_MSG = "Database call timed out";
+
+    /**
+     * Thrown when a database call timed out.
+     *
+     * @param message Explanation of the exception
+     * @param cause   Cause of the exception, or null
+     */
+    public DbCallTimeoutException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
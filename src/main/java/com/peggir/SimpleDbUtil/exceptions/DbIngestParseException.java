@@ -0,0 +1,27 @@
+package com.peggir.SimpleDbUtil.exceptions;
+
+/**
+ * Exception thrown when unable to parse a record of an ingested file.
+ */
+public class DbIngestParseException extends Exception {
+
+    /**
+     * Thrown when unable to parse a record.
+     *
+     * @param message Explanation of the exception
+     */
+    public DbIngestParseException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Thrown when unable to parse a record.
+     *
+     * @param message Explanation of the exception
+     * @param cause   Cause of the exception
+     */
+    public DbIngestParseException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
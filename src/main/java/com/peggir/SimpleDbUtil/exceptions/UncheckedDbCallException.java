@@ -0,0 +1,30 @@
+package com.peggir.SimpleDbUtil.exceptions;
+
+/**
+ * Unchecked exception wrapping a {@link DbCallException}. Thrown from places
+ * where checked exceptions cannot be thrown, such as while consuming a
+ * {@link java.util.stream.Stream} of database results.
+ */
+public class UncheckedDbCallException extends RuntimeException {
+
+    /**
+     * Thrown when unable to query a database where checked exceptions are
+     * not allowed.
+     *
+     * @param cause Cause of the exception
+     */
+    public UncheckedDbCallException(final DbCallException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * Returns the wrapped {@link DbCallException}.
+     *
+     * @return Cause of the exception
+     */
+    @Override
+    public synchronized DbCallException getCause() {
+        return (DbCallException) super.getCause();
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.BitSet;
+
+/**
+ * Column of booleans, read from BOOLEAN and BIT columns. Values are stored as
+ * a bit per row, in words of 64 rows laid out like {@link BitSet#valueOf(LongBuffer)}.
+ * SQL NULL is stored as false.
+ */
+public final class BooleanColumn extends FrameColumn {
+
+    private final ByteBuffer words;
+
+    /**
+     * Creates a column.
+     *
+     * @param name  Label of the column in the result set
+     * @param size  Amount of rows
+     * @param nulls Null mask, owned by the column
+     * @param words Words of 64 values in native byte order, owned by the
+     *              column
+     */
+    BooleanColumn(final String name, final int size, final BitSet nulls, final ByteBuffer words) {
+        super(name, size, nulls);
+        this.words = words;
+    }
+
+    /**
+     * Returns the value of the given row.
+     *
+     * @param row Index of the row
+     * @return Value, or false when it is SQL NULL
+     */
+    public boolean getBoolean(final int row) {
+        return (words.getLong((checkRow(row) >>> 6) * Long.BYTES) & (1L << row)) != 0;
+    }
+
+    /**
+     * Returns a read-only view of the words holding the values, 64 rows per
+     * word, starting at the lowest bit.
+     *
+     * @return Buffer with a word for every 64 rows
+     */
+    public LongBuffer asBuffer() {
+        return words.asReadOnlyBuffer().order(words.order()).asLongBuffer();
+    }
+
+    /**
+     * Returns a copy of the values on the heap, in which the index of every
+     * row that is true is set.
+     *
+     * @return Set of true rows
+     */
+    public BitSet toBitSet() {
+        return BitSet.valueOf(asBuffer());
+    }
+
+    /**
+     * Returns the amount of rows that are true.
+     *
+     * @return Amount of true values
+     */
+    public int countTrue() {
+        int count = 0;
+        for (int i = 0, n = words.limit(); i < n; i += Long.BYTES) {
+            count += Long.bitCount(words.getLong(i));
+        }
+
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOffHeap() {
+        return words.isDirect();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean getObject(final int row) {
+        return isNull(row) ? null : getBoolean(row);
+    }
+
+}
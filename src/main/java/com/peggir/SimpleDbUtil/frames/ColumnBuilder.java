@@ -0,0 +1,611 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a single column of a result set, row by row, into a growing typed
+ * buffer, and builds the {@link FrameColumn} of it once all rows are read.
+ */
+abstract class ColumnBuilder {
+
+    /**
+     * Initial amount of rows a buffer is allocated for. Buffers double in
+     * size when full.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    final String name;
+    final BitSet nulls = new BitSet();
+
+    /**
+     * Creates a builder.
+     *
+     * @param name Label of the column in the result set
+     */
+    ColumnBuilder(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns a builder for a column of the given SQL type.
+     *
+     * @param name    Label of the column in the result set
+     * @param sqlType Type of the column, see {@link Types}
+     * @param offHeap Whether to store the values in direct buffers
+     * @return Builder for the column
+     */
+    static ColumnBuilder of(final String name, final int sqlType, final boolean offHeap) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return new IntBuilder(name, offHeap);
+            case Types.BIGINT:
+                return new LongBuilder(name, offHeap);
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleBuilder(name, offHeap);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return new DecimalBuilder(name, offHeap);
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return new BooleanBuilder(name, offHeap);
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return new TimestampBuilder(name, offHeap);
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new DictionaryBuilder(name, offHeap);
+            default:
+                return new ObjectBuilder(name);
+        }
+    }
+
+    /**
+     * Reads the value of the column in the current row of the result set.
+     *
+     * @param rs     Result set positioned at the row
+     * @param column Index of the column, starting at 1
+     * @param row    Index of the row, starting at 0
+     * @throws SQLException When unable to read from the result set
+     */
+    abstract void read(ResultSet rs, int column, int row) throws SQLException;
+
+    /**
+     * Builds the column of the rows read.
+     *
+     * @param size Amount of rows read
+     * @return Column holding the values
+     */
+    abstract FrameColumn build(int size);
+
+    /**
+     * Sets the given row in the null mask when the last value read from the
+     * result set was SQL NULL.
+     *
+     * @param rs  Result set the value was read from
+     * @param row Index of the row
+     * @throws SQLException When unable to read from the result set
+     */
+    final void markNull(final ResultSet rs, final int row) throws SQLException {
+        if (rs.wasNull()) {
+            nulls.set(row);
+        }
+    }
+
+    /**
+     * Allocates a buffer in native byte order.
+     *
+     * @param bytes   Capacity in bytes
+     * @param offHeap Whether to allocate a direct buffer
+     * @return Empty buffer
+     */
+    static ByteBuffer allocate(final int bytes, final boolean offHeap) {
+        final ByteBuffer buffer = offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns a buffer of at least the given capacity with the contents of
+     * the given buffer, doubling its capacity when it is too small.
+     *
+     * @param buffer Buffer written with absolute puts
+     * @param bytes  Capacity needed in bytes
+     * @return The given buffer, or a larger copy of it
+     */
+    static ByteBuffer ensureCapacity(final ByteBuffer buffer, final int bytes) {
+        if (bytes <= buffer.capacity()) {
+            return buffer;
+        }
+
+        final int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(bytes, 2L * buffer.capacity()));
+        return copy(buffer, capacity);
+    }
+
+    /**
+     * Returns the first bytes of the given buffer, in a buffer of exactly
+     * that size positioned at the start, so no unused capacity is retained.
+     *
+     * @param buffer Buffer written with absolute puts
+     * @param bytes  Amount of bytes used
+     * @return Trimmed buffer
+     */
+    static ByteBuffer trim(final ByteBuffer buffer, final int bytes) {
+        return bytes == buffer.capacity() ? buffer : copy(buffer, bytes);
+    }
+
+    /**
+     * Copies the start of a buffer into a new buffer of the same kind.
+     *
+     * @param buffer   Buffer written with absolute puts
+     * @param capacity Capacity of the new buffer in bytes
+     * @return New buffer positioned at the start
+     */
+    private static ByteBuffer copy(final ByteBuffer buffer, final int capacity) {
+        final ByteBuffer source = buffer.duplicate();
+        source.clear();
+        source.limit(Math.min(capacity, source.capacity()));
+
+        final ByteBuffer copy = allocate(capacity, buffer.isDirect());
+        copy.put(source);
+        copy.clear();
+        return copy;
+    }
+
+    /**
+     * Builder of an {@link IntColumn}.
+     */
+    private static final class IntBuilder extends ColumnBuilder {
+
+        private ByteBuffer values;
+
+        /**
+         * Creates a builder.
+         *
+         * @param name    Label of the column in the result set
+         * @param offHeap Whether to store the values in a direct buffer
+         */
+        private IntBuilder(final String name, final boolean offHeap) {
+            super(name);
+            values = allocate(INITIAL_CAPACITY * Integer.BYTES, offHeap);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void read(final ResultSet rs, final int column, final int row) throws SQLException {
+            final int value = rs.getInt(column);
+            markNull(rs, row);
+            values = ensureCapacity(values, (row + 1) * Integer.BYTES);
+            values.putInt(row * Integer.BYTES, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        FrameColumn build(final int size) {
+            return new IntColumn(name, size, nulls, trim(values, size * Integer.BYTES));
+        }
+
+    }
+
+    /**
+     * Builder of a {@link LongColumn}.
+     */
+    private static final class LongBuilder extends ColumnBuilder {
+
+        private ByteBuffer values;
+
+        /**
+         * Creates a builder.
+         *
+         * @param name    Label of the column in the result set
+         * @param offHeap Whether to store the values in a direct buffer
+         */
+        private LongBuilder(final String name, final boolean offHeap) {
+            super(name);
+            values = allocate(INITIAL_CAPACITY * Long.BYTES, offHeap);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void read(final ResultSet rs, final int column, final int row) throws SQLException {
+            final long value = rs.getLong(column);
+            markNull(rs, row);
+            values = ensureCapacity(values, (row + 1) * Long.BYTES);
+            values.putLong(row * Long.BYTES, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        FrameColumn build(final int size) {
+            return new LongColumn(name, size, nulls, trim(values, size * Long.BYTES));
+        }
+
+    }
+
+    /**
+     * Builder of a {@link DoubleColumn}.
+     */
+    private static final class DoubleBuilder extends ColumnBuilder {
+
+        private ByteBuffer values;
+
+        /**
+         * Creates a builder.
+         *
+         * @param name    Label of the column in the result set
+         * @param offHeap Whether to store the values in a direct buffer
+         */
+        private DoubleBuilder(final String name, final boolean offHeap) {
+            super(name);
+            values = allocate(INITIAL_CAPACITY * Double.BYTES, offHeap);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void read(final ResultSet rs, final int column, final int row) throws SQLException {
+            final double value = rs.getDouble(column);
+            markNull(rs, row);
+            values = ensureCapacity(values, (row + 1) * Double.BYTES);
+            values.putDouble(row * Double.BYTES, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        FrameColumn build(final int size) {
+            return new DoubleColumn(name, size, nulls, trim(values, size * Double.BYTES));
+        }
+
+    }
+
+    /**
+     * Builder of a {@link DecimalColumn}, which switches to an
+     * {@link ObjectColumn} of {@link BigDecimal}s once a value does not fit
+     * in a long at the common scale.
+     */
+    private static final class DecimalBuilder extends ColumnBuilder {
+
+        private ByteBuffer values;
+        private int scale;
+        private Object[] objects;
+
+        /**
+         * Creates a builder.
+         *
+         * @param name    Label of the column in the result set
+         * @param offHeap Whether to store the values in a direct buffer
+         */
+        private DecimalBuilder(final String name, final boolean offHeap) {
+            super(name);
+            values = allocate(INITIAL_CAPACITY * Long.BYTES, offHeap);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void read(final ResultSet rs, final int column, final int row) throws SQLException {
+            final BigDecimal value = rs.getBigDecimal(column);
+            if (value == null) {
+                nulls.set(row);
+            } else if (objects == null && !fits(value, row)) {
+                toObjects(row);
+            }
+
+            if (objects != null) {
+                if (row == objects.length) {
+                    objects = Arrays.copyOf(objects, row * 2);
+                }
+
+                objects[row] = value;
+                return;
+            }
+
+            values = ensureCapacity(values, (row + 1) * Long.BYTES);
+            values.putLong(row * Long.BYTES, value == null ? 0 : value.setScale(scale).unscaledValue().longValue());
+        }
+
+        /**
+         * Returns whether the given value fits in a long at the common
+         * scale, first raising the scale of the values read so far when the
+         * value has more digits after the decimal point. The values are
+         * left as they are when they do not fit at the raised scale.
+         *
+         * @param value Value to store
+         * @param rows  Amount of rows read so far
+         * @return True when the value can be stored as unscaled long
+         */
+        private boolean fits(final BigDecimal value, final int rows) {
+            if (value.scale() > scale) {
+                final long factor;
+                try {
+                    factor = BigInteger.TEN.pow(value.scale() - scale).longValueExact();
+                    for (int i = 0; i < rows; i++) {
+                        Math.multiplyExact(values.getLong(i * Long.BYTES), factor);
+                    }
+                } catch (final ArithmeticException e) {
+                    return false;
+                }
+
+                for (int i = 0; i < rows; i++) {
+                    values.putLong(i * Long.BYTES, values.getLong(i * Long.BYTES) * factor);
+                }
+
+                scale = value.scale();
+            }
+
+            return value.setScale(scale).unscaledValue().bitLength() < Long.SIZE;
+        }
+
+        /**
+         * Moves the values read so far to an array of {@link BigDecimal}s.
+         *
+         * @param rows Amount of rows read so far
+         */
+        private void toObjects(final int rows) {
+            objects = new Object[Math.max(INITIAL_CAPACITY, rows * 2)];
+            for (int i = 0; i < rows; i++) {
+                if (!nulls.get(i)) {
+                    objects[i] = BigDecimal.valueOf(values.getLong(i * Long.BYTES), scale);
+                }
+            }
+
+            values = null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        FrameColumn build(final int size) {
+            if (objects != null) {
+                return new ObjectColumn(name, size, nulls, Arrays.copyOf(objects, size));
+            }
+
+            return new DecimalColumn(name, size, nulls, scale, trim(values, size * Long.BYTES));
+        }
+
+    }
+
+    /**
+     * Builder of a {@link BooleanColumn}.
+     */
+    private static final class BooleanBuilder extends ColumnBuilder {
+
+        private ByteBuffer words;
+
+        /**
+         * Creates a builder.
+         *
+         * @param name    Label of the column in the result set
+         * @param offHeap Whether to store the values in a direct buffer
+         */
+        private BooleanBuilder(final String name, final boolean offHeap) {
+            super(name);
+            words = allocate(INITIAL_CAPACITY / Long.SIZE * Long.BYTES, offHeap);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void read(final ResultSet rs, final int column, final int row) throws SQLException {
+            final boolean value = rs.getBoolean(column);
+            markNull(rs, row);
+
+            final int offset = (row >>> 6) * Long.BYTES;
+            words = ensureCapacity(words, offset + Long.BYTES);
+            if (value) {
+                words.putLong(offset, words.getLong(offset) | (1L << row));
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        FrameColumn build(final int size) {
+            return new BooleanColumn(name, size, nulls, trim(words, (size + Long.SIZE - 1) / Long.SIZE * Long.BYTES));
+        }
+
+    }
+
+    /**
+     * Builder of a {@link TimestampColumn}.
+     */
+    private static final class TimestampBuilder extends ColumnBuilder {
+
+        private ByteBuffer values;
+        private ByteBuffer nanos;
+
+        /**
+         * Creates a builder.
+         *
+         * @param name    Label of the column in the result set
+         * @param offHeap Whether to store the values in a direct buffer
+         */
+        private TimestampBuilder(final String name, final boolean offHeap) {
+            super(name);
+            values = allocate(INITIAL_CAPACITY * Long.BYTES, offHeap);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void read(final ResultSet rs, final int column, final int row) throws SQLException {
+            final Timestamp value = rs.getTimestamp(column);
+            if (value == null) {
+                nulls.set(row);
+            }
+
+            values = ensureCapacity(values, (row + 1) * Long.BYTES);
+            values.putLong(row * Long.BYTES, value == null ? 0 : value.getTime());
+
+            final int subMillis = value == null ? 0 : value.getNanos() % 1_000_000;
+            if (subMillis != 0) {
+                if (nanos == null) {
+                    nanos = allocate(Math.max(INITIAL_CAPACITY, row + 1) * Integer.BYTES, values.isDirect());
+                }
+
+                nanos = ensureCapacity(nanos, (row + 1) * Integer.BYTES);
+                nanos.putInt(row * Integer.BYTES, subMillis);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        FrameColumn build(final int size) {
+            return new TimestampColumn(name, size, nulls, trim(values, size * Long.BYTES),
+                    nanos == null ? null : trim(nanos, size * Integer.BYTES));
+        }
+
+    }
+
+    /**
+     * Builder of a dictionary-encoded {@link StringColumn}.
+     */
+    private static final class DictionaryBuilder extends ColumnBuilder {
+
+        private final Map<String, Integer> codesByValue = new HashMap<>();
+        private String[] dictionary = new String[INITIAL_CAPACITY];
+        private ByteBuffer codes;
+
+        /**
+         * Creates a builder.
+         *
+         * @param name    Label of the column in the result set
+         * @param offHeap Whether to store the codes in a direct buffer
+         */
+        private DictionaryBuilder(final String name, final boolean offHeap) {
+            super(name);
+            codes = allocate(INITIAL_CAPACITY * Integer.BYTES, offHeap);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void read(final ResultSet rs, final int column, final int row) throws SQLException {
+            final String value = rs.getString(column);
+            final int code;
+            if (value == null) {
+                nulls.set(row);
+                code = -1;
+            } else {
+                code = encode(value);
+            }
+
+            codes = ensureCapacity(codes, (row + 1) * Integer.BYTES);
+            codes.putInt(row * Integer.BYTES, code);
+        }
+
+        /**
+         * Returns the code of the given value, adding it to the dictionary
+         * when it is new.
+         *
+         * @param value Value to encode
+         * @return Index of the value in the dictionary
+         */
+        private int encode(final String value) {
+            final Integer code = codesByValue.get(value);
+            if (code != null) {
+                return code;
+            }
+
+            final int size = codesByValue.size();
+            if (size == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, size * 2);
+            }
+
+            dictionary[size] = value;
+            codesByValue.put(value, size);
+            return size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        FrameColumn build(final int size) {
+            return new StringColumn(name, size, nulls, Arrays.copyOf(dictionary, codesByValue.size()),
+                    trim(codes, size * Integer.BYTES));
+        }
+
+    }
+
+    /**
+     * Builder of an {@link ObjectColumn}.
+     */
+    private static final class ObjectBuilder extends ColumnBuilder {
+
+        private Object[] values = new Object[INITIAL_CAPACITY];
+
+        /**
+         * Creates a builder.
+         *
+         * @param name Label of the column in the result set
+         */
+        private ObjectBuilder(final String name) {
+            super(name);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void read(final ResultSet rs, final int column, final int row) throws SQLException {
+            final Object value = rs.getObject(column);
+            if (value == null) {
+                nulls.set(row);
+            }
+
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+
+            values[row] = value;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        FrameColumn build(final int size) {
+            return new ObjectColumn(name, size, nulls, Arrays.copyOf(values, size));
+        }
+
+    }
+
+}
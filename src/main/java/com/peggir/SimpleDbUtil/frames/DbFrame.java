@@ -0,0 +1,258 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result set stored column by column, for analytics over many rows. Every
+ * column is kept in a typed buffer with a null mask instead of an object per
+ * value: numbers, booleans and timestamps in primitive buffers, on or off
+ * the heap, and strings dictionary-encoded. A frame of a million rows is a
+ * handful of objects to the garbage collector, and loops over a column read
+ * contiguous memory.
+ */
+public final class DbFrame {
+
+    /**
+     * Maximum amount of rows of a frame, so the buffer of a column of longs
+     * fits in a single {@link java.nio.ByteBuffer}.
+     */
+    public static final int MAX_ROWS = Integer.MAX_VALUE / Long.BYTES;
+
+    private final int rowCount;
+    private final List<FrameColumn> columns;
+    private final Map<String, FrameColumn> columnsByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Creates a frame.
+     *
+     * @param rowCount Amount of rows
+     * @param columns  Columns, in order of the result set
+     */
+    private DbFrame(final int rowCount, final FrameColumn[] columns) {
+        this.rowCount = rowCount;
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+        for (final FrameColumn column : columns) {
+            columnsByName.putIfAbsent(column.getName(), column);
+        }
+    }
+
+    /**
+     * Reads the remaining rows of a result set into a frame. The metadata of
+     * the result set is read once to pick the buffer of every column.
+     *
+     * @param rs      Result set to read
+     * @param offHeap Whether to store numbers, booleans, timestamps and
+     *                string codes in direct buffers outside the Java heap
+     * @return Frame holding the rows
+     * @throws SQLException          When unable to read from the result set
+     * @throws IllegalStateException When the result set has more than
+     *                               {@link #MAX_ROWS} rows
+     */
+    public static DbFrame read(final ResultSet rs, final boolean offHeap) throws SQLException {
+        final ResultSetMetaData metaData = rs.getMetaData();
+        final ColumnBuilder[] builders = new ColumnBuilder[metaData.getColumnCount()];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = ColumnBuilder.of(metaData.getColumnLabel(i + 1), metaData.getColumnType(i + 1), offHeap);
+        }
+
+        int rows = 0;
+        while (rs.next()) {
+            if (rows == MAX_ROWS) {
+                throw new IllegalStateException("Result set exceeds " + MAX_ROWS + " rows");
+            }
+
+            for (int i = 0; i < builders.length; i++) {
+                builders[i].read(rs, i + 1, rows);
+            }
+
+            rows++;
+        }
+
+        final FrameColumn[] columns = new FrameColumn[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            columns[i] = builders[i].build(rows);
+        }
+
+        return new DbFrame(rows, columns);
+    }
+
+    /**
+     * Returns the amount of rows.
+     *
+     * @return Amount of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the amount of columns.
+     *
+     * @return Amount of columns
+     */
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    /**
+     * Returns the columns, in order of the result set.
+     *
+     * @return Unmodifiable list of columns
+     */
+    public List<FrameColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the labels of the columns, in order of the result set.
+     *
+     * @return Column labels
+     */
+    public List<String> getColumnNames() {
+        final List<String> names = new ArrayList<>(columns.size());
+        for (final FrameColumn column : columns) {
+            names.add(column.getName());
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns the column at the given index.
+     *
+     * @param index Index of the column, starting at 0
+     * @return Column
+     * @throws IndexOutOfBoundsException When the frame has no such column
+     */
+    public FrameColumn getColumn(final int index) throws IndexOutOfBoundsException {
+        return columns.get(index);
+    }
+
+    /**
+     * Returns the column with the given label, ignoring case. When labels
+     * repeat, the first column with the label is returned.
+     *
+     * @param name Label of the column
+     * @return Column
+     * @throws IllegalArgumentException When the frame has no such column
+     */
+    public FrameColumn getColumn(final String name) throws IllegalArgumentException {
+        final FrameColumn column = columnsByName.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("No column " + name);
+        }
+
+        return column;
+    }
+
+    /**
+     * Returns the int column with the given label, ignoring case.
+     *
+     * @param name Label of the column
+     * @return Column
+     * @throws IllegalArgumentException When the frame has no such int column
+     */
+    public IntColumn getIntColumn(final String name) throws IllegalArgumentException {
+        return getColumn(name, IntColumn.class);
+    }
+
+    /**
+     * Returns the long column with the given label, ignoring case.
+     *
+     * @param name Label of the column
+     * @return Column
+     * @throws IllegalArgumentException When the frame has no such long column
+     */
+    public LongColumn getLongColumn(final String name) throws IllegalArgumentException {
+        return getColumn(name, LongColumn.class);
+    }
+
+    /**
+     * Returns the double column with the given label, ignoring case.
+     *
+     * @param name Label of the column
+     * @return Column
+     * @throws IllegalArgumentException When the frame has no such double
+     *                                  column
+     */
+    public DoubleColumn getDoubleColumn(final String name) throws IllegalArgumentException {
+        return getColumn(name, DoubleColumn.class);
+    }
+
+    /**
+     * Returns the decimal column with the given label, ignoring case.
+     *
+     * @param name Label of the column
+     * @return Column
+     * @throws IllegalArgumentException When the frame has no such decimal
+     *                                  column
+     */
+    public DecimalColumn getDecimalColumn(final String name) throws IllegalArgumentException {
+        return getColumn(name, DecimalColumn.class);
+    }
+
+    /**
+     * Returns the boolean column with the given label, ignoring case.
+     *
+     * @param name Label of the column
+     * @return Column
+     * @throws IllegalArgumentException When the frame has no such boolean
+     *                                  column
+     */
+    public BooleanColumn getBooleanColumn(final String name) throws IllegalArgumentException {
+        return getColumn(name, BooleanColumn.class);
+    }
+
+    /**
+     * Returns the timestamp column with the given label, ignoring case.
+     *
+     * @param name Label of the column
+     * @return Column
+     * @throws IllegalArgumentException When the frame has no such timestamp
+     *                                  column
+     */
+    public TimestampColumn getTimestampColumn(final String name) throws IllegalArgumentException {
+        return getColumn(name, TimestampColumn.class);
+    }
+
+    /**
+     * Returns the string column with the given label, ignoring case.
+     *
+     * @param name Label of the column
+     * @return Column
+     * @throws IllegalArgumentException When the frame has no such string
+     *                                  column
+     */
+    public StringColumn getStringColumn(final String name) throws IllegalArgumentException {
+        return getColumn(name, StringColumn.class);
+    }
+
+    /**
+     * Returns the column with the given label and type.
+     *
+     * @param name Label of the column
+     * @param type Expected type of the column
+     * @param <C>  Type of the column
+     * @return Column
+     * @throws IllegalArgumentException When the frame has no such column, or
+     *                                  it is of another type
+     */
+    private <C extends FrameColumn> C getColumn(final String name, final Class<C> type)
+            throws IllegalArgumentException {
+        final FrameColumn column = getColumn(name);
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("Column " + name + " is no " + type.getSimpleName());
+        }
+
+        return type.cast(column);
+    }
+
+}
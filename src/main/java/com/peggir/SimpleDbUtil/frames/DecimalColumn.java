@@ -0,0 +1,128 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.BitSet;
+
+/**
+ * Column of exact decimals, read from DECIMAL and NUMERIC columns. Values
+ * are stored as unscaled longs with a single scale for the column, so the
+ * value of a row is {@code unscaled × 10^-scale}. Columns of which a value
+ * does not fit in a long at the common scale are read into an
+ * {@link ObjectColumn} of {@link BigDecimal}s instead. SQL NULL is stored as
+ * 0, so sums over the buffer need no null check.
+ */
+public final class DecimalColumn extends FrameColumn {
+
+    private final int scale;
+    private final ByteBuffer values;
+
+    /**
+     * Creates a column.
+     *
+     * @param name   Label of the column in the result set
+     * @param size   Amount of rows
+     * @param nulls  Null mask, owned by the column
+     * @param scale  Scale of every value
+     * @param values Unscaled values in native byte order, owned by the
+     *               column
+     */
+    DecimalColumn(final String name, final int size, final BitSet nulls, final int scale, final ByteBuffer values) {
+        super(name, size, nulls);
+        this.scale = scale;
+        this.values = values;
+    }
+
+    /**
+     * Returns the scale of every value: the amount of digits after the
+     * decimal point.
+     *
+     * @return Scale, at least 0
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Returns the unscaled value of the given row.
+     *
+     * @param row Index of the row
+     * @return Unscaled value, or 0 when it is SQL NULL
+     */
+    public long getUnscaled(final int row) {
+        return values.getLong(checkRow(row) * Long.BYTES);
+    }
+
+    /**
+     * Returns the value of the given row.
+     *
+     * @param row Index of the row
+     * @return Exact value, or null when it is SQL NULL
+     */
+    public BigDecimal getBigDecimal(final int row) {
+        return isNull(row) ? null : BigDecimal.valueOf(getUnscaled(row), scale);
+    }
+
+    /**
+     * Returns the value of the given row as a double, rounded when it has
+     * more digits than a double holds.
+     *
+     * @param row Index of the row
+     * @return Value, or 0 when it is SQL NULL
+     */
+    public double getDouble(final int row) {
+        final long unscaled = getUnscaled(row);
+        return scale == 0 ? unscaled : BigDecimal.valueOf(unscaled, scale).doubleValue();
+    }
+
+    /**
+     * Returns a read-only view of the unscaled values, for tight loops over
+     * the column without copying it.
+     *
+     * @return Buffer with a value for every row
+     */
+    public LongBuffer asBuffer() {
+        return values.asReadOnlyBuffer().order(values.order()).asLongBuffer();
+    }
+
+    /**
+     * Returns the exact sum of the values, ignoring SQL NULL.
+     *
+     * @return Sum of the values, at the scale of the column
+     */
+    public BigDecimal sum() {
+        long sum = 0;
+        BigInteger overflow = BigInteger.ZERO;
+        for (int i = 0, n = size() * Long.BYTES; i < n; i += Long.BYTES) {
+            final long value = values.getLong(i);
+            final long result = sum + value;
+            if (((sum ^ result) & (value ^ result)) < 0) {
+                overflow = overflow.add(BigInteger.valueOf(sum));
+                sum = value;
+            } else {
+                sum = result;
+            }
+        }
+
+        return new BigDecimal(overflow.add(BigInteger.valueOf(sum)), scale);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOffHeap() {
+        return values.isDirect();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BigDecimal getObject(final int row) {
+        return getBigDecimal(row);
+    }
+
+}
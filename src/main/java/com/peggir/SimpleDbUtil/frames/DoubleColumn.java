@@ -0,0 +1,91 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.BitSet;
+
+/**
+ * Column of doubles, read from REAL, FLOAT and DOUBLE columns. DECIMAL and
+ * NUMERIC columns are read into a {@link DecimalColumn} instead, so they
+ * keep their exact value. SQL NULL is stored as 0, so sums over the buffer
+ * need no null check.
+ */
+public final class DoubleColumn extends FrameColumn {
+
+    private final ByteBuffer values;
+
+    /**
+     * Creates a column.
+     *
+     * @param name   Label of the column in the result set
+     * @param size   Amount of rows
+     * @param nulls  Null mask, owned by the column
+     * @param values Values in native byte order, owned by the column
+     */
+    DoubleColumn(final String name, final int size, final BitSet nulls, final ByteBuffer values) {
+        super(name, size, nulls);
+        this.values = values;
+    }
+
+    /**
+     * Returns the value of the given row.
+     *
+     * @param row Index of the row
+     * @return Value, or 0 when it is SQL NULL
+     */
+    public double getDouble(final int row) {
+        return values.getDouble(checkRow(row) * Double.BYTES);
+    }
+
+    /**
+     * Returns a read-only view of the values, for tight loops over the
+     * column without copying it.
+     *
+     * @return Buffer with a value for every row
+     */
+    public DoubleBuffer asBuffer() {
+        return values.asReadOnlyBuffer().order(values.order()).asDoubleBuffer();
+    }
+
+    /**
+     * Returns a copy of the values on the heap.
+     *
+     * @return Value for every row
+     */
+    public double[] toArray() {
+        final double[] array = new double[size()];
+        asBuffer().get(array);
+        return array;
+    }
+
+    /**
+     * Returns the sum of the values, ignoring SQL NULL.
+     *
+     * @return Sum of the values
+     */
+    public double sum() {
+        double sum = 0;
+        for (int i = 0, n = size() * Double.BYTES; i < n; i += Double.BYTES) {
+            sum += values.getDouble(i);
+        }
+
+        return sum;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOffHeap() {
+        return values.isDirect();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Double getObject(final int row) {
+        return isNull(row) ? null : getDouble(row);
+    }
+
+}
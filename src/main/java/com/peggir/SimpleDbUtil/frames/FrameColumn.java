@@ -0,0 +1,106 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import java.util.BitSet;
+
+/**
+ * Column of a {@link DbFrame}. Values are stored column by column in a typed
+ * buffer, with a null mask holding the rows that are SQL NULL.
+ */
+public abstract class FrameColumn {
+
+    private final String name;
+    private final int size;
+    private final BitSet nulls;
+
+    /**
+     * Creates a column.
+     *
+     * @param name  Label of the column in the result set
+     * @param size  Amount of rows
+     * @param nulls Null mask, owned by the column
+     */
+    FrameColumn(final String name, final int size, final BitSet nulls) {
+        this.name = name;
+        this.size = size;
+        this.nulls = nulls;
+    }
+
+    /**
+     * Returns the label of the column in the result set.
+     *
+     * @return Column label
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the amount of rows in the column.
+     *
+     * @return Amount of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the value of the given row is SQL NULL.
+     *
+     * @param row Index of the row
+     * @return True when the value is SQL NULL
+     */
+    public boolean isNull(final int row) {
+        return nulls.get(checkRow(row));
+    }
+
+    /**
+     * Returns the amount of rows that are SQL NULL.
+     *
+     * @return Amount of NULL values
+     */
+    public int getNullCount() {
+        return nulls.cardinality();
+    }
+
+    /**
+     * Returns a copy of the null mask, in which the index of every row that
+     * is SQL NULL is set.
+     *
+     * @return Null mask
+     */
+    public BitSet getNulls() {
+        return (BitSet) nulls.clone();
+    }
+
+    /**
+     * Returns whether the values are stored outside the Java heap.
+     *
+     * @return True when stored off-heap
+     */
+    public abstract boolean isOffHeap();
+
+    /**
+     * Returns the value of the given row as an object. Prefer the typed
+     * accessors of the subclass, which do not box the value.
+     *
+     * @param row Index of the row
+     * @return Value or null when it is SQL NULL
+     */
+    public abstract Object getObject(int row);
+
+    /**
+     * Validates the index of a row.
+     *
+     * @param row Index of the row
+     * @return The given index
+     * @throws IndexOutOfBoundsException When the column has no such row
+     */
+    final int checkRow(final int row) throws IndexOutOfBoundsException {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+
+        return row;
+    }
+
+}
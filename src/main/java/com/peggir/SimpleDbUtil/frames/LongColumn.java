@@ -0,0 +1,89 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.BitSet;
+
+/**
+ * Column of longs, read from BIGINT columns. SQL NULL is stored as 0, so
+ * sums over the buffer need no null check.
+ */
+public final class LongColumn extends FrameColumn {
+
+    private final ByteBuffer values;
+
+    /**
+     * Creates a column.
+     *
+     * @param name   Label of the column in the result set
+     * @param size   Amount of rows
+     * @param nulls  Null mask, owned by the column
+     * @param values Values in native byte order, owned by the column
+     */
+    LongColumn(final String name, final int size, final BitSet nulls, final ByteBuffer values) {
+        super(name, size, nulls);
+        this.values = values;
+    }
+
+    /**
+     * Returns the value of the given row.
+     *
+     * @param row Index of the row
+     * @return Value, or 0 when it is SQL NULL
+     */
+    public long getLong(final int row) {
+        return values.getLong(checkRow(row) * Long.BYTES);
+    }
+
+    /**
+     * Returns a read-only view of the values, for tight loops over the
+     * column without copying it.
+     *
+     * @return Buffer with a value for every row
+     */
+    public LongBuffer asBuffer() {
+        return values.asReadOnlyBuffer().order(values.order()).asLongBuffer();
+    }
+
+    /**
+     * Returns a copy of the values on the heap.
+     *
+     * @return Value for every row
+     */
+    public long[] toArray() {
+        final long[] array = new long[size()];
+        asBuffer().get(array);
+        return array;
+    }
+
+    /**
+     * Returns the sum of the values, ignoring SQL NULL.
+     *
+     * @return Sum of the values
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0, n = size() * Long.BYTES; i < n; i += Long.BYTES) {
+            sum += values.getLong(i);
+        }
+
+        return sum;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOffHeap() {
+        return values.isDirect();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long getObject(final int row) {
+        return isNull(row) ? null : getLong(row);
+    }
+
+}
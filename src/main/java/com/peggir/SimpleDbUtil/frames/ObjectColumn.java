@@ -0,0 +1,43 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import java.util.BitSet;
+
+/**
+ * Column of objects as returned by {@link java.sql.ResultSet#getObject(int)},
+ * for every column type without a columnar encoding, such as binary data,
+ * UUIDs and arrays.
+ */
+public final class ObjectColumn extends FrameColumn {
+
+    private final Object[] values;
+
+    /**
+     * Creates a column.
+     *
+     * @param name   Label of the column in the result set
+     * @param size   Amount of rows
+     * @param nulls  Null mask, owned by the column
+     * @param values Values, owned by the column
+     */
+    ObjectColumn(final String name, final int size, final BitSet nulls, final Object[] values) {
+        super(name, size, nulls);
+        this.values = values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOffHeap() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getObject(final int row) {
+        return values[checkRow(row)];
+    }
+
+}
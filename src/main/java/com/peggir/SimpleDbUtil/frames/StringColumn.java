@@ -0,0 +1,108 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dictionary-encoded column of strings, read from CHAR and VARCHAR columns.
+ * Every distinct value is kept once in the dictionary, and every row holds
+ * the code of its value: the index in the dictionary. Columns with few
+ * distinct values, such as categories or statuses, take four bytes per row,
+ * and can be grouped by comparing codes instead of strings. SQL NULL is
+ * stored as code -1.
+ */
+public final class StringColumn extends FrameColumn {
+
+    private final String[] dictionary;
+    private final ByteBuffer codes;
+
+    /**
+     * Creates a column.
+     *
+     * @param name       Label of the column in the result set
+     * @param size       Amount of rows
+     * @param nulls      Null mask, owned by the column
+     * @param dictionary Distinct values, in order of appearance
+     * @param codes      Codes in native byte order, owned by the column
+     */
+    StringColumn(final String name,
+                 final int size,
+                 final BitSet nulls,
+                 final String[] dictionary,
+                 final ByteBuffer codes) {
+        super(name, size, nulls);
+        this.dictionary = dictionary;
+        this.codes = codes;
+    }
+
+    /**
+     * Returns the value of the given row.
+     *
+     * @param row Index of the row
+     * @return Value or null when it is SQL NULL
+     */
+    public String getString(final int row) {
+        final int code = getCode(row);
+        return code < 0 ? null : dictionary[code];
+    }
+
+    /**
+     * Returns the code of the value of the given row.
+     *
+     * @param row Index of the row
+     * @return Index of the value in the dictionary, or -1 when it is SQL
+     * NULL
+     */
+    public int getCode(final int row) {
+        return codes.getInt(checkRow(row) * Integer.BYTES);
+    }
+
+    /**
+     * Returns the distinct values of the column, in order of appearance.
+     *
+     * @return Unmodifiable dictionary, indexed by code
+     */
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(Arrays.asList(dictionary));
+    }
+
+    /**
+     * Returns the amount of distinct values, not counting SQL NULL.
+     *
+     * @return Size of the dictionary
+     */
+    public int getCardinality() {
+        return dictionary.length;
+    }
+
+    /**
+     * Returns a read-only view of the codes, for tight loops over the column
+     * without copying it.
+     *
+     * @return Buffer with a code for every row
+     */
+    public IntBuffer asBuffer() {
+        return codes.asReadOnlyBuffer().order(codes.order()).asIntBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOffHeap() {
+        return codes.isDirect();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getObject(final int row) {
+        return getString(row);
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.sql.Timestamp;
+import java.util.BitSet;
+
+/**
+ * Column of points in time, read from DATE, TIME and TIMESTAMP columns.
+ * Values are stored as milliseconds since the epoch, as returned by
+ * {@link Timestamp#getTime()}. The nanoseconds within the millisecond are
+ * kept in a second buffer, which is only allocated when a value has them,
+ * so {@link #getTimestamp(int)} returns the value exactly as read. SQL NULL
+ * is stored as 0.
+ */
+public final class TimestampColumn extends FrameColumn {
+
+    private final ByteBuffer values;
+    private final ByteBuffer nanos;
+
+    /**
+     * Creates a column.
+     *
+     * @param name   Label of the column in the result set
+     * @param size   Amount of rows
+     * @param nulls  Null mask, owned by the column
+     * @param values Epoch milliseconds in native byte order, owned by the
+     *               column
+     * @param nanos  Nanoseconds within the millisecond as ints in native
+     *               byte order, owned by the column, or null when they are
+     *               all 0
+     */
+    TimestampColumn(final String name,
+                    final int size,
+                    final BitSet nulls,
+                    final ByteBuffer values,
+                    final ByteBuffer nanos) {
+        super(name, size, nulls);
+        this.values = values;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Returns the value of the given row in milliseconds since the epoch.
+     *
+     * @param row Index of the row
+     * @return Epoch milliseconds, or 0 when it is SQL NULL
+     */
+    public long getEpochMillis(final int row) {
+        return values.getLong(checkRow(row) * Long.BYTES);
+    }
+
+    /**
+     * Returns the nanoseconds of the value of the given row within its
+     * millisecond, which {@link #getEpochMillis(int)} leaves out.
+     *
+     * @param row Index of the row
+     * @return Nanoseconds between 0 and 999,999
+     */
+    public int getSubMillisNanos(final int row) {
+        checkRow(row);
+        return nanos == null ? 0 : nanos.getInt(row * Integer.BYTES);
+    }
+
+    /**
+     * Returns the value of the given row.
+     *
+     * @param row Index of the row
+     * @return New timestamp, with nanosecond precision, or null when it is
+     * SQL NULL
+     */
+    public Timestamp getTimestamp(final int row) {
+        if (isNull(row)) {
+            return null;
+        }
+
+        final Timestamp timestamp = new Timestamp(getEpochMillis(row));
+        final int subMillis = getSubMillisNanos(row);
+        if (subMillis != 0) {
+            timestamp.setNanos(timestamp.getNanos() + subMillis);
+        }
+
+        return timestamp;
+    }
+
+    /**
+     * Returns a read-only view of the epoch milliseconds, for tight loops over
+     * the column without copying it.
+     *
+     * @return Buffer with a value for every row
+     */
+    public LongBuffer asBuffer() {
+        return values.asReadOnlyBuffer().order(values.order()).asLongBuffer();
+    }
+
+    /**
+     * Returns a copy of the epoch milliseconds on the heap.
+     *
+     * @return Value for every row
+     */
+    public long[] toArray() {
+        final long[] array = new long[size()];
+        asBuffer().get(array);
+        return array;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOffHeap() {
+        return values.isDirect();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Timestamp getObject(final int row) {
+        return getTimestamp(row);
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.peggir.SimpleDbUtil.ingest;
+
+import com.peggir.SimpleDbUtil.exceptions.DbIngestParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link RecordFormat} for comma separated values (RFC 4180). Every record is
+ * parsed to an array of its fields. Quoted fields may contain delimiters,
+ * line breaks and doubled quotes. Empty unquoted fields are parsed to null,
+ * so they can be inserted as SQL NULL; empty quoted fields are parsed to an
+ * empty string.
+ */
+public class CsvFormat implements RecordFormat<String[]> {
+
+    private char delimiter = ',';
+    private char quote = '"';
+    private boolean header;
+
+    /**
+     * Parses a record to its fields.
+     *
+     * @param record Text of the record, without line terminator
+     * @return Fields of the record
+     * @throws DbIngestParseException Thrown when a quoted field is not
+     *                                terminated or followed by other text
+     */
+    @Override
+    public String[] parse(final String record) throws DbIngestParseException {
+        final List<String> fields = new ArrayList<>();
+        final int length = record.length();
+        int i = 0;
+        while (true) {
+            if (i < length && record.charAt(i) == quote) {
+                i = parseQuoted(record, i + 1, fields);
+                if (i < length && record.charAt(i) != delimiter) {
+                    throw new DbIngestParseException("Unexpected character after quoted field at index " + i);
+                }
+            } else {
+                int end = record.indexOf(delimiter, i);
+                if (end < 0) {
+                    end = length;
+                }
+
+                fields.add(end == i ? null : record.substring(i, end));
+                i = end;
+            }
+
+            if (i >= length) {
+                return fields.toArray(new String[0]);
+            }
+
+            i++;
+            if (i == length) {
+                fields.add(null);
+                return fields.toArray(new String[0]);
+            }
+        }
+    }
+
+    /**
+     * Parses a quoted field.
+     *
+     * @param record Text of the record
+     * @param start  Index after the opening quote
+     * @param fields Fields to add the field to
+     * @return Index after the closing quote
+     * @throws DbIngestParseException Thrown when the field is not terminated
+     */
+    private int parseQuoted(final String record, final int start, final List<String> fields)
+            throws DbIngestParseException {
+        final StringBuilder field = new StringBuilder();
+        int i = start;
+        while (i < record.length()) {
+            final char c = record.charAt(i++);
+            if (c != quote) {
+                field.append(c);
+            } else if (i < record.length() && record.charAt(i) == quote) {
+                field.append(quote);
+                i++;
+            } else {
+                fields.add(field.toString());
+                return i;
+            }
+        }
+
+        throw new DbIngestParseException("Unterminated quoted field starting at index " + (start - 1));
+    }
+
+    /**
+     * Returns the quote character.
+     *
+     * @return Quote character
+     */
+    @Override
+    public int getQuote() {
+        return quote;
+    }
+
+    /**
+     * Returns whether the first record is a header.
+     *
+     * @return True when the first record is skipped
+     */
+    @Override
+    public boolean hasHeader() {
+        return header;
+    }
+
+    /**
+     * Sets the character separating fields. Defaults to a comma.
+     *
+     * @param delimiter Delimiter
+     */
+    public void setDelimiter(final char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Sets the character quoting fields. Defaults to a double quote.
+     *
+     * @param quote Quote character
+     */
+    public void setQuote(final char quote) {
+        this.quote = quote;
+    }
+
+    /**
+     * Sets whether the first record is a header that is not ingested.
+     * Defaults to false.
+     *
+     * @param header True to skip the first record
+     */
+    public void setHeader(final boolean header) {
+        this.header = header;
+    }
+
+}
@@ -0,0 +1,756 @@
+package com.peggir.SimpleDbUtil.ingest;
+
+import com.peggir.SimpleDbUtil.DbCall;
+import com.peggir.SimpleDbUtil.DbCallBatchArguments;
+import com.peggir.SimpleDbUtil.DbCallExecutors;
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.exceptions.DbIngestParseException;
+import org.intellij.lang.annotations.Language;
+import play.db.Database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads large CSV, NDJSON or other line based files into a table with
+ * batched inserts, using all cores. The calling thread streams the file
+ * through a {@link FileChannel} in chunks that end at a record boundary.
+ * Parser threads split the chunks into records and parse them with a
+ * {@link RecordFormat}. Writer threads each hold a single connection and
+ * insert the records with {@link DbCallBatchArguments} in JDBC batches, every
+ * batch committed on its own. The stages are connected by bounded queues, so
+ * a slow database slows down reading instead of filling the memory.
+ * <p>
+ * Records that cannot be parsed or inserted are counted and kept in the
+ * {@link DbIngestProgress}; when a batch fails, its records are inserted one
+ * by one to find the failing ones. The run is aborted when more records fail
+ * than allowed. Ingesting is not atomic: batches committed before a failure
+ * stay in the table. Records are inserted in no particular order.
+ * <p>
+ * The file must use a charset in which a line feed is a single byte that
+ * does not occur in other characters, such as UTF-8 or ISO-8859-1.
+ *
+ * @param <R> Object represented by a record
+ */
+public class DbIngest<R> {
+
+    /**
+     * Default size of the chunks read from the file.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Default amount of writer threads, and so of connections.
+     */
+    public static final int DEFAULT_WRITER_THREADS = 4;
+
+    /**
+     * Default maximum amount of failed records before a run is aborted.
+     */
+    public static final long DEFAULT_MAX_ERRORS = 100;
+
+    private Database db;
+    private String query;
+    private RecordFormat<R> format;
+    private DbCallBatchArguments<R> binder;
+    private Charset charset = StandardCharsets.UTF_8;
+    private int parserThreads = Runtime.getRuntime().availableProcessors();
+    private int writerThreads = DEFAULT_WRITER_THREADS;
+    private int batchSize = DbCall.DEFAULT_BATCH_SIZE;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int queueCapacity;
+    private long maxErrors = DEFAULT_MAX_ERRORS;
+    private volatile DbIngestProgress progress;
+
+    /**
+     * Creates an ingest inserting every record of a file with the given
+     * query.
+     *
+     * @param db     Database to insert into
+     * @param query  Parameterized INSERT-statement executed per record
+     * @param format Format of the records
+     * @param binder Binder injecting the parameters of a record
+     */
+    public DbIngest(final Database db,
+                    @Language("SQL") final String query,
+                    final RecordFormat<R> format,
+                    final DbCallBatchArguments<R> binder) {
+        this.db = db;
+        this.query = query;
+        this.format = format;
+        this.binder = binder;
+    }
+
+    /**
+     * Creates an ingest without settings.
+     */
+    public DbIngest() {
+    }
+
+    /**
+     * Ingests the given file and blocks until every record was inserted or
+     * the run was aborted.
+     *
+     * @param file File to ingest
+     * @return Final counters of the run
+     * @throws DbCallException Thrown when unable to read the file or connect
+     *                         to the database, or when more records failed
+     *                         than allowed
+     */
+    public DbIngestProgress ingest(final Path file) throws DbCallException {
+        validate(file);
+        final Run run = new Run();
+        progress = run.progress;
+        run.execute(file);
+        return run.progress;
+    }
+
+    /**
+     * Returns the counters of the current or last run.
+     *
+     * @return Counters, or null before the first run
+     */
+    public DbIngestProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Validates the settings before a run.
+     *
+     * @param file File to ingest
+     * @throws IllegalArgumentException Thrown when a setting is missing or
+     *                                  invalid
+     */
+    private void validate(final Path file) throws IllegalArgumentException {
+        if (file == null) {
+            throw new IllegalArgumentException("No file set");
+        }
+
+        if (db == null) {
+            throw new IllegalArgumentException("No database set");
+        }
+
+        if (query == null || query.isEmpty()) {
+            throw new IllegalArgumentException("No query set");
+        }
+
+        if (format == null) {
+            throw new IllegalArgumentException("No RecordFormat set");
+        }
+
+        if (binder == null) {
+            throw new IllegalArgumentException("No DbCallBatchArguments set");
+        }
+
+        if (parserThreads < 1 || writerThreads < 1) {
+            throw new IllegalArgumentException("No positive amount of threads set");
+        }
+
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("No positive batch size set");
+        }
+
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("No positive chunk size set");
+        }
+    }
+
+    /**
+     * Sets the database to insert into.
+     *
+     * @param db Database
+     */
+    public void setDb(final Database db) {
+        this.db = db;
+    }
+
+    /**
+     * Sets the parameterized INSERT-statement executed per record.
+     *
+     * @param query SQL-statement
+     */
+    public void setQuery(@Language("SQL") final String query) {
+        this.query = query;
+    }
+
+    /**
+     * Sets the format of the records.
+     *
+     * @param format Record format
+     */
+    public void setFormat(final RecordFormat<R> format) {
+        this.format = format;
+    }
+
+    /**
+     * Sets the binder injecting the parameters of a record.
+     *
+     * @param binder Binder
+     */
+    public void setBinder(final DbCallBatchArguments<R> binder) {
+        this.binder = binder;
+    }
+
+    /**
+     * Sets the charset of the file. Defaults to UTF-8.
+     *
+     * @param charset Charset in which a line feed is a single byte
+     */
+    public void setCharset(final Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Sets the amount of threads parsing records. Defaults to the amount of
+     * processors.
+     *
+     * @param parserThreads Amount of threads
+     */
+    public void setParserThreads(final int parserThreads) {
+        this.parserThreads = parserThreads;
+    }
+
+    /**
+     * Sets the amount of threads inserting records, each using its own
+     * connection. Defaults to {@link #DEFAULT_WRITER_THREADS}; should not
+     * exceed the size of the connection pool.
+     *
+     * @param writerThreads Amount of threads
+     */
+    public void setWriterThreads(final int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+
+    /**
+     * Sets the amount of records inserted and committed per batch. Defaults
+     * to {@link DbCall#DEFAULT_BATCH_SIZE}.
+     *
+     * @param batchSize Amount of records
+     */
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the size of the chunks read from the file. Chunks grow when a
+     * single record is larger. Defaults to {@link #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param chunkSize Size in bytes
+     */
+    public void setChunkSize(final int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sets the capacity of the queues between reading, parsing and
+     * inserting. Defaults to twice the amount of threads of the consuming
+     * stage.
+     *
+     * @param queueCapacity Amount of chunks or batches, or 0 for the default
+     */
+    public void setQueueCapacity(final int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Sets the maximum amount of records that may fail before a run is
+     * aborted. Also the maximum amount of errors kept in the
+     * {@link DbIngestProgress}. Defaults to {@link #DEFAULT_MAX_ERRORS}.
+     *
+     * @param maxErrors Maximum amount of failed records, 0 to abort on the
+     *                  first failure
+     */
+    public void setMaxErrors(final long maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Part of a file ending at a record boundary.
+     */
+    private static final class Chunk {
+
+        private final byte[] bytes;
+        private final long line;
+        private final boolean first;
+
+        /**
+         * Creates a chunk.
+         *
+         * @param bytes Bytes of the chunk
+         * @param line  Line number at which the chunk starts
+         * @param first Whether the chunk is the start of the file
+         */
+        private Chunk(final byte[] bytes, final long line, final boolean first) {
+            this.bytes = bytes;
+            this.line = line;
+            this.first = first;
+        }
+
+    }
+
+    /**
+     * Parsed record waiting to be inserted.
+     *
+     * @param <R> Object represented by the record
+     */
+    private static final class ParsedRecord<R> {
+
+        private final long line;
+        private final String text;
+        private final R record;
+
+        /**
+         * Creates a parsed record.
+         *
+         * @param line   Line number at which the record starts
+         * @param text   Text of the record
+         * @param record Parsed record
+         */
+        private ParsedRecord(final long line, final String text, final R record) {
+            this.line = line;
+            this.text = text;
+            this.record = record;
+        }
+
+    }
+
+    /**
+     * State of a single run, shared by the reading, parser and writer
+     * threads.
+     */
+    private final class Run {
+
+        private final Chunk endOfChunks = new Chunk(null, 0, false);
+        private final List<ParsedRecord<R>> endOfBatches = new ArrayList<>(0);
+        private final DbIngestProgress progress = new DbIngestProgress(maxErrors);
+        private final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(capacity(parserThreads));
+        private final BlockingQueue<List<ParsedRecord<R>>> batches = new ArrayBlockingQueue<>(capacity(writerThreads));
+        private final AtomicInteger runningParsers = new AtomicInteger(parserThreads);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final ThreadPoolExecutor executor = DbCallExecutors.newBoundedExecutor(
+                parserThreads + writerThreads, parserThreads + writerThreads);
+
+        /**
+         * Starts the parser and writer threads, reads the file and waits for
+         * the threads to finish.
+         *
+         * @param file File to ingest
+         * @throws DbCallException Thrown when the run failed
+         */
+        private void execute(final Path file) throws DbCallException {
+            for (int i = 0; i < parserThreads; i++) {
+                executor.execute(() -> guard(this::parse));
+            }
+
+            for (int i = 0; i < writerThreads; i++) {
+                executor.execute(() -> guard(this::write));
+            }
+
+            executor.shutdown();
+            try {
+                read(file);
+                for (int i = 0; i < parserThreads; i++) {
+                    put(chunks, endOfChunks);
+                }
+
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    if (failure.get() != null) {
+                        executor.shutdownNow();
+                    }
+                }
+            } catch (final IOException e) {
+                fail(e);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            } catch (final AbortedException e) {
+                // Aborted by a parser or writer thread
+            } finally {
+                executor.shutdownNow();
+                awaitThreads();
+            }
+
+            final Throwable cause = failure.get();
+            if (cause instanceof DbCallException) {
+                throw (DbCallException) cause;
+            } else if (cause != null) {
+                throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, cause);
+            }
+        }
+
+        /**
+         * Waits for the parser and writer threads to end, so no writer thread
+         * holds a connection after the run. An interrupt while waiting is
+         * kept for the calling thread.
+         */
+        private void awaitThreads() {
+            boolean interrupted = false;
+            while (!executor.isTerminated()) {
+                try {
+                    executor.awaitTermination(1, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Reads the file in chunks ending at a record boundary and queues
+         * them for the parser threads. A chunk is grown when no record
+         * boundary is found in it.
+         *
+         * @param file File to read
+         * @throws IOException          When unable to read the file
+         * @throws InterruptedException When interrupted while waiting for a
+         *                              parser thread
+         * @throws AbortedException     When the run was aborted
+         */
+        private void read(final Path file) throws IOException, InterruptedException, AbortedException {
+            final int quote = format.getQuote();
+            try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+                long line = 1;
+                boolean first = true;
+                boolean quoted = false;
+                int scanned = 0;
+                int boundary = 0;
+                int lines = 0;
+                int linesAtBoundary = 0;
+                while (failure.get() == null) {
+                    final int read = channel.read(buffer);
+                    final boolean eof = read < 0;
+                    final byte[] bytes = buffer.array();
+                    final int limit = buffer.position();
+                    for (int i = scanned; i < limit; i++) {
+                        final int b = bytes[i] & 0xFF;
+                        if (b == quote) {
+                            quoted = !quoted;
+                        } else if (b == '\n') {
+                            lines++;
+                            if (!quoted) {
+                                boundary = i + 1;
+                                linesAtBoundary = lines;
+                            }
+                        }
+                    }
+
+                    scanned = limit;
+                    if (read > 0) {
+                        progress.addBytesRead(read);
+                    }
+
+                    if (eof) {
+                        if (limit > 0) {
+                            put(chunks, new Chunk(Arrays.copyOf(bytes, limit), line, first));
+                        }
+
+                        return;
+                    }
+
+                    if (buffer.hasRemaining()) {
+                        continue;
+                    }
+
+                    if (boundary == 0) {
+                        buffer = ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length * 2));
+                        buffer.position(limit);
+                        continue;
+                    }
+
+                    put(chunks, new Chunk(Arrays.copyOf(bytes, boundary), line, first));
+                    first = false;
+                    line += linesAtBoundary;
+                    System.arraycopy(bytes, boundary, bytes, 0, limit - boundary);
+                    buffer.position(limit - boundary);
+                    scanned = limit - boundary;
+                    lines -= linesAtBoundary;
+                    boundary = 0;
+                    linesAtBoundary = 0;
+                }
+            }
+        }
+
+        /**
+         * Parses queued chunks into batches of records until the end of the
+         * file. The last parser thread to finish signals the end to the
+         * writer threads.
+         *
+         * @throws InterruptedException When interrupted
+         * @throws AbortedException     When the run was aborted
+         */
+        private void parse() throws InterruptedException, AbortedException {
+            try {
+                Chunk chunk;
+                while ((chunk = chunks.take()) != endOfChunks) {
+                    parse(chunk);
+                }
+            } finally {
+                if (runningParsers.decrementAndGet() == 0) {
+                    for (int i = 0; i < writerThreads; i++) {
+                        put(batches, endOfBatches);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Splits a chunk into records, parses them and queues them in
+         * batches. Blank records and the header are skipped.
+         *
+         * @param chunk Chunk to parse
+         * @throws InterruptedException When interrupted
+         * @throws AbortedException     When the run was aborted
+         */
+        private void parse(final Chunk chunk) throws InterruptedException, AbortedException {
+            final String text = new String(chunk.bytes, charset);
+            final int quote = format.getQuote();
+            List<ParsedRecord<R>> batch = new ArrayList<>(batchSize);
+            boolean skipHeader = chunk.first && format.hasHeader();
+            boolean quoted = false;
+            long line = chunk.line;
+            long recordLine = line;
+            int start = 0;
+            for (int i = 0; i <= text.length(); i++) {
+                final char c = i < text.length() ? text.charAt(i) : '\n';
+                if (c == quote) {
+                    quoted = !quoted;
+                    continue;
+                }
+
+                if (c != '\n' || (quoted && i < text.length())) {
+                    if (c == '\n') {
+                        line++;
+                    }
+
+                    continue;
+                }
+
+                final int end = i > start && text.charAt(i - 1) == '\r' ? i - 1 : i;
+                final String record = text.substring(start, end);
+                if (skipHeader) {
+                    skipHeader = false;
+                } else if (!record.trim().isEmpty()) {
+                    try {
+                        batch.add(new ParsedRecord<>(recordLine, record, format.parse(record)));
+                    } catch (final DbIngestParseException | RuntimeException e) {
+                        error(recordLine, record, e);
+                    }
+
+                    if (batch.size() == batchSize) {
+                        progress.addRecordsParsed(batch.size());
+                        put(batches, batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+
+                line++;
+                recordLine = line;
+                start = i + 1;
+            }
+
+            if (!batch.isEmpty()) {
+                progress.addRecordsParsed(batch.size());
+                put(batches, batch);
+            }
+        }
+
+        /**
+         * Inserts queued batches on a single connection until the parser
+         * threads finished.
+         *
+         * @throws InterruptedException When the run was aborted
+         * @throws SQLException         When the connection failed
+         */
+        private void write() throws InterruptedException, SQLException {
+            try (final Connection conn = db.getConnection()) {
+                final boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try (final PreparedStatement stmt = conn.prepareStatement(query)) {
+                    List<ParsedRecord<R>> batch;
+                    while ((batch = batches.take()) != endOfBatches) {
+                        write(conn, stmt, batch);
+                    }
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            }
+        }
+
+        /**
+         * Inserts and commits a batch of records. When the batch fails, it is
+         * rolled back and its records are inserted one by one.
+         *
+         * @param conn  Connection of the writer thread
+         * @param stmt  Prepared INSERT-statement
+         * @param batch Records to insert
+         * @throws SQLException When unable to roll back
+         */
+        private void write(final Connection conn,
+                           final PreparedStatement stmt,
+                           final List<ParsedRecord<R>> batch) throws SQLException {
+            try {
+                for (final ParsedRecord<R> record : batch) {
+                    binder.apply(stmt, record.record);
+                    stmt.addBatch();
+                }
+
+                stmt.executeBatch();
+                conn.commit();
+                progress.addRecordsInserted(batch.size());
+            } catch (final SQLException | RuntimeException e) {
+                conn.rollback();
+                stmt.clearBatch();
+                for (final ParsedRecord<R> record : batch) {
+                    writeOne(conn, stmt, record);
+                }
+            }
+        }
+
+        /**
+         * Inserts and commits a single record, or records it as failed.
+         *
+         * @param conn   Connection of the writer thread
+         * @param stmt   Prepared INSERT-statement
+         * @param record Record to insert
+         * @throws SQLException When unable to roll back
+         */
+        private void writeOne(final Connection conn,
+                              final PreparedStatement stmt,
+                              final ParsedRecord<R> record) throws SQLException {
+            try {
+                stmt.clearParameters();
+                binder.apply(stmt, record.record);
+                stmt.executeUpdate();
+                conn.commit();
+                progress.addRecordsInserted(1);
+            } catch (final SQLException | RuntimeException e) {
+                conn.rollback();
+                error(record.line, record.text, e);
+            }
+        }
+
+        /**
+         * Records a failed record and aborts the run when too many failed.
+         *
+         * @param line   Line number at which the record starts
+         * @param record Text of the record
+         * @param cause  Cause of the failure
+         */
+        private void error(final long line, final String record, final Throwable cause) {
+            if (progress.addError(new DbIngestError(line, record, cause)) > maxErrors) {
+                fail(new DbCallException("More than " + maxErrors + " records failed", cause));
+            }
+        }
+
+        /**
+         * Runs a task of a parser or writer thread and aborts the run when it
+         * fails.
+         *
+         * @param task Task to run
+         */
+        private void guard(final Task task) {
+            try {
+                task.run();
+            } catch (final InterruptedException | AbortedException e) {
+                // Aborted by another thread
+            } catch (final Exception | Error e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Aborts the run, keeping the first cause.
+         *
+         * @param cause Cause of the abort
+         */
+        private void fail(final Throwable cause) {
+            if (failure.compareAndSet(null, cause)) {
+                executor.shutdownNow();
+            }
+        }
+
+        /**
+         * Queues an item, waiting while the queue is full unless the run was
+         * aborted.
+         *
+         * @param queue Queue to add to
+         * @param item  Item to add
+         * @param <E>   Type of the items
+         * @throws InterruptedException When interrupted
+         * @throws AbortedException     When the run was aborted
+         */
+        private <E> void put(final BlockingQueue<E> queue, final E item)
+                throws InterruptedException, AbortedException {
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    throw new AbortedException();
+                }
+            }
+        }
+
+        /**
+         * Returns the capacity of a queue consumed by the given amount of
+         * threads.
+         *
+         * @param consumers Amount of consuming threads
+         * @return Capacity of the queue
+         */
+        private int capacity(final int consumers) {
+            return queueCapacity > 0 ? queueCapacity : 2 * consumers;
+        }
+
+    }
+
+    /**
+     * Thrown by a thread waiting on a queue when the run was aborted, so an
+     * abort is not mistaken for an interrupt.
+     */
+    private static final class AbortedException extends Exception {
+
+        /**
+         * Creates the exception without a stack trace, as it only unwinds
+         * the waiting thread.
+         */
+        private AbortedException() {
+            super("Ingest aborted", null, false, false);
+        }
+
+    }
+
+    /**
+     * Work of a parser or writer thread.
+     */
+    @FunctionalInterface
+    private interface Task {
+
+        /**
+         * Runs the work.
+         *
+         * @throws Exception When the work failed
+         */
+        void run() throws Exception;
+
+    }
+
+}
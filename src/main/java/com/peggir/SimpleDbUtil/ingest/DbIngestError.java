@@ -0,0 +1,52 @@
+package com.peggir.SimpleDbUtil.ingest;
+
+/**
+ * Record of an ingested file that could not be parsed or inserted.
+ */
+public final class DbIngestError {
+
+    private final long line;
+    private final String record;
+    private final Throwable cause;
+
+    /**
+     * Creates an error.
+     *
+     * @param line   Line number at which the record starts, starting at 1
+     * @param record Text of the record
+     * @param cause  Cause of the failure
+     */
+    DbIngestError(final long line, final String record, final Throwable cause) {
+        this.line = line;
+        this.record = record;
+        this.cause = cause;
+    }
+
+    /**
+     * Returns the line number at which the record starts.
+     *
+     * @return Line number, starting at 1
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the text of the record.
+     *
+     * @return Record without line terminator
+     */
+    public String getRecord() {
+        return record;
+    }
+
+    /**
+     * Returns the cause of the failure.
+     *
+     * @return Parse or database exception
+     */
+    public Throwable getCause() {
+        return cause;
+    }
+
+}
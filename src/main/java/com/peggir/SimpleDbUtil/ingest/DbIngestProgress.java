@@ -0,0 +1,133 @@
+package com.peggir.SimpleDbUtil.ingest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a {@link DbIngest} run. The counters are updated without
+ * locking while the file is ingested and can be read from any thread, e.g.
+ * to report progress.
+ */
+public final class DbIngestProgress {
+
+    private final long maxErrors;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder recordsParsed = new LongAdder();
+    private final LongAdder recordsInserted = new LongAdder();
+    private final LongAdder recordsFailed = new LongAdder();
+    private final List<DbIngestError> errors = new ArrayList<>();
+
+    /**
+     * Creates the counters of a run.
+     *
+     * @param maxErrors Maximum amount of errors to keep
+     */
+    DbIngestProgress(final long maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Returns the amount of bytes read from the file.
+     *
+     * @return Amount of bytes
+     */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * Returns the amount of records parsed successfully.
+     *
+     * @return Amount of records
+     */
+    public long getRecordsParsed() {
+        return recordsParsed.sum();
+    }
+
+    /**
+     * Returns the amount of records inserted and committed.
+     *
+     * @return Amount of records
+     */
+    public long getRecordsInserted() {
+        return recordsInserted.sum();
+    }
+
+    /**
+     * Returns the amount of records that could not be parsed or inserted.
+     *
+     * @return Amount of records
+     */
+    public long getRecordsFailed() {
+        return recordsFailed.sum();
+    }
+
+    /**
+     * Returns the failed records, in the order in which they failed. At most
+     * the configured maximum amount of errors is kept.
+     *
+     * @return Copy of the errors
+     */
+    public List<DbIngestError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    /**
+     * Returns the time since the run started.
+     *
+     * @return Elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Adds to the amount of bytes read.
+     *
+     * @param bytes Amount of bytes
+     */
+    void addBytesRead(final long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    /**
+     * Adds to the amount of records parsed.
+     *
+     * @param records Amount of records
+     */
+    void addRecordsParsed(final long records) {
+        recordsParsed.add(records);
+    }
+
+    /**
+     * Adds to the amount of records inserted.
+     *
+     * @param records Amount of records
+     */
+    void addRecordsInserted(final long records) {
+        recordsInserted.add(records);
+    }
+
+    /**
+     * Counts a failed record and keeps it when the maximum amount of errors
+     * was not reached.
+     *
+     * @param error Failed record
+     * @return Total amount of failed records
+     */
+    long addError(final DbIngestError error) {
+        recordsFailed.increment();
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            }
+        }
+
+        return recordsFailed.sum();
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.peggir.SimpleDbUtil.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.peggir.SimpleDbUtil.exceptions.DbIngestParseException;
+
+/**
+ * {@link RecordFormat} for newline delimited JSON, also known as JSON Lines:
+ * every line holds a single JSON value, which is parsed to a
+ * {@link JsonNode} with Jackson.
+ */
+public class NdjsonFormat implements RecordFormat<JsonNode> {
+
+    private final ObjectMapper mapper;
+
+    /**
+     * Creates a format parsing with a default {@link ObjectMapper}.
+     */
+    public NdjsonFormat() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * Creates a format parsing with the given {@link ObjectMapper}.
+     *
+     * @param mapper Configured object mapper
+     */
+    public NdjsonFormat(final ObjectMapper mapper) {
+        if (mapper == null) {
+            throw new IllegalArgumentException("No ObjectMapper set");
+        }
+
+        this.mapper = mapper;
+    }
+
+    /**
+     * Parses a line to a JSON tree.
+     *
+     * @param record Text of the line
+     * @return Parsed JSON value
+     * @throws DbIngestParseException Thrown when the line is not valid JSON
+     */
+    @Override
+    public JsonNode parse(final String record) throws DbIngestParseException {
+        try {
+            return mapper.readTree(record);
+        } catch (final JsonProcessingException e) {
+            throw new DbIngestParseException(e.getOriginalMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.peggir.SimpleDbUtil.ingest;
+
+import com.peggir.SimpleDbUtil.exceptions.DbIngestParseException;
+
+/**
+ * Provides an interface used by {@link DbIngest} to parse a single record of
+ * a file, usually a line, to a {@link R}. Formats are called concurrently by
+ * multiple threads and must be thread-safe.
+ *
+ * @param <R> Object represented by a record
+ */
+public interface RecordFormat<R> {
+
+    /**
+     * Parses a record.
+     *
+     * @param record Text of the record, without line terminator
+     * @return {@link R} represented by the record
+     * @throws DbIngestParseException Thrown when the record is malformed
+     */
+    R parse(final String record) throws DbIngestParseException;
+
+    /**
+     * Returns the quote character within which line breaks do not end a
+     * record.
+     *
+     * @return Quote character, or -1 when line breaks always end a record
+     */
+    default int getQuote() {
+        return -1;
+    }
+
+    /**
+     * Returns whether the first record of a file is a header that is not
+     * ingested.
+     *
+     * @return True when the first record is skipped
+     */
+    default boolean hasHeader() {
+        return false;
+    }
+
+}
@@ -0,0 +1,210 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import com.peggir.SimpleDbUtil.DbCallEvent;
+import com.peggir.SimpleDbUtil.DbCallListener;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link DbCallListener} that records, per query fingerprint, the amount of
+ * calls, errors and rows, and latency histograms of every phase, without
+ * locking. Register it with
+ * {@link com.peggir.SimpleDbUtil.DbCallListeners#register(DbCallListener)}
+ * and expose it through JMX with {@link #registerMBean(String)}.
+ * <p>
+ * At most the configured amount of fingerprints is tracked; calls of other
+ * queries are recorded under the fingerprint {@link #OTHER_QUERIES}, so
+ * dynamically built queries cannot exhaust memory.
+ */
+public class DbCallMetrics implements DbCallListener, DbCallMetricsMXBean {
+
+    /**
+     * Default maximum amount of tracked fingerprints.
+     */
+    public static final int DEFAULT_MAX_QUERIES = 256;
+
+    /**
+     * Fingerprint of the calls of queries beyond the maximum.
+     */
+    public static final String OTHER_QUERIES = "(other)";
+
+    private static final String OVERALL = "*";
+
+    private final int maxQueries;
+    private final Map<String, QueryMetrics> queries = new ConcurrentHashMap<>();
+    private volatile QueryMetrics overall = new QueryMetrics();
+    private volatile QueryMetrics other = new QueryMetrics();
+    private ObjectName objectName;
+
+    /**
+     * Creates metrics tracking at most {@link #DEFAULT_MAX_QUERIES}
+     * fingerprints.
+     */
+    public DbCallMetrics() {
+        this(DEFAULT_MAX_QUERIES);
+    }
+
+    /**
+     * Creates metrics tracking at most the given amount of fingerprints.
+     *
+     * @param maxQueries Maximum amount of fingerprints
+     */
+    public DbCallMetrics(final int maxQueries) {
+        if (maxQueries < 1) {
+            throw new IllegalArgumentException("Maximum amount of queries must be positive");
+        }
+
+        this.maxQueries = maxQueries;
+    }
+
+    /**
+     * Records a finished call.
+     *
+     * @param event Event of the call
+     */
+    @Override
+    public void onEnd(final DbCallEvent event) {
+        overall.record(event);
+        metricsOf(event.getFingerprint()).record(event);
+    }
+
+    /**
+     * Returns the metrics of the given fingerprint, creating them when the
+     * maximum amount of fingerprints has not been reached.
+     *
+     * @param fingerprint Fingerprint of a query
+     * @return Metrics of the fingerprint or of other queries
+     */
+    private QueryMetrics metricsOf(final String fingerprint) {
+        final QueryMetrics metrics = queries.get(fingerprint);
+        if (metrics != null) {
+            return metrics;
+        }
+
+        if (queries.size() >= maxQueries) {
+            return other;
+        }
+
+        return queries.computeIfAbsent(fingerprint, f -> new QueryMetrics());
+    }
+
+    /**
+     * Returns the metrics of all calls together.
+     *
+     * @return Metrics with fingerprint "*"
+     */
+    @Override
+    public QueryStats getOverall() {
+        return overall.snapshot(OVERALL);
+    }
+
+    /**
+     * Returns the metrics of the given query fingerprint.
+     *
+     * @param fingerprint Fingerprint of a query, see
+     *                    {@link DbCallEvent#getFingerprint()}
+     * @return Metrics, or null when no call of the query was recorded
+     */
+    public QueryStats getQuery(final String fingerprint) {
+        final QueryMetrics metrics = OTHER_QUERIES.equals(fingerprint) ? other : queries.get(fingerprint);
+        return metrics == null ? null : metrics.snapshot(fingerprint);
+    }
+
+    /**
+     * Returns the metrics per query fingerprint, most called first.
+     *
+     * @return Metrics per fingerprint
+     */
+    @Override
+    public List<QueryStats> getQueries() {
+        final List<QueryStats> result = new ArrayList<>();
+        for (final Map.Entry<String, QueryMetrics> entry : queries.entrySet()) {
+            result.add(entry.getValue().snapshot(entry.getKey()));
+        }
+
+        final QueryStats otherStats = other.snapshot(OTHER_QUERIES);
+        if (otherStats.getCalls() > 0) {
+            result.add(otherStats);
+        }
+
+        result.sort(Comparator.comparingLong(QueryStats::getCalls).reversed());
+        return result;
+    }
+
+    /**
+     * Returns the amount of distinct fingerprints being tracked.
+     *
+     * @return Amount of fingerprints
+     */
+    @Override
+    public int getQueryCount() {
+        return queries.size();
+    }
+
+    /**
+     * Removes all recorded metrics.
+     */
+    @Override
+    public void reset() {
+        queries.clear();
+        overall = new QueryMetrics();
+        other = new QueryMetrics();
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server, under
+     * {@code com.peggir.SimpleDbUtil:type=DbCallMetrics,name=<name>}.
+     *
+     * @param name Name distinguishing these metrics, e.g. the database name
+     * @throws IllegalStateException When metrics with the name are
+     *                               registered already
+     */
+    public synchronized void registerMBean(final String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("No name set");
+        }
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName newName = new ObjectName(
+                    "com.peggir.SimpleDbUtil:type=DbCallMetrics,name=" + ObjectName.quote(name));
+            server.registerMBean(this, newName);
+            objectName = newName;
+        } catch (final MalformedObjectNameException | NotCompliantMBeanException | MBeanRegistrationException e) {
+            throw new IllegalArgumentException("Unable to register metrics as " + name, e);
+        } catch (final InstanceAlreadyExistsException e) {
+            throw new IllegalStateException("Metrics named " + name + " are registered already", e);
+        }
+    }
+
+    /**
+     * Unregisters these metrics from the platform MBean server, when they
+     * were registered.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (final InstanceNotFoundException | MBeanRegistrationException e) {
+            // Already unregistered
+        }
+
+        objectName = null;
+    }
+
+}
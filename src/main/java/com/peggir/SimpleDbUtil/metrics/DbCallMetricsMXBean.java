@@ -0,0 +1,36 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import java.util.List;
+
+/**
+ * JMX view of {@link DbCallMetrics}. All latencies are in microseconds.
+ */
+public interface DbCallMetricsMXBean {
+
+    /**
+     * Returns the metrics of all calls together.
+     *
+     * @return Metrics with fingerprint "*"
+     */
+    QueryStats getOverall();
+
+    /**
+     * Returns the metrics per query fingerprint, most called first.
+     *
+     * @return Metrics per fingerprint
+     */
+    List<QueryStats> getQueries();
+
+    /**
+     * Returns the amount of distinct fingerprints being tracked.
+     *
+     * @return Amount of fingerprints
+     */
+    int getQueryCount();
+
+    /**
+     * Removes all recorded metrics.
+     */
+    void reset();
+
+}
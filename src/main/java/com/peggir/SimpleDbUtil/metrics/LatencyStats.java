@@ -0,0 +1,112 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of a {@link LatencyHistogram}, in microseconds.
+ */
+public final class LatencyStats {
+
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p99;
+    private final double p999;
+    private final double max;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param count Amount of recorded durations
+     * @param mean  Mean duration in microseconds
+     * @param p50   Median duration in microseconds
+     * @param p99   99th percentile in microseconds
+     * @param p999  99.9th percentile in microseconds
+     * @param max   Longest duration in microseconds
+     */
+    @ConstructorProperties({"count", "mean", "p50", "p99", "p999", "max"})
+    public LatencyStats(final long count,
+                        final double mean,
+                        final double p50,
+                        final double p99,
+                        final double p999,
+                        final double max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * Takes a snapshot of a histogram.
+     *
+     * @param histogram Histogram of durations in nanoseconds
+     * @return Snapshot in microseconds
+     */
+    static LatencyStats of(final LatencyHistogram histogram) {
+        return new LatencyStats(
+                histogram.getCount(),
+                histogram.getMean() / 1000,
+                histogram.getPercentile(50) / 1000.0,
+                histogram.getPercentile(99) / 1000.0,
+                histogram.getPercentile(99.9) / 1000.0,
+                histogram.getMax() / 1000.0);
+    }
+
+    /**
+     * Returns the amount of recorded durations.
+     *
+     * @return Amount of durations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean duration.
+     *
+     * @return Mean in microseconds
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the median duration.
+     *
+     * @return Median in microseconds
+     */
+    public double getP50() {
+        return p50;
+    }
+
+    /**
+     * Returns the 99th percentile.
+     *
+     * @return 99th percentile in microseconds
+     */
+    public double getP99() {
+        return p99;
+    }
+
+    /**
+     * Returns the 99.9th percentile.
+     *
+     * @return 99.9th percentile in microseconds
+     */
+    public double getP999() {
+        return p999;
+    }
+
+    /**
+     * Returns the longest duration.
+     *
+     * @return Maximum in microseconds
+     */
+    public double getMax() {
+        return max;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import com.peggir.SimpleDbUtil.DbCallEvent;
+import com.peggir.SimpleDbUtil.DbCallPhase;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free metrics of the calls of a single query fingerprint.
+ */
+final class QueryMetrics {
+
+    private static final DbCallPhase[] PHASES = DbCallPhase.values();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+    private final LongAdder spilledRows = new LongAdder();
+    private final LongAdder spilledBytes = new LongAdder();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+
+    QueryMetrics() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records a finished call.
+     *
+     * @param event Event of the call
+     */
+    void record(final DbCallEvent event) {
+        calls.increment();
+        if (event.getError() != null) {
+            errors.increment();
+        }
+
+        rows.add(event.getRowCount());
+        if (event.getSpilledRows() > 0) {
+            spills.increment();
+            spilledRows.add(event.getSpilledRows());
+            spilledBytes.add(event.getSpilledBytes());
+        }
+
+        total.record(event.getTotalNanos());
+        for (final DbCallPhase phase : PHASES) {
+            final long nanos = event.getPhaseNanos(phase);
+            if (nanos > 0) {
+                phases[phase.ordinal()].record(nanos);
+            }
+        }
+    }
+
+    /**
+     * Returns the histogram of the given phase.
+     *
+     * @param phase Phase of a call
+     * @return Histogram in nanoseconds
+     */
+    LatencyHistogram getPhase(final DbCallPhase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    /**
+     * Takes a snapshot of the metrics.
+     *
+     * @param fingerprint Fingerprint the metrics belong to
+     * @return Snapshot
+     */
+    QueryStats snapshot(final String fingerprint) {
+        return new QueryStats(
+                fingerprint,
+                calls.sum(),
+                errors.sum(),
+                rows.sum(),
+                spills.sum(),
+                spilledRows.sum(),
+                spilledBytes.sum(),
+                LatencyStats.of(total),
+                LatencyStats.of(getPhase(DbCallPhase.ACQUIRE)),
+                LatencyStats.of(getPhase(DbCallPhase.PREPARE)),
+                LatencyStats.of(getPhase(DbCallPhase.EXECUTE)),
+                LatencyStats.of(getPhase(DbCallPhase.MAP)));
+    }
+
+}
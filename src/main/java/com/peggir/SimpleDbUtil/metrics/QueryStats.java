@@ -0,0 +1,202 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the metrics of all calls of a query fingerprint.
+ */
+public final class QueryStats {
+
+    private final String fingerprint;
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final long spills;
+    private final long spilledRows;
+    private final long spilledBytes;
+    private final LatencyStats total;
+    private final LatencyStats acquire;
+    private final LatencyStats prepare;
+    private final LatencyStats execute;
+    private final LatencyStats map;
+
+    /**
+     * Creates a snapshot of calls that spilled nothing to disk.
+     *
+     * @param fingerprint Fingerprint of the query
+     * @param calls       Amount of calls
+     * @param errors      Amount of failed calls
+     * @param rows        Amount of rows mapped or updated
+     * @param total       Latency of the calls
+     * @param acquire     Latency of acquiring a connection
+     * @param prepare     Latency of preparing the statement
+     * @param execute     Latency of executing the statement
+     * @param map         Latency of mapping the result set
+     */
+    public QueryStats(final String fingerprint,
+                      final long calls,
+                      final long errors,
+                      final long rows,
+                      final LatencyStats total,
+                      final LatencyStats acquire,
+                      final LatencyStats prepare,
+                      final LatencyStats execute,
+                      final LatencyStats map) {
+        this(fingerprint, calls, errors, rows, 0, 0, 0, total, acquire, prepare, execute, map);
+    }
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param fingerprint  Fingerprint of the query
+     * @param calls        Amount of calls
+     * @param errors       Amount of failed calls
+     * @param rows         Amount of rows mapped or updated
+     * @param spills       Amount of calls that spilled rows to disk
+     * @param spilledRows  Amount of rows spilled to disk
+     * @param spilledBytes Amount of bytes spilled to disk
+     * @param total        Latency of the calls
+     * @param acquire      Latency of acquiring a connection
+     * @param prepare      Latency of preparing the statement
+     * @param execute      Latency of executing the statement
+     * @param map          Latency of mapping the result set
+     */
+    @ConstructorProperties({"fingerprint", "calls", "errors", "rows", "spills", "spilledRows", "spilledBytes",
+            "total", "acquire", "prepare", "execute", "map"})
+    public QueryStats(final String fingerprint,
+                      final long calls,
+                      final long errors,
+                      final long rows,
+                      final long spills,
+                      final long spilledRows,
+                      final long spilledBytes,
+                      final LatencyStats total,
+                      final LatencyStats acquire,
+                      final LatencyStats prepare,
+                      final LatencyStats execute,
+                      final LatencyStats map) {
+        this.fingerprint = fingerprint;
+        this.calls = calls;
+        this.errors = errors;
+        this.rows = rows;
+        this.spills = spills;
+        this.spilledRows = spilledRows;
+        this.spilledBytes = spilledBytes;
+        this.total = total;
+        this.acquire = acquire;
+        this.prepare = prepare;
+        this.execute = execute;
+        this.map = map;
+    }
+
+    /**
+     * Returns the fingerprint of the query.
+     *
+     * @return Fingerprint
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the amount of calls.
+     *
+     * @return Amount of calls
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Returns the amount of failed calls.
+     *
+     * @return Amount of errors
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns the amount of rows mapped by queries or updated by statements.
+     *
+     * @return Amount of rows
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the amount of calls that spilled rows to disk because they
+     * exceeded their memory budget.
+     *
+     * @return Amount of spilling calls
+     */
+    public long getSpills() {
+        return spills;
+    }
+
+    /**
+     * Returns the amount of rows spilled to disk.
+     *
+     * @return Amount of spilled rows
+     */
+    public long getSpilledRows() {
+        return spilledRows;
+    }
+
+    /**
+     * Returns the amount of bytes spilled to disk.
+     *
+     * @return Amount of spilled bytes
+     */
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Returns the latency of the calls from start to end.
+     *
+     * @return Total latency
+     */
+    public LatencyStats getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the latency of acquiring a connection, i.e. waiting for the
+     * connection pool.
+     *
+     * @return Acquisition latency
+     */
+    public LatencyStats getAcquire() {
+        return acquire;
+    }
+
+    /**
+     * Returns the latency of preparing statements and injecting parameters.
+     *
+     * @return Preparation latency
+     */
+    public LatencyStats getPrepare() {
+        return prepare;
+    }
+
+    /**
+     * Returns the latency of executing statements.
+     *
+     * @return Execution latency
+     */
+    public LatencyStats getExecute() {
+        return execute;
+    }
+
+    /**
+     * Returns the latency of mapping result sets.
+     *
+     * @return Mapping latency
+     */
+    public LatencyStats getMap() {
+        return map;
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free rate limiter using the generic cell rate algorithm: a permit is
+ * granted when the theoretical arrival time of the next permit is at most
+ * one second ahead of now. Allows bursts of up to one second worth of
+ * permits, after which permits are granted at the configured rate.
+ */
+final class RateLimiter {
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private final LongSupplier clock;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong nextNanos;
+
+    /**
+     * Creates a rate limiter using {@link System#nanoTime()}.
+     *
+     * @param permitsPerSecond Amount of permits granted per second
+     */
+    RateLimiter(final double permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    /**
+     * Creates a rate limiter using the given clock.
+     *
+     * @param permitsPerSecond Amount of permits granted per second
+     * @param clock            Source of the current time in nanoseconds
+     */
+    RateLimiter(final double permitsPerSecond, final LongSupplier clock) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("No positive rate set");
+        }
+
+        this.clock = clock;
+        this.intervalNanos = Math.max(1L, (long) (SECOND_NANOS / permitsPerSecond));
+        this.toleranceNanos = Math.max(0L, SECOND_NANOS - intervalNanos);
+        this.nextNanos = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Takes a permit when one is available, without waiting.
+     *
+     * @return True when a permit was granted
+     */
+    boolean tryAcquire() {
+        final long now = clock.getAsLong();
+        while (true) {
+            final long next = nextNanos.get();
+            final long start = next - now > 0 ? next : now;
+            if (start - now > toleranceNanos) {
+                return false;
+            }
+
+            if (nextNanos.compareAndSet(next, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+}
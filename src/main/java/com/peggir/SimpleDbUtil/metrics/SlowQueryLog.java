@@ -0,0 +1,421 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import com.peggir.SimpleDbUtil.DbCallEvent;
+import com.peggir.SimpleDbUtil.DbCallExecutors;
+import com.peggir.SimpleDbUtil.DbCallListener;
+import com.peggir.SimpleDbUtil.DbCallPhase;
+import com.peggir.SimpleDbUtil.DbDialect;
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link DbCallListener} that logs calls taking longer than a threshold, with
+ * their fingerprint, SQL, bound parameter values, row count and phase
+ * timings. Register it with
+ * {@link com.peggir.SimpleDbUtil.DbCallListeners#register(DbCallListener)}.
+ * <p>
+ * To stay safe under heavy load, only a sampled fraction of the slow calls is
+ * logged, at most a configured amount per second; the amount of calls
+ * skipped is included in the next message. Optionally, the execution plan of
+ * a sampled subset of slow SELECT-queries is requested with the
+ * {@link DbDialect} of the call, or the fallback dialect of this log. Plans
+ * are rate limited separately and requested on an executor, by default
+ * {@link DbCallExecutors#getDefault()}, so the thread that made the call never
+ * waits for them; the message of such a call is logged once its plan is
+ * known. Plan requests go through the {@link com.peggir.SimpleDbUtil.DbCallLimiter}
+ * registered for the database and give up after a timeout.
+ */
+public class SlowQueryLog implements DbCallListener {
+
+    /**
+     * Default threshold in milliseconds.
+     */
+    public static final long DEFAULT_THRESHOLD_MILLIS = 1000L;
+
+    /**
+     * Default maximum amount of messages per second.
+     */
+    public static final double DEFAULT_MAX_LOGS_PER_SECOND = 10.0;
+
+    /**
+     * Default maximum amount of plans requested per second.
+     */
+    public static final double DEFAULT_MAX_EXPLAINS_PER_SECOND = 1.0;
+
+    /**
+     * Default timeout of a plan request in milliseconds.
+     */
+    public static final long DEFAULT_EXPLAIN_TIMEOUT_MILLIS = 5000L;
+
+    private final Logger logger;
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder suppressedSinceLog = new LongAdder();
+    private volatile long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_THRESHOLD_MILLIS);
+    private volatile double sampleRate = 1.0;
+    private volatile RateLimiter logLimiter = new RateLimiter(DEFAULT_MAX_LOGS_PER_SECOND);
+    private volatile double explainSampleRate;
+    private volatile RateLimiter explainLimiter = new RateLimiter(DEFAULT_MAX_EXPLAINS_PER_SECOND);
+    private volatile Redactor redactor;
+    private volatile DbDialect dialect;
+    private volatile Executor executor;
+    private volatile long explainTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_EXPLAIN_TIMEOUT_MILLIS);
+
+    /**
+     * Creates a log writing to the logger of this class.
+     */
+    public SlowQueryLog() {
+        this(LoggerFactory.getLogger(SlowQueryLog.class));
+    }
+
+    /**
+     * Creates a log writing to the given logger, at WARN level.
+     *
+     * @param logger Logger to write to
+     */
+    public SlowQueryLog(final Logger logger) {
+        if (logger == null) {
+            throw new IllegalArgumentException("No logger set");
+        }
+
+        this.logger = logger;
+    }
+
+    /**
+     * Sets the duration from which calls are logged.
+     *
+     * @param threshold Minimum duration
+     * @param unit      Unit of the duration
+     */
+    public void setThreshold(final long threshold, final TimeUnit unit) {
+        if (threshold < 0 || unit == null) {
+            throw new IllegalArgumentException("No threshold set");
+        }
+
+        this.thresholdNanos = unit.toNanos(threshold);
+    }
+
+    /**
+     * Sets the fraction of slow calls to log. Defaults to 1, all slow calls.
+     *
+     * @param sampleRate Fraction between 0 and 1
+     */
+    public void setSampleRate(final double sampleRate) {
+        this.sampleRate = fraction(sampleRate);
+    }
+
+    /**
+     * Sets the maximum amount of messages written per second. Defaults to
+     * {@link #DEFAULT_MAX_LOGS_PER_SECOND}.
+     *
+     * @param maxLogsPerSecond Positive amount of messages per second
+     */
+    public void setMaxLogsPerSecond(final double maxLogsPerSecond) {
+        this.logLimiter = new RateLimiter(maxLogsPerSecond);
+    }
+
+    /**
+     * Sets the fraction of logged SELECT-queries whose execution plan is
+     * requested and logged. Defaults to 0, no plans.
+     *
+     * @param explainSampleRate Fraction between 0 and 1
+     */
+    public void setExplainSampleRate(final double explainSampleRate) {
+        this.explainSampleRate = fraction(explainSampleRate);
+    }
+
+    /**
+     * Sets the maximum amount of execution plans requested per second.
+     * Defaults to {@link #DEFAULT_MAX_EXPLAINS_PER_SECOND}.
+     *
+     * @param maxExplainsPerSecond Positive amount of plans per second
+     */
+    public void setMaxExplainsPerSecond(final double maxExplainsPerSecond) {
+        this.explainLimiter = new RateLimiter(maxExplainsPerSecond);
+    }
+
+    /**
+     * Sets the redactor that replaces parameter values before they are
+     * logged. By default, values are logged as they were bound.
+     *
+     * @param redactor Redactor, or null to log values as they were bound
+     */
+    public void setRedactor(final Redactor redactor) {
+        this.redactor = redactor;
+    }
+
+    /**
+     * Sets the dialect used to request plans of calls without a dialect.
+     *
+     * @param dialect Dialect, or null to only explain calls with a dialect
+     */
+    public void setDialect(final DbDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Sets the executor requesting plans. Defaults to
+     * {@link DbCallExecutors#getDefault()}.
+     *
+     * @param executor Executor requesting plans
+     */
+    public void setExecutor(final Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("No executor set");
+        }
+
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the maximum time a plan request waits for a permit, a connection
+     * and the plan. Defaults to {@link #DEFAULT_EXPLAIN_TIMEOUT_MILLIS}.
+     *
+     * @param timeout Maximum duration
+     * @param unit    Unit of the duration
+     */
+    public void setExplainTimeout(final long timeout, final TimeUnit unit) {
+        if (timeout < 0 || unit == null) {
+            throw new IllegalArgumentException("No timeout set");
+        }
+
+        this.explainTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Returns the amount of slow calls that were not logged because of
+     * sampling or rate limiting.
+     *
+     * @return Amount of skipped calls
+     */
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    /**
+     * Logs the call when it took longer than the threshold and it is sampled
+     * and allowed by the rate limit. When its plan is requested, the call is
+     * logged by the executor once the plan is known.
+     *
+     * @param event Event of the finished call
+     */
+    @Override
+    public void onEnd(final DbCallEvent event) {
+        if (event.getTotalNanos() < thresholdNanos || !logger.isWarnEnabled()) {
+            return;
+        }
+
+        if (!sampled(sampleRate) || !logLimiter.tryAcquire()) {
+            suppressed.increment();
+            suppressedSinceLog.increment();
+            return;
+        }
+
+        final long suppressedCount = suppressedSinceLog.sumThenReset();
+        final DbDialect explainDialect = event.getDialect() != null ? event.getDialect() : dialect;
+        if (explainDialect == null
+                || !sampled(explainSampleRate)
+                || !event.isExplainable()
+                || !explainLimiter.tryAcquire()) {
+            logger.warn(format(event, null, suppressedCount), event.getError());
+            return;
+        }
+
+        final Executor explainExecutor = executor != null ? executor : DbCallExecutors.getDefault();
+        try {
+            explainExecutor.execute(() -> logger.warn(
+                    format(event, explain(event, explainDialect), suppressedCount), event.getError()));
+        } catch (final RejectedExecutionException e) {
+            logger.warn(format(event, "unavailable (" + e + ")", suppressedCount), event.getError());
+        }
+    }
+
+    /**
+     * Requests the execution plan of the given call.
+     *
+     * @param event          Event of the finished call
+     * @param explainDialect Dialect providing the EXPLAIN-statement
+     * @return Plan, a description of the failure to request it, or null
+     */
+    private String explain(final DbCallEvent event, final DbDialect explainDialect) {
+        try {
+            return event.explain(explainDialect, explainTimeoutNanos, TimeUnit.NANOSECONDS).orElse(null);
+        } catch (final DbCallException e) {
+            return "unavailable (" + (e.getCause() != null ? e.getCause() : e) + ")";
+        } catch (final RuntimeException e) {
+            return "unavailable (" + e + ")";
+        }
+    }
+
+    /**
+     * Formats the message of a slow call.
+     *
+     * @param event      Event of the finished call
+     * @param plan       Execution plan, or null
+     * @param suppressed Amount of calls skipped since the previous message
+     * @return Message
+     */
+    private String format(final DbCallEvent event, final String plan, final long suppressed) {
+        final StringBuilder message = new StringBuilder("Slow DbCall ")
+                .append(event.getOperation())
+                .append(" took ")
+                .append(millis(event.getTotalNanos()))
+                .append(" (");
+        final DbCallPhase[] phases = DbCallPhase.values();
+        for (int i = 0; i < phases.length; i++) {
+            if (i > 0) {
+                message.append(", ");
+            }
+
+            message.append(phases[i].name().toLowerCase(Locale.ROOT))
+                    .append(' ')
+                    .append(millis(event.getPhaseNanos(phases[i])));
+        }
+
+        message.append("), ")
+                .append(event.getRowCount())
+                .append(event.getRowCount() == 1 ? " row" : " rows")
+                .append(event.getSpilledRows() > 0 ? ", " + event.getSpilledRows() + " spilled to disk" : "")
+                .append(event.getError() != null ? ", failed" : "")
+                .append("\n  fingerprint: ").append(event.getFingerprint())
+                .append("\n  sql: ").append(event.getSql())
+                .append("\n  parameters: ").append(formatParameters(event));
+        if (plan != null) {
+            message.append("\n  plan:\n    ").append(plan.replace("\n", "\n    "));
+        }
+
+        if (suppressed > 0) {
+            message.append("\n  ").append(suppressed).append(" slow calls not logged since the previous message");
+        }
+
+        return message.toString();
+    }
+
+    /**
+     * Formats the bound parameter values of a call, after redaction.
+     *
+     * @param event Event of the finished call
+     * @return Parameters as {@code [1=value, 2=value]}
+     */
+    private String formatParameters(final DbCallEvent event) {
+        if (event.getArguments() == null) {
+            return "[]";
+        }
+
+        final Optional<List<List<Object>>> parameters = event.getParameters();
+        if (!parameters.isPresent()) {
+            return "unavailable";
+        }
+
+        final Redactor currentRedactor = redactor;
+        final StringBuilder result = new StringBuilder("[");
+        final List<List<Object>> values = parameters.get();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+
+            final List<Object> parameter = values.get(i);
+            Object value = null;
+            if (parameter != null && !"setNull".equals(parameter.get(0)) && parameter.size() > 1) {
+                value = parameter.get(1);
+            }
+
+            if (value != null && currentRedactor != null) {
+                value = currentRedactor.redact(event.getFingerprint(), i + 1, value);
+            }
+
+            result.append(i + 1).append('=').append(formatValue(value));
+        }
+
+        return result.append(']').toString();
+    }
+
+    /**
+     * Formats a single parameter value.
+     *
+     * @param value Value, or null
+     * @return Value as SQL literal, or a description of binary values
+     */
+    private static String formatValue(final Object value) {
+        if (value == null) {
+            return "NULL";
+        } else if (value instanceof ByteBuffer) {
+            return "<" + ((ByteBuffer) value).remaining() + " bytes>";
+        } else if (value instanceof CharSequence) {
+            return "'" + value + "'";
+        }
+
+        return String.valueOf(value);
+    }
+
+    /**
+     * Formats a duration in milliseconds.
+     *
+     * @param nanos Duration in nanoseconds
+     * @return Duration like "12.3 ms"
+     */
+    private static String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.1f ms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Decides randomly whether an occurrence is sampled.
+     *
+     * @param rate Fraction of occurrences to sample
+     * @return True when sampled
+     */
+    private static boolean sampled(final double rate) {
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    /**
+     * Validates a fraction.
+     *
+     * @param rate Fraction between 0 and 1
+     * @return The given fraction
+     */
+    private static double fraction(final double rate) {
+        if (!(rate >= 0.0 && rate <= 1.0)) {
+            throw new IllegalArgumentException("No rate between 0 and 1 set");
+        }
+
+        return rate;
+    }
+
+    /**
+     * Replaces parameter values before they are logged, e.g. to hide
+     * personal data.
+     */
+    @FunctionalInterface
+    public interface Redactor {
+
+        /**
+         * Redacts all values.
+         */
+        Redactor REDACT_ALL = (fingerprint, index, value) -> "?";
+
+        /**
+         * Returns the value to log in place of the given parameter value.
+         *
+         * @param fingerprint Fingerprint of the query
+         * @param index       Index of the parameter, starting at 1
+         * @param value       Bound value, never null; byte arrays are passed
+         *                    as {@link ByteBuffer}
+         * @return Value to log
+         */
+        Object redact(final String fingerprint, final int index, final Object value);
+
+    }
+
+}
@@ -0,0 +1,490 @@
+package com.peggir.SimpleDbUtil.resultSetMappers;
+
+import com.peggir.SimpleDbUtil.DbCallResultSetMapper;
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides a {@link DbCallResultSetMapper} that maps a {@link ResultSet} to
+ * a bean or record by matching column labels to property names, ignoring
+ * case and underscores (so {@code submission_date} matches
+ * {@code submissionDate}).
+ * <p>
+ * The type is mapped through its constructor when it is a record, or when
+ * it has a public constructor of which the parameter names are available
+ * (compiled with {@code -parameters}); the constructor with the most
+ * parameters is used. Otherwise the type needs a no-argument constructor,
+ * and columns are set through public setters or, when there is no setter,
+ * non-final fields.
+ * <p>
+ * Properties are resolved to method handles once per type, and columns are
+ * resolved to indices once per result set, so mapping a row reads every
+ * column by index without reflection. Create mappers with {@link #of(Class)},
+ * which returns a shared, thread-safe mapper per type.
+ *
+ * @param <T> Bean or record represented by the {@link ResultSet}
+ */
+public final class BeanResultSetMapper<T> implements DbCallResultSetMapper<T> {
+
+    private static final ClassValue<BeanResultSetMapper<?>> MAPPERS = new ClassValue<BeanResultSetMapper<?>>() {
+
+        /**
+         * Creates the mapper of the given type. Mappers are kept with their
+         * type, so they do not keep the class loader of the type reachable.
+         *
+         * @param type Bean or record to map to
+         * @return Mapper for the type
+         */
+        @Override
+        protected BeanResultSetMapper<?> computeValue(final Class<?> type) {
+            return new BeanResultSetMapper<>(type);
+        }
+
+    };
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final String[] parameterNames;
+    private final Class<?>[] parameterTypes;
+    private final Map<String, Property> properties;
+    private final Map<String, ColumnPlan> plansByColumns = new ConcurrentHashMap<>();
+    private final ThreadLocal<LastPlan> lastPlan = new ThreadLocal<>();
+
+    /**
+     * Resolves the constructor and properties of the given type.
+     *
+     * @param type Bean or record to map to
+     * @throws IllegalArgumentException When the type cannot be constructed
+     */
+    private BeanResultSetMapper(final Class<T> type) {
+        this.type = type;
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final Constructor<?> namedConstructor = findNamedConstructor(type);
+        try {
+            if (namedConstructor != null) {
+                parameterNames = parameterNames(type, namedConstructor);
+                parameterTypes = namedConstructor.getParameterTypes();
+                constructor = lookup.unreflectConstructor(namedConstructor)
+                        .asSpreader(Object[].class, parameterTypes.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+                properties = new HashMap<>();
+                for (int i = 0; i < parameterNames.length; i++) {
+                    properties.put(normalize(parameterNames[i]), new Property(i, parameterTypes[i], null));
+                }
+            } else {
+                final Constructor<T> defaultConstructor = type.getDeclaredConstructor();
+                defaultConstructor.setAccessible(true);
+                parameterNames = new String[0];
+                parameterTypes = new Class<?>[0];
+                constructor = lookup.unreflectConstructor(defaultConstructor)
+                        .asType(MethodType.methodType(Object.class));
+                properties = findSettableProperties(type, lookup);
+            }
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException("Unable to map result sets to " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Returns the mapper for the given type, creating it on first use.
+     *
+     * @param type Bean or record to map to
+     * @param <T>  Bean or record to map to
+     * @return Shared mapper for the type
+     * @throws IllegalArgumentException When the type has no constructor with
+     *                                  named parameters and no no-argument
+     *                                  constructor
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanResultSetMapper<T> of(final Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("No type set");
+        }
+
+        return (BeanResultSetMapper<T>) MAPPERS.get(type);
+    }
+
+    /**
+     * Maps the current row of the given {@link ResultSet} to a {@link T}.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return {@link T} represented by the {@link ResultSet}
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to a
+     *                                        {@link T}
+     */
+    @Override
+    public T map(final ResultSet rs) throws DbCallResultSetMapperException {
+        try {
+            final ColumnPlan plan = plan(rs);
+            if (parameterNames.length > 0) {
+                final Object[] args = new Object[parameterNames.length];
+                plan.applyDefaults(args);
+                for (final ColumnBinding binding : plan.bindings) {
+                    args[binding.property.parameter] = binding.reader.read(rs, binding.column);
+                }
+
+                return type.cast(constructor.invokeExact(args));
+            }
+
+            final Object bean = constructor.invokeExact();
+            for (final ColumnBinding binding : plan.bindings) {
+                binding.property.setter.invokeExact(bean, binding.reader.read(rs, binding.column));
+            }
+
+            return type.cast(bean);
+        } catch (final Throwable e) {
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+
+            throw new DbCallResultSetMapperException(DbCallResultSetMapperException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+    /**
+     * Returns the column plan of the given result set. The plan of the last
+     * result set mapped by the current thread is reused without reading the
+     * result set's metadata again.
+     *
+     * @param rs Result set to map from
+     * @return Plan binding the columns to properties
+     * @throws SQLException When unable to read the result set's metadata
+     */
+    private ColumnPlan plan(final ResultSet rs) throws SQLException {
+        final LastPlan last = lastPlan.get();
+        if (last != null && last.resultSet.get() == rs) {
+            return last.plan;
+        }
+
+        final ResultSetMetaData metaData = rs.getMetaData();
+        final int columnCount = metaData.getColumnCount();
+        final String[] labels = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = normalize(metaData.getColumnLabel(i + 1));
+        }
+
+        final ColumnPlan plan = plansByColumns.computeIfAbsent(String.join(",", labels), key -> createPlan(labels));
+        lastPlan.set(new LastPlan(rs, plan));
+        return plan;
+    }
+
+    /**
+     * Creates the plan binding the given columns to properties.
+     *
+     * @param labels Normalized labels of the columns, by index minus one
+     * @return Plan for the columns
+     */
+    private ColumnPlan createPlan(final String[] labels) {
+        final Map<Property, ColumnBinding> bindings = new HashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            final Property property = properties.get(labels[i]);
+            if (property != null && !bindings.containsKey(property)) {
+                bindings.put(property, new ColumnBinding(i + 1, property, ColumnReader.of(property.type)));
+            }
+        }
+
+        final Object[] defaults = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            defaults[i] = defaultValue(parameterTypes[i]);
+        }
+
+        return new ColumnPlan(bindings.values().toArray(new ColumnBinding[0]), defaults);
+    }
+
+    /**
+     * Finds the constructor to map through: the canonical constructor of a
+     * record, or the public constructor with the most parameters when all
+     * its parameter names are available.
+     *
+     * @param type Type to map to
+     * @return Constructor or null when the type should be mapped with setters
+     */
+    private static Constructor<?> findNamedConstructor(final Class<?> type) {
+        final Object[] recordComponents = recordComponents(type);
+        if (recordComponents != null) {
+            try {
+                final Class<?>[] types = new Class<?>[recordComponents.length];
+                for (int i = 0; i < recordComponents.length; i++) {
+                    types[i] = (Class<?>) recordComponents[i].getClass().getMethod("getType").invoke(recordComponents[i]);
+                }
+
+                final Constructor<?> canonical = type.getDeclaredConstructor(types);
+                canonical.setAccessible(true);
+                return canonical;
+            } catch (final ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Unable to map result sets to " + type.getName(), e);
+            }
+        }
+
+        Constructor<?> result = null;
+        for (final Constructor<?> candidate : type.getConstructors()) {
+            if (candidate.getParameterCount() > 0
+                    && allNamesPresent(candidate.getParameters())
+                    && (result == null || candidate.getParameterCount() > result.getParameterCount())) {
+                result = candidate;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the names of the parameters of the constructor to map through.
+     *
+     * @param type        Type to map to
+     * @param constructor Constructor to map through
+     * @return Parameter names, in order
+     * @throws ReflectiveOperationException When unable to read the names of
+     *                                      record components
+     */
+    private static String[] parameterNames(final Class<?> type,
+                                           final Constructor<?> constructor) throws ReflectiveOperationException {
+        final Object[] recordComponents = recordComponents(type);
+        final String[] names = new String[constructor.getParameterCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = recordComponents != null
+                    ? (String) recordComponents[i].getClass().getMethod("getName").invoke(recordComponents[i])
+                    : constructor.getParameters()[i].getName();
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns the record components of the given type, when the running JDK
+     * supports records and the type is one.
+     *
+     * @param type Type to inspect
+     * @return Record components or null when the type is no record
+     */
+    private static Object[] recordComponents(final Class<?> type) {
+        try {
+            final Method isRecord = Class.class.getMethod("isRecord");
+            if (!(Boolean) isRecord.invoke(type)) {
+                return null;
+            }
+
+            return (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+        } catch (final ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the names of all parameters were compiled into the
+     * class.
+     *
+     * @param parameters Parameters to check
+     * @return True when all names are present
+     */
+    private static boolean allNamesPresent(final Parameter[] parameters) {
+        for (final Parameter parameter : parameters) {
+            if (!parameter.isNamePresent()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Finds the properties of a bean that can be set: public single-argument
+     * setters and, for the remaining names, non-final instance fields.
+     *
+     * @param type   Bean type
+     * @param lookup Lookup used to create method handles
+     * @return Settable properties by normalized name
+     * @throws IllegalAccessException When unable to access a setter or field
+     */
+    private static Map<String, Property> findSettableProperties(final Class<?> type,
+                                                                final MethodHandles.Lookup lookup)
+            throws IllegalAccessException {
+        final Map<String, Property> result = new HashMap<>();
+        for (final Method method : type.getMethods()) {
+            if (method.getName().length() > 3
+                    && method.getName().startsWith("set")
+                    && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                final Class<?> propertyType = method.getParameterTypes()[0];
+                result.put(normalize(method.getName().substring(3)), new Property(-1, propertyType, setter(
+                        lookup.unreflect(method))));
+            }
+        }
+
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (final Field field : c.getDeclaredFields()) {
+                final String name = normalize(field.getName());
+                if (!result.containsKey(name)
+                        && !Modifier.isStatic(field.getModifiers())
+                        && !Modifier.isFinal(field.getModifiers())) {
+                    field.setAccessible(true);
+                    result.put(name, new Property(-1, field.getType(), setter(lookup.unreflectSetter(field))));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Adapts a setter handle to take the bean and value as objects.
+     *
+     * @param handle Setter or field setter handle
+     * @return Handle of type (Object, Object) void
+     */
+    private static MethodHandle setter(final MethodHandle handle) {
+        return handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+    }
+
+    /**
+     * Normalizes a column label or property name for matching: lower case
+     * without underscores.
+     *
+     * @param name Label or name to normalize
+     * @return Normalized name
+     */
+    private static String normalize(final String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the value passed for a constructor parameter without column.
+     *
+     * @param type Type of the parameter
+     * @return Zero of a primitive type, or null
+     */
+    private static Object defaultValue(final Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        }
+
+        if (type == boolean.class) {
+            return false;
+        }
+
+        if (type == char.class) {
+            return '\0';
+        }
+
+        return ColumnReader.convertNumber(0, type);
+    }
+
+    /**
+     * Property of the mapped type: a constructor parameter or a setter.
+     */
+    private static final class Property {
+
+        private final int parameter;
+        private final Class<?> type;
+        private final MethodHandle setter;
+
+        /**
+         * Creates a property.
+         *
+         * @param parameter Index of the constructor parameter, or -1
+         * @param type      Type of the property
+         * @param setter    Handle of type (Object, Object) void, or null for a
+         *                  constructor parameter
+         */
+        private Property(final int parameter, final Class<?> type, final MethodHandle setter) {
+            this.parameter = parameter;
+            this.type = type;
+            this.setter = setter;
+        }
+
+    }
+
+    /**
+     * Binds a column of a result set to a property.
+     */
+    private static final class ColumnBinding {
+
+        private final int column;
+        private final Property property;
+        private final ColumnReader reader;
+
+        /**
+         * Creates a binding.
+         *
+         * @param column   Index of the column
+         * @param property Property the column is bound to
+         * @param reader   Reader for the type of the property
+         */
+        private ColumnBinding(final int column, final Property property, final ColumnReader reader) {
+            this.column = column;
+            this.property = property;
+            this.reader = reader;
+        }
+
+    }
+
+    /**
+     * Bindings of all columns of a result set with a certain set of labels.
+     */
+    private static final class ColumnPlan {
+
+        private final ColumnBinding[] bindings;
+        private final Object[] defaults;
+
+        /**
+         * Creates a plan.
+         *
+         * @param bindings Bindings of the columns that match a property
+         * @param defaults Values of constructor parameters without column
+         */
+        private ColumnPlan(final ColumnBinding[] bindings, final Object[] defaults) {
+            this.bindings = bindings;
+            this.defaults = defaults;
+        }
+
+        /**
+         * Fills constructor arguments with their default values.
+         *
+         * @param args Constructor arguments
+         */
+        private void applyDefaults(final Object[] args) {
+            System.arraycopy(defaults, 0, args, 0, defaults.length);
+        }
+
+    }
+
+    /**
+     * Plan of the last result set mapped by a thread. The result set is
+     * referenced weakly, so a finished result set can be collected.
+     */
+    private static final class LastPlan {
+
+        private final WeakReference<ResultSet> resultSet;
+        private final ColumnPlan plan;
+
+        /**
+         * Remembers a plan.
+         *
+         * @param resultSet Result set the plan was created for
+         * @param plan      Plan of the result set
+         */
+        private LastPlan(final ResultSet resultSet, final ColumnPlan plan) {
+            this.resultSet = new WeakReference<>(resultSet);
+            this.plan = plan;
+        }
+
+    }
+
+}
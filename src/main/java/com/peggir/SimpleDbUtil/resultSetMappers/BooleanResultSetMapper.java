@@ -1,6 +1,7 @@
 package com.peggir.SimpleDbUtil.resultSetMappers;
 
 import com.peggir.SimpleDbUtil.DbCallResultSetMapper;
+import com.peggir.SimpleDbUtil.BooleanColumnMapper;
 import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
 
 import java.sql.ResultSet;
@@ -10,7 +11,7 @@ import java.sql.SQLException;
  * Provides a {@link DbCallResultSetMapper} used to map a {@link ResultSet}
  * containing a boolean to a {@link Boolean}.
  */
-public class BooleanResultSetMapper implements DbCallResultSetMapper<Boolean> {
+public class BooleanResultSetMapper implements DbCallResultSetMapper<Boolean>, BooleanColumnMapper {
 
     /**
      * Maps the given {@link ResultSet} to a {@link Boolean}.
@@ -23,6 +24,19 @@ public class BooleanResultSetMapper implements DbCallResultSetMapper<Boolean> {
      */
     @Override
     public Boolean map(final ResultSet rs) throws DbCallResultSetMapperException {
+        return mapBoolean(rs);
+    }
+
+    /**
+     * Maps the given {@link ResultSet} to a primitive boolean.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return boolean represented by the {@link ResultSet}
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to a boolean
+     */
+    @Override
+    public boolean mapBoolean(final ResultSet rs) throws DbCallResultSetMapperException {
         try {
             return rs.getBoolean(1);
         } catch (final SQLException e) {
@@ -0,0 +1,123 @@
+package com.peggir.SimpleDbUtil.resultSetMappers;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+
+/**
+ * Reads a single column of the current row of a {@link ResultSet} as the
+ * type of the property it is bound to, using the type-specific getter of the
+ * result set.
+ */
+@FunctionalInterface
+interface ColumnReader {
+
+    /**
+     * Reads the given column.
+     *
+     * @param rs     Result set positioned on a row
+     * @param column Index of the column
+     * @return Value of the column, or null for SQL NULL unless the property
+     * is primitive
+     * @throws SQLException When unable to read the column
+     */
+    Object read(ResultSet rs, int column) throws SQLException;
+
+    /**
+     * Returns the reader for properties of the given type.
+     *
+     * @param type Type of the property
+     * @return Reader for the type
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static ColumnReader of(final Class<?> type) {
+        if (type == int.class) {
+            return ResultSet::getInt;
+        } else if (type == long.class) {
+            return ResultSet::getLong;
+        } else if (type == double.class) {
+            return ResultSet::getDouble;
+        } else if (type == float.class) {
+            return ResultSet::getFloat;
+        } else if (type == boolean.class) {
+            return ResultSet::getBoolean;
+        } else if (type == short.class) {
+            return ResultSet::getShort;
+        } else if (type == byte.class) {
+            return ResultSet::getByte;
+        } else if (type == Integer.class) {
+            return nullable(ResultSet::getInt);
+        } else if (type == Long.class) {
+            return nullable(ResultSet::getLong);
+        } else if (type == Double.class) {
+            return nullable(ResultSet::getDouble);
+        } else if (type == Float.class) {
+            return nullable(ResultSet::getFloat);
+        } else if (type == Boolean.class) {
+            return nullable(ResultSet::getBoolean);
+        } else if (type == Short.class) {
+            return nullable(ResultSet::getShort);
+        } else if (type == Byte.class) {
+            return nullable(ResultSet::getByte);
+        } else if (type == String.class) {
+            return ResultSet::getString;
+        } else if (type == BigDecimal.class) {
+            return ResultSet::getBigDecimal;
+        } else if (type == byte[].class) {
+            return ResultSet::getBytes;
+        } else if (type == java.sql.Date.class) {
+            return ResultSet::getDate;
+        } else if (type == java.sql.Time.class) {
+            return ResultSet::getTime;
+        } else if (type == java.sql.Timestamp.class || type == Date.class) {
+            return ResultSet::getTimestamp;
+        } else if (type.isEnum()) {
+            return (rs, column) -> {
+                final String name = rs.getString(column);
+                return name == null ? null : Enum.valueOf((Class<? extends Enum>) type, name);
+            };
+        } else if (type == Object.class) {
+            return ResultSet::getObject;
+        }
+
+        return (rs, column) -> rs.getObject(column, type);
+    }
+
+    /**
+     * Wraps a reader of a primitive column so SQL NULL is read as null.
+     *
+     * @param reader Reader of the primitive value
+     * @return Reader returning null for SQL NULL
+     */
+    static ColumnReader nullable(final ColumnReader reader) {
+        return (rs, column) -> {
+            final Object value = reader.read(rs, column);
+            return rs.wasNull() ? null : value;
+        };
+    }
+
+    /**
+     * Converts a number to the given primitive number type.
+     *
+     * @param value Number to convert
+     * @param type  Primitive number type
+     * @return Boxed value of the type
+     */
+    static Object convertNumber(final long value, final Class<?> type) {
+        if (type == int.class) {
+            return (int) value;
+        } else if (type == long.class) {
+            return value;
+        } else if (type == double.class) {
+            return (double) value;
+        } else if (type == float.class) {
+            return (float) value;
+        } else if (type == short.class) {
+            return (short) value;
+        }
+
+        return (byte) value;
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.peggir.SimpleDbUtil.resultSetMappers;
+
+import com.peggir.SimpleDbUtil.DbCallResultSetMapper;
+import com.peggir.SimpleDbUtil.DoubleColumnMapper;
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Provides a {@link DbCallResultSetMapper} used to map a {@link ResultSet}
+ * containing a double to a {@link Double}.
+ */
+public class DoubleResultSetMapper implements DbCallResultSetMapper<Double>, DoubleColumnMapper {
+
+    /**
+     * Maps the given {@link ResultSet} to a {@link Double}.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return {@link Double} represented by the {@link ResultSet}
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to a
+     *                                        {@link Double}
+     */
+    @Override
+    public Double map(final ResultSet rs) throws DbCallResultSetMapperException {
+        return mapDouble(rs);
+    }
+
+    /**
+     * Maps the given {@link ResultSet} to a primitive double.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return double represented by the {@link ResultSet}
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to a double
+     */
+    @Override
+    public double mapDouble(final ResultSet rs) throws DbCallResultSetMapperException {
+        try {
+            return rs.getDouble(1);
+        } catch (final SQLException e) {
+            throw new DbCallResultSetMapperException(DbCallResultSetMapperException.DEFAULT_ERROR_MSG, e);
+        }
+    }
+
+}
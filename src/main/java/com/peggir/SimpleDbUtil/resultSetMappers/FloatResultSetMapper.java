@@ -1,6 +1,7 @@
 package com.peggir.SimpleDbUtil.resultSetMappers;
 
 import com.peggir.SimpleDbUtil.DbCallResultSetMapper;
+import com.peggir.SimpleDbUtil.FloatColumnMapper;
 import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
 
 import java.sql.ResultSet;
@@ -10,7 +11,7 @@ import java.sql.SQLException;
  * Provides a {@link DbCallResultSetMapper} used to map a {@link ResultSet}
  * containing a float to a {@link Float}.
  */
-public class FloatResultSetMapper implements DbCallResultSetMapper<Float> {
+public class FloatResultSetMapper implements DbCallResultSetMapper<Float>, FloatColumnMapper {
 
     /**
      * Maps the given {@link ResultSet} to a {@link Float}.
@@ -23,6 +24,19 @@ public class FloatResultSetMapper implements DbCallResultSetMapper<Float> {
      */
     @Override
     public Float map(final ResultSet rs) throws DbCallResultSetMapperException {
+        return mapFloat(rs);
+    }
+
+    /**
+     * Maps the given {@link ResultSet} to a primitive float.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return float represented by the {@link ResultSet}
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to a float
+     */
+    @Override
+    public float mapFloat(final ResultSet rs) throws DbCallResultSetMapperException {
         try {
             return rs.getFloat(1);
         } catch (final SQLException e) {
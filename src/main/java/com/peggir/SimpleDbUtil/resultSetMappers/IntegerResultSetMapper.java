@@ -1,6 +1,7 @@
 package com.peggir.SimpleDbUtil.resultSetMappers;
 
 import com.peggir.SimpleDbUtil.DbCallResultSetMapper;
+import com.peggir.SimpleDbUtil.IntColumnMapper;
 import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
 
 import java.sql.ResultSet;
@@ -10,7 +11,7 @@ import java.sql.SQLException;
  * Provides a {@link DbCallResultSetMapper} used to map a {@link ResultSet}
  * containing a number to an {@link Integer}.
  */
-public class IntegerResultSetMapper implements DbCallResultSetMapper<Integer> {
+public class IntegerResultSetMapper implements DbCallResultSetMapper<Integer>, IntColumnMapper {
 
     /**
      * Maps the given {@link ResultSet} to an {@link Integer}.
@@ -23,6 +24,19 @@ public class IntegerResultSetMapper implements DbCallResultSetMapper<Integer> {
      */
     @Override
     public Integer map(final ResultSet rs) throws DbCallResultSetMapperException {
+        return mapInt(rs);
+    }
+
+    /**
+     * Maps the given {@link ResultSet} to a primitive int.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return int represented by the {@link ResultSet}
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to an int
+     */
+    @Override
+    public int mapInt(final ResultSet rs) throws DbCallResultSetMapperException {
         try {
             return rs.getInt(1);
         } catch (final SQLException e) {
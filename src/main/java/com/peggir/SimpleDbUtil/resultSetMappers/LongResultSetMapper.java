@@ -1,6 +1,7 @@
 package com.peggir.SimpleDbUtil.resultSetMappers;
 
 import com.peggir.SimpleDbUtil.DbCallResultSetMapper;
+import com.peggir.SimpleDbUtil.LongColumnMapper;
 import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
 
 import java.sql.ResultSet;
@@ -10,7 +11,7 @@ import java.sql.SQLException;
  * Provides a {@link DbCallResultSetMapper} used to map a {@link ResultSet}
  * containing a long to a {@link Long}.
  */
-public class LongResultSetMapper implements DbCallResultSetMapper<Long> {
+public class LongResultSetMapper implements DbCallResultSetMapper<Long>, LongColumnMapper {
 
     /**
      * Maps the given {@link ResultSet} to a {@link Long}.
@@ -23,6 +24,19 @@ public class LongResultSetMapper implements DbCallResultSetMapper<Long> {
      */
     @Override
     public Long map(final ResultSet rs) throws DbCallResultSetMapperException {
+        return mapLong(rs);
+    }
+
+    /**
+     * Maps the given {@link ResultSet} to a primitive long.
+     *
+     * @param rs {@link ResultSet} to map from
+     * @return long represented by the {@link ResultSet}
+     * @throws DbCallResultSetMapperException Thrown when unable to map the
+     *                                        {@link ResultSet} to a long
+     */
+    @Override
+    public long mapLong(final ResultSet rs) throws DbCallResultSetMapperException {
         try {
             return rs.getLong(1);
         } catch (final SQLException e) {
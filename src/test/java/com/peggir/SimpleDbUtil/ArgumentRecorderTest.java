@@ -0,0 +1,58 @@
+package com.peggir.SimpleDbUtil;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class ArgumentRecorderTest {
+
+    @Test
+    public void testRecord() throws Exception {
+        final List<List<Object>> parameters = ArgumentRecorder.record(stmt -> {
+            stmt.setString(2, "Harry Potter");
+            stmt.setInt(1, 11);
+            stmt.setNull(3, Types.FLOAT);
+        });
+
+        assertEquals(Arrays.asList(
+                Arrays.asList("setInt", 11),
+                Arrays.asList("setString", "Harry Potter"),
+                Arrays.asList("setNull", Types.FLOAT)
+        ), parameters);
+    }
+
+    @Test
+    public void testRecordComparesByteArraysByContent() throws Exception {
+        assertEquals(
+                ArgumentRecorder.record(stmt -> stmt.setBytes(1, new byte[]{1, 2})),
+                ArgumentRecorder.record(stmt -> stmt.setBytes(1, new byte[]{1, 2})));
+        assertNotEquals(
+                ArgumentRecorder.record(stmt -> stmt.setBytes(1, new byte[]{1, 2})),
+                ArgumentRecorder.record(stmt -> stmt.setBytes(1, new byte[]{2, 1})));
+    }
+
+    @Test
+    public void testRecordWithoutArguments() throws Exception {
+        assertEquals(Collections.emptyList(), ArgumentRecorder.record(null));
+    }
+
+    @Test
+    public void testRecordWithStream() throws Exception {
+        assertNull(ArgumentRecorder.record(stmt -> stmt.setBinaryStream(1, new ByteArrayInputStream(new byte[0]))));
+    }
+
+    @Test(expected = SQLException.class)
+    public void testRecordWithUnsupportedOperation() throws Exception {
+        ArgumentRecorder.record(stmt -> stmt.executeQuery());
+    }
+
+}
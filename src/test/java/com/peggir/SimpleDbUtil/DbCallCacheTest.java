@@ -0,0 +1,212 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.intellij.lang.annotations.Language;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DbCallCacheTest extends WithDatabase {
+
+    @Language("SQL")
+    private static final String SELECT_NAME_PARAMETERIZED = "SELECT \"name\" FROM \"person\" WHERE \"id\"=?;";
+
+    @Language("SQL")
+    private static final String RENAME_HARRY = "UPDATE \"person\" SET \"name\"='The Boy Who Lived' WHERE \"id\"=0;";
+
+    private DbCallCache cache;
+
+    @Before
+    public void setUpCache() {
+        cache = new DbCallCache(100, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void testGetOneReturnsCachedResult() throws Exception {
+        assertEquals("Harry Potter", getName(0).orElse(null));
+        new DbCall<>(database, RENAME_HARRY).execute();
+
+        assertEquals("Harry Potter", getName(0).orElse(null));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRatio(), 0);
+    }
+
+    @Test
+    public void testGetOneCachesByArguments() throws Exception {
+        assertEquals("Harry Potter", getName(0).orElse(null));
+        assertEquals("Hermione Granger", getName(1).orElse(null));
+        assertFalse(getName(999).isPresent());
+        assertFalse(getName(999).isPresent());
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testGetAllReturnsCachedResult() throws Exception {
+        final DbCall<String> call = new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" ORDER BY \"id\";");
+        call.setCache(cache);
+
+        final List<String> first = call.getAll();
+        final List<String> second = call.getAll();
+
+        assertEquals(4, second.size());
+        assertEquals(first, second);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testExecuteInvalidatesTable() throws Exception {
+        getName(0);
+        final DbCall<Void> update = new DbCall<>(database, RENAME_HARRY);
+        update.setCache(cache);
+        update.execute();
+
+        assertEquals("The Boy Who Lived", getName(0).orElse(null));
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void testStatementOfUnknownTablesInvalidatesAll() throws Exception {
+        getName(0);
+        getName(1);
+        final DbCall<Void> statement = new DbCall<>(database, "CREATE INDEX \"person_age\" ON \"person\" (\"age\");");
+        statement.setCache(cache);
+        statement.execute();
+
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void testQueryOfUnknownTablesIsNotCached() throws Exception {
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" WHERE \"name\" <> 'C:\\';");
+        call.setCache(cache);
+        call.getAll();
+        call.getAll();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidateOtherTableKeepsResult() throws Exception {
+        getName(0);
+        cache.invalidateTable("house");
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testInvalidateAll() throws Exception {
+        getName(0);
+        getName(1);
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void testExpiredResultIsQueriedAgain() throws Exception {
+        cache = new DbCallCache(100, 1, TimeUnit.NANOSECONDS);
+        getName(0);
+        new DbCall<>(database, RENAME_HARRY).execute();
+        Thread.sleep(1);
+
+        assertEquals("The Boy Who Lived", getName(0).orElse(null));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedResult() throws Exception {
+        cache = new DbCallCache(2, 1, TimeUnit.MINUTES);
+        getName(0);
+        getName(1);
+        getName(0);
+        getName(2);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("Harry Potter", getName(0).orElse(null));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testResultWithStreamArgumentIsNotCached() throws Exception {
+        final DbCall<String> call = new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" WHERE \"name\"=?;",
+                stmt -> stmt.setCharacterStream(1, new java.io.StringReader("Harry Potter")));
+        call.setCache(cache);
+
+        assertTrue(call.getOne().isPresent());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMappersWithStateDoNotShareResults() throws Exception {
+        assertEquals("Harry Potter!", getName(0, "!").orElse(null));
+        assertEquals("Harry Potter?", getName(0, "?").orElse(null));
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testSessionTransactionBypassesCache() throws Exception {
+        try (final DbSession session = DbSession.open(database)) {
+            session.beginTransaction();
+            session.call(RENAME_HARRY).execute();
+            final DbCall<String> call = session.call(new StringResultSetMapper(), SELECT_NAME_PARAMETERIZED,
+                    stmt -> stmt.setInt(1, 0));
+            call.setCache(cache);
+
+            assertEquals("The Boy Who Lived", call.getOne().orElse(null));
+            session.rollback();
+        }
+
+        assertEquals(0, cache.size());
+        assertEquals("Harry Potter", getName(0).orElse(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateWithoutSize() {
+        new DbCallCache(0, 1, TimeUnit.MINUTES);
+    }
+
+    private Optional<String> getName(final int id) throws Exception {
+        final DbCall<String> call = new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                SELECT_NAME_PARAMETERIZED,
+                stmt -> stmt.setInt(1, id));
+        call.setCache(cache);
+        return call.getOne();
+    }
+
+    private Optional<String> getName(final int id, final String suffix) throws Exception {
+        final StringResultSetMapper names = new StringResultSetMapper();
+        final DbCall<String> call = new DbCall<>(
+                database,
+                rs -> names.map(rs) + suffix,
+                SELECT_NAME_PARAMETERIZED,
+                stmt -> stmt.setInt(1, id));
+        call.setCache(cache);
+        return call.getOne();
+    }
+
+}
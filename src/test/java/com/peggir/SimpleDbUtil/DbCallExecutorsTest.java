@@ -0,0 +1,73 @@
+package com.peggir.SimpleDbUtil;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DbCallExecutorsTest {
+
+    @Test
+    public void testNewBoundedExecutorQueuesAndRejects() throws Exception {
+        final ThreadPoolExecutor executor = DbCallExecutors.newBoundedExecutor(1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> await(release));
+            executor.execute(() -> await(release));
+            assertEquals(1, executor.getQueue().size());
+
+            try {
+                executor.execute(() -> await(release));
+            } catch (final RejectedExecutionException e) {
+                return;
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+        throw new AssertionError("Expected RejectedExecutionException");
+    }
+
+    @Test
+    public void testNewBoundedExecutorUsesDaemonThreads() throws Exception {
+        final ThreadPoolExecutor executor = DbCallExecutors.newBoundedExecutor(1, 1);
+        try {
+            assertTrue(executor.submit(() -> Thread.currentThread().isDaemon()).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSetDefault() {
+        final Executor previous = DbCallExecutors.getDefault();
+        final Executor executor = Runnable::run;
+        try {
+            DbCallExecutors.setDefault(executor);
+            assertSame(executor, DbCallExecutors.getDefault());
+        } finally {
+            DbCallExecutors.setDefault(previous);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetDefaultWithoutExecutor() {
+        DbCallExecutors.setDefault(null);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,245 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallRejectedException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DbCallLimiterTest extends WithDatabase {
+
+    private static DbCallLimiter limiter(final int limit, final int maxQueueSize) {
+        final DbCallLimiter limiter = new DbCallLimiter();
+        limiter.setLimit(limit);
+        limiter.setMaxQueueSize(maxQueueSize);
+        return limiter;
+    }
+
+    private static CompletableFuture<DbCallLimiter.Permit> acquireAsync(final DbCallLimiter limiter,
+                                                                        final DbCallLimiter.Priority priority,
+                                                                        final List<DbCallLimiter.Priority> order) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                final DbCallLimiter.Permit permit = limiter.acquire(priority);
+                order.add(priority);
+                return permit;
+            } catch (final DbCallRejectedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static void awaitQueueDepth(final DbCallLimiter limiter, final int depth) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getQueueDepth() != depth && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertEquals(depth, limiter.getQueueDepth());
+    }
+
+    @Test
+    public void testAcquireUpToLimit() throws Exception {
+        final DbCallLimiter limiter = limiter(2, 0);
+        try (final DbCallLimiter.Permit first = limiter.acquire(DbCallLimiter.Priority.NORMAL);
+             final DbCallLimiter.Permit second = limiter.acquire(DbCallLimiter.Priority.NORMAL)) {
+            assertEquals(2, limiter.getInFlight());
+            try {
+                limiter.acquire(DbCallLimiter.Priority.HIGH);
+                fail();
+            } catch (final DbCallRejectedException e) {
+                assertEquals(1, limiter.getRejectedCount());
+            }
+        }
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(2, limiter.getAdmittedCount());
+    }
+
+    @Test
+    public void testQueuedCallsAreAdmittedByPriority() throws Exception {
+        final DbCallLimiter limiter = limiter(1, 10);
+        limiter.setLimitRange(1, 1);
+        final List<DbCallLimiter.Priority> order = new CopyOnWriteArrayList<>();
+        final DbCallLimiter.Permit permit = limiter.acquire(DbCallLimiter.Priority.NORMAL);
+        final CompletableFuture<DbCallLimiter.Permit> low = acquireAsync(limiter, DbCallLimiter.Priority.LOW, order);
+        awaitQueueDepth(limiter, 1);
+        final CompletableFuture<DbCallLimiter.Permit> high = acquireAsync(limiter, DbCallLimiter.Priority.HIGH, order);
+        awaitQueueDepth(limiter, 2);
+
+        permit.close();
+        high.get(5, TimeUnit.SECONDS).close();
+        low.get(5, TimeUnit.SECONDS).close();
+
+        assertEquals(DbCallLimiter.Priority.HIGH, order.get(0));
+        assertEquals(DbCallLimiter.Priority.LOW, order.get(1));
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    public void testFullQueueEvictsLowerPriority() throws Exception {
+        final DbCallLimiter limiter = limiter(1, 1);
+        final List<DbCallLimiter.Priority> order = new CopyOnWriteArrayList<>();
+        final DbCallLimiter.Permit permit = limiter.acquire(DbCallLimiter.Priority.NORMAL);
+        final CompletableFuture<DbCallLimiter.Permit> low = acquireAsync(limiter, DbCallLimiter.Priority.LOW, order);
+        awaitQueueDepth(limiter, 1);
+        final CompletableFuture<DbCallLimiter.Permit> high = acquireAsync(limiter, DbCallLimiter.Priority.HIGH, order);
+
+        try {
+            low.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause().getCause() instanceof DbCallRejectedException);
+        }
+
+        permit.close();
+        high.get(5, TimeUnit.SECONDS).close();
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test(expected = DbCallRejectedException.class)
+    public void testFullQueueRejectsSamePriority() throws Exception {
+        final DbCallLimiter limiter = limiter(1, 0);
+        try (final DbCallLimiter.Permit permit = limiter.acquire(DbCallLimiter.Priority.LOW)) {
+            limiter.acquire(DbCallLimiter.Priority.LOW);
+        }
+    }
+
+    @Test
+    public void testWaitTooLong() throws Exception {
+        final DbCallLimiter limiter = limiter(1, 10);
+        limiter.setMaxWait(10, TimeUnit.MILLISECONDS);
+        try (final DbCallLimiter.Permit permit = limiter.acquire(DbCallLimiter.Priority.NORMAL)) {
+            limiter.acquire(DbCallLimiter.Priority.HIGH);
+            fail();
+        } catch (final DbCallRejectedException e) {
+            assertEquals(0, limiter.getQueueDepth());
+        }
+    }
+
+    @Test
+    public void testLimitGrowsWhileLatencyIsStable() throws Exception {
+        final DbCallLimiter limiter = limiter(2, 0);
+        for (int i = 0; i < 20; i++) {
+            final DbCallLimiter.Permit first = limiter.acquire(DbCallLimiter.Priority.NORMAL);
+            final DbCallLimiter.Permit second = limiter.acquire(DbCallLimiter.Priority.NORMAL);
+            limiter.release(first, 1_000_000L);
+            limiter.release(second, 1_000_000L);
+        }
+
+        assertTrue(limiter.getLimit() > 2);
+    }
+
+    @Test
+    public void testLimitShrinksWhenLatencyRises() throws Exception {
+        final DbCallLimiter limiter = limiter(10, 0);
+        limiter.release(limiter.acquire(DbCallLimiter.Priority.NORMAL), 1_000_000L);
+        for (int i = 0; i < 5; i++) {
+            limiter.release(limiter.acquire(DbCallLimiter.Priority.NORMAL), 10_000_000L);
+        }
+
+        assertEquals(10, limiter.getLimit());
+        for (int i = 0; i < 35; i++) {
+            limiter.release(limiter.acquire(DbCallLimiter.Priority.NORMAL), 10_000_000L);
+        }
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    public void testMixedLatenciesKeepLimit() throws Exception {
+        final DbCallLimiter limiter = limiter(10, 0);
+        for (int i = 0; i < 100; i++) {
+            limiter.release(limiter.acquire(DbCallLimiter.Priority.NORMAL, Long.MAX_VALUE, "lookup"), 1_000_000L);
+            limiter.release(limiter.acquire(DbCallLimiter.Priority.NORMAL, Long.MAX_VALUE, "report"), 50_000_000L);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitStaysInRange() throws Exception {
+        final DbCallLimiter limiter = limiter(2, 0);
+        limiter.setLimitRange(2, 3);
+        limiter.release(limiter.acquire(DbCallLimiter.Priority.NORMAL), 1_000_000L);
+        for (int i = 0; i < 10; i++) {
+            limiter.release(limiter.acquire(DbCallLimiter.Priority.NORMAL), 10_000_000L);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testDbCallIsRejectedWhenOverloaded() throws Exception {
+        final DbCallLimiter limiter = limiter(1, 0);
+        DbCallLimiter.register(database, limiter);
+        try {
+            final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(),
+                    "SELECT \"name\" FROM \"person\";");
+            try (final DbCallLimiter.Permit permit = limiter.acquire(DbCallLimiter.Priority.HIGH)) {
+                call.getAll();
+                fail();
+            } catch (final DbCallRejectedException e) {
+                assertEquals(1, limiter.getRejectedCount());
+            }
+
+            assertEquals(4, call.getAll().size());
+            assertEquals(0, limiter.getInFlight());
+        } finally {
+            DbCallLimiter.unregister(database);
+        }
+    }
+
+    @Test
+    public void testSessionViewUsesLimiterOfDatabase() throws Exception {
+        final ReadWriteDatabase readWriteDatabase = new ReadWriteDatabase(database);
+        final DbCallLimiter limiter = limiter(1, 0);
+        DbCallLimiter.register(readWriteDatabase, limiter);
+        try {
+            final DbCall<String> call = new DbCall<>(readWriteDatabase.forSession("user-1"),
+                    new StringResultSetMapper(), "SELECT \"name\" FROM \"person\";");
+            try (final DbCallLimiter.Permit permit = limiter.acquire(DbCallLimiter.Priority.HIGH)) {
+                call.getAll();
+                fail();
+            } catch (final DbCallRejectedException e) {
+                assertEquals(1, limiter.getRejectedCount());
+            }
+        } finally {
+            DbCallLimiter.unregister(readWriteDatabase.forSession("user-2"));
+        }
+
+        assertNull(DbCallLimiter.forDatabase(readWriteDatabase));
+    }
+
+    @Test
+    public void testStreamHoldsPermitUntilClosed() throws Exception {
+        final DbCallLimiter limiter = limiter(1, 0);
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\";");
+        call.setLimiter(limiter);
+        call.setPriority(DbCallLimiter.Priority.LOW);
+
+        try (final Stream<String> names = call.stream()) {
+            assertEquals(1, limiter.getInFlight());
+            assertEquals(4, names.count());
+        }
+
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetLimitOutsideRange() {
+        new DbCallLimiter().setLimit(0);
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DbCallListenersTest extends WithDatabase {
+
+    private final RecordingListener listener = new RecordingListener();
+
+    @After
+    public void unregister() {
+        DbCallListeners.unregister(listener);
+    }
+
+    @Test
+    public void testNoEventWithoutListeners() {
+        assertTrue(DbCallListeners.isEmpty());
+        assertNull(DbCallListeners.start("getAll", new DbCall<>(database, "SELECT 1"), "SELECT 1", null));
+    }
+
+    @Test
+    public void testRegisterAndUnregister() {
+        DbCallListeners.register(listener);
+        DbCallListeners.register(listener);
+        assertFalse(DbCallListeners.isEmpty());
+
+        assertTrue(DbCallListeners.unregister(listener));
+        assertFalse(DbCallListeners.unregister(listener));
+        assertTrue(DbCallListeners.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterWithoutListener() {
+        DbCallListeners.register(null);
+    }
+
+    @Test
+    public void testGetAllReportsAllPhases() throws Exception {
+        DbCallListeners.register(listener);
+
+        final List<String> result = new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" WHERE \"age\" < ?;", stmt -> stmt.setInt(1, 12)).getAll();
+
+        assertEquals(2, result.size());
+        assertEquals(Arrays.asList("start", "ACQUIRE", "PREPARE", "EXECUTE", "MAP", "end"), listener.calls);
+        final DbCallEvent event = listener.event;
+        assertEquals("getAll", event.getOperation());
+        assertEquals("SELECT \"name\" FROM \"person\" WHERE \"age\" < ?", event.getFingerprint());
+        assertEquals(Collections.singleton("person"), event.getTables());
+        assertNotNull(event.getArguments());
+        assertEquals(2, event.getRowCount());
+        assertNull(event.getError());
+        assertTrue(event.getTotalNanos() >= event.getPhaseNanos(DbCallPhase.EXECUTE));
+    }
+
+    @Test
+    public void testGetOneReportsRewrittenSql() throws Exception {
+        DbCallListeners.register(listener);
+
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\";");
+        call.setDialect(new com.peggir.SimpleDbUtil.dialects.H2Dialect());
+        call.getOne();
+
+        assertEquals("getOne", listener.event.getOperation());
+        assertEquals("SELECT \"name\" FROM \"person\";", listener.event.getQuery());
+        assertTrue(listener.event.getSql().endsWith("LIMIT 1"));
+        assertEquals(1, listener.event.getRowCount());
+    }
+
+    @Test
+    public void testExecuteReportsUpdateCount() throws Exception {
+        DbCallListeners.register(listener);
+
+        new DbCall<>(database, "UPDATE \"person\" SET \"age\"=\"age\"+1 WHERE \"isStudent\"=TRUE;").execute();
+
+        assertEquals(Arrays.asList("start", "ACQUIRE", "PREPARE", "EXECUTE", "end"), listener.calls);
+        assertEquals("execute", listener.event.getOperation());
+        assertEquals(3, listener.event.getRowCount());
+    }
+
+    @Test
+    public void testExecuteBatchReportsUpdateCount() throws Exception {
+        DbCallListeners.register(listener);
+
+        new DbCall<>(database, "UPDATE \"person\" SET \"age\"=\"age\"+1 WHERE \"id\"=?;")
+                .executeBatch(Arrays.asList(0, 1, 99), (stmt, id) -> stmt.setInt(1, id));
+
+        assertEquals("executeBatch", listener.event.getOperation());
+        assertEquals(2, listener.event.getRowCount());
+    }
+
+    @Test
+    public void testFailureIsReported() {
+        DbCallListeners.register(listener);
+
+        try {
+            new DbCall<>(database, new StringResultSetMapper(), "SELECT \"unknown\" FROM \"person\";").getAll();
+            fail();
+        } catch (final DbCallException e) {
+            assertSame(e.getCause(), listener.event.getError());
+        }
+
+        assertEquals(Arrays.asList("start", "ACQUIRE", "end"), listener.calls);
+        assertTrue(listener.event.getTotalNanos() >= 0);
+    }
+
+    @Test
+    public void testListenerExceptionsAreIgnored() throws Exception {
+        final DbCallListener failing = new DbCallListener() {
+            @Override
+            public void onStart(final DbCallEvent event) {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public void onPhase(final DbCallEvent event, final DbCallPhase phase, final long durationNanos) {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public void onEnd(final DbCallEvent event) {
+                throw new IllegalStateException();
+            }
+        };
+        DbCallListeners.register(failing);
+        try {
+            assertTrue(new DbCall<>(database, "SELECT 1;").hasResults());
+        } finally {
+            DbCallListeners.unregister(failing);
+        }
+    }
+
+    private static class RecordingListener implements DbCallListener {
+
+        private final List<String> calls = new ArrayList<>();
+        private DbCallEvent event;
+
+        @Override
+        public void onStart(final DbCallEvent event) {
+            calls.add("start");
+        }
+
+        @Override
+        public void onPhase(final DbCallEvent event, final DbCallPhase phase, final long durationNanos) {
+            calls.add(phase.name());
+        }
+
+        @Override
+        public void onEnd(final DbCallEvent event) {
+            calls.add("end");
+            this.event = event;
+        }
+
+    }
+
+}
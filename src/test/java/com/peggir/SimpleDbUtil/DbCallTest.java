@@ -1,17 +1,44 @@
 package com.peggir.SimpleDbUtil;
 
+import com.peggir.SimpleDbUtil.dialects.H2Dialect;
+import com.peggir.SimpleDbUtil.dialects.PostgreSqlDialect;
 import com.peggir.SimpleDbUtil.exceptions.DbCallException;
 import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+import com.peggir.SimpleDbUtil.exceptions.UncheckedDbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.BooleanResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.DoubleResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.FloatResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.IntegerResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.LongResultSetMapper;
 import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
 import org.intellij.lang.annotations.Language;
 import org.junit.Test;
-
+import org.mockito.Mockito;
+import play.db.Database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class DbCallTest extends WithDatabase {
 
@@ -24,6 +51,21 @@ public class DbCallTest extends WithDatabase {
     @Language("SQL")
     private static final String SELECT_PERSON_AGE_100 = "SELECT \"name\" FROM \"person\" WHERE \"age\"=100;";
 
+    @Language("SQL")
+    private static final String INSERT_PERSON = "INSERT INTO \"person\" (\"id\", \"name\", \"age\", \"isStudent\") " +
+            "VALUES (?,?,?,?);";
+
+    @Language("SQL")
+    private static final String INSERT_GENERATED_PERSON = "INSERT INTO \"person\" (\"name\", \"age\", \"isStudent\") " +
+            "VALUES (?,100,FALSE);";
+
+    private static final DbCallBatchArguments<String> BIND_PERSON_WITH_AGE_100 = (stmt, name) -> {
+        stmt.setInt(1, 100 + name.length());
+        stmt.setString(2, name);
+        stmt.setInt(3, 100);
+        stmt.setBoolean(4, false);
+    };
+
     @Test
     public void testGetOneWithQueryParameterAndExistingResult() throws Exception {
         final DbCall<String> call = new DbCall<>(
@@ -113,6 +155,43 @@ public class DbCallTest extends WithDatabase {
         new DbCall<>(database, new StringResultSetMapper(), "SELECT 1 FROM \"person\" WHERE \"age\"=?;").getOne();
     }
 
+    @Test
+    public void testGetOneWithQuestionMarkInLiteralWithoutBindings() throws Exception {
+        final Optional<String> result = new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" WHERE \"name\"<>'Who?' ORDER BY \"id\";"
+        ).getOne();
+
+        assertTrue(result.isPresent());
+    }
+
+    @Test
+    public void testGetOneWithDialectAndExistingResult() throws Exception {
+        final DbCall<String> call = new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" ORDER BY \"id\";");
+        call.setDialect(new H2Dialect());
+        final Optional<String> result = call.getOne();
+
+        assertTrue(result.isPresent());
+        assertEquals("Harry Potter", result.get());
+    }
+
+    @Test
+    public void testGetOneWithDialectAndOwnLimit() throws Exception {
+        final DbCall<String> call = new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" ORDER BY \"id\" LIMIT 2 OFFSET 1;");
+        call.setDialect(new H2Dialect());
+        final Optional<String> result = call.getOne();
+
+        assertTrue(result.isPresent());
+        assertEquals("Hermione Granger", result.get());
+    }
+
     @Test
     public void testGetAllWithQueryParameterAndExistingResult() throws Exception {
         final DbCall<String> call = new DbCall<>(
@@ -180,6 +259,176 @@ public class DbCallTest extends WithDatabase {
         new DbCall<>(database, new StringResultSetMapper(), "SELECT * FROM \"i_dont_exist\";").getAll();
     }
 
+    @Test
+    public void testGetAllIntsWithoutQueryParametersWithResult() throws Exception {
+        final int[] result = new DbCall<>(
+                database,
+                "SELECT \"age\" FROM \"person\" ORDER BY \"id\";"
+        ).getAllInts(new IntegerResultSetMapper());
+
+        assertArrayEquals(new int[]{11, 10, 12, 28}, result);
+    }
+
+    @Test
+    public void testGetAllIntsWithQueryParameterAndNoResult() throws Exception {
+        final int[] result = new DbCall<>(
+                database,
+                "SELECT \"age\" FROM \"person\" WHERE \"id\"=?;",
+                stmt -> stmt.setInt(1, 999)
+        ).getAllInts(new IntegerResultSetMapper());
+
+        assertEquals(0, result.length);
+    }
+
+    @Test
+    public void testGetAllLongsWithoutQueryParametersWithResult() throws Exception {
+        final long[] result = new DbCall<>(
+                database,
+                "SELECT \"id\" FROM \"person\" ORDER BY \"id\";"
+        ).getAllLongs(new LongResultSetMapper());
+
+        assertArrayEquals(new long[]{0, 1, 2, 3}, result);
+    }
+
+    @Test
+    public void testGetAllFloatsWithNulls() throws Exception {
+        final BitSet nulls = new BitSet();
+        final float[] result = new DbCall<>(
+                database,
+                "SELECT \"score\" FROM \"person\" ORDER BY \"id\";"
+        ).getAllFloats(new FloatResultSetMapper(), nulls);
+
+        assertArrayEquals(new float[]{6.5f, 9.5f, 5.6f, 0}, result, 0.0001f);
+        assertEquals(3, nulls.nextSetBit(0));
+        assertEquals(1, nulls.cardinality());
+    }
+
+    @Test
+    public void testGetAllDoublesWithNulls() throws Exception {
+        final BitSet nulls = new BitSet();
+        final double[] result = new DbCall<>(
+                database,
+                "SELECT \"score\" FROM \"person\" ORDER BY \"id\";"
+        ).getAllDoubles(new DoubleResultSetMapper(), nulls);
+
+        assertArrayEquals(new double[]{6.5, 9.5, 5.6, 0}, result, 0.0001);
+        assertEquals(3, nulls.nextSetBit(0));
+        assertEquals(1, nulls.cardinality());
+    }
+
+    @Test
+    public void testGetAllBooleansWithoutQueryParametersWithResult() throws Exception {
+        final BitSet values = new BitSet();
+        final int size = new DbCall<>(
+                database,
+                "SELECT \"isStudent\" FROM \"person\" ORDER BY \"id\";"
+        ).getAllBooleans(new BooleanResultSetMapper(), values, null);
+
+        assertEquals(4, size);
+        assertEquals(3, values.cardinality());
+        assertFalse(values.get(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetAllIntsWhenColumnMapperIsMissing() throws Exception {
+        new DbCall<>(database, "SELECT \"age\" FROM \"person\";").getAllInts(null);
+    }
+
+    @Test(expected = DbCallException.class)
+    public void testGetAllIntsWhenThereAreQueryErrors() throws Exception {
+        new DbCall<>(database, "SELECT \"age\" FROM \"i_dont_exist\";").getAllInts(new IntegerResultSetMapper());
+    }
+
+    @Test
+    public void testStreamWithoutQueryParametersWithResult() throws Exception {
+        final DbCall<String> call = new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" ORDER BY \"id\";");
+        call.setFetchSize(2);
+
+        try (final Stream<String> stream = call.stream()) {
+            assertEquals(
+                    Arrays.asList("Harry Potter", "Hermione Granger", "Ron Weasley", "Severus Snape"),
+                    stream.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testStreamWithQueryParameterAndNoResult() throws Exception {
+        final DbCall<String> call = new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                SELECT_NAME_PARAMETERIZED,
+                stmt -> stmt.setInt(1, 999));
+
+        try (final Stream<String> stream = call.stream()) {
+            assertEquals(0, stream.count());
+        }
+    }
+
+    @Test
+    public void testStreamClosesConnectionWhenClosedEarly() throws Exception {
+        final Connection conn = Mockito.spy(DriverManager.getConnection(database.getUrl()));
+        final Database db = Mockito.mock(Database.class);
+        when(db.getConnection()).thenReturn(conn);
+
+        final DbCall<String> call = new DbCall<>(
+                db,
+                new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" ORDER BY \"id\";");
+        call.setFetchSize(1);
+
+        try (final Stream<String> stream = call.stream()) {
+            assertEquals("Harry Potter", stream.findFirst().orElse(null));
+            verify(conn, never()).close();
+        }
+
+        verify(conn).close();
+        verify(conn).setAutoCommit(true);
+    }
+
+    @Test(expected = UncheckedDbCallException.class)
+    public void testStreamWhenThereAreMappingErrors() throws Exception {
+        try (final Stream<String> stream = new DbCall<>(
+                database,
+                (DbCallResultSetMapper<String>) rs -> {
+                    throw new DbCallResultSetMapperException("", null);
+                },
+                "SELECT \"name\" FROM \"person\";"
+        ).stream()) {
+            stream.count();
+        }
+    }
+
+    @Test(expected = DbCallException.class)
+    public void testStreamWhenThereAreQueryErrors() throws Exception {
+        new DbCall<>(database, new StringResultSetMapper(), "SELECT * FROM \"i_dont_exist\";").stream();
+    }
+
+    @Test
+    public void testForEachWithoutQueryParametersWithResult() throws Exception {
+        final List<String> result = new ArrayList<>();
+        new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" ORDER BY \"id\";"
+        ).forEach(result::add);
+
+        assertEquals(Arrays.asList("Harry Potter", "Hermione Granger", "Ron Weasley", "Severus Snape"), result);
+    }
+
+    @Test(expected = DbCallException.class)
+    public void testForEachWhenThereAreMappingErrors() throws Exception {
+        new DbCall<>(
+                database,
+                (DbCallResultSetMapper<String>) rs -> {
+                    throw new DbCallResultSetMapperException("", null);
+                },
+                "SELECT \"name\" FROM \"person\";"
+        ).forEach(name -> fail("Unexpected row"));
+    }
+
     @Test
     public void testHasResultWithArgumentsAndResults() throws Exception {
         final DbCall call = new DbCall(database, SELECT_NAME_PARAMETERIZED, stmt -> stmt.setInt(1, 0));
@@ -204,6 +453,20 @@ public class DbCallTest extends WithDatabase {
         assertFalse(call.hasResults());
     }
 
+    @Test
+    public void testHasResultsWithDialectAndArguments() throws Exception {
+        final DbCall call = new DbCall(database, SELECT_NAME_PARAMETERIZED, stmt -> stmt.setInt(1, 0));
+        call.setDialect(new PostgreSqlDialect());
+        assertTrue(call.hasResults());
+    }
+
+    @Test
+    public void testHasResultsWithDialectAndNoResults() throws Exception {
+        final DbCall call = new DbCall(database, SELECT_PERSON_AGE_100);
+        call.setDialect(new H2Dialect());
+        assertFalse(call.hasResults());
+    }
+
     @Test(expected = DbCallException.class)
     public void testHasResultsWithDatabaseErrors() throws Exception {
         new DbCall(database, "SELECT 1 FROM \"i_dont_exist\";").hasResults();
@@ -256,6 +519,208 @@ public class DbCallTest extends WithDatabase {
         new DbCall<>(database, "INSERT INTO \"i_dont_exist\" (\"id\") VALUES (1) ").execute();
     }
 
+    @Test
+    public void testExecuteBatchSuccessfully() throws Exception {
+        final DbCall<Void> call = new DbCall<>(database, INSERT_PERSON);
+        call.setBatchSize(2);
+        final int[] updateCounts = call.executeBatch(
+                Arrays.asList("Albus Dumbledore", "Minerva McGonagall", "Rubeus Hagrid"),
+                BIND_PERSON_WITH_AGE_100);
+
+        assertArrayEquals(new int[]{1, 1, 1}, updateCounts);
+        assertEquals(3, new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                SELECT_PERSON_AGE_100
+        ).getAll().size());
+    }
+
+    @Test
+    public void testExecuteBatchWithoutItems() throws Exception {
+        final int[] updateCounts = new DbCall<>(database, INSERT_PERSON)
+                .executeBatch(Collections.<String>emptyList(), BIND_PERSON_WITH_AGE_100);
+
+        assertEquals(0, updateCounts.length);
+    }
+
+    @Test
+    public void testExecuteBatchTransactionalRollsBackFailingBatch() throws Exception {
+        final DbCall<Void> call = new DbCall<>(database, INSERT_PERSON);
+        call.setBatchSize(2);
+        call.setBatchTransactional(true);
+
+        try {
+            call.executeBatch(
+                    Arrays.asList("Albus Dumbledore", "Minerva McGonagall", "Rubeus Hagrid", "Albus Dumbledore"),
+                    BIND_PERSON_WITH_AGE_100);
+        } catch (final DbCallException e) {
+            final List<String> result = new DbCall<>(
+                    database,
+                    new StringResultSetMapper(),
+                    SELECT_PERSON_AGE_100
+            ).getAll();
+            Collections.sort(result);
+            assertEquals(Arrays.asList("Albus Dumbledore", "Minerva McGonagall"), result);
+            return;
+        }
+
+        fail("Expected DbCallException");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExecuteBatchWithoutBinder() throws Exception {
+        new DbCall<>(database, INSERT_PERSON).executeBatch(Collections.singletonList("Albus Dumbledore"), null);
+    }
+
+    @Test
+    public void testExecuteReturningKeys() throws Exception {
+        final DbCall<Void> call = new DbCall<>(
+                database,
+                INSERT_GENERATED_PERSON,
+                stmt -> stmt.setString(1, "Albus Dumbledore"));
+        call.setKeyColumns("id");
+        final Optional<Integer> id = call.executeReturningKeys(new IntegerResultSetMapper());
+
+        assertTrue(id.isPresent());
+        assertEquals("Albus Dumbledore", new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                SELECT_NAME_PARAMETERIZED,
+                stmt -> stmt.setInt(1, id.get())
+        ).getOne().orElse(null));
+    }
+
+    @Test
+    public void testExecuteReturningLongKeysWithoutKeyColumns() throws Exception {
+        final long[] ids = new DbCall<>(
+                database,
+                "INSERT INTO \"person\" (\"name\", \"age\", \"isStudent\") VALUES ('Albus', 100, FALSE), ('Minerva', 100, FALSE);"
+        ).executeReturningLongKeys(new LongResultSetMapper());
+
+        assertEquals(2, ids.length);
+        assertTrue(ids[1] > ids[0]);
+    }
+
+    @Test
+    public void testExecuteReturningKeysWithoutGeneratedKeys() throws Exception {
+        final DbCall<Void> call = new DbCall<>(database, "UPDATE \"person\" SET \"age\"=100 WHERE \"id\"=-1;");
+        call.setKeyColumns("id");
+
+        assertFalse(call.executeReturningKeys(rs -> "key").isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExecuteReturningKeysWithoutKeyMapper() throws Exception {
+        new DbCall<>(database, INSERT_GENERATED_PERSON, stmt -> stmt.setString(1, "Albus")).executeReturningKeys(null);
+    }
+
+    @Test
+    public void testExecuteBatchReturningLongKeys() throws Exception {
+        final DbCall<Void> call = new DbCall<>(database, INSERT_GENERATED_PERSON);
+        call.setBatchSize(2);
+        call.setKeyColumns("id");
+        final long[] ids = call.executeBatchReturningLongKeys(
+                Arrays.asList("Albus Dumbledore", "Minerva McGonagall", "Rubeus Hagrid"),
+                (stmt, name) -> stmt.setString(1, name),
+                new LongResultSetMapper());
+
+        assertEquals(3, ids.length);
+        assertEquals("Rubeus Hagrid", new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                SELECT_NAME_PARAMETERIZED,
+                stmt -> stmt.setLong(1, ids[2])
+        ).getOne().orElse(null));
+    }
+
+    @Test
+    public void testExecuteBatchReturningKeys() throws Exception {
+        final DbCall<Void> call = new DbCall<>(database, INSERT_GENERATED_PERSON);
+        call.setKeyColumns("id");
+        final List<Long> ids = call.executeBatchReturningKeys(
+                Arrays.asList("Albus Dumbledore", "Minerva McGonagall"),
+                (stmt, name) -> stmt.setString(1, name),
+                new LongResultSetMapper());
+
+        assertEquals(2, ids.size());
+        assertTrue(ids.get(1) > ids.get(0));
+    }
+
+    @Test
+    public void testGetOneAsyncWithQueryParameterAndExistingResult() throws Exception {
+        final Optional<String> result = new DbCall<>(
+                database,
+                new StringResultSetMapper(),
+                SELECT_NAME_PARAMETERIZED,
+                stmt -> stmt.setInt(1, 0)
+        ).getOneAsync().toCompletableFuture().get();
+
+        assertTrue(result.isPresent());
+        assertEquals("Harry Potter", result.get());
+    }
+
+    @Test
+    public void testGetAllAsyncOnGivenExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final DbCall<String> call = new DbCall<>(
+                    database,
+                    new StringResultSetMapper(),
+                    "SELECT \"name\" FROM \"person\" ORDER BY \"id\";");
+            call.setExecutor(executor);
+
+            assertEquals(4, call.getAllAsync().toCompletableFuture().get().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testHasResultsAsyncWithoutArgumentsAndNoResults() throws Exception {
+        assertFalse(new DbCall<>(database, SELECT_PERSON_AGE_100).hasResultsAsync().toCompletableFuture().get());
+    }
+
+    @Test
+    public void testExecuteAsyncSuccessfully() throws Exception {
+        new DbCall<>(
+                database,
+                "INSERT INTO \"person\" (\"id\", \"name\", \"age\", \"isStudent\") " +
+                        "VALUES (666,'Albus Dumbledore',100,FALSE);"
+        ).executeAsync().toCompletableFuture().get();
+
+        assertTrue(new DbCall<>(database, SELECT_PERSON_AGE_100).hasResults());
+    }
+
+    @Test
+    public void testExecuteAsyncWithSqlErrors() throws Exception {
+        try {
+            new DbCall<>(database, "INSERT INTO \"i_dont_exist\" (\"id\") VALUES (1) ")
+                    .executeAsync().toCompletableFuture().get();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof DbCallException);
+            return;
+        }
+
+        fail("Expected ExecutionException");
+    }
+
+    @Test
+    public void testGetOneAsyncWhenExecutorRejects() throws Exception {
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(), SELECT_PERSON_AGE_10);
+        call.setExecutor(runnable -> {
+            throw new RejectedExecutionException();
+        });
+
+        try {
+            call.getOneAsync().toCompletableFuture().get();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+            return;
+        }
+
+        fail("Expected ExecutionException");
+    }
+
     @Test
     public void testSetDbSuccessfully() throws Exception {
         final DbCall<String> call = new DbCall<>(
@@ -0,0 +1,211 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.IntegerResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.intellij.lang.annotations.Language;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DbCallsTest extends WithDatabase {
+
+    @Language("SQL")
+    private static final String SELECT_NAME_PARAMETERIZED = "SELECT \"name\" FROM \"person\" WHERE \"id\"=?;";
+
+    @Language("SQL")
+    private static final String SELECT_STUDENT_NAMES = "SELECT \"name\" FROM \"person\" WHERE \"isStudent\" " +
+            "ORDER BY \"id\";";
+
+    @Language("SQL")
+    private static final String SELECT_UNKNOWN = "SELECT \"unknown\" FROM \"person\";";
+
+    @Test
+    public void testRunWithTypedResults() throws Exception {
+        final DbCalls calls = new DbCalls();
+        final DbCalls.Result<Optional<String>> name = calls.add(
+                new DbCall<>(database, new StringResultSetMapper(), SELECT_NAME_PARAMETERIZED,
+                        stmt -> stmt.setInt(1, 3))::getOne);
+        final DbCalls.Result<List<String>> students = calls.add(
+                new DbCall<>(database, new StringResultSetMapper(), SELECT_STUDENT_NAMES)::getAll);
+        final DbCalls.Result<Boolean> hasResults = calls.add(
+                new DbCall<>(database, "SELECT * FROM \"person\" WHERE \"age\"=100;")::hasResults);
+        calls.run();
+
+        assertEquals(Optional.of("Severus Snape"), name.get());
+        assertEquals(Arrays.asList("Harry Potter", "Hermione Granger", "Ron Weasley"), students.get());
+        assertFalse(hasResults.get());
+    }
+
+    @Test
+    public void testAll() throws Exception {
+        final List<Integer> ages = DbCalls.all(
+                new DbCall<>(database, new IntegerResultSetMapper(), "SELECT \"age\" FROM \"person\" WHERE \"id\"=0;")
+                        ::getOne,
+                new DbCall<>(database, new IntegerResultSetMapper(), "SELECT \"age\" FROM \"person\" WHERE \"id\"=3;")
+                        ::getOne)
+                .stream()
+                .map(Optional::get)
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(11, 28), ages);
+    }
+
+    @Test
+    public void testRunConcurrently() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final DbCalls.Call<Boolean> call = () -> {
+            latch.countDown();
+            try {
+                return latch.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                throw new DbCallException(DbCallException.DEFAULT_ERROR_MSG, e);
+            }
+        };
+
+        assertEquals(Arrays.asList(true, true, true), DbCalls.all(call, call, call));
+    }
+
+    @Test
+    public void testRunBoundsParallelism() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final DbCalls calls = new DbCalls();
+        calls.setMaxParallelism(2);
+        for (int i = 0; i < 8; i++) {
+            calls.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                return running.decrementAndGet();
+            });
+        }
+
+        calls.run();
+
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testRunFailsFast() {
+        final AtomicInteger runs = new AtomicInteger();
+        final DbCalls calls = new DbCalls();
+        calls.setMaxParallelism(1);
+        calls.add(new DbCall<>(database, new StringResultSetMapper(), SELECT_UNKNOWN)::getAll);
+        final DbCalls.Result<Integer> skipped = calls.add(runs::incrementAndGet);
+
+        try {
+            calls.run();
+            fail();
+        } catch (final DbCallException e) {
+            assertTrue(skipped.isDone());
+            assertEquals(e, skipped.getError());
+            assertEquals(0, runs.get());
+        }
+    }
+
+    @Test
+    public void testRunCollectsErrors() throws Exception {
+        final DbCalls calls = new DbCalls();
+        calls.setFailFast(false);
+        final DbCalls.Result<List<String>> failed = calls.add(
+                new DbCall<>(database, new StringResultSetMapper(), SELECT_UNKNOWN)::getAll);
+        final DbCalls.Result<List<String>> students = calls.add(
+                new DbCall<>(database, new StringResultSetMapper(), SELECT_STUDENT_NAMES)::getAll);
+        calls.run();
+
+        assertTrue(failed.getError() instanceof DbCallException);
+        assertNull(students.getError());
+        assertEquals(3, students.get().size());
+        try {
+            failed.get();
+            fail();
+        } catch (final DbCallException e) {
+            assertEquals(failed.getError(), e);
+        }
+    }
+
+    @Test
+    public void testRunAsyncOnGivenExecutor() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final DbCalls calls = new DbCalls();
+            calls.setExecutor(executor);
+            final DbCalls.Result<List<String>> students = calls.add(
+                    new DbCall<>(database, new StringResultSetMapper(), SELECT_STUDENT_NAMES)::getAll);
+            calls.runAsync().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+            assertEquals(3, students.get().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRunAsyncWhenExecutorRejects() throws Exception {
+        final DbCalls calls = new DbCalls();
+        calls.setExecutor(task -> {
+            throw new RejectedExecutionException("Full");
+        });
+        final DbCalls.Result<Integer> result = calls.add(() -> 1);
+
+        assertTrue(calls.runAsync().toCompletableFuture().isCompletedExceptionally());
+        assertTrue(result.getError() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void testRunWhenExecutorRejectsRunsOnCaller() throws Exception {
+        final DbCalls calls = new DbCalls();
+        calls.setExecutor(task -> {
+            throw new RejectedExecutionException("Full");
+        });
+        final DbCalls.Result<Integer> first = calls.add(() -> 1);
+        final DbCalls.Result<Integer> second = calls.add(() -> 2);
+        calls.run();
+
+        assertEquals(1, (int) first.get());
+        assertEquals(2, (int) second.get());
+    }
+
+    @Test
+    public void testRunWithoutCalls() throws Exception {
+        new DbCalls().run();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRunTwice() throws Exception {
+        final DbCalls calls = new DbCalls();
+        calls.run();
+        calls.run();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetBeforeRun() throws Exception {
+        new DbCalls().add(() -> 1).get();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddWithoutCall() {
+        new DbCalls().add(null);
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallTimeoutException;
+import com.peggir.SimpleDbUtil.exceptions.UncheckedDbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.LongResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.intellij.lang.annotations.Language;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DbDeadlineTest extends WithDatabase {
+
+    @Language("SQL")
+    static final String SLOW_QUERY = "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) a, SYSTEM_RANGE(1, 100000) b;";
+
+    @Language("SQL")
+    private static final String SELECT_NAMES = "SELECT \"name\" FROM \"person\";";
+
+    @After
+    public void resetDefaultTimeout() {
+        DbCall.setDefaultTimeout(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testRemaining() {
+        final DbDeadline deadline = DbDeadline.after(1, TimeUnit.HOURS);
+
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.remaining(TimeUnit.MINUTES) > 58);
+        assertTrue(DbDeadline.after(0, TimeUnit.SECONDS).isExpired());
+        assertEquals(0, DbDeadline.after(0, TimeUnit.SECONDS).remaining(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testEarliest() {
+        final DbDeadline early = DbDeadline.after(1, TimeUnit.SECONDS);
+        final DbDeadline late = DbDeadline.after(1, TimeUnit.HOURS);
+
+        assertEquals(early, DbDeadline.earliest(early, late));
+        assertEquals(early, DbDeadline.earliest(late, early));
+        assertEquals(late, DbDeadline.earliest(null, late));
+        assertEquals(late, DbDeadline.earliest(late, null));
+    }
+
+    @Test
+    public void testTimeoutCancelsStatement() throws Exception {
+        final DbCall<Long> call = new DbCall<>(database, new LongResultSetMapper(), SLOW_QUERY);
+        call.setTimeout(100, TimeUnit.MILLISECONDS);
+
+        final long start = System.nanoTime();
+        try {
+            call.getOne();
+            fail();
+        } catch (final DbCallTimeoutException e) {
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        }
+
+        assertEquals(4, new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES).getAll().size());
+    }
+
+    @Test
+    public void testDefaultTimeout() throws Exception {
+        DbCall.setDefaultTimeout(100, TimeUnit.MILLISECONDS);
+        final DbCall<Long> call = new DbCall<>(database, new LongResultSetMapper(), SLOW_QUERY);
+
+        try {
+            call.getOne();
+            fail();
+        } catch (final DbCallTimeoutException e) {
+            call.setTimeout(0, TimeUnit.MILLISECONDS);
+            call.setQuery(SELECT_NAMES.replace("\"name\"", "\"id\""));
+            assertEquals(4, call.getAll().size());
+        }
+    }
+
+    @Test(expected = DbCallTimeoutException.class)
+    public void testExpiredDeadlineSkipsCall() throws Exception {
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES);
+        call.setDeadline(DbDeadline.after(0, TimeUnit.MILLISECONDS));
+        call.getAll();
+    }
+
+    @Test
+    public void testDeadlineCoversWaitForLimiter() throws Exception {
+        final DbCallLimiter limiter = new DbCallLimiter();
+        limiter.setLimit(1);
+        limiter.setMaxWait(10, TimeUnit.SECONDS);
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES);
+        call.setLimiter(limiter);
+        call.setDeadline(DbDeadline.after(50, TimeUnit.MILLISECONDS));
+
+        try (final DbCallLimiter.Permit permit = limiter.acquire(DbCallLimiter.Priority.HIGH)) {
+            call.getAll();
+            fail();
+        } catch (final DbCallTimeoutException e) {
+            assertEquals(0, limiter.getQueueDepth());
+        }
+
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testDeadlineCoversStream() throws Exception {
+        final DbCall<Long> call = new DbCall<>(database, new LongResultSetMapper(),
+                "SELECT a.X FROM SYSTEM_RANGE(1, 100000) a, SYSTEM_RANGE(1, 100000) b;");
+        call.setTimeout(100, TimeUnit.MILLISECONDS);
+
+        try (final Stream<Long> values = call.stream()) {
+            values.forEach(value -> {
+            });
+            fail();
+        } catch (final DbCallTimeoutException e) {
+            // The driver reads the rows while executing the query
+        } catch (final UncheckedDbCallException e) {
+            assertTrue(e.getCause() instanceof DbCallTimeoutException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTimeout() {
+        new DbCall<>(database, SELECT_NAMES).setTimeout(-1, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DbQueryTest extends WithDatabase {
+
+    private static final DbQuery<String> SELECT_NAME_PARAMETERIZED = DbQuery.of(
+            "SELECT \"name\" FROM \"person\" WHERE \"id\"=?;",
+            new StringResultSetMapper());
+
+    private static final DbQuery<String> SELECT_NAMES = DbQuery.of(
+            "SELECT \"name\" FROM \"person\" ORDER BY \"id\";",
+            new StringResultSetMapper());
+
+    @Test
+    public void testGetOneWithQueryParameterAndExistingResult() throws Exception {
+        final Optional<String> result = SELECT_NAME_PARAMETERIZED.getOne(database, stmt -> stmt.setInt(1, 0));
+
+        assertTrue(result.isPresent());
+        assertEquals("Harry Potter", result.get());
+    }
+
+    @Test
+    public void testGetOneWithQueryParameterAndNoResult() throws Exception {
+        assertFalse(SELECT_NAME_PARAMETERIZED.getOne(database, stmt -> stmt.setInt(1, 999)).isPresent());
+    }
+
+    @Test
+    public void testGetAllWithoutQueryParametersWithResult() throws Exception {
+        final List<String> result = SELECT_NAMES.getAll(database);
+
+        assertEquals(4, result.size());
+        assertEquals("Harry Potter", result.get(0));
+    }
+
+    @Test
+    public void testHasResultsWithQuestionMarkInLiteral() throws Exception {
+        assertFalse(DbQuery.of("SELECT 1 FROM \"person\" WHERE \"name\"='Who?';").hasResults(database));
+    }
+
+    @Test
+    public void testExecuteWithArgumentsSuccessfully() throws Exception {
+        DbQuery.of("INSERT INTO \"person\" (\"id\", \"name\", \"age\", \"isStudent\") VALUES (?,?,?,?);")
+                .execute(database, stmt -> {
+                    stmt.setInt(1, 666);
+                    stmt.setString(2, "Albus Dumbledore");
+                    stmt.setInt(3, 100);
+                    stmt.setBoolean(4, false);
+                });
+
+        assertTrue(DbQuery.of("SELECT 1 FROM \"person\" WHERE \"age\"=100;").hasResults(database));
+    }
+
+    @Test(expected = DbCallException.class)
+    public void testGetAllWhenThereAreQueryErrors() throws Exception {
+        DbQuery.of("SELECT * FROM \"i_dont_exist\";", new StringResultSetMapper()).getAll(database);
+    }
+
+    @Test
+    public void testGetParameterCount() {
+        assertEquals(1, SELECT_NAME_PARAMETERIZED.getParameterCount());
+        assertEquals(0, SELECT_NAMES.getParameterCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfWhenQueryIsMissing() {
+        DbQuery.of(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfWhenResultSetMapperIsMissing() {
+        DbQuery.of("SELECT \"name\" FROM \"person\";", null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetOneWithArgumentsButWithoutBindings() throws Exception {
+        SELECT_NAME_PARAMETERIZED.getOne(database);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetOneWhenDatabaseIsMissing() throws Exception {
+        SELECT_NAMES.getOne(null);
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.intellij.lang.annotations.Language;
+import org.junit.Test;
+import org.mockito.Mockito;
+import play.db.Database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Savepoint;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DbSessionTest extends WithDatabase {
+
+    @Language("SQL")
+    private static final String INSERT_PERSON = "INSERT INTO \"person\" (\"id\", \"name\", \"age\", \"isStudent\") " +
+            "VALUES (?,?,100,FALSE);";
+
+    @Language("SQL")
+    private static final String SELECT_PERSON_AGE_100 = "SELECT \"name\" FROM \"person\" WHERE \"age\"=100;";
+
+    @Test
+    public void testWithSessionCommitsAllCalls() throws Exception {
+        final Optional<String> result = DbSession.withSession(database, session -> {
+            insert(session, 666, "Albus Dumbledore");
+            insert(session, 667, "Minerva McGonagall");
+            return session.call(new StringResultSetMapper(), SELECT_PERSON_AGE_100).getOne();
+        });
+
+        assertTrue(result.isPresent());
+        assertEquals(2, new DbCall<>(database, new StringResultSetMapper(), SELECT_PERSON_AGE_100).getAll().size());
+    }
+
+    @Test
+    public void testWithSessionRollsBackOnFailure() throws Exception {
+        try {
+            DbSession.withSession(database, session -> {
+                insert(session, 666, "Albus Dumbledore");
+                session.call("INSERT INTO \"i_dont_exist\" (\"id\") VALUES (1);").execute();
+                return null;
+            });
+        } catch (final DbCallException e) {
+            assertFalse(new DbCall<>(database, SELECT_PERSON_AGE_100).hasResults());
+            return;
+        }
+
+        fail("Expected DbCallException");
+    }
+
+    @Test
+    public void testWithSessionLeasesOneConnection() throws Exception {
+        final Connection conn = Mockito.spy(DriverManager.getConnection(database.getUrl()));
+        final Database db = Mockito.mock(Database.class);
+        when(db.getConnection()).thenReturn(conn);
+
+        DbSession.withSession(db, session -> {
+            insert(session, 666, "Albus Dumbledore");
+            try (final Stream<String> names = session.call(
+                    new StringResultSetMapper(),
+                    SELECT_PERSON_AGE_100).stream()) {
+                assertEquals(1, names.count());
+            }
+
+            return session.call(SELECT_PERSON_AGE_100).hasResults();
+        });
+
+        verify(db, times(1)).getConnection();
+        verify(conn, atLeastOnce()).commit();
+        verify(conn).close();
+    }
+
+    @Test
+    public void testRollbackToSavepoint() throws Exception {
+        try (final DbSession session = DbSession.open(database)) {
+            session.beginTransaction();
+            assertTrue(session.isInTransaction());
+            insert(session, 666, "Albus Dumbledore");
+            final Savepoint savepoint = session.setSavepoint("before_minerva");
+            insert(session, 667, "Minerva McGonagall");
+            session.rollback(savepoint);
+            session.commit();
+            assertFalse(session.isInTransaction());
+        }
+
+        assertEquals(1, new DbCall<>(database, new StringResultSetMapper(), SELECT_PERSON_AGE_100).getAll().size());
+    }
+
+    @Test
+    public void testCloseRollsBackOpenTransaction() throws Exception {
+        try (final DbSession session = DbSession.open(database)) {
+            session.beginTransaction();
+            insert(session, 666, "Albus Dumbledore");
+        }
+
+        assertFalse(new DbCall<>(database, SELECT_PERSON_AGE_100).hasResults());
+    }
+
+    @Test
+    public void testAutoCommitWithoutTransaction() throws Exception {
+        try (final DbSession session = DbSession.open(database)) {
+            insert(session, 666, "Albus Dumbledore");
+            assertTrue(new DbCall<>(database, SELECT_PERSON_AGE_100).hasResults());
+        }
+    }
+
+    @Test
+    public void testWithReadOnlySession() throws Exception {
+        final boolean result = DbSession.withReadOnlySession(
+                database,
+                session -> session.call("SELECT 1 FROM \"person\";").hasResults());
+
+        assertTrue(result);
+    }
+
+    @Test
+    public void testQueryOnSession() throws Exception {
+        final DbQuery<String> query = DbQuery.of(
+                "SELECT \"name\" FROM \"person\" WHERE \"id\"=?;",
+                new StringResultSetMapper());
+
+        try (final DbSession session = DbSession.open(database)) {
+            final Optional<String> result = query.call(session, stmt -> stmt.setInt(1, 0)).getOne();
+            assertEquals("Harry Potter", result.orElse(null));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCallOnClosedSession() throws Exception {
+        final DbSession session = DbSession.open(database);
+        session.close();
+        assertTrue(session.isClosed());
+
+        session.call(SELECT_PERSON_AGE_100).hasResults();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenWithoutDatabase() throws Exception {
+        DbSession.open(null);
+    }
+
+    private static void insert(final DbSession session, final int id, final String name) throws DbCallException {
+        session.call(INSERT_PERSON, stmt -> {
+            stmt.setInt(1, id);
+            stmt.setString(2, name);
+        }).execute();
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.intellij.lang.annotations.Language;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DbSpillListTest extends WithDatabase {
+
+    @Language("SQL")
+    private static final String SELECT_NAMES = "SELECT \"name\" FROM \"person\" ORDER BY \"id\";";
+
+    private static final List<String> NAMES = Arrays.asList(
+            "Harry Potter", "Hermione Granger", "Ron Weasley", "Severus Snape");
+
+    private static final DbRowCodec<String> UTF = new DbRowCodec<String>() {
+
+        @Override
+        public void write(final DataOutput out, final String row) throws IOException {
+            out.writeUTF(row);
+        }
+
+        @Override
+        public String read(final DataInput in) throws IOException {
+            return in.readUTF();
+        }
+
+    };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private DbCall<String> call() throws IOException {
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES);
+        call.setSpillDirectory(folder.getRoot().toPath());
+        return call;
+    }
+
+    private long spillFiles() throws IOException {
+        try (final Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void testWithinBudget() throws Exception {
+        try (final DbSpillList<String> names = call().getAllSpilling(1 << 20, UTF)) {
+            assertEquals(NAMES, names);
+            assertFalse(names.isSpilled());
+            assertEquals(0, names.getSpilledRowCount());
+            assertEquals(0, spillFiles());
+        }
+    }
+
+    @Test
+    public void testSpillsBeyondBudget() throws Exception {
+        try (final DbSpillList<String> names = call().getAllSpilling(30, UTF)) {
+            assertEquals(NAMES, names);
+            assertEquals("Severus Snape", names.get(3));
+            assertTrue(names.isSpilled());
+            assertEquals(3, names.getSpilledRowCount());
+            assertEquals(18 + 13 + 15, names.getSpilledBytes());
+            assertEquals(1, spillFiles());
+        }
+
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    public void testSpillsAllWithoutBudget() throws Exception {
+        try (final DbSpillList<String> names = call().getAllSpilling(0)) {
+            assertEquals(NAMES, new ArrayList<>(names));
+            assertEquals(4, names.getSpilledRowCount());
+        }
+
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    public void testRowsAcrossRegions() throws Exception {
+        final List<String> rows = new ArrayList<>();
+        try (final DbSpillList<String> list = new DbSpillList<>(UTF, 0, folder.getRoot().toPath(), 7)) {
+            for (int i = 0; i < 100; i++) {
+                rows.add("row " + i);
+                list.append("row " + i);
+            }
+
+            list.finish();
+            assertEquals(rows, list);
+        }
+    }
+
+    @Test
+    public void testSpilledRowLargerThanEarlierRows() throws Exception {
+        final char[] large = new char[1000];
+        Arrays.fill(large, 'e');
+        final List<String> rows = Arrays.asList("a", "b", "c", "dddd", new String(large));
+        try (final DbSpillList<String> list = new DbSpillList<>(UTF, 10, folder.getRoot().toPath(),
+                SpillFile.REGION_BYTES)) {
+            for (final String row : rows) {
+                list.append(row);
+            }
+
+            list.finish();
+            assertEquals(rows, list);
+            assertTrue(list.isSpilled());
+        }
+    }
+
+    @Test
+    public void testEmptyResultSet() throws Exception {
+        try (final DbSpillList<String> names = new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" WHERE \"age\" > 100;").getAllSpilling(0, UTF)) {
+            assertTrue(names.isEmpty());
+            assertFalse(names.isSpilled());
+        }
+    }
+
+    @Test
+    public void testClosedList() throws Exception {
+        final DbSpillList<String> names = call().getAllSpilling(0, UTF);
+        names.close();
+        try {
+            names.get(0);
+            fail();
+        } catch (final IllegalStateException e) {
+            assertEquals(0, spillFiles());
+        }
+    }
+
+    @Test
+    public void testDeletesFileOnFailure() throws Exception {
+        final StringResultSetMapper mapper = new StringResultSetMapper();
+        final int[] rows = {0};
+        final DbCall<String> call = new DbCall<>(database, rs -> {
+            if (++rows[0] == 3) {
+                throw new IllegalStateException("Mapping failed");
+            }
+
+            return mapper.map(rs);
+        }, SELECT_NAMES);
+        call.setSpillDirectory(folder.getRoot().toPath());
+        try {
+            call.getAllSpilling(0, UTF);
+            fail();
+        } catch (final DbCallException | IllegalStateException e) {
+            assertEquals(0, spillFiles());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() throws Exception {
+        try (final DbSpillList<String> names = call().getAllSpilling(1 << 20, UTF)) {
+            names.add("Albus Dumbledore");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeBudget() throws Exception {
+        call().getAllSpilling(-1, UTF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithoutCodec() throws Exception {
+        call().getAllSpilling(0, null);
+    }
+
+}
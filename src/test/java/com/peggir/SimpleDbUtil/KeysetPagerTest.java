@@ -0,0 +1,152 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.dialects.H2Dialect;
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.intellij.lang.annotations.Language;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class KeysetPagerTest extends WithDatabase {
+
+    @Language("SQL")
+    private static final String SELECT_NAMES = "SELECT \"name\", \"id\", \"age\" FROM \"person\";";
+
+    private DbCall<String> call() {
+        return new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES);
+    }
+
+    @Test
+    public void testGetPages() throws Exception {
+        final DbCall<String> call = call();
+        final DbPage<String> first = call.getPage(null, 3, "\"id\"");
+
+        assertEquals(Arrays.asList("Harry Potter", "Hermione Granger", "Ron Weasley"), first.getItems());
+        assertFalse(first.isLast());
+
+        final DbPage<String> second = call.getPage(first.getCursor(), 3, "\"id\"");
+        assertEquals(Collections.singletonList("Severus Snape"), second.getItems());
+        assertTrue(second.isLast());
+
+        final DbPage<String> end = call.getPage(second.getCursor(), 3, "\"id\"");
+        assertTrue(end.isEmpty());
+        assertEquals(second.getCursor(), end.getCursor());
+    }
+
+    @Test
+    public void testResumeWithNewCall() throws Exception {
+        final String cursor = call().getPage(null, 2, "\"id\"").getCursor();
+
+        assertEquals(Arrays.asList("Ron Weasley", "Severus Snape"), call().getPage(cursor, 2, "\"id\"").getItems());
+    }
+
+    @Test
+    public void testCompositeKeyWithDialect() throws Exception {
+        final DbCall<String> call = call();
+        call.setDialect(new H2Dialect());
+        final List<String> names = new ArrayList<>();
+        String cursor = null;
+        DbPage<String> page;
+        do {
+            page = call.getPage(cursor, 1, "\"age\"", "\"id\"");
+            names.addAll(page.getItems());
+            cursor = page.getCursor();
+        } while (!page.isEmpty());
+
+        assertEquals(Arrays.asList("Hermione Granger", "Harry Potter", "Ron Weasley", "Severus Snape"), names);
+    }
+
+    @Test
+    public void testPagesWithArguments() throws Exception {
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\", \"id\" FROM \"person\" WHERE \"isStudent\" = ?;",
+                stmt -> stmt.setBoolean(1, true));
+        final Iterator<DbPage<String>> pages = call.pages(null, 2, "\"id\"");
+
+        assertEquals(Arrays.asList("Harry Potter", "Hermione Granger"), pages.next().getItems());
+        assertEquals(Collections.singletonList("Ron Weasley"), pages.next().getItems());
+        assertFalse(pages.hasNext());
+    }
+
+    @Test
+    public void testPagesStopAtEmptyPage() {
+        final Iterator<DbPage<String>> pages = call().pages(null, 2, "\"id\"");
+        int count = 0;
+        while (pages.hasNext()) {
+            assertEquals(2, pages.next().getItems().size());
+            count++;
+        }
+
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void testStreamPages() throws Exception {
+        final String cursor = call().getPage(null, 1, "\"id\"").getCursor();
+        try (final Stream<String> names = call().streamPages(cursor, 2, "\"id\"")) {
+            assertEquals(
+                    Arrays.asList("Hermione Granger", "Ron Weasley", "Severus Snape"),
+                    names.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testEmptyFirstPage() throws Exception {
+        final DbPage<String> page = new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\", \"id\" FROM \"person\" WHERE \"age\" > 100;").getPage(null, 10, "\"id\"");
+
+        assertTrue(page.isEmpty());
+        assertTrue(page.isLast());
+        assertNull(page.getCursor());
+    }
+
+    @Test(expected = DbCallException.class)
+    public void testNullKey() throws Exception {
+        new DbCall<>(database, new StringResultSetMapper(), "SELECT \"name\", \"score\" FROM \"person\";")
+                .getPage(null, 10, "\"score\"");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorOfOtherQuery() throws Exception {
+        final String cursor = call().getPage(null, 1, "\"id\"").getCursor();
+        call().getPage(cursor, 1, "\"age\"");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCursor() {
+        call().pages("not-a-cursor", 1, "\"id\"");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidKeyColumn() throws Exception {
+        call().getPage(null, 1, "\"id\"; DROP TABLE \"person\"");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithoutKeyColumns() throws Exception {
+        call().getPage(null, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPageSize() throws Exception {
+        call().getPage(null, 0, "\"id\"");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoSelectQuery() throws Exception {
+        new DbCall<>(database, rs -> "", "DELETE FROM \"person\";").getPage(null, 1, "\"id\"");
+    }
+
+}
@@ -0,0 +1,201 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class NamedParametersTest extends WithDatabase {
+
+    private static final NamedParameters INSERT_PERSON = NamedParameters.parse(
+            "INSERT INTO \"person\" (\"id\", \"name\", \"age\", \"isStudent\", \"score\", \"submissionDate\") " +
+                    "VALUES (:id, :name, :age, :student, :score, :submission_date);");
+
+    private static final NamedParameters SELECT_NAMES = NamedParameters.parse(
+            "SELECT \"name\" FROM \"person\" WHERE \"age\" >= :age AND (\"score\" >= :score OR :score IS NULL) " +
+                    "ORDER BY \"id\";");
+
+    @Test
+    public void testParse() {
+        assertEquals("SELECT \"name\" FROM \"person\" WHERE \"age\" >= ? AND (\"score\" >= ? OR ? IS NULL) " +
+                "ORDER BY \"id\";", SELECT_NAMES.getSql());
+        assertEquals(Arrays.asList("age", "score"), SELECT_NAMES.getNames());
+        assertArrayEquals(new int[]{1}, SELECT_NAMES.getPositions("age"));
+        assertArrayEquals(new int[]{2, 3}, SELECT_NAMES.getPositions("score"));
+        assertEquals(3, SELECT_NAMES.getParameterCount());
+    }
+
+    @Test
+    public void testParseIgnoresLiteralsCommentsAndCasts() {
+        final NamedParameters parsed = NamedParameters.parse(
+                "SELECT ':a', \":b\", '2001-08-01' :: TIMESTAMP, x::TEXT -- :c\n FROM t /* :d */ WHERE y = :e;");
+
+        assertEquals("SELECT ':a', \":b\", '2001-08-01' :: TIMESTAMP, x::TEXT -- :c\n FROM t /* :d */ WHERE y = ?;",
+                parsed.getSql());
+        assertEquals(Collections.singletonList("e"), parsed.getNames());
+    }
+
+    @Test
+    public void testParseIsCached() {
+        final String sql = "SELECT \"name\" FROM \"person\" WHERE \"id\" = :id;";
+
+        assertSame(NamedParameters.parse(sql), NamedParameters.parse(new String(sql.toCharArray())));
+    }
+
+    @Test
+    public void testBeanBinderIsShared() {
+        assertSame(INSERT_PERSON.beanBinder(Person.class), INSERT_PERSON.beanBinder(Person.class));
+    }
+
+    @Test
+    public void testBindMap() throws Exception {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("age", 10);
+        values.put("score", 6.0);
+
+        final List<String> result = new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES.getSql(),
+                SELECT_NAMES.bind(values)).getAll();
+
+        assertEquals(Arrays.asList("Harry Potter", "Hermione Granger"), result);
+    }
+
+    @Test
+    public void testBindMapWithNull() throws Exception {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("age", 12);
+        values.put("score", null);
+
+        final List<String> result = new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES.getSql(),
+                SELECT_NAMES.bind(values)).getAll();
+
+        assertEquals(Arrays.asList("Ron Weasley", "Severus Snape"), result);
+    }
+
+    @Test
+    public void testBindBean() throws Exception {
+        final Person person = new Person(666, "Albus Dumbledore", 100, false, 9.9, new Date(0));
+        new DbCall<>(database, INSERT_PERSON.getSql(), INSERT_PERSON.bindBean(person)).execute();
+
+        assertEquals(Optional.of("Albus Dumbledore"), new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" WHERE \"age\"=100 AND \"score\">9.8 AND NOT \"isStudent\";")
+                .getOne());
+    }
+
+    @Test
+    public void testBeanBinderInBatch() throws Exception {
+        final List<Person> persons = Arrays.asList(
+                new Person(4, "Neville Longbottom", 11, true, null, null),
+                new Person(5, "Luna Lovegood", 10, true, 7.5, null));
+
+        new DbCall<>(database, INSERT_PERSON.getSql()).executeBatch(persons, INSERT_PERSON.beanBinder(Person.class));
+
+        assertEquals(6, new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\";").getAll().size());
+    }
+
+    @Test
+    public void testMapBinderInBatch() throws Exception {
+        final NamedParameters update = NamedParameters.parse(
+                "UPDATE \"person\" SET \"age\" = :age WHERE \"id\" = :id;");
+        final List<Map<String, Integer>> rows = Arrays.asList(row(0, 17), row(1, 18));
+
+        new DbCall<>(database, update.getSql()).executeBatch(rows, update.mapBinder());
+
+        final Map<String, Object> values = new HashMap<>();
+        values.put("age", 17);
+        values.put("score", null);
+        assertEquals(Arrays.asList("Harry Potter", "Hermione Granger", "Severus Snape"), new DbCall<>(database,
+                new StringResultSetMapper(), SELECT_NAMES.getSql(), SELECT_NAMES.bind(values)).getAll());
+    }
+
+    @Test(expected = DbCallException.class)
+    public void testMapBinderWithMissingValue() throws Exception {
+        final NamedParameters update = NamedParameters.parse("UPDATE \"person\" SET \"age\" = :age WHERE \"id\" = :id;");
+        new DbCall<>(database, update.getSql())
+                .executeBatch(Collections.singletonList(Collections.singletonMap("id", 0)), update.mapBinder());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBindMapWithMissingValue() {
+        SELECT_NAMES.bind(Collections.singletonMap("age", 11));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBindBeanWithMissingProperty() {
+        SELECT_NAMES.bindBean("Harry Potter");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseMixedParameters() {
+        NamedParameters.parse("SELECT 1 FROM \"person\" WHERE \"id\" = ? AND \"age\" = :age;");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPositionsOfUnknownName() {
+        SELECT_NAMES.getPositions("name");
+    }
+
+    private static Map<String, Integer> row(final int id, final int age) {
+        final Map<String, Integer> row = new HashMap<>();
+        row.put("id", id);
+        row.put("age", age);
+        return row;
+    }
+
+    public static class Person {
+
+        private final int id;
+        private final String name;
+        private final int age;
+        private final boolean student;
+        private final Double score;
+        private final Date submissionDate;
+
+        public Person(final int id,
+                      final String name,
+                      final int age,
+                      final boolean student,
+                      final Double score,
+                      final Date submissionDate) {
+            this.id = id;
+            this.name = name;
+            this.age = age;
+            this.student = student;
+            this.score = score;
+            this.submissionDate = submissionDate;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isStudent() {
+            return student;
+        }
+
+        public Double getScore() {
+            return score;
+        }
+
+        public Date getSubmissionDate() {
+            return submissionDate;
+        }
+
+    }
+
+}
@@ -0,0 +1,245 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.exceptions.UncheckedDbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.LongResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.intellij.lang.annotations.Language;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelScanTest extends WithDatabase {
+
+    @Language("SQL")
+    private static final String SELECT_NAMES = "SELECT \"name\", \"id\" FROM \"person\";";
+
+    @Language("SQL")
+    private static final String SELECT_NAMES_WITH_SCORE_ID = "SELECT \"name\", " +
+            "CASE WHEN \"score\" IS NULL THEN NULL ELSE \"id\" END AS \"scoreId\" FROM \"person\";";
+
+    @Language("SQL")
+    private static final String SELECT_RANGE = "SELECT X AS \"x\" FROM SYSTEM_RANGE(1, 1000) WHERE X > ?;";
+
+    @Test
+    public void testSplitIntoEqualRanges() {
+        final long[][] ranges = ParallelScan.split(0, 99, 4);
+
+        assertEquals(4, ranges.length);
+        assertArrayEquals(new long[]{Long.MIN_VALUE, 24}, ranges[0]);
+        assertArrayEquals(new long[]{25, 49}, ranges[1]);
+        assertArrayEquals(new long[]{50, 74}, ranges[2]);
+        assertArrayEquals(new long[]{75, Long.MAX_VALUE}, ranges[3]);
+    }
+
+    @Test
+    public void testSplitSmallRange() {
+        final long[][] ranges = ParallelScan.split(5, 6, 8);
+
+        assertEquals(2, ranges.length);
+        assertArrayEquals(new long[]{Long.MIN_VALUE, 5}, ranges[0]);
+        assertArrayEquals(new long[]{6, Long.MAX_VALUE}, ranges[1]);
+    }
+
+    @Test
+    public void testSplitEntireRange() {
+        final long[][] ranges = ParallelScan.split(Long.MIN_VALUE, Long.MAX_VALUE, 2);
+
+        assertEquals(2, ranges.length);
+        assertArrayEquals(new long[]{Long.MIN_VALUE, -1}, ranges[0]);
+        assertArrayEquals(new long[]{0, Long.MAX_VALUE}, ranges[1]);
+        assertEquals(1, ParallelScan.split(Long.MIN_VALUE, Long.MAX_VALUE, 1).length);
+    }
+
+    @Test
+    public void testGetAllParallelWithSampledRange() throws Exception {
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES);
+        call.setParallelOrdered(true);
+
+        assertEquals(
+                Arrays.asList("Harry Potter", "Hermione Granger", "Ron Weasley", "Severus Snape"),
+                call.getAllParallel("\"id\"", 3));
+    }
+
+    @Test
+    public void testGetAllParallelIncludesRowsOutsideRangeAndNulls() throws Exception {
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES_WITH_SCORE_ID);
+        call.setParallelOrdered(true);
+
+        assertEquals(
+                Arrays.asList("Harry Potter", "Hermione Granger", "Ron Weasley", "Severus Snape"),
+                call.getAllParallel("\"scoreId\"", 1, 1, 2));
+    }
+
+    @Test
+    public void testGetAllParallelWithArgumentsAndBoundedParallelism() throws Exception {
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final DbCall<Long> call = new DbCall<>(database, rs -> {
+                threads.add(Thread.currentThread().getName());
+                return new LongResultSetMapper().map(rs);
+            }, SELECT_RANGE, stmt -> stmt.setInt(1, 500));
+            call.setExecutor(executor);
+            call.setMaxParallelism(2);
+
+            final List<Long> result = call.getAllParallel("\"x\"", 10);
+            Collections.sort(result);
+
+            assertEquals(500, result.size());
+            assertEquals(501L, (long) result.get(0));
+            assertEquals(1000L, (long) result.get(499));
+            assertTrue(threads.size() <= 2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetAllParallelThroughLimiterOfCall() throws Exception {
+        final DbCallLimiter limiter = new DbCallLimiter();
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES);
+        call.setLimiter(limiter);
+
+        assertEquals(4, call.getAllParallel("\"id\"", 3).size());
+        assertEquals(4, limiter.getAdmittedCount());
+    }
+
+    @Test
+    public void testParallelFromThreadOfBusyExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final DbCall<Long> call = new DbCall<>(database, new LongResultSetMapper(), SELECT_RANGE,
+                    stmt -> stmt.setInt(1, 0));
+            call.setExecutor(executor);
+            call.setMaxParallelism(4);
+            call.setParallelOrdered(true);
+
+            final Future<List<Long>> all = executor.submit(() -> call.getAllParallel("\"x\"", 8));
+            assertEquals(1000, all.get(10, TimeUnit.SECONDS).size());
+
+            final Future<Long> streamed = executor.submit(() -> {
+                try (final Stream<Long> stream = call.streamParallel("\"x\"", 1, 1000, 8)) {
+                    return stream.count();
+                }
+            });
+            assertEquals(1000L, (long) streamed.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGetAllParallelWithoutRows() throws Exception {
+        final DbCall<Long> call = new DbCall<>(database, new LongResultSetMapper(), SELECT_RANGE,
+                stmt -> stmt.setInt(1, 1000));
+
+        assertTrue(call.getAllParallel("\"x\"", 4).isEmpty());
+    }
+
+    @Test
+    public void testStreamParallel() throws Exception {
+        final DbCall<Long> call = new DbCall<>(database, new LongResultSetMapper(), SELECT_RANGE,
+                stmt -> stmt.setInt(1, 0));
+        call.setParallelOrdered(true);
+        call.setMaxParallelism(3);
+
+        try (final Stream<Long> stream = call.streamParallel("\"x\"", 1, 1000, 8)) {
+            final List<Long> result = stream.collect(Collectors.toList());
+
+            assertEquals(1000, result.size());
+            for (int i = 0; i < result.size(); i++) {
+                assertEquals(i + 1L, (long) result.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testStreamParallelReleasesConsumedRanges() throws Exception {
+        final List<WeakReference<String>> first = new ArrayList<>();
+        final DbCall<String> call = new DbCall<>(database, rs -> {
+            final String row = String.valueOf(new LongResultSetMapper().map(rs));
+            if (row.length() == 1) {
+                synchronized (first) {
+                    first.add(new WeakReference<>(row));
+                }
+            }
+
+            return row;
+        }, SELECT_RANGE, stmt -> stmt.setInt(1, 0));
+        call.setParallelOrdered(true);
+        call.setMaxParallelism(2);
+
+        final boolean[] released = {false};
+        try (final Stream<String> stream = call.streamParallel("\"x\"", 1, 1000, 8)) {
+            stream.forEach(row -> {
+                if ("1000".equals(row)) {
+                    for (int i = 0; i < 50 && !released[0]; i++) {
+                        System.gc();
+                        synchronized (first) {
+                            released[0] = first.stream().allMatch(ref -> ref.get() == null);
+                        }
+                    }
+                }
+            });
+        }
+
+        assertEquals(9, first.size());
+        assertTrue(released[0]);
+    }
+
+    @Test
+    public void testStreamParallelWithSqlErrors() {
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES);
+
+        try (final Stream<String> stream = call.streamParallel("\"unknown\"", 0, 3, 2)) {
+            stream.count();
+            fail();
+        } catch (final UncheckedDbCallException e) {
+            assertTrue(e.getCause() != null);
+        }
+    }
+
+    @Test(expected = DbCallException.class)
+    public void testGetAllParallelWithSqlErrors() throws Exception {
+        new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES).getAllParallel("\"unknown\"", 0, 3, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetAllParallelWithoutSelect() throws Exception {
+        new DbCall<>(database, new StringResultSetMapper(), "DELETE FROM \"person\";").getAllParallel("\"id\"", 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetAllParallelWithInvalidColumn() throws Exception {
+        new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES).getAllParallel("id; DROP", 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetAllParallelWithoutPartitions() throws Exception {
+        new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES).getAllParallel("\"id\"", 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStreamParallelWithInvalidRange() {
+        new DbCall<>(database, new StringResultSetMapper(), SELECT_NAMES).streamParallel("\"id\"", 3, 0, 2);
+    }
+
+}
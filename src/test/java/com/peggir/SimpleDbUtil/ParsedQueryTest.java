@@ -0,0 +1,200 @@
+package com.peggir.SimpleDbUtil;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ParsedQueryTest {
+
+    @Test
+    public void testCountParameters() {
+        assertEquals(2, ParsedQuery.countParameters("SELECT 1 FROM \"person\" WHERE \"name\"=? AND \"age\"=?;"));
+    }
+
+    @Test
+    public void testCountParametersWithoutParameters() {
+        assertEquals(0, ParsedQuery.countParameters("SELECT 1 FROM \"person\";"));
+    }
+
+    @Test
+    public void testCountParametersIgnoresStringLiterals() {
+        assertEquals(1, ParsedQuery.countParameters("SELECT 'what?', 'it''s ?' FROM \"person\" WHERE \"id\"=?"));
+    }
+
+    @Test
+    public void testCountParametersIgnoresQuotedIdentifiers() {
+        assertEquals(0, ParsedQuery.countParameters("SELECT \"why?\", `how?` FROM \"person\""));
+    }
+
+    @Test
+    public void testCountParametersIgnoresComments() {
+        assertEquals(1, ParsedQuery.countParameters(
+                "SELECT 1 -- who?\nFROM /* where? /* nested? */ still? */ \"person\" WHERE \"id\"=?"));
+    }
+
+    @Test
+    public void testCountParametersIgnoresDollarQuotedStrings() {
+        assertEquals(1, ParsedQuery.countParameters("SELECT $$what?$$, $tag$why?$tag$ WHERE \"id\"=?"));
+    }
+
+    @Test
+    public void testCountParametersWithUnterminatedLiteral() {
+        assertEquals(0, ParsedQuery.countParameters("SELECT 'what?"));
+    }
+
+    @Test
+    public void testOfIsCached() {
+        final String sql = "SELECT \"name\" FROM \"person\" WHERE \"id\"=?";
+        final ParsedQuery parsedQuery = ParsedQuery.of(sql);
+
+        assertSame(parsedQuery, ParsedQuery.of(sql));
+        assertTrue(parsedQuery.hasParameters());
+        assertEquals(1, parsedQuery.getParameterCount());
+    }
+
+    @Test
+    public void testOfWithoutParameters() {
+        assertFalse(ParsedQuery.of("SELECT '?' FROM \"person\"").hasParameters());
+    }
+
+    @Test
+    public void testSelectIsLimitable() {
+        final ParsedQuery parsedQuery = ParsedQuery.of("SELECT \"name\" FROM \"person\" WHERE \"id\"=? ; -- done\n");
+
+        assertTrue(parsedQuery.isSelect());
+        assertTrue(parsedQuery.isLimitable());
+        assertEquals("SELECT \"name\" FROM \"person\" WHERE \"id\"=?", parsedQuery.getStatement());
+    }
+
+    @Test
+    public void testSelectWithLimitIsNotLimitable() {
+        final ParsedQuery parsedQuery = ParsedQuery.of("SELECT \"name\" FROM \"person\" LIMIT 10");
+
+        assertTrue(parsedQuery.isSelect());
+        assertFalse(parsedQuery.isLimitable());
+    }
+
+    @Test
+    public void testSelectWithLockingClauseIsNotLimitable() {
+        assertFalse(ParsedQuery.of("SELECT \"name\" FROM \"person\" FOR UPDATE").isLimitable());
+    }
+
+    @Test
+    public void testSelectWithLimitInSubqueryIsLimitable() {
+        assertTrue(ParsedQuery.of("SELECT * FROM (SELECT \"name\" FROM \"person\" LIMIT 10) p").isLimitable());
+    }
+
+    @Test
+    public void testSelectWithKeywordInLiteralIsLimitable() {
+        assertTrue(ParsedQuery.of("SELECT \"name\" FROM \"person\" WHERE \"name\"<>'LIMIT'").isLimitable());
+    }
+
+    @Test
+    public void testInsertIsNoSelect() {
+        assertFalse(ParsedQuery.of("INSERT INTO \"person\" (\"id\") VALUES (1)").isSelect());
+    }
+
+    @Test
+    public void testMultipleStatementsAreNoSelect() {
+        assertFalse(ParsedQuery.of("SELECT 1; SELECT 2;").isSelect());
+    }
+
+    @Test
+    public void testRewriteIsCached() {
+        final ParsedQuery parsedQuery = ParsedQuery.of("SELECT \"name\" FROM \"person\"");
+        final String rewritten = parsedQuery.rewrite("test", q -> q.getStatement() + " LIMIT 1");
+
+        assertEquals("SELECT \"name\" FROM \"person\" LIMIT 1", rewritten);
+        assertSame(rewritten, parsedQuery.rewrite("test", q -> "other"));
+    }
+
+    @Test
+    public void testGetTablesOfSelect() {
+        assertEquals(
+                new HashSet<>(Arrays.asList("person", "house", "pet")),
+                ParsedQuery.of("SELECT * FROM \"person\" p, public.\"House\" AS h JOIN pet ON pet.owner=p.id").getTables());
+    }
+
+    @Test
+    public void testGetTablesOfSubquery() {
+        assertEquals(
+                new HashSet<>(Arrays.asList("person", "house")),
+                ParsedQuery.of("SELECT * FROM (SELECT * FROM person) p WHERE p.id IN (SELECT id FROM house)").getTables());
+    }
+
+    @Test
+    public void testGetTablesOfWrites() {
+        assertEquals(Collections.singleton("person"), ParsedQuery.of("INSERT INTO \"person\" (\"id\") VALUES (?)").getTables());
+        assertEquals(Collections.singleton("person"), ParsedQuery.of("UPDATE person SET name=? WHERE id=?").getTables());
+        assertEquals(Collections.singleton("person"), ParsedQuery.of("DELETE FROM person WHERE id=?").getTables());
+    }
+
+    @Test
+    public void testGetTablesAfterModifiers() {
+        assertEquals(Collections.singleton("person"), ParsedQuery.of("UPDATE ONLY person SET name=?").getTables());
+        assertEquals(Collections.singleton("person"), ParsedQuery.of("DELETE FROM ONLY \"person\"").getTables());
+        assertEquals(Collections.singleton("person"), ParsedQuery.of("TRUNCATE person").getTables());
+        assertEquals(new HashSet<>(Arrays.asList("person", "house")),
+                ParsedQuery.of("TRUNCATE TABLE public.person, house").getTables());
+        assertEquals(Collections.singleton("person"), ParsedQuery.of("DROP TABLE IF EXISTS person").getTables());
+        assertTrue(ParsedQuery.of("TRUNCATE TABLE person").hasKnownTables());
+    }
+
+    @Test
+    public void testUnknownTables() {
+        assertTrue(ParsedQuery.of("SELECT 1").hasKnownTables());
+        assertFalse(ParsedQuery.of("CALL rename_person(?)").hasKnownTables());
+        assertFalse(ParsedQuery.of("UPDATE person SET name='It\\'s' WHERE id=(SELECT id FROM house)").hasKnownTables());
+        assertFalse(ParsedQuery.of("SELECT name FROM person WHERE name LIKE 'a\\%'").hasKnownTables());
+        assertTrue(ParsedQuery.of("SELECT name FROM person WHERE name = 'It''s'").hasKnownTables());
+    }
+
+    @Test
+    public void testGetTablesIgnoresLiterals() {
+        assertEquals(Collections.singleton("person"), ParsedQuery.of("SELECT 'FROM house' FROM person").getTables());
+    }
+
+    @Test
+    public void testFingerprintReplacesLiterals() {
+        assertEquals(
+                "SELECT \"name\" FROM \"person\" WHERE \"age\" = ? AND \"name\" = ?",
+                ParsedQuery.of("select \"name\"\n  from \"person\" where \"age\" = 10 and \"name\"='Harry';").getFingerprint());
+    }
+
+    @Test
+    public void testFingerprintIgnoresFormattingAndComments() {
+        assertEquals(
+                ParsedQuery.of("SELECT * FROM person WHERE id = ?").getFingerprint(),
+                ParsedQuery.of("SELECT *\n FROM person -- by id\n WHERE id=?;").getFingerprint());
+    }
+
+    @Test
+    public void testFingerprintCollapsesPlaceholderLists() {
+        assertEquals(
+                "SELECT * FROM PERSON WHERE ID IN (?+) AND T2.A = ?",
+                ParsedQuery.of("SELECT * FROM person WHERE id IN (1, 2, 3) AND t2.a = ?").getFingerprint());
+        assertEquals(
+                ParsedQuery.of("SELECT * FROM person WHERE id IN (?, ?)").getFingerprint(),
+                ParsedQuery.of("SELECT * FROM person WHERE id IN (?,?,?,?)").getFingerprint());
+    }
+
+    @Test
+    public void testFingerprintKeepsOperatorsTogether() {
+        assertEquals(
+                "SELECT * FROM PERSON WHERE ID <> ? AND AGE >= ? AND NAME :: TEXT || ? != ?",
+                ParsedQuery.of("SELECT * FROM person WHERE id<>? AND age>=1 AND name::text||'x'!=?").getFingerprint());
+    }
+
+    @Test
+    public void testFingerprintKeepsIdentifiersWithDigits() {
+        assertEquals("SELECT COL1 FROM T2", ParsedQuery.of("SELECT col1 FROM t2").getFingerprint());
+    }
+
+}
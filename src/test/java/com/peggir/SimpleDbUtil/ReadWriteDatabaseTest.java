@@ -0,0 +1,194 @@
+package com.peggir.SimpleDbUtil;
+
+import com.google.common.collect.ImmutableMap;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.intellij.lang.annotations.Language;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import play.db.Database;
+import play.db.Databases;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReadWriteDatabaseTest extends WithDatabase {
+
+    @Language("SQL")
+    private static final String SELECT_NAME = "SELECT \"name\" FROM \"person\" WHERE \"id\"=3;";
+
+    @Language("SQL")
+    private static final String UPDATE_NAME = "UPDATE \"person\" SET \"name\"='Half-Blood Prince' WHERE \"id\"=3;";
+
+    private Database replica1;
+    private Database replica2;
+    private ReadWriteDatabase readWriteDatabase;
+
+    @Before
+    public void setUpReplicas() throws Exception {
+        replica1 = replica("replica_1");
+        replica2 = replica("replica_2");
+        readWriteDatabase = new ReadWriteDatabase(database, replica1, replica2);
+    }
+
+    @After
+    public void tearDownReplicas() {
+        replica1.shutdown();
+        replica2.shutdown();
+    }
+
+    private static Database replica(final String name) throws Exception {
+        final Database replica = Databases.inMemory(
+                name,
+                ImmutableMap.of("MODE", "PostgreSQL"),
+                ImmutableMap.of("logStatements", false));
+        try (final Connection conn = replica.getConnection();
+             final PreparedStatement stmt = conn.prepareStatement(
+                     "CREATE TABLE \"person\" (\"id\" INTEGER, \"name\" VARCHAR(30));" +
+                             "INSERT INTO \"person\" VALUES (3, '" + name + "');")) {
+            stmt.executeUpdate();
+        }
+
+        return replica;
+    }
+
+    private Optional<String> readName(final Database db) throws Exception {
+        return new DbCall<>(db, new StringResultSetMapper(), SELECT_NAME).getOne();
+    }
+
+    @Test
+    public void testReadsGoToReplicasRoundRobin() throws Exception {
+        assertEquals(
+                new HashSet<>(Arrays.asList("replica_1", "replica_2")),
+                new HashSet<>(Arrays.asList(
+                        readName(readWriteDatabase).get(),
+                        readName(readWriteDatabase).get())));
+    }
+
+    @Test
+    public void testWritesGoToPrimary() throws Exception {
+        new DbCall<>(readWriteDatabase, UPDATE_NAME).execute();
+
+        assertEquals(Optional.of("Half-Blood Prince"), readName(database));
+        assertTrue(readName(readWriteDatabase).get().startsWith("replica_"));
+    }
+
+    @Test
+    public void testLockingReadsGoToPrimary() throws Exception {
+        assertEquals(
+                Optional.of("Severus Snape"),
+                new DbCall<>(readWriteDatabase, new StringResultSetMapper(), SELECT_NAME.replace(";", " FOR UPDATE;"))
+                        .getOne());
+    }
+
+    @Test
+    public void testSessionReadsItsWrites() throws Exception {
+        final ReadWriteDatabase session = readWriteDatabase.forSession("user-1");
+        assertTrue(readName(session).get().startsWith("replica_"));
+
+        new DbCall<>(session, UPDATE_NAME).execute();
+
+        assertEquals(Optional.of("Half-Blood Prince"), readName(session));
+        assertEquals(Optional.of("Half-Blood Prince"), readName(readWriteDatabase.forSession("user-1")));
+        assertTrue(readName(readWriteDatabase.forSession("user-2")).get().startsWith("replica_"));
+    }
+
+    @Test
+    public void testSessionWithoutStickiness() throws Exception {
+        readWriteDatabase.setStickyDuration(0, TimeUnit.MILLISECONDS);
+        final ReadWriteDatabase session = readWriteDatabase.forSession("user-1");
+        new DbCall<>(session, UPDATE_NAME).execute();
+
+        assertTrue(readName(session).get().startsWith("replica_"));
+    }
+
+    @Test
+    public void testFailingReplicaIsEjected() throws Exception {
+        replica1.shutdown();
+
+        assertEquals(Optional.of("replica_2"), readName(readWriteDatabase));
+        assertEquals(Optional.of("replica_2"), readName(readWriteDatabase));
+        assertFalse(readWriteDatabase.isAvailable(0));
+        assertTrue(readWriteDatabase.isAvailable(1));
+    }
+
+    @Test
+    public void testReadsGoToPrimaryWithoutReplicas() throws Exception {
+        replica1.shutdown();
+        replica2.shutdown();
+
+        assertEquals(Optional.of("Severus Snape"), readName(readWriteDatabase));
+        assertEquals(Optional.of("Severus Snape"), readName(new ReadWriteDatabase(database)));
+    }
+
+    @Test
+    public void testCheckHealth() throws Exception {
+        replica2.shutdown();
+        readWriteDatabase.checkHealth();
+
+        assertTrue(readWriteDatabase.isAvailable(0));
+        assertFalse(readWriteDatabase.isAvailable(1));
+        assertEquals(Optional.of("replica_1"), readName(readWriteDatabase));
+        assertEquals(Optional.of("replica_1"), readName(readWriteDatabase));
+    }
+
+    @Test
+    public void testEjectionExpires() throws Exception {
+        readWriteDatabase.setEjectionDuration(0, TimeUnit.MILLISECONDS);
+        replica2.shutdown();
+        readWriteDatabase.checkHealth();
+
+        assertTrue(readWriteDatabase.isAvailable(1));
+    }
+
+    @Test
+    public void testLeastOutstanding() throws Exception {
+        readWriteDatabase.setBalancing(ReadWriteDatabase.Balancing.LEAST_OUTSTANDING);
+        try (final Connection first = readWriteDatabase.getReadConnection();
+             final Connection second = readWriteDatabase.getReadConnection()) {
+            assertEquals(1, readWriteDatabase.getOutstanding(0));
+            assertEquals(1, readWriteDatabase.getOutstanding(1));
+            try (final Connection third = readWriteDatabase.getReadConnection()) {
+                assertEquals(3, readWriteDatabase.getOutstanding(0) + readWriteDatabase.getOutstanding(1));
+            }
+        }
+
+        assertEquals(0, readWriteDatabase.getOutstanding(0));
+        assertEquals(0, readWriteDatabase.getOutstanding(1));
+    }
+
+    @Test
+    public void testDatabaseMethodsUsePrimary() {
+        assertEquals(database.getName(), readWriteDatabase.getName());
+        assertEquals(database.getUrl(), readWriteDatabase.getUrl());
+        assertEquals(
+                "Severus Snape",
+                readWriteDatabase.withConnection(conn -> {
+                    try (final PreparedStatement stmt = conn.prepareStatement(SELECT_NAME)) {
+                        final ResultSet rs = stmt.executeQuery();
+                        rs.next();
+                        return rs.getString(1);
+                    }
+                }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructWithoutPrimary() {
+        new ReadWriteDatabase(null, database);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForSessionWithoutKey() {
+        readWriteDatabase.forSession(null);
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.ingest.CsvFormat;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultSetExporterTest extends WithDatabase {
+
+    private static final String SELECT_PERSONS = "SELECT \"id\", \"name\", \"isStudent\", \"score\", \"submissionDate\" " +
+            "FROM \"person\" WHERE \"id\" IN (0, 3) ORDER BY \"id\";";
+
+    private static final String SELECT_SPECIAL = "SELECT 'a,b' AS \"comma\", 'say \"hi\"' AS \"quote\", " +
+            "'line' || CHAR(10) || 'break' AS \"break\", '' AS \"empty\", 'Ünïcødé €𝄞' AS \"unicode\", " +
+            "CAST(-9223372036854775807 AS BIGINT) AS \"min\", CAST(12.50 AS DECIMAL(5,2)) AS \"decimal\";";
+
+    @Test
+    public void testExportCsv() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final long rows = new DbCall<>(database, SELECT_PERSONS).exportCsv(out);
+
+        assertEquals(2, rows);
+        assertEquals("id,name,isStudent,score,submissionDate\r\n"
+                        + "0,Harry Potter,true,6.5,2001-08-01 00:00:00\r\n"
+                        + "3,Severus Snape,false,,\r\n",
+                out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testExportCsvEscapesFields() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DbCall<>(database, SELECT_SPECIAL).exportCsv(out);
+
+        final String csv = out.toString("UTF-8");
+        assertEquals("comma,quote,break,empty,unicode,min,decimal\r\n"
+                        + "\"a,b\",\"say \"\"hi\"\"\",\"line\nbreak\",\"\",Ünïcødé €𝄞,-9223372036854775807,12.50\r\n",
+                csv);
+
+        final String record = csv.substring(csv.indexOf("\r\n") + 2, csv.length() - 2);
+        assertArrayEquals(
+                new String[]{"a,b", "say \"hi\"", "line\nbreak", "", "Ünïcødé €𝄞", "-9223372036854775807", "12.50"},
+                new CsvFormat().parse(record));
+    }
+
+    @Test
+    public void testExportJsonLines() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final long rows = new DbCall<>(database, SELECT_PERSONS).exportJsonLines(Channels.newChannel(out));
+
+        assertEquals(2, rows);
+        assertEquals("{\"id\":0,\"name\":\"Harry Potter\",\"isStudent\":true,\"score\":6.5,"
+                        + "\"submissionDate\":\"2001-08-01 00:00:00\"}\n"
+                        + "{\"id\":3,\"name\":\"Severus Snape\",\"isStudent\":false,\"score\":null,"
+                        + "\"submissionDate\":null}\n",
+                out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testExportJsonLinesEscapesStrings() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DbCall<>(database, SELECT_SPECIAL).exportJsonLines(out);
+
+        assertEquals("{\"comma\":\"a,b\",\"quote\":\"say \\\"hi\\\"\",\"break\":\"line\\nbreak\",\"empty\":\"\","
+                        + "\"unicode\":\"Ünïcødé €𝄞\",\"min\":-9223372036854775807,\"decimal\":12.50}\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testExportLargerThanBuffer() throws Exception {
+        final CountingOutputStream out = new CountingOutputStream();
+        final DbCall<Void> call = new DbCall<>(database, "SELECT X, 'row ' || X AS \"name\" FROM SYSTEM_RANGE(1, 5000);");
+        call.setFetchSize(100);
+
+        assertEquals(5000, call.exportJsonLines(out));
+        assertTrue(out.count > ResultSetExporter.BUFFER_SIZE);
+        assertTrue(out.maxWrite <= ResultSetExporter.BUFFER_SIZE);
+        assertTrue(out.flushed);
+    }
+
+    @Test(expected = DbCallException.class)
+    public void testExportFailingStream() throws Exception {
+        new DbCall<>(database, SELECT_PERSONS).exportCsv(new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                throw new IOException("Closed");
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExportWithoutStream() throws Exception {
+        new DbCall<>(database, SELECT_PERSONS).exportCsv((OutputStream) null);
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+        private int maxWrite;
+        private boolean flushed;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+            maxWrite = Math.max(maxWrite, len);
+        }
+
+        @Override
+        public void flush() {
+            flushed = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.peggir.SimpleDbUtil;
+
+import com.peggir.SimpleDbUtil.resultSetMappers.LongResultSetMapper;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StatementWatchTest extends WithDatabase {
+
+    @Test
+    public void testQueryTimeoutSeconds() {
+        assertEquals(1, StatementWatch.queryTimeoutSeconds(0L));
+        assertEquals(1, StatementWatch.queryTimeoutSeconds(TimeUnit.MILLISECONDS.toNanos(1)));
+        assertEquals(1, StatementWatch.queryTimeoutSeconds(TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(2, StatementWatch.queryTimeoutSeconds(TimeUnit.MILLISECONDS.toNanos(1001)));
+        assertEquals(Integer.MAX_VALUE, StatementWatch.queryTimeoutSeconds(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testCancelRunningAsyncCall() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final DbCall<Long> call = new DbCall<>(database, new LongResultSetMapper(), DbDeadlineTest.SLOW_QUERY);
+            call.setExecutor(executor);
+            final CompletableFuture<Optional<Long>> future = call.getOneAsync().toCompletableFuture();
+            Thread.sleep(100);
+
+            assertTrue(future.cancel(true));
+            executor.shutdown();
+
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(4, new DbCall<>(database, new StringResultSetMapper(),
+                    "SELECT \"name\" FROM \"person\";").getAll().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCancelledAsyncCallIsSkipped() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final CountDownLatch blocked = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    blocked.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            final AtomicBoolean mapped = new AtomicBoolean();
+            final DbCall<String> call = new DbCall<>(database, rs -> {
+                mapped.set(true);
+                return "";
+            }, "SELECT \"name\" FROM \"person\";");
+            call.setExecutor(executor);
+            final CompletableFuture<List<String>> future = call.getAllAsync().toCompletableFuture();
+            future.cancel(true);
+            blocked.countDown();
+            executor.shutdown();
+
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertFalse(mapped.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
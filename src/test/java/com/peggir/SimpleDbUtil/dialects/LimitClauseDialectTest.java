@@ -0,0 +1,39 @@
+package com.peggir.SimpleDbUtil.dialects;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LimitClauseDialectTest {
+
+    private final LimitClauseDialect dialect = new H2Dialect();
+
+    @Test
+    public void testGetName() {
+        assertEquals("H2", new H2Dialect().getName());
+        assertEquals("MySQL", new MySqlDialect().getName());
+        assertEquals("PostgreSQL", new PostgreSqlDialect().getName());
+    }
+
+    @Test
+    public void testExistsQuery() {
+        assertEquals(
+                "SELECT EXISTS(SELECT 1 FROM \"person\" WHERE \"age\"=?\n)",
+                dialect.existsQuery("SELECT 1 FROM \"person\" WHERE \"age\"=?"));
+    }
+
+    @Test
+    public void testLimitQuery() {
+        assertEquals(
+                "SELECT \"name\" FROM \"person\"\nLIMIT 1",
+                dialect.limitQuery("SELECT \"name\" FROM \"person\"", 1));
+    }
+
+    @Test
+    public void testExplainQuery() {
+        assertEquals(
+                "EXPLAIN SELECT \"name\" FROM \"person\"",
+                dialect.explainQuery("SELECT \"name\" FROM \"person\""));
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.peggir.SimpleDbUtil.frames;
+
+import com.peggir.SimpleDbUtil.DbCall;
+import com.peggir.SimpleDbUtil.WithDatabase;
+import org.intellij.lang.annotations.Language;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.IntBuffer;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DbFrameTest extends WithDatabase {
+
+    @Language("SQL")
+    private static final String SELECT_PERSONS = "SELECT \"id\", \"name\", \"isStudent\", \"score\", " +
+            "\"submissionDate\" FROM \"person\" ORDER BY \"id\";";
+
+    @Language("SQL")
+    private static final String SELECT_RANGE = "SELECT CAST(X AS INTEGER) AS \"i\", X AS \"l\", " +
+            "MOD(X, 3) = 0 AS \"b\", 'k' || MOD(X, 5) AS \"s\", CAST(X AS DOUBLE) / 2 AS \"d\" " +
+            "FROM SYSTEM_RANGE(1, 1000);";
+
+    @Test
+    public void testGetFrame() throws Exception {
+        final DbFrame frame = new DbCall<>(database, SELECT_PERSONS).getFrame();
+
+        assertEquals(4, frame.getRowCount());
+        assertEquals(Arrays.asList("id", "name", "isStudent", "score", "submissionDate"), frame.getColumnNames());
+        assertArrayEquals(new int[]{0, 1, 2, 3}, frame.getIntColumn("id").toArray());
+        assertEquals("Ron Weasley", frame.getStringColumn("name").getString(2));
+        assertTrue(frame.getBooleanColumn("isStudent").getBoolean(0));
+        assertFalse(frame.getBooleanColumn("isStudent").getBoolean(3));
+        assertEquals(9.5, frame.getDoubleColumn("score").getDouble(1), 0);
+        assertEquals(Timestamp.valueOf("2001-08-02 00:00:00"), frame.getTimestampColumn("submissionDate").getTimestamp(1));
+        assertFalse(frame.getColumn(0).isOffHeap());
+    }
+
+    @Test
+    public void testNulls() throws Exception {
+        final DbFrame frame = new DbCall<>(database, SELECT_PERSONS).getFrame();
+        final DoubleColumn score = frame.getDoubleColumn("score");
+
+        assertTrue(score.isNull(3));
+        assertFalse(score.isNull(2));
+        assertEquals(1, score.getNullCount());
+        assertNull(score.getObject(3));
+        assertEquals(0, score.getDouble(3), 0);
+        assertEquals(21.6, score.sum(), 1e-9);
+        assertNull(frame.getTimestampColumn("submissionDate").getTimestamp(3));
+        assertEquals(0, frame.getTimestampColumn("submissionDate").getEpochMillis(3));
+    }
+
+    @Test
+    public void testOffHeap() throws Exception {
+        final DbFrame frame = new DbCall<>(database, SELECT_RANGE).getFrame(true);
+
+        assertEquals(1000, frame.getRowCount());
+        assertTrue(frame.getIntColumn("i").isOffHeap());
+        assertEquals(500500, frame.getIntColumn("i").sum());
+        assertEquals(500500, frame.getLongColumn("l").sum());
+        assertEquals(250250, frame.getDoubleColumn("d").sum(), 0);
+        assertEquals(333, frame.getBooleanColumn("b").countTrue());
+        assertEquals(999, frame.getLongColumn("l").getLong(998));
+    }
+
+    @Test
+    public void testGrowingColumns() throws Exception {
+        final DbFrame frame = new DbCall<>(database, SELECT_RANGE).getFrame();
+        final IntBuffer ints = frame.getIntColumn("i").asBuffer();
+
+        assertEquals(1000, ints.remaining());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i + 1, ints.get(i));
+        }
+
+        final BitSet expected = new BitSet();
+        for (int i = 2; i < 1000; i += 3) {
+            expected.set(i);
+        }
+
+        assertEquals(expected, frame.getBooleanColumn("b").toBitSet());
+    }
+
+    @Test
+    public void testDictionaryEncoding() throws Exception {
+        final StringColumn strings = new DbCall<>(database, SELECT_RANGE).getFrame().getStringColumn("s");
+
+        assertEquals(Arrays.asList("k1", "k2", "k3", "k4", "k0"), strings.getDictionary());
+        assertEquals(5, strings.getCardinality());
+        assertEquals(0, strings.getCode(0));
+        assertEquals(4, strings.getCode(999));
+        assertEquals("k0", strings.getString(999));
+        assertSame(strings.getString(0), strings.getString(5));
+    }
+
+    @Test
+    public void testStringNulls() throws Exception {
+        final StringColumn strings = new DbCall<>(database,
+                "SELECT CASE WHEN \"score\" IS NULL THEN NULL ELSE 'x' END AS \"s\" FROM \"person\" ORDER BY \"id\";")
+                .getFrame().getStringColumn("s");
+
+        assertEquals(-1, strings.getCode(3));
+        assertNull(strings.getString(3));
+        assertTrue(strings.isNull(3));
+        assertEquals(Collections.singletonList("x"), strings.getDictionary());
+    }
+
+    @Test
+    public void testExactDecimals() throws Exception {
+        final DecimalColumn decimals = new DbCall<>(database,
+                "SELECT CAST(X AS DECIMAL(10, 2)) / 100 AS \"d\" FROM SYSTEM_RANGE(1, 1000);")
+                .getFrame().getDecimalColumn("d");
+
+        assertEquals(0, new BigDecimal("0.01").compareTo(decimals.getBigDecimal(0)));
+        assertEquals(0, new BigDecimal("5005").compareTo(decimals.sum()));
+        assertEquals(0.01, decimals.getDouble(0), 0);
+    }
+
+    @Test
+    public void testDecimalsOfMixedScales() throws Exception {
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getBigDecimal(1)).thenReturn(new BigDecimal("12"), new BigDecimal("0.125"), null,
+                new BigDecimal("1E+2"));
+        final ColumnBuilder builder = ColumnBuilder.of("d", Types.DECIMAL, false);
+        for (int row = 0; row < 4; row++) {
+            builder.read(rs, 1, row);
+        }
+
+        final DecimalColumn decimals = (DecimalColumn) builder.build(4);
+        assertEquals(3, decimals.getScale());
+        assertEquals(new BigDecimal("12.000"), decimals.getBigDecimal(0));
+        assertEquals(new BigDecimal("0.125"), decimals.getObject(1));
+        assertNull(decimals.getBigDecimal(2));
+        assertEquals(new BigDecimal("100.000"), decimals.getBigDecimal(3));
+        assertEquals(new BigDecimal("112.125"), decimals.sum());
+    }
+
+    @Test
+    public void testDecimalsBeyondLong() throws Exception {
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getBigDecimal(1)).thenReturn(new BigDecimal("1.5"), null, new BigDecimal("123456789012345678901"));
+        final ColumnBuilder builder = ColumnBuilder.of("d", Types.NUMERIC, true);
+        for (int row = 0; row < 3; row++) {
+            builder.read(rs, 1, row);
+        }
+
+        final FrameColumn column = builder.build(3);
+        assertTrue(column instanceof ObjectColumn);
+        assertEquals(new BigDecimal("1.5"), column.getObject(0));
+        assertTrue(column.isNull(1));
+        assertEquals(new BigDecimal("123456789012345678901"), column.getObject(2));
+    }
+
+    @Test
+    public void testTimestampNanos() throws Exception {
+        final Timestamp precise = Timestamp.valueOf("2001-08-02 10:15:30.123456789");
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getTimestamp(1)).thenReturn(Timestamp.valueOf("2001-08-02 00:00:00"), null, precise);
+        final ColumnBuilder builder = ColumnBuilder.of("t", Types.TIMESTAMP, false);
+        for (int row = 0; row < 3; row++) {
+            builder.read(rs, 1, row);
+        }
+
+        final TimestampColumn timestamps = (TimestampColumn) builder.build(3);
+        assertEquals(precise, timestamps.getTimestamp(2));
+        assertEquals(precise.getTime(), timestamps.getEpochMillis(2));
+        assertEquals(456789, timestamps.getSubMillisNanos(2));
+        assertEquals(0, timestamps.getSubMillisNanos(0));
+        assertEquals(Timestamp.valueOf("2001-08-02 00:00:00"), timestamps.getTimestamp(0));
+    }
+
+    @Test
+    public void testEmptyResultSet() throws Exception {
+        final DbFrame frame = new DbCall<>(database, "SELECT \"id\", \"name\" FROM \"person\" WHERE \"age\" > 100;")
+                .getFrame(true);
+
+        assertEquals(0, frame.getRowCount());
+        assertEquals(0, frame.getIntColumn("id").toArray().length);
+        assertEquals(0, frame.getStringColumn("name").getCardinality());
+    }
+
+    @Test
+    public void testColumnNamesIgnoreCase() throws Exception {
+        final DbFrame frame = new DbCall<>(database, SELECT_PERSONS).getFrame();
+
+        assertSame(frame.getColumn(1), frame.getColumn("NAME"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumn() throws Exception {
+        new DbCall<>(database, SELECT_PERSONS).getFrame().getColumn("age");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testColumnOfOtherType() throws Exception {
+        new DbCall<>(database, SELECT_PERSONS).getFrame().getIntColumn("name");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRowOutOfBounds() throws Exception {
+        new DbCall<>(database, SELECT_PERSONS).getFrame().getIntColumn("id").getInt(4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithoutQuery() throws Exception {
+        new DbCall<>(database, (String) null).getFrame();
+    }
+
+}
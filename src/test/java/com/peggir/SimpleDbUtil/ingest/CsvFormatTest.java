@@ -0,0 +1,59 @@
+package com.peggir.SimpleDbUtil.ingest;
+
+import com.peggir.SimpleDbUtil.exceptions.DbIngestParseException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CsvFormatTest {
+
+    private final CsvFormat format = new CsvFormat();
+
+    @Test
+    public void testParseFields() throws Exception {
+        assertArrayEquals(new String[]{"1", "Harry Potter", "11"}, format.parse("1,Harry Potter,11"));
+    }
+
+    @Test
+    public void testParseEmptyFields() throws Exception {
+        assertArrayEquals(new String[]{null, "", null}, format.parse(",\"\","));
+        assertArrayEquals(new String[]{null}, format.parse(""));
+    }
+
+    @Test
+    public void testParseQuotedFields() throws Exception {
+        assertArrayEquals(
+                new String[]{"a,b", "say \"hi\"", "two\nlines"},
+                format.parse("\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\""));
+    }
+
+    @Test
+    public void testParseWithOtherDelimiterAndQuote() throws Exception {
+        format.setDelimiter(';');
+        format.setQuote('\'');
+
+        assertArrayEquals(new String[]{"a;b", "c"}, format.parse("'a;b';c"));
+        assertEquals('\'', format.getQuote());
+    }
+
+    @Test(expected = DbIngestParseException.class)
+    public void testParseUnterminatedQuote() throws Exception {
+        format.parse("1,\"Harry");
+    }
+
+    @Test(expected = DbIngestParseException.class)
+    public void testParseTextAfterQuote() throws Exception {
+        format.parse("\"Harry\" Potter,1");
+    }
+
+    @Test
+    public void testHeader() {
+        assertFalse(format.hasHeader());
+        format.setHeader(true);
+        assertTrue(format.hasHeader());
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.peggir.SimpleDbUtil.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.peggir.SimpleDbUtil.DbCall;
+import com.peggir.SimpleDbUtil.DbCallBatchArguments;
+import com.peggir.SimpleDbUtil.WithDatabase;
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.exceptions.DbIngestParseException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.intellij.lang.annotations.Language;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DbIngestTest extends WithDatabase {
+
+    @Language("SQL")
+    private static final String INSERT_PERSON = "INSERT INTO \"person\" (\"id\", \"name\", \"age\", \"isStudent\", \"score\") " +
+            "VALUES (?,?,?,?,?);";
+
+    private static final DbCallBatchArguments<String[]> BIND_CSV = (stmt, fields) -> {
+        stmt.setInt(1, Integer.parseInt(fields[0]));
+        stmt.setString(2, fields[1]);
+        stmt.setInt(3, Integer.parseInt(fields[2]));
+        stmt.setBoolean(4, Boolean.parseBoolean(fields[3]));
+        if (fields[4] == null) {
+            stmt.setNull(5, Types.DOUBLE);
+        } else {
+            stmt.setDouble(5, Double.parseDouble(fields[4]));
+        }
+    };
+
+    private static final DbCallBatchArguments<JsonNode> BIND_JSON = (stmt, node) -> {
+        stmt.setInt(1, node.get("id").asInt());
+        stmt.setString(2, node.get("name").asText());
+        stmt.setInt(3, node.get("age").asInt());
+        stmt.setBoolean(4, node.get("isStudent").asBoolean());
+        stmt.setDouble(5, node.get("score").asDouble());
+    };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIngestCsv() throws Exception {
+        final StringBuilder csv = new StringBuilder("id,name,age,isStudent,score\r\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append(100 + i).append(",\"Student, number ").append(i).append("\",").append(20 + i % 5)
+                    .append(",true,").append(i % 2 == 0 ? "7.5" : "").append("\r\n");
+        }
+
+        final DbIngest<String[]> ingest = new DbIngest<>(database, INSERT_PERSON, csvWithHeader(), BIND_CSV);
+        ingest.setChunkSize(1024);
+        ingest.setBatchSize(64);
+        ingest.setParserThreads(3);
+        ingest.setWriterThreads(2);
+        final DbIngestProgress progress = ingest.ingest(write(csv.toString()));
+
+        assertEquals(1000, progress.getRecordsParsed());
+        assertEquals(1000, progress.getRecordsInserted());
+        assertEquals(0, progress.getRecordsFailed());
+        assertEquals(Files.size(folder.getRoot().toPath().resolve("input")), progress.getBytesRead());
+        assertEquals(1004, count("SELECT \"name\" FROM \"person\";"));
+        assertEquals(500, count("SELECT \"name\" FROM \"person\" WHERE \"score\" IS NULL AND \"id\">=100;"));
+        assertEquals("Student, number 999", new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" WHERE \"id\"=1099;").getOne().orElse(null));
+        assertTrue(progress == ingest.getProgress());
+    }
+
+    @Test
+    public void testIngestCsvWithLineBreaksInQuotesAndLargeRecords() throws Exception {
+        final StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            longName.append('x');
+        }
+
+        final String csv = "10,\"Two\nlines\",20,false,1\n11,\"" + longName + "\",21,false,\n\n12,Last,22,true,3";
+        final DbIngest<String[]> ingest = new DbIngest<>(database, INSERT_PERSON, new CsvFormat(), BIND_CSV);
+        ingest.setChunkSize(8);
+        final DbIngestProgress progress = ingest.ingest(write(csv));
+
+        assertEquals(3, progress.getRecordsInserted());
+        assertEquals("Two\nlines", new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" WHERE \"id\"=10;").getOne().orElse(null));
+        assertEquals(longName.toString(), new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" WHERE \"id\"=11;").getOne().orElse(null));
+    }
+
+    @Test
+    public void testIngestNdjson() throws Exception {
+        final String json = "{\"id\":10,\"name\":\"Albus\",\"age\":100,\"isStudent\":false,\"score\":9.9}\n"
+                + "{\"id\":11,\"name\":\"Minerva\",\"age\":70,\"isStudent\":false,\"score\":9.8}\n";
+        final DbIngestProgress progress = new DbIngest<>(database, INSERT_PERSON, new NdjsonFormat(), BIND_JSON)
+                .ingest(write(json));
+
+        assertEquals(2, progress.getRecordsInserted());
+        assertEquals(6, count("SELECT \"name\" FROM \"person\";"));
+    }
+
+    @Test
+    public void testCapturesFailedRecords() throws Exception {
+        final String csv = "10,Albus,100,false,1\n"
+                + "\"bro\"ken,1\n"
+                + "0,Duplicate,1,false,1\n"
+                + "11,Minerva,70,false,\n"
+                + "x,NaN,1,false,1\n";
+        final DbIngest<String[]> ingest = new DbIngest<>(database, INSERT_PERSON, new CsvFormat(), BIND_CSV);
+        ingest.setParserThreads(1);
+        final DbIngestProgress progress = ingest.ingest(write(csv));
+
+        assertEquals(2, progress.getRecordsInserted());
+        assertEquals(3, progress.getRecordsFailed());
+        final List<DbIngestError> errors = progress.getErrors();
+        assertEquals(3, errors.size());
+        assertTrue(errors.stream().anyMatch(error -> error.getLine() == 2
+                && error.getCause() instanceof DbIngestParseException));
+        assertTrue(errors.stream().anyMatch(error -> error.getLine() == 3
+                && "0,Duplicate,1,false,1".equals(error.getRecord())));
+        assertTrue(errors.stream().anyMatch(error -> error.getLine() == 5
+                && error.getCause() instanceof NumberFormatException));
+        assertEquals(6, count("SELECT \"name\" FROM \"person\";"));
+    }
+
+    @Test
+    public void testAbortsAfterMaxErrors() throws Exception {
+        final StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            csv.append("0,Duplicate,1,false,1\n");
+        }
+
+        final DbIngest<String[]> ingest = new DbIngest<>(database, INSERT_PERSON, new CsvFormat(), BIND_CSV);
+        ingest.setMaxErrors(5);
+        ingest.setBatchSize(10);
+        try {
+            ingest.ingest(write(csv.toString()));
+            fail("Expected DbCallException");
+        } catch (final DbCallException e) {
+            assertEquals("More than 5 records failed", e.getMessage());
+            assertEquals(5, ingest.getProgress().getErrors().size());
+        }
+    }
+
+    @Test(expected = DbCallException.class)
+    public void testMissingFile() throws Exception {
+        new DbIngest<>(database, INSERT_PERSON, new CsvFormat(), BIND_CSV)
+                .ingest(folder.getRoot().toPath().resolve("missing"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithoutBinder() throws Exception {
+        new DbIngest<>(database, INSERT_PERSON, new CsvFormat(), null).ingest(write(""));
+    }
+
+    private CsvFormat csvWithHeader() {
+        final CsvFormat format = new CsvFormat();
+        format.setHeader(true);
+        return format;
+    }
+
+    private Path write(final String content) throws Exception {
+        final Path file = folder.getRoot().toPath().resolve("input");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private int count(@Language("SQL") final String query) throws Exception {
+        return new DbCall<>(database, new StringResultSetMapper(), query).getAll().size();
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.peggir.SimpleDbUtil.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.peggir.SimpleDbUtil.exceptions.DbIngestParseException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NdjsonFormatTest {
+
+    private final NdjsonFormat format = new NdjsonFormat();
+
+    @Test
+    public void testParse() throws Exception {
+        final JsonNode node = format.parse("{\"name\":\"Harry Potter\",\"age\":11,\"score\":null}");
+
+        assertEquals("Harry Potter", node.get("name").asText());
+        assertEquals(11, node.get("age").asInt());
+        assertTrue(node.get("score").isNull());
+        assertEquals(-1, format.getQuote());
+    }
+
+    @Test(expected = DbIngestParseException.class)
+    public void testParseInvalidJson() throws Exception {
+        format.parse("{\"name\":");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithoutObjectMapper() {
+        new NdjsonFormat(null);
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import com.peggir.SimpleDbUtil.DbCall;
+import com.peggir.SimpleDbUtil.DbCallListeners;
+import com.peggir.SimpleDbUtil.DbSpillList;
+import com.peggir.SimpleDbUtil.WithDatabase;
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DbCallMetricsTest extends WithDatabase {
+
+    private static final String SELECT_NAME = "SELECT \"name\" FROM \"person\" WHERE \"id\"=?;";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private DbCallMetrics metrics;
+
+    @Before
+    public void register() {
+        metrics = new DbCallMetrics(2);
+        DbCallListeners.register(metrics);
+    }
+
+    @After
+    public void unregister() {
+        DbCallListeners.unregister(metrics);
+        metrics.unregisterMBean();
+    }
+
+    @Test
+    public void testRecordsCallsPerFingerprint() throws Exception {
+        for (int id = 0; id < 3; id++) {
+            final int value = id;
+            new DbCall<>(database, new StringResultSetMapper(), SELECT_NAME, stmt -> stmt.setInt(1, value)).getOne();
+        }
+
+        final QueryStats stats = metrics.getQuery("SELECT \"name\" FROM \"person\" WHERE \"id\" = ?");
+        assertNotNull(stats);
+        assertEquals(3, stats.getCalls());
+        assertEquals(0, stats.getErrors());
+        assertEquals(3, stats.getRows());
+        assertEquals(3, stats.getTotal().getCount());
+        assertEquals(3, stats.getAcquire().getCount());
+        assertEquals(3, stats.getMap().getCount());
+        assertTrue(stats.getTotal().getP999() >= stats.getTotal().getP50());
+        assertEquals(3, metrics.getOverall().getCalls());
+    }
+
+    @Test
+    public void testRecordsSpills() throws Exception {
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(), "SELECT \"name\" FROM \"person\";");
+        call.setSpillDirectory(folder.getRoot().toPath());
+        try (final DbSpillList<String> names = call.getAllSpilling(0)) {
+            assertEquals(4, names.size());
+        }
+
+        final QueryStats stats = metrics.getOverall();
+        assertEquals(1, stats.getSpills());
+        assertEquals(4, stats.getSpilledRows());
+        assertTrue(stats.getSpilledBytes() > 0);
+    }
+
+    @Test
+    public void testRecordsErrors() {
+        try {
+            new DbCall<>(database, "DELETE FROM \"unknown\";").execute();
+        } catch (final DbCallException e) {
+            // Expected
+        }
+
+        assertEquals(1, metrics.getQuery("DELETE FROM \"unknown\"").getErrors());
+    }
+
+    @Test
+    public void testLimitsFingerprints() throws Exception {
+        new DbCall<>(database, "SELECT 1;").hasResults();
+        new DbCall<>(database, "SELECT \"id\" FROM \"person\";").hasResults();
+        new DbCall<>(database, "SELECT \"name\" FROM \"person\";").hasResults();
+        new DbCall<>(database, "SELECT 1;").hasResults();
+
+        assertEquals(2, metrics.getQueryCount());
+        final List<QueryStats> queries = metrics.getQueries();
+        assertEquals(3, queries.size());
+        assertEquals("SELECT ?", queries.get(0).getFingerprint());
+        assertEquals(1, metrics.getQuery(DbCallMetrics.OTHER_QUERIES).getCalls());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        new DbCall<>(database, "SELECT 1;").hasResults();
+        metrics.reset();
+
+        assertEquals(0, metrics.getQueryCount());
+        assertEquals(0, metrics.getOverall().getCalls());
+        assertNull(metrics.getQuery("SELECT ?"));
+    }
+
+    @Test
+    public void testExposedThroughJmx() throws Exception {
+        metrics.registerMBean("test");
+        new DbCall<>(database, "SELECT 1;").hasResults();
+
+        final ObjectName name = new ObjectName("com.peggir.SimpleDbUtil:type=DbCallMetrics,name=\"test\"");
+        final CompositeData overall = (CompositeData) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(name, "Overall");
+        assertEquals(1L, overall.get("calls"));
+        assertNotNull(((CompositeData) overall.get("execute")).get("p99"));
+
+        final CompositeData[] queries = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(name, "Queries");
+        assertEquals("SELECT ?", queries[0].get("fingerprint"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterMBeanTwice() {
+        metrics.registerMBean("twice");
+        final DbCallMetrics other = new DbCallMetrics();
+        other.registerMBean("twice");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaximum() {
+        new DbCallMetrics(0);
+    }
+
+}
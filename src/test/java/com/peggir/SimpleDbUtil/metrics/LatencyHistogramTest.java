@@ -0,0 +1,77 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99), 0);
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void testPercentilesAreAccurate() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertWithin(50_000_000, histogram.getPercentile(50));
+        assertWithin(99_000_000, histogram.getPercentile(99));
+        assertWithin(99_900_000, histogram.getPercentile(99.9));
+        assertEquals(100_000_000, histogram.getPercentile(100));
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_500, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void testSmallAndHugeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(3);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.getPercentile(0));
+        assertEquals(3, histogram.getPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+        assertTrue(histogram.getPercentile(100) > 60_000_000_000L);
+    }
+
+    @Test
+    public void testBucketsAreContiguous() {
+        for (long value = 0; value < 100_000; value++) {
+            final int bucket = LatencyHistogram.bucket(value);
+            assertTrue(value <= LatencyHistogram.upperBound(bucket));
+            assertTrue(bucket == 0 || value > LatencyHistogram.upperBound(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testReset() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new LatencyHistogram().getPercentile(101);
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue(actual + " not within 6.25% of " + expected, Math.abs(actual - expected) <= expected * 0.0625);
+    }
+
+}
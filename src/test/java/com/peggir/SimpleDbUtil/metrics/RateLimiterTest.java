@@ -0,0 +1,58 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(42L);
+
+    @Test
+    public void testAllowsBurstOfOneSecond() {
+        final RateLimiter limiter = new RateLimiter(5, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testGrantsPermitsAtRate() {
+        final RateLimiter limiter = new RateLimiter(2, clock::get);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        clock.addAndGet(250_000_000L);
+        assertFalse(limiter.tryAcquire());
+
+        clock.addAndGet(250_000_000L);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testSlowRate() {
+        final RateLimiter limiter = new RateLimiter(0.5, clock::get);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        clock.addAndGet(1_999_999_999L);
+        assertFalse(limiter.tryAcquire());
+
+        clock.addAndGet(1L);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithoutPositiveRate() {
+        new RateLimiter(0);
+    }
+
+}
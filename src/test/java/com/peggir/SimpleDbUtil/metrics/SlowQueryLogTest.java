@@ -0,0 +1,259 @@
+package com.peggir.SimpleDbUtil.metrics;
+
+import com.peggir.SimpleDbUtil.DbCall;
+import com.peggir.SimpleDbUtil.DbCallLimiter;
+import com.peggir.SimpleDbUtil.DbCallListeners;
+import com.peggir.SimpleDbUtil.DbSession;
+import com.peggir.SimpleDbUtil.WithDatabase;
+import com.peggir.SimpleDbUtil.dialects.H2Dialect;
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.resultSetMappers.StringResultSetMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SlowQueryLogTest extends WithDatabase {
+
+    private static final String SELECT_NAME = "SELECT \"name\" FROM \"person\" WHERE \"id\"=? AND \"name\"<>?;";
+
+    private Logger logger;
+    private SlowQueryLog log;
+
+    @Before
+    public void register() {
+        logger = mock(Logger.class);
+        when(logger.isWarnEnabled()).thenReturn(true);
+        log = new SlowQueryLog(logger);
+        log.setThreshold(0, TimeUnit.MILLISECONDS);
+        DbCallListeners.register(log);
+    }
+
+    @After
+    public void unregister() {
+        DbCallListeners.unregister(log);
+    }
+
+    @Test
+    public void testLogsSlowCall() throws Exception {
+        selectName(1);
+
+        final String message = loggedMessage();
+        assertTrue(message, message.startsWith("Slow DbCall getOne took "));
+        assertTrue(message, message.contains("acquire "));
+        assertTrue(message, message.contains("map "));
+        assertTrue(message, message.contains("), 1 row\n"));
+        assertTrue(message, message.contains("fingerprint: SELECT \"name\" FROM \"person\" WHERE \"id\" = ? AND \"name\" <> ?"));
+        assertTrue(message, message.contains("sql: SELECT \"name\""));
+        assertTrue(message, message.contains("parameters: [1=1, 2='Snape']"));
+        assertFalse(message, message.contains("plan:"));
+    }
+
+    @Test
+    public void testSkipsFastCalls() throws Exception {
+        log.setThreshold(1, TimeUnit.HOURS);
+        selectName(1);
+
+        verify(logger, never()).warn(anyString(), any(Throwable.class));
+        assertEquals(0, log.getSuppressedCount());
+    }
+
+    @Test
+    public void testRedactsParameters() throws Exception {
+        log.setRedactor((fingerprint, index, value) -> index == 2 ? "?" : value);
+        selectName(1);
+
+        assertTrue(loggedMessage().contains("parameters: [1=1, 2='?']"));
+    }
+
+    @Test
+    public void testLogsNullAndBinaryParameters() throws Exception {
+        new DbCall<>(database, new StringResultSetMapper(),
+                "SELECT \"name\" FROM \"person\" WHERE \"score\" IS NOT DISTINCT FROM ? OR ? IS NULL;", stmt -> {
+            stmt.setNull(1, java.sql.Types.DOUBLE);
+            stmt.setBytes(2, new byte[3]);
+        }).getAll();
+
+        assertTrue(loggedMessage().contains("parameters: [1=NULL, 2=<3 bytes>]"));
+    }
+
+    @Test
+    public void testLogsFailureWithCause() {
+        try {
+            new DbCall<>(database, "DELETE FROM \"unknown\";").execute();
+        } catch (final DbCallException e) {
+            // Expected
+        }
+
+        final ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        final ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(logger).warn(message.capture(), error.capture());
+        assertTrue(message.getValue().contains("failed"));
+        assertTrue(error.getValue() instanceof java.sql.SQLException);
+    }
+
+    @Test
+    public void testRateLimitSuppressesMessages() throws Exception {
+        log.setMaxLogsPerSecond(1);
+        selectName(1);
+        selectName(2);
+        selectName(3);
+
+        verify(logger, times(1)).warn(anyString(), (Throwable) any());
+        assertEquals(2, log.getSuppressedCount());
+    }
+
+    @Test
+    public void testSampling() throws Exception {
+        log.setSampleRate(0);
+        selectName(1);
+
+        verify(logger, never()).warn(anyString(), (Throwable) any());
+        assertEquals(1, log.getSuppressedCount());
+    }
+
+    @Test
+    public void testExplainsSampledSelect() throws Exception {
+        log.setExplainSampleRate(1);
+        final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(), SELECT_NAME, stmt -> {
+            stmt.setInt(1, 1);
+            stmt.setString(2, "Snape");
+        });
+        call.setDialect(new H2Dialect());
+        call.getOne();
+
+        final String message = loggedMessage();
+        assertTrue(message, message.contains("plan:\n    SELECT"));
+        assertTrue(message, message.toUpperCase().contains("PERSON"));
+    }
+
+    @Test
+    public void testExplainsOffCallingThread() throws Exception {
+        log.setExplainSampleRate(1);
+        log.setDialect(new H2Dialect());
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        log.setExecutor(task -> {
+            final Thread thread = new Thread(task);
+            threads.add(thread);
+            thread.start();
+        });
+        selectName(1);
+
+        assertTrue(loggedMessage().contains("plan:"));
+        assertEquals(1, threads.size());
+    }
+
+    @Test
+    public void testExplainThroughLimiter() throws Exception {
+        log.setExplainSampleRate(1);
+        log.setDialect(new H2Dialect());
+        log.setExplainTimeout(10, TimeUnit.MILLISECONDS);
+        log.setExecutor(Runnable::run);
+        final DbCallLimiter limiter = new DbCallLimiter();
+        limiter.setLimit(1);
+        limiter.setMaxQueueSize(0);
+        DbCallLimiter.register(database, limiter);
+        final DbCallLimiter.Permit permit = limiter.acquire(DbCallLimiter.Priority.HIGH);
+        try {
+            final DbCall<String> call = new DbCall<>(database, new StringResultSetMapper(),
+                    "SELECT \"name\" FROM \"person\" WHERE \"id\"=0;");
+            call.setLimiter(new DbCallLimiter());
+            call.getOne();
+
+            assertTrue(loggedMessage().contains("plan:\n    unavailable"));
+            assertEquals(1, limiter.getRejectedCount());
+        } finally {
+            permit.close();
+            DbCallLimiter.unregister(database);
+        }
+    }
+
+    @Test
+    public void testExplainsWithFallbackDialect() throws Exception {
+        log.setExplainSampleRate(1);
+        log.setDialect(new H2Dialect());
+        selectName(1);
+
+        assertTrue(loggedMessage().contains("plan:"));
+    }
+
+    @Test
+    public void testDoesNotExplainWithoutDialect() throws Exception {
+        log.setExplainSampleRate(1);
+        selectName(1);
+
+        assertFalse(loggedMessage().contains("plan:"));
+    }
+
+    @Test
+    public void testDoesNotExplainUpdates() throws Exception {
+        log.setExplainSampleRate(1);
+        log.setDialect(new H2Dialect());
+        new DbCall<>(database, "UPDATE \"person\" SET \"age\"=\"age\" WHERE \"id\"=?;", stmt -> stmt.setInt(1, 0)).execute();
+
+        assertFalse(loggedMessage().contains("plan:"));
+    }
+
+    @Test
+    public void testDoesNotExplainInTransaction() throws Exception {
+        log.setExplainSampleRate(1);
+        log.setDialect(new H2Dialect());
+        DbSession.withSession(database, session -> {
+            session.beginTransaction();
+            session.call(new StringResultSetMapper(), "SELECT \"name\" FROM \"person\";").getAll();
+            session.commit();
+            return null;
+        });
+
+        assertFalse(loggedMessage().contains("plan:"));
+    }
+
+    @Test
+    public void testDoesNotLogWhenWarnDisabled() throws Exception {
+        when(logger.isWarnEnabled()).thenReturn(false);
+        selectName(1);
+
+        verify(logger, never()).warn(anyString(), (Throwable) any());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSampleRate() {
+        log.setSampleRate(1.5);
+    }
+
+    @Test
+    public void testRedactAll() {
+        assertEquals("?", SlowQueryLog.Redactor.REDACT_ALL.redact("SELECT ?", 1, "secret"));
+    }
+
+    private void selectName(final int id) throws DbCallException {
+        new DbCall<>(database, new StringResultSetMapper(), SELECT_NAME, stmt -> {
+            stmt.setInt(1, id);
+            stmt.setString(2, "Snape");
+        }).getOne();
+    }
+
+    private String loggedMessage() {
+        final ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(logger, timeout(5000)).warn(message.capture(), (Throwable) any());
+        return message.getValue();
+    }
+
+}
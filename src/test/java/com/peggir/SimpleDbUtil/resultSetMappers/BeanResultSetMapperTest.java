@@ -0,0 +1,217 @@
+package com.peggir.SimpleDbUtil.resultSetMappers;
+
+import com.peggir.SimpleDbUtil.DbCall;
+import com.peggir.SimpleDbUtil.WithDatabase;
+import com.peggir.SimpleDbUtil.exceptions.DbCallException;
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+import org.intellij.lang.annotations.Language;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class BeanResultSetMapperTest extends WithDatabase {
+
+    @Language("SQL")
+    private static final String SELECT_PERSONS = "SELECT \"id\", \"name\", \"age\", \"isStudent\", \"score\", " +
+            "\"submissionDate\" FROM \"person\" ORDER BY \"id\";";
+
+    @Test
+    public void testMapToBeanWithSetters() throws Exception {
+        final List<PersonBean> result = new DbCall<>(database, BeanResultSetMapper.of(PersonBean.class),
+                SELECT_PERSONS).getAll();
+
+        assertEquals(4, result.size());
+        assertEquals(0, result.get(0).getId());
+        assertEquals("Harry Potter", result.get(0).getName());
+        assertEquals(11, result.get(0).getAge());
+        assertTrue(result.get(0).isStudent());
+        assertEquals(6.5, result.get(0).getScore(), 0);
+        assertEquals(Timestamp.valueOf("2001-08-01 00:00:00"), result.get(0).getSubmissionDate());
+        assertFalse(result.get(3).isStudent());
+        assertNull(result.get(3).getScore());
+        assertNull(result.get(3).getSubmissionDate());
+    }
+
+    @Test
+    public void testMapToBeanWithFields() throws Exception {
+        final List<PersonFields> result = new DbCall<>(database, BeanResultSetMapper.of(PersonFields.class),
+                SELECT_PERSONS).getAll();
+
+        assertEquals(4, result.size());
+        assertEquals("Hermione Granger", result.get(1).name);
+        assertEquals(Integer.valueOf(10), result.get(1).age);
+    }
+
+    @Test
+    public void testMapToConstructorWithNamedParameters() throws Exception {
+        final List<PersonValue> result = new DbCall<>(database, BeanResultSetMapper.of(PersonValue.class),
+                SELECT_PERSONS).getAll();
+
+        assertEquals(4, result.size());
+        assertEquals("Ron Weasley", result.get(2).name);
+        assertEquals(12, result.get(2).age);
+        assertTrue(result.get(2).student);
+        assertEquals(Status.ACTIVE, result.get(2).status);
+    }
+
+    @Test
+    public void testMapUnderscoredColumnLabels() throws Exception {
+        final List<PersonValue> result = new DbCall<>(database, BeanResultSetMapper.of(PersonValue.class),
+                "SELECT \"name\" AS person_name, \"age\", 'RETIRED' AS status FROM \"person\" WHERE \"id\"=3;")
+                .getAll();
+
+        assertEquals(1, result.size());
+        assertNull(result.get(0).name);
+        assertEquals(28, result.get(0).age);
+        assertFalse(result.get(0).student);
+        assertEquals(Status.RETIRED, result.get(0).status);
+    }
+
+    @Test
+    public void testMapResultSetsWithDifferentColumns() throws Exception {
+        final BeanResultSetMapper<PersonBean> mapper = BeanResultSetMapper.of(PersonBean.class);
+
+        final PersonBean byName = new DbCall<>(database, mapper,
+                "SELECT \"name\" FROM \"person\" WHERE \"id\"=1;").getOne().orElseThrow(AssertionError::new);
+        final PersonBean byAge = new DbCall<>(database, mapper,
+                "SELECT \"age\" FROM \"person\" WHERE \"id\"=1;").getOne().orElseThrow(AssertionError::new);
+
+        assertEquals("Hermione Granger", byName.getName());
+        assertEquals(0, byName.getAge());
+        assertNull(byAge.getName());
+        assertEquals(10, byAge.getAge());
+    }
+
+    @Test
+    public void testOfReturnsSharedMapper() {
+        assertSame(BeanResultSetMapper.of(PersonBean.class), BeanResultSetMapper.of(PersonBean.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfWithoutType() {
+        BeanResultSetMapper.of(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfWithoutUsableConstructor() {
+        BeanResultSetMapper.of(Runnable.class);
+    }
+
+    @Test(expected = DbCallResultSetMapperException.class)
+    public void testMapWithInvalidResultSet() throws Exception {
+        final ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenThrow(new SQLException());
+
+        BeanResultSetMapper.of(PersonBean.class).map(resultSet);
+    }
+
+    @Test(expected = DbCallException.class)
+    public void testMapWithIncompatibleColumn() throws Exception {
+        new DbCall<>(database, BeanResultSetMapper.of(PersonValue.class),
+                "SELECT 'UNKNOWN' AS status;").getAll();
+    }
+
+    public enum Status {
+        ACTIVE,
+        RETIRED
+    }
+
+    public static class PersonBean {
+
+        private int id;
+        private String name;
+        private int age;
+        private boolean student;
+        private Double score;
+        private Date submissionDate;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(final int id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(final int age) {
+            this.age = age;
+        }
+
+        public boolean isStudent() {
+            return student;
+        }
+
+        public void setIsStudent(final boolean student) {
+            this.student = student;
+        }
+
+        public Double getScore() {
+            return score;
+        }
+
+        public void setScore(final Double score) {
+            this.score = score;
+        }
+
+        public Date getSubmissionDate() {
+            return submissionDate;
+        }
+
+        public void setSubmissionDate(final Date submissionDate) {
+            this.submissionDate = submissionDate;
+        }
+
+    }
+
+    static class PersonFields {
+
+        private String name;
+        private Integer age;
+
+    }
+
+    public static class PersonValue {
+
+        private final String name;
+        private final int age;
+        private final boolean student;
+        private final Status status;
+
+        public PersonValue(final String name) {
+            this(name, 0, false, null);
+        }
+
+        public PersonValue(final String name, final int age, final boolean isStudent, final Status status) {
+            this.name = name;
+            this.age = age;
+            this.student = isStudent;
+            this.status = status == null ? Status.ACTIVE : status;
+        }
+
+    }
+
+}
@@ -9,6 +9,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
 public class BooleanResultSetMapperTest {
@@ -31,6 +32,17 @@ public class BooleanResultSetMapperTest {
         assertEquals(value, result);
     }
 
+    @Test
+    public void testMapBooleanSuccessfully() throws Exception {
+        final boolean value = true;
+
+        final ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getBoolean(1)).thenReturn(value);
+
+        final boolean result = resultSetMapper.mapBoolean(resultSet);
+        assertTrue(result);
+    }
+
     @Test(expected = DbCallResultSetMapperException.class)
     public void testMapWithInvalidResultSet() throws Exception {
         final ResultSet resultSet = Mockito.mock(ResultSet.class);
@@ -0,0 +1,53 @@
+package com.peggir.SimpleDbUtil.resultSetMappers;
+
+import com.peggir.SimpleDbUtil.exceptions.DbCallResultSetMapperException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class DoubleResultSetMapperTest {
+
+    private DoubleResultSetMapper resultSetMapper;
+
+    @Before
+    public void setUp() {
+        resultSetMapper = new DoubleResultSetMapper();
+    }
+
+    @Test
+    public void testMapSuccessfully() throws Exception {
+        final Double value = 123.45;
+
+        final ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getDouble(1)).thenReturn(value);
+
+        final Double result = resultSetMapper.map(resultSet);
+        assertEquals(value, result);
+    }
+
+    @Test
+    public void testMapDoubleSuccessfully() throws Exception {
+        final double value = 123.45;
+
+        final ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getDouble(1)).thenReturn(value);
+
+        final double result = resultSetMapper.mapDouble(resultSet);
+        assertEquals(value, result, 0);
+    }
+
+    @Test(expected = DbCallResultSetMapperException.class)
+    public void testMapWithInvalidResultSet() throws Exception {
+        final ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getDouble(1)).thenThrow(new SQLException());
+
+        resultSetMapper.map(resultSet);
+    }
+
+}
@@ -31,6 +31,17 @@ public class FloatResultSetMapperTest {
         assertEquals(value, result);
     }
 
+    @Test
+    public void testMapFloatSuccessfully() throws Exception {
+        final float value = 123.45f;
+
+        final ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getFloat(1)).thenReturn(value);
+
+        final float result = resultSetMapper.mapFloat(resultSet);
+        assertEquals(value, result, 0);
+    }
+
     @Test(expected = DbCallResultSetMapperException.class)
     public void testMapWithInvalidResultSet() throws Exception {
         final ResultSet resultSet = Mockito.mock(ResultSet.class);
@@ -31,6 +31,17 @@ public class IntegerResultSetMapperTest {
         assertEquals(value, result);
     }
 
+    @Test
+    public void testMapIntSuccessfully() throws Exception {
+        final int value = 123;
+
+        final ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getInt(1)).thenReturn(value);
+
+        final int result = resultSetMapper.mapInt(resultSet);
+        assertEquals(value, result);
+    }
+
     @Test(expected = DbCallResultSetMapperException.class)
     public void testMapWithInvalidResultSet() throws Exception {
         final ResultSet resultSet = Mockito.mock(ResultSet.class);
@@ -31,6 +31,17 @@ public class LongResultSetMapperTest {
         assertEquals(value, result);
     }
 
+    @Test
+    public void testMapLongSuccessfully() throws Exception {
+        final long value = 123L;
+
+        final ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(value);
+
+        final long result = resultSetMapper.mapLong(resultSet);
+        assertEquals(value, result);
+    }
+
     @Test(expected = DbCallResultSetMapperException.class)
     public void testMapWithInvalidResultSet() throws Exception {
         final ResultSet resultSet = Mockito.mock(ResultSet.class);